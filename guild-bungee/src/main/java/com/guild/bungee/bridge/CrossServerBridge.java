@@ -24,12 +24,25 @@ import java.util.logging.Logger;
  *   <tr><td>{@code guild.sync.push}</td><td>Server → Bungee</td>
  *       <td>Forward to all servers (data propagation)</td></tr>
  *   <tr><td>{@code guild.sync.request}</td><td>Server → Bungee → Target</td>
- *       <td>Forward to the server specified in payload</td></tr>
+ *       <td>Forward to the server specified in the {@code targetServer} header (or payload)</td></tr>
+ *   <tr><td>{@code guild.rpc.*}</td><td>Server → Bungee → Target</td>
+ *       <td>Requests and their responses ({@code guild.rpc.response} / {@code guild.rpc.error}),
+ *       forwarded point-to-point by {@code targetServer}</td></tr>
  *   <tr><td>{@code guild.chat.cross}</td><td>Server → Bungee → All</td>
  *       <td>Broadcast cross-server guild chat to all servers</td></tr>
  *   <tr><td>{@code guild.event.*}</td><td>Server → Bungee → All</td>
  *       <td>Broadcast guild events to all servers (except source)</td></tr>
+ *   <tr><td>{@code guild.event.invalidate.*}</td><td>Server → Bungee → All</td>
+ *       <td>Cache invalidations (guild / member / balance / currency); relayed like
+ *       any {@code guild.event.*} so other backends evict the changed entries</td></tr>
  * </table>
+ *
+ * <h3>Request / Response</h3>
+ * Point-to-point requests are forwarded with the originating server name as {@code source}
+ * and the original {@code sequence}, so the target can address its response
+ * ({@code correlationId} = request sequence, {@code targetServer} = that source). If the
+ * target server is unknown the proxy answers with {@code guild.rpc.error} itself, so the
+ * requester fails fast instead of waiting for its timeout.
  */
 public final class CrossServerBridge {
 
@@ -114,6 +127,8 @@ public final class CrossServerBridge {
                 handleSyncPush(message, sourceServer);
             } else if (type.startsWith("guild.sync.request")) {
                 handleSyncRequest(message, sourceServer);
+            } else if (type.startsWith("guild.rpc.")) {
+                handleRpc(message, sourceServer);
             } else if (type.startsWith("guild.chat.cross")) {
                 handleCrossChat(message, sourceServer);
             } else if (type.startsWith("guild.event.")) {
@@ -144,11 +159,14 @@ public final class CrossServerBridge {
      * so each instance stays in sync.
      */
     private void handleSyncPush(BungeeMessage message, ServerInfo sourceServer) {
-        logger.fine("[Bridge] Sync push from '" + sourceServer.getName()
-                + "': guildId=" + extractGuildId(message));
+        if (logger.isLoggable(Level.FINE)) {
+            logger.fine("[Bridge] Sync push from '" + sourceServer.getName()
+                    + "': guildId=" + extractGuildId(message));
+        }
 
         BungeeMessage forward = BungeeMessage.create("guild.sync.broadcast", "guild-bungee")
-                .payload(message.getPayload())
+                .payloadOf(message)
+                .guildId(message.getGuildId())
                 .build();
 
         // Forward to all servers except the source
@@ -160,26 +178,48 @@ public final class CrossServerBridge {
      * specified in the payload.
      */
     private void handleSyncRequest(BungeeMessage message, ServerInfo sourceServer) {
-        String targetServerName = extractTargetServer(message);
-        if (targetServerName == null) {
-            logger.warning("[Bridge] Sync request missing target server from '"
-                    + sourceServer.getName() + "'");
-            return;
-        }
+        routeToTarget(message, sourceServer, extractTargetServer(message));
+    }
+
+    /**
+     * Handle {@code guild.rpc.*}: requests and responses, routed by the {@code targetServer} header.
+     */
+    private void handleRpc(BungeeMessage message, ServerInfo sourceServer) {
+        routeToTarget(message, sourceServer, message.getTargetServer());
+    }
 
-        ServerInfo targetServer = ProxyServer.getInstance()
-                .getServerInfo(targetServerName);
+    /**
+     * Forward a point-to-point message, keeping sequence / correlation and naming the origin
+     * server as source. Undeliverable requests are answered with {@code guild.rpc.error}.
+     */
+    private void routeToTarget(BungeeMessage message, ServerInfo sourceServer, String targetServerName) {
+        ServerInfo targetServer = targetServerName != null
+                ? ProxyServer.getInstance().getServerInfo(targetServerName) : null;
         if (targetServer == null) {
-            logger.warning("[Bridge] Unknown target server '"
-                    + targetServerName + "' for sync request");
+            String reason = targetServerName == null
+                    ? "missing target server" : "unknown target server '" + targetServerName + "'";
+            logger.warning("[Bridge] " + message.getType() + " from '" + sourceServer.getName()
+                    + "': " + reason);
+            if (message.getCorrelationId() == 0 && message.getSequence() > 0) {
+                forwardToServer(sourceServer, BungeeMessage.create("guild.rpc.error", "guild-bungee")
+                        .target(message.getSource())
+                        .payload("{\"error\":\"" + reason.replace("\"", "'") + "\"}")
+                        .guildId(message.getGuildId())
+                        .correlationId(message.getSequence())
+                        .build());
+            }
             return;
         }
 
-        logger.fine("[Bridge] Forwarding sync request: "
+        logger.fine("[Bridge] Forwarding " + message.getType() + ": "
                 + sourceServer.getName() + " → " + targetServerName);
 
-        BungeeMessage forward = BungeeMessage.create("guild.sync.request", "guild-bungee")
-                .payload(message.getPayload())
+        BungeeMessage forward = BungeeMessage.create(message.getType(), sourceServer.getName())
+                .payloadOf(message)
+                .sequence(message.getSequence())
+                .guildId(message.getGuildId())
+                .targetServer(targetServerName)
+                .correlationId(message.getCorrelationId())
                 .build();
 
         forwardToServer(targetServer, forward);
@@ -192,7 +232,8 @@ public final class CrossServerBridge {
         logger.fine("[Bridge] Cross-chat from '" + sourceServer.getName() + "'");
 
         BungeeMessage forward = BungeeMessage.create("guild.chat.cross", "guild-bungee")
-                .payload(message.getPayload())
+                .payloadOf(message)
+                .guildId(message.getGuildId())
                 .build();
 
         // Broadcast to all servers including source (for chat display)
@@ -207,7 +248,8 @@ public final class CrossServerBridge {
                 + "': " + message.getType());
 
         BungeeMessage forward = BungeeMessage.create(message.getType(), "guild-bungee")
-                .payload(message.getPayload())
+                .payloadOf(message)
+                .guildId(message.getGuildId())
                 .build();
 
         broadcastToAllExcept(sourceServer, forward);
@@ -267,10 +309,13 @@ public final class CrossServerBridge {
     // ── Payload Helpers ──────────────────────────────────────────
 
     /**
-     * Extract guild ID from the message payload (JSON).
-     * Returns -1 if not found.
+     * Guild ID from the routing header; falls back to parsing the payload (JSON)
+     * for senders that predate routing headers. Returns -1 if not found.
      */
     private int extractGuildId(BungeeMessage message) {
+        if (message.getGuildId() >= 0) {
+            return message.getGuildId();
+        }
         try {
             String payload = message.getPayload();
             if (payload == null || payload.isEmpty()) return -1;
@@ -289,6 +334,9 @@ public final class CrossServerBridge {
      * Extract the target server name from a sync request payload.
      */
     private String extractTargetServer(BungeeMessage message) {
+        if (message.getTargetServer() != null) {
+            return message.getTargetServer();
+        }
         try {
             String payload = message.getPayload();
             if (payload == null || payload.isEmpty()) return null;
@@ -1,11 +1,9 @@
 package com.guild.bungee.channel;
 
-import com.google.gson.Gson;
-import com.google.gson.JsonObject;
-import com.google.gson.JsonParser;
 import com.guild.bungee.GuildBungeePlugin;
 import com.guild.bungee.bridge.CrossServerBridge;
 import com.guild.bungee.data.BungeeMessage;
+import com.guild.bungee.data.EnvelopeCodec;
 import net.md_5.bungee.api.ProxyServer;
 import net.md_5.bungee.api.config.ServerInfo;
 import net.md_5.bungee.api.connection.ProxiedPlayer;
@@ -17,7 +15,9 @@ import net.md_5.bungee.event.EventHandler;
 import java.io.ByteArrayInputStream;
 import java.io.DataInputStream;
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -29,9 +29,8 @@ import java.util.logging.Logger;
  * during {@link GuildBungeePlugin#onEnable()}.
  *
  * <h3>Inbound Messages</h3>
- * Messages arrive as raw byte arrays from sub-servers.
- * The first bytes contain the channel name, followed by the JSON payload.
- * Expected JSON structure:
+ * Messages arrive as raw byte arrays from sub-servers, either as the binary envelope
+ * (see {@link EnvelopeCodec}) or as the legacy JSON structure:
  * <pre>
  * {
  *   "type": "guild.sync.push",
@@ -43,6 +42,15 @@ import java.util.logging.Logger;
  * }
  * </pre>
  *
+ * <p>Sub-servers coalesce messages sent in the same tick into one batch frame
+ * ({@link EnvelopeCodec#splitBatch}); each frame of a batch is handled as if it had
+ * arrived on its own, in order.
+ *
+ * <h3>Format Negotiation</h3>
+ * A sub-server that sends a binary frame, or a JSON frame carrying {@code "envelope"},
+ * is recorded as binary-capable and receives binary frames from then on; a plain JSON
+ * frame (older guild-comm) switches it back to JSON.
+ *
  * <h3>Outbound Messages</h3>
  * The handler also provides {@link #sendToServer(ServerInfo, BungeeMessage)}
  * to forward messages from Bungee back to specific sub-servers.
@@ -55,13 +63,13 @@ public final class GuildChannelHandler implements Listener {
     private final GuildBungeePlugin plugin;
     private final CrossServerBridge bridge;
     private final Logger logger;
-    private final Gson gson;
+    /** Names of sub-servers that understand the binary envelope. */
+    private final Set<String> binaryServers = ConcurrentHashMap.newKeySet();
 
     public GuildChannelHandler(GuildBungeePlugin plugin, CrossServerBridge bridge) {
         this.plugin = plugin;
         this.bridge = bridge;
         this.logger = plugin.getLogger();
-        this.gson = new Gson();
     }
 
     // ── Inbound: Receive Plugin Message from sub-server ───────────
@@ -82,18 +90,36 @@ public final class GuildChannelHandler implements Listener {
         Server sender = (Server) event.getSender();
         ServerInfo sourceServer = sender.getInfo();
 
-        try {
-            byte[] data = event.getData();
-            String json = new String(data, StandardCharsets.UTF_8);
-            logger.fine("[Channel] Received from '" + sourceServer.getName()
-                    + "': " + truncate(json, 200));
-
-            BungeeMessage message = gson.fromJson(json, BungeeMessage.class);
-            if (message == null) {
-                logger.warning("[Channel] Failed to parse message from '"
-                        + sourceServer.getName() + "'");
+        byte[] data = event.getData();
+        if (EnvelopeCodec.isBatch(data)) {
+            List<byte[]> frames;
+            try {
+                frames = EnvelopeCodec.splitBatch(data);
+            } catch (Exception e) {
+                logger.log(Level.WARNING,
+                        "[Channel] Malformed batch from '"
+                                + sourceServer.getName() + "': " + e.getMessage(), e);
                 return;
             }
+            for (byte[] frame : frames) {
+                handleFrame(frame, sourceServer);
+            }
+        } else {
+            handleFrame(data, sourceServer);
+        }
+    }
+
+    private void handleFrame(byte[] data, ServerInfo sourceServer) {
+        try {
+            EnvelopeCodec.Decoded decoded = EnvelopeCodec.decode(data);
+            BungeeMessage message = decoded.message();
+            if (decoded.peerVersion() >= EnvelopeCodec.VERSION) {
+                binaryServers.add(sourceServer.getName());
+            } else {
+                binaryServers.remove(sourceServer.getName());
+            }
+            logger.fine("[Channel] Received from '" + sourceServer.getName()
+                    + "': " + message);
 
             // Attach metadata
             message.setSourceServer(sourceServer.getName());
@@ -120,8 +146,7 @@ public final class GuildChannelHandler implements Listener {
         if (target == null || message == null) return;
 
         try {
-            String json = gson.toJson(message);
-            byte[] data = json.getBytes(StandardCharsets.UTF_8);
+            byte[] data = encodeFor(target, message);
 
             if (!target.sendData(CHANNEL_NAME, data, true)) {
                 logger.warning("[Channel] Failed to send data to server '"
@@ -141,12 +166,11 @@ public final class GuildChannelHandler implements Listener {
      * Broadcast a message to all connected sub-servers.
      */
     public void broadcastToAll(BungeeMessage message) {
-        String json = gson.toJson(message);
-        byte[] data = json.getBytes(StandardCharsets.UTF_8);
+        Frames frames = new Frames(message);
 
         for (ServerInfo server : ProxyServer.getInstance().getServers().values()) {
             try {
-                server.sendData(CHANNEL_NAME, data, true);
+                server.sendData(CHANNEL_NAME, frames.forServer(server), true);
             } catch (Exception e) {
                 logger.log(Level.WARNING,
                         "[Channel] Broadcast error to '" + server.getName()
@@ -162,13 +186,12 @@ public final class GuildChannelHandler implements Listener {
      * Broadcast a message to all connected sub-servers except the specified one.
      */
     public void broadcastToAllExcept(ServerInfo exclude, BungeeMessage message) {
-        String json = gson.toJson(message);
-        byte[] data = json.getBytes(StandardCharsets.UTF_8);
+        Frames frames = new Frames(message);
 
         for (ServerInfo server : ProxyServer.getInstance().getServers().values()) {
             if (server.equals(exclude)) continue;
             try {
-                server.sendData(CHANNEL_NAME, data, true);
+                server.sendData(CHANNEL_NAME, frames.forServer(server), true);
             } catch (Exception e) {
                 logger.log(Level.WARNING,
                         "[Channel] Broadcast error to '" + server.getName()
@@ -177,10 +200,34 @@ public final class GuildChannelHandler implements Listener {
         }
     }
 
+    /**
+     * Encode a message in the format the given sub-server negotiated.
+     */
+    public byte[] encodeFor(ServerInfo target, BungeeMessage message) {
+        return binaryServers.contains(target.getName())
+                ? EnvelopeCodec.encodeBinary(message)
+                : EnvelopeCodec.encodeJson(message);
+    }
+
     // ── Helpers ──────────────────────────────────────────────────
 
-    private static String truncate(String s, int maxLen) {
-        if (s == null) return "null";
-        return s.length() <= maxLen ? s : s.substring(0, maxLen) + "...";
+    /** Encodes a broadcast at most once per format. */
+    private final class Frames {
+        private final BungeeMessage message;
+        private byte[] binary;
+        private byte[] json;
+
+        Frames(BungeeMessage message) {
+            this.message = message;
+        }
+
+        byte[] forServer(ServerInfo server) {
+            if (binaryServers.contains(server.getName())) {
+                if (binary == null) binary = EnvelopeCodec.encodeBinary(message);
+                return binary;
+            }
+            if (json == null) json = EnvelopeCodec.encodeJson(message);
+            return json;
+        }
     }
 }
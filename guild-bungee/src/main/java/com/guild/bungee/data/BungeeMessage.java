@@ -2,13 +2,16 @@ package com.guild.bungee.data;
 
 import com.google.gson.annotations.SerializedName;
 
+import java.nio.charset.StandardCharsets;
+
 /**
  * Lightweight message envelope used for BungeeCord ↔ sub-server communication.
  *
  * <p>This is a simplified equivalent of {@code com.guild.comm.bridge.MessagePacket},
  * designed to be self-contained within the guild-bungee module without depending
- * on Spigot API or guild-comm. Messages are JSON-serialized and transmitted
- * via the BungeeCord Plugin Messaging Channel {@code guild:main}.
+ * on Spigot API or guild-comm. Messages are encoded by {@link EnvelopeCodec}
+ * (binary envelope, JSON fallback) and transmitted via the BungeeCord Plugin
+ * Messaging Channel {@code guild:main}.
  *
  * <h3>Fields</h3>
  * <table>
@@ -19,7 +22,13 @@ import com.google.gson.annotations.SerializedName;
  *   <tr><td>payload</td><td>String</td><td>JSON payload, structured per message type</td></tr>
  *   <tr><td>sequence</td><td>long</td><td>Monotonic sequence number for tracing</td></tr>
  *   <tr><td>timestamp</td><td>long</td><td>Epoch millis when the message was created</td></tr>
+ *   <tr><td>guildId</td><td>int</td><td>Routing header: guild concerned (-1 = none)</td></tr>
+ *   <tr><td>targetServer</td><td>String</td><td>Routing header: destination server (optional)</td></tr>
+ *   <tr><td>correlationId</td><td>long</td><td>Sequence of the request a response answers (0 = none)</td></tr>
  * </table>
+ *
+ * <p>Messages decoded from a binary frame keep the payload as raw bytes; it is only
+ * turned into a String if {@link #getPayload()} is called, and forwarded as-is otherwise.
  */
 public class BungeeMessage {
 
@@ -41,6 +50,18 @@ public class BungeeMessage {
     @SerializedName("timestamp")
     private long timestamp;
 
+    @SerializedName("guildId")
+    private Integer guildId;
+
+    @SerializedName("targetServer")
+    private String targetServer;
+
+    @SerializedName("correlationId")
+    private long correlationId;
+
+    /** Transient — raw UTF-8 payload from a binary frame, decoded lazily. */
+    private transient byte[] payloadBytes;
+
     /** Transient — not serialized. Set by the channel handler on receipt. */
     private transient String sourceServer;
 
@@ -69,8 +90,22 @@ public class BungeeMessage {
     public String getTarget()         { return target; }
     public void   setTarget(String t) { this.target = t; }
 
-    public String getPayload()        { return payload; }
-    public void   setPayload(String p) { this.payload = p; }
+    public String getPayload() {
+        if (payload == null && payloadBytes != null) {
+            payload = new String(payloadBytes, StandardCharsets.UTF_8);
+        }
+        return payload;
+    }
+    public void   setPayload(String p) { this.payload = p; this.payloadBytes = null; }
+
+    /** @return the payload as UTF-8 bytes without a String round-trip when it came from a binary frame. */
+    public byte[] getPayloadBytes() {
+        if (payloadBytes == null) {
+            payloadBytes = payload != null ? payload.getBytes(StandardCharsets.UTF_8) : new byte[0];
+        }
+        return payloadBytes;
+    }
+    public void   setPayloadBytes(byte[] b) { this.payloadBytes = b; this.payload = null; }
 
     public long   getSequence()       { return sequence; }
     public void   setSequence(long s) { this.sequence = s; }
@@ -78,6 +113,16 @@ public class BungeeMessage {
     public long   getTimestamp()      { return timestamp; }
     public void   setTimestamp(long t) { this.timestamp = t; }
 
+    /** @return the guild routing header, or -1 if absent. */
+    public int    getGuildId()        { return guildId != null ? guildId : -1; }
+    public void   setGuildId(int id)  { this.guildId = id >= 0 ? id : null; }
+
+    public String getTargetServer()         { return targetServer; }
+    public void   setTargetServer(String s) { this.targetServer = s; }
+
+    public long   getCorrelationId()        { return correlationId; }
+    public void   setCorrelationId(long id) { this.correlationId = id; }
+
     /** @return the source server name (transient, set by handler). */
     public String getSourceServer()          { return sourceServer; }
     public void   setSourceServer(String s)  { this.sourceServer = s; }
@@ -98,7 +143,11 @@ public class BungeeMessage {
         private final String source;
         private String target = "*";
         private String payload = "{}";
+        private byte[] payloadBytes;
         private long sequence;
+        private int guildId = -1;
+        private String targetServer;
+        private long correlationId;
 
         private Builder(String type, String source) {
             this.type = type;
@@ -112,6 +161,28 @@ public class BungeeMessage {
 
         public Builder payload(String payload) {
             this.payload = payload;
+            this.payloadBytes = null;
+            return this;
+        }
+
+        /** Reuse another message's payload (raw bytes when available — no re-encoding). */
+        public Builder payloadOf(BungeeMessage other) {
+            if (other.payload == null && other.payloadBytes != null) {
+                this.payloadBytes = other.payloadBytes;
+                this.payload = null;
+            } else {
+                payload(other.payload);
+            }
+            return this;
+        }
+
+        public Builder guildId(int guildId) {
+            this.guildId = guildId;
+            return this;
+        }
+
+        public Builder targetServer(String targetServer) {
+            this.targetServer = targetServer;
             return this;
         }
 
@@ -120,8 +191,20 @@ public class BungeeMessage {
             return this;
         }
 
+        public Builder correlationId(long correlationId) {
+            this.correlationId = correlationId;
+            return this;
+        }
+
         public BungeeMessage build() {
-            return new BungeeMessage(type, source, target, payload, sequence);
+            BungeeMessage message = new BungeeMessage(type, source, target, payload, sequence);
+            if (payloadBytes != null) {
+                message.setPayloadBytes(payloadBytes);
+            }
+            message.setGuildId(guildId);
+            message.setTargetServer(targetServer);
+            message.setCorrelationId(correlationId);
+            return message;
         }
     }
 
@@ -0,0 +1,296 @@
+package com.guild.bungee.data;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Wire codec for {@code guild:main} plugin messages (proxy side).
+ *
+ * <p>Byte-compatible mirror of {@code com.guild.comm.bridge.EnvelopeCodec}; see there for the
+ * layout. Binary frames start with {@code 0xB7}, batch frames with {@code 0xB8} and JSON frames
+ * with {@code '{'}. Routing headers
+ * ({@code guildId}, {@code targetServer}, {@code correlationId}) sit outside the payload, and the payload of a binary
+ * frame is kept as raw bytes so forwarding never decodes or re-encodes it.
+ *
+ * <p>{@link #KNOWN_TYPES} is append-only and must match the guild-comm table.
+ */
+public final class EnvelopeCodec {
+
+    public static final int MAGIC = 0xB7;
+    public static final int BATCH_MAGIC = 0xB8;
+    public static final int VERSION = 1;
+
+    private static final int FLAG_GUILD_ID = 1;
+    private static final int FLAG_TARGET_SERVER = 2;
+    private static final int FLAG_CORRELATION = 4;
+    private static final int MAX_LENGTH = 1 << 20;
+
+    /** Message types encoded as a single varint. Append-only — ids are part of the wire format. */
+    static final String[] KNOWN_TYPES = {
+            "guild.sync.push",
+            "guild.sync.request",
+            "guild.sync.broadcast",
+            "guild.chat.cross",
+            "guild.event.broadcast",
+            "guild.player.connect",
+            "guild.form.send",
+            "guild.form.response",
+            "guild.event.invalidate.guild",
+            "guild.event.invalidate.member",
+            "guild.event.invalidate.balance",
+            "guild.event.invalidate.currency",
+            "war.challenge",
+            "war.challenge.notify",
+            "war.accept",
+            "war.deny",
+            "war.arena.create",
+            "war.arena.ready",
+            "war.transfer",
+            "war.end.snapshot",
+            "war.report.fanout",
+            "guild.rpc.response",
+            "guild.rpc.error",
+    };
+    private static final Map<String, Integer> TYPE_IDS = new HashMap<>();
+
+    static {
+        for (int i = 0; i < KNOWN_TYPES.length; i++) {
+            TYPE_IDS.put(KNOWN_TYPES[i], i + 1);
+        }
+    }
+
+    /** A decoded frame and the envelope version its sender advertised (0 = JSON-only peer). */
+    public record Decoded(BungeeMessage message, int peerVersion) {
+    }
+
+    private EnvelopeCodec() {}
+
+    public static boolean isBinary(byte[] data) {
+        return data != null && data.length >= 2 && (data[0] & 0xFF) == MAGIC;
+    }
+
+    public static boolean isBatch(byte[] data) {
+        return data != null && data.length >= 2 && (data[0] & 0xFF) == BATCH_MAGIC;
+    }
+
+    // ── Encode ───────────────────────────────────────────────────
+
+    public static byte[] encodeBinary(BungeeMessage message) {
+        byte[] payload = message.getPayloadBytes();
+        ByteArrayOutputStream out = new ByteArrayOutputStream(32 + payload.length);
+        out.write(MAGIC);
+        out.write(VERSION);
+        Integer typeId = TYPE_IDS.get(message.getType());
+        if (typeId != null) {
+            varlong(out, typeId);
+        } else {
+            varlong(out, 0);
+            string(out, message.getType());
+        }
+        string(out, message.getSource());
+        string(out, message.getTarget());
+        varlong(out, message.getSequence());
+        varlong(out, message.getTimestamp());
+        int guildId = message.getGuildId();
+        int flags = (guildId >= 0 ? FLAG_GUILD_ID : 0)
+                | (message.getTargetServer() != null ? FLAG_TARGET_SERVER : 0)
+                | (message.getCorrelationId() != 0 ? FLAG_CORRELATION : 0);
+        out.write(flags);
+        if ((flags & FLAG_GUILD_ID) != 0) {
+            varlong(out, ((long) guildId << 1) ^ (guildId >> 31));
+        }
+        if ((flags & FLAG_TARGET_SERVER) != 0) {
+            string(out, message.getTargetServer());
+        }
+        if ((flags & FLAG_CORRELATION) != 0) {
+            varlong(out, message.getCorrelationId());
+        }
+        varlong(out, payload.length);
+        out.write(payload, 0, payload.length);
+        return out.toByteArray();
+    }
+
+    /** Legacy JSON frame, plus routing headers and the {@code envelope} capability advertisement. */
+    public static byte[] encodeJson(BungeeMessage message) {
+        JsonObject json = new JsonObject();
+        json.addProperty("type", message.getType());
+        json.addProperty("source", message.getSource());
+        json.addProperty("target", message.getTarget());
+        json.addProperty("payload", message.getPayload());
+        json.addProperty("sequence", message.getSequence());
+        json.addProperty("timestamp", message.getTimestamp());
+        if (message.getGuildId() >= 0) {
+            json.addProperty("guildId", message.getGuildId());
+        }
+        if (message.getTargetServer() != null) {
+            json.addProperty("targetServer", message.getTargetServer());
+        }
+        if (message.getCorrelationId() != 0) {
+            json.addProperty("correlationId", message.getCorrelationId());
+        }
+        json.addProperty("envelope", VERSION);
+        return json.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    // ── Decode ───────────────────────────────────────────────────
+
+    /**
+     * Split a batch frame into the frames it carries (each binary or JSON).
+     *
+     * @throws IOException on a malformed batch or an unsupported envelope version
+     */
+    public static List<byte[]> splitBatch(byte[] data) throws IOException {
+        int version = data[1] & 0xFF;
+        if (version > VERSION) {
+            throw new IOException("Unsupported envelope version " + version);
+        }
+        ByteBuffer in = ByteBuffer.wrap(data, 2, data.length - 2);
+        try {
+            int count = readLength(in);
+            List<byte[]> frames = new ArrayList<>(Math.min(count, 256));
+            for (int i = 0; i < count; i++) {
+                int length = readLength(in);
+                frames.add(Arrays.copyOfRange(data, in.position(), in.position() + length));
+                in.position(in.position() + length);
+            }
+            return frames;
+        } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+            throw new IOException("Truncated batch");
+        }
+    }
+
+    /**
+     * Decode either format.
+     *
+     * @throws IOException on a malformed frame or an unsupported envelope version
+     */
+    public static Decoded decode(byte[] data) throws IOException {
+        return isBinary(data) ? decodeBinary(data) : decodeJson(data);
+    }
+
+    private static Decoded decodeBinary(byte[] data) throws IOException {
+        int version = data[1] & 0xFF;
+        if (version > VERSION) {
+            throw new IOException("Unsupported envelope version " + version);
+        }
+        ByteBuffer in = ByteBuffer.wrap(data, 2, data.length - 2);
+        try {
+            int typeId = (int) readVarlong(in);
+            BungeeMessage message = new BungeeMessage();
+            if (typeId == 0) {
+                message.setType(readString(in));
+            } else if (typeId <= KNOWN_TYPES.length) {
+                message.setType(KNOWN_TYPES[typeId - 1]);
+            } else {
+                throw new IOException("Unknown type id " + typeId);
+            }
+            message.setSource(readString(in));
+            message.setTarget(readString(in));
+            message.setSequence(readVarlong(in));
+            message.setTimestamp(readVarlong(in));
+            int flags = in.get() & 0xFF;
+            if ((flags & FLAG_GUILD_ID) != 0) {
+                long zz = readVarlong(in);
+                message.setGuildId((int) ((zz >>> 1) ^ -(zz & 1)));
+            }
+            if ((flags & FLAG_TARGET_SERVER) != 0) {
+                message.setTargetServer(readString(in));
+            }
+            if ((flags & FLAG_CORRELATION) != 0) {
+                message.setCorrelationId(readVarlong(in));
+            }
+            int length = readLength(in);
+            message.setPayloadBytes(Arrays.copyOfRange(data, in.position(), in.position() + length));
+            return new Decoded(message, version);
+        } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+            throw new IOException("Truncated envelope");
+        }
+    }
+
+    private static Decoded decodeJson(byte[] data) throws IOException {
+        JsonObject root;
+        try {
+            root = JsonParser.parseString(new String(data, StandardCharsets.UTF_8)).getAsJsonObject();
+        } catch (RuntimeException e) {
+            throw new IOException("Malformed JSON envelope: " + e.getMessage());
+        }
+        if (!root.has("type")) {
+            throw new IOException("Envelope without type field");
+        }
+        BungeeMessage message = new BungeeMessage();
+        message.setType(root.get("type").getAsString());
+        message.setSource(root.has("source") ? root.get("source").getAsString() : null);
+        message.setTarget(root.has("target") ? root.get("target").getAsString() : "*");
+        JsonElement payload = root.get("payload");
+        message.setPayload(payload == null || payload.isJsonNull() ? "{}"
+                : payload.isJsonPrimitive() ? payload.getAsString() : payload.toString());
+        message.setSequence(root.has("sequence") ? root.get("sequence").getAsLong() : 0);
+        message.setTimestamp(root.has("timestamp") ? root.get("timestamp").getAsLong() : 0);
+        if (root.has("guildId")) {
+            message.setGuildId(root.get("guildId").getAsInt());
+        }
+        if (root.has("targetServer")) {
+            message.setTargetServer(root.get("targetServer").getAsString());
+        }
+        if (root.has("correlationId")) {
+            message.setCorrelationId(root.get("correlationId").getAsLong());
+        }
+        int peerVersion = root.has("envelope") ? root.get("envelope").getAsInt() : 0;
+        return new Decoded(message, peerVersion);
+    }
+
+    // ── Primitives ───────────────────────────────────────────────
+
+    private static void varlong(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static void string(ByteArrayOutputStream out, String s) {
+        byte[] bytes = s == null ? new byte[0] : s.getBytes(StandardCharsets.UTF_8);
+        varlong(out, bytes.length);
+        out.write(bytes, 0, bytes.length);
+    }
+
+    private static long readVarlong(ByteBuffer in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed varint");
+    }
+
+    private static int readLength(ByteBuffer in) throws IOException {
+        long length = readVarlong(in);
+        if (length < 0 || length > MAX_LENGTH || length > in.remaining()) {
+            throw new IOException("Invalid length " + length);
+        }
+        return (int) length;
+    }
+
+    private static String readString(ByteBuffer in) throws IOException {
+        int length = readLength(in);
+        String s = new String(in.array(), in.position(), length, StandardCharsets.UTF_8);
+        in.position(in.position() + length);
+        return s;
+    }
+}
@@ -3,8 +3,11 @@ package com.guild.bungee.listener;
 import com.google.gson.JsonObject;
 import com.guild.bungee.GuildBungeePlugin;
 import com.guild.bungee.channel.GuildChannelHandler;
+import com.guild.bungee.data.BungeeMessage;
+import com.guild.bungee.data.EnvelopeCodec;
 import com.guild.bungee.data.PlayerConnectionType;
 import net.md_5.bungee.api.ProxyServer;
+import net.md_5.bungee.api.config.ServerInfo;
 import net.md_5.bungee.api.connection.ProxiedPlayer;
 import net.md_5.bungee.api.event.PlayerDisconnectEvent;
 import net.md_5.bungee.api.event.PostLoginEvent;
@@ -13,7 +16,6 @@ import net.md_5.bungee.api.plugin.Listener;
 import net.md_5.bungee.event.EventHandler;
 import net.md_5.bungee.event.EventPriority;
 
-import java.nio.charset.StandardCharsets;
 import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
@@ -214,18 +216,19 @@ public final class PlayerTypeDetector implements Listener {
             if (inputMode != null) payload.addProperty("inputMode", inputMode);
         }
 
-        // Build the full message envelope
-        JsonObject message = new JsonObject();
-        message.addProperty("type", "guild.player.connect");
-        message.addProperty("source", "guild-bungee");
-        message.addProperty("target", serverName);
-        message.addProperty("payload", payload.toString());
-        message.addProperty("sequence", sequence);
-        message.addProperty("timestamp", System.currentTimeMillis());
-
-        byte[] data = message.toString().getBytes(StandardCharsets.UTF_8);
-        boolean sent = player.getServer().getInfo()
-                .sendData(GuildChannelHandler.CHANNEL_NAME, data, true);
+        // Build the full message envelope (format negotiated per server by the channel handler)
+        BungeeMessage message = BungeeMessage.create("guild.player.connect", "guild-bungee")
+                .target(serverName)
+                .payload(payload.toString())
+                .sequence(sequence)
+                .build();
+
+        ServerInfo info = player.getServer().getInfo();
+        GuildChannelHandler handler = plugin.getChannelHandler();
+        byte[] data = handler != null
+                ? handler.encodeFor(info, message)
+                : EnvelopeCodec.encodeJson(message);
+        boolean sent = info.sendData(GuildChannelHandler.CHANNEL_NAME, data, true);
 
         if (sent && sequence == 0) {
             logger.info("[PlayerType] Sent connection type for " + playerName
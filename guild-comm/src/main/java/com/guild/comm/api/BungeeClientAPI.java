@@ -1,11 +1,12 @@
 package com.guild.comm.api;
 
-import com.google.gson.Gson;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
 import com.guild.comm.bridge.ChannelRouter;
+import com.guild.comm.bridge.EnvelopeCodec;
 import com.guild.comm.bridge.ExtensionBridge;
 import com.guild.comm.bridge.MessagePacket;
+import com.guild.comm.debug.TraceContext;
 import org.bukkit.Bukkit;
 import org.bukkit.entity.Player;
 import org.bukkit.plugin.Plugin;
@@ -13,8 +14,8 @@ import org.bukkit.plugin.messaging.PluginMessageListener;
 
 import java.io.ByteArrayOutputStream;
 import java.io.DataOutputStream;
-import java.nio.charset.StandardCharsets;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
@@ -31,8 +32,9 @@ import java.util.logging.Logger;
  * <h3>Lifecycle</h3>
  * <ol>
  *   <li>Guild Plugin calls {@link #initialize(Plugin)} during {@code onEnable}.</li>
- *   <li>Outgoing messages are sent via the Plugin Messaging Channel {@code guild:main}
- *       using any available online player as the carrier.</li>
+ *   <li>Outgoing messages are queued, coalesced per tick and sent via the Plugin Messaging
+ *       Channel {@code guild:main} using any available online player as the carrier
+ *       (see {@link BungeeOutboundQueue}); while no player is online they are buffered.</li>
  *   <li>Incoming messages from Bungee are received via {@link PluginMessageListener}
  *       and dispatched through the {@link ChannelRouter} for local processing.</li>
  *   <li>{@link #shutdown()} cleans up during {@code onDisable}.</li>
@@ -45,7 +47,17 @@ import java.util.logging.Logger;
  *   <tr><td>{@code guild.sync.broadcast}</td><td>Guild data sync broadcast</td></tr>
  *   <tr><td>{@code guild.chat.cross}</td><td>Cross-server guild chat</td></tr>
  *   <tr><td>{@code guild.event.*}</td><td>Guild event propagation</td></tr>
+ *   <tr><td>{@code guild.sync.request}, {@code guild.rpc.*}</td><td>Requests from another server;
+ *       answer with {@link #reply} / {@link #replyError}</td></tr>
+ *   <tr><td>{@code guild.rpc.response}, {@code guild.rpc.error}</td><td>Responses; matched to
+ *       pending {@link #request} futures, not routed</td></tr>
  * </table>
+ *
+ * <h3>Wire Format</h3>
+ * Frames are encoded by {@link EnvelopeCodec}. Outgoing frames are JSON (advertising binary
+ * support) until the proxy is seen sending a binary frame or advertising support itself;
+ * from then on the compact binary envelope is used, and messages flushed in the same tick are
+ * packed into one batch frame. Incoming frames may be either format.
  */
 public final class BungeeClientAPI implements PluginMessageListener {
 
@@ -57,7 +69,10 @@ public final class BungeeClientAPI implements PluginMessageListener {
     private static Plugin plugin;
     private static volatile boolean initialized;
     private static String initializationError;
-    private static final Gson gson = new Gson();
+    /** Set once the proxy has shown it understands the binary envelope. */
+    private static volatile boolean proxyBinary;
+    private static volatile BungeeOutboundQueue outboundQueue;
+    private static volatile int outboundCapacity = 1024;
 
     /** Cache of player connection types, keyed by UUID. Populated by Bungee messages. */
     private static final ConcurrentHashMap<UUID, PlayerConnectionInfo> playerConnectionCache =
@@ -104,6 +119,11 @@ public final class BungeeClientAPI implements PluginMessageListener {
             Bukkit.getMessenger().registerOutgoingPluginChannel(plugin, CHANNEL_NAME);
             Bukkit.getMessenger().registerIncomingPluginChannel(plugin, CHANNEL_NAME, instance);
 
+            BungeeOutboundQueue queue = new BungeeOutboundQueue(plugin);
+            queue.setCapacity(outboundCapacity);
+            queue.start();
+            outboundQueue = queue;
+
             initialized = true;
             initializationError = null;
             logger.info("[BungeeClient] Initialized. Channel: " + CHANNEL_NAME);
@@ -141,10 +161,17 @@ public final class BungeeClientAPI implements PluginMessageListener {
     public static void shutdown() {
         if (!initialized) return;
 
+        BungeeOutboundQueue queue = outboundQueue;
+        if (queue != null) {
+            queue.shutdown();
+            outboundQueue = null;
+        }
+
         Bukkit.getMessenger().unregisterOutgoingPluginChannel(plugin, CHANNEL_NAME);
         Bukkit.getMessenger().unregisterIncomingPluginChannel(plugin, CHANNEL_NAME, instance);
 
         playerConnectionCache.clear();
+        proxyBinary = false;
         initialized = false;
         instance = null;
         logger.info("[BungeeClient] Shut down.");
@@ -155,6 +182,37 @@ public final class BungeeClientAPI implements PluginMessageListener {
         return initialized;
     }
 
+    /**
+     * Set the outbound queue bound; once reached, the oldest buffered message is dropped.
+     * May be called before {@link #initialize(Plugin)}.
+     */
+    public static void setOutboundQueueCapacity(int capacity) {
+        outboundCapacity = Math.max(1, capacity);
+        BungeeOutboundQueue queue = outboundQueue;
+        if (queue != null) {
+            queue.setCapacity(outboundCapacity);
+        }
+    }
+
+    /** @return number of messages waiting to be sent (buffered or pending the next tick). */
+    public static int getOutboundQueueDepth() {
+        BungeeOutboundQueue queue = outboundQueue;
+        return queue != null ? queue.depth() : 0;
+    }
+
+    /**
+     * Snapshot of the outbound queue: depth, sent messages / frames, drops and queue latency.
+     * Result is {@code buffering} while waiting for a carrier player.
+     */
+    public static TraceContext getOutboundStats() {
+        BungeeOutboundQueue queue = outboundQueue;
+        return queue != null ? queue.stats() : new TraceContext("bungee-outbound").finish("not initialized");
+    }
+
+    static boolean isProxyBinary() {
+        return proxyBinary;
+    }
+
     /**
      * Register a callback to be invoked whenever a player's connection info
      * is received and cached from the Bungee proxy.
@@ -185,16 +243,14 @@ public final class BungeeClientAPI implements PluginMessageListener {
         if (!CHANNEL_NAME.equals(channel)) return;
 
         try {
-            String json = new String(message, StandardCharsets.UTF_8);
-            JsonObject root = JsonParser.parseString(json).getAsJsonObject();
-
-            String type = root.has("type") ? root.get("type").getAsString() : null;
-            if (type == null) {
-                logger.warning("[BungeeClient] Received message without type field");
-                return;
+            EnvelopeCodec.Decoded decoded = EnvelopeCodec.decode(message, "guild-bungee");
+            if (decoded.peerVersion() >= EnvelopeCodec.VERSION && !proxyBinary) {
+                proxyBinary = true;
+                logger.fine("[BungeeClient] Proxy supports binary envelope v" + decoded.peerVersion());
             }
-
-            String payload = root.has("payload") ? root.get("payload").getAsString() : "{}";
+            MessagePacket inbound = decoded.packet();
+            String type = inbound.getType();
+            String payload = inbound.getPayload();
 
             logger.fine("[BungeeClient] Received: type=" + type);
 
@@ -209,15 +265,21 @@ public final class BungeeClientAPI implements PluginMessageListener {
             }
 
             // Dispatch to ChannelRouter for guild-plugin listeners
-            long seq = root.has("sequence") ? root.get("sequence").getAsLong() : 0;
-            String source = root.has("source") ? root.get("source").getAsString() : "guild-bungee";
-
-            MessagePacket packet = MessagePacket.create(type, source)
+            MessagePacket packet = MessagePacket.create(type, inbound.getSource())
                     .target("guild-core")
                     .payload(payload)
-                    .sequence(seq)
+                    .sequence(inbound.getSequence())
+                    .timestamp(inbound.getTimestamp())
+                    .guildId(inbound.getGuildId())
+                    .targetServer(inbound.getTargetServer())
+                    .correlationId(inbound.getCorrelationId())
                     .build();
 
+            // Responses complete the pending request instead of being routed
+            if (packet.isResponse() && ExtensionBridge.getInstance().completeRequest(packet)) {
+                return;
+            }
+
             ExtensionBridge.getInstance().getRouter().route(packet);
 
         } catch (Exception e) {
@@ -328,14 +390,26 @@ public final class BungeeClientAPI implements PluginMessageListener {
     /**
      * Send a message to the BungeeCord proxy.
      * <p>
-     * The message is serialized as JSON and transmitted via the Plugin
-     * Messaging Channel. Requires at least one player online to carry the message.
+     * The message is queued and sent on the next tick together with everything else sent in
+     * this tick. Plugin messages need an online player as carrier; without one the message is
+     * buffered (bounded, oldest dropped first) until a player joins.
      *
      * @param type    message type (e.g. "guild.sync.push")
      * @param payload JSON payload
      */
     public static void sendToBungee(String type, String payload) {
-        if (!initialized) {
+        sendToBungee(type, payload, -1, null);
+    }
+
+    /**
+     * Send a message with routing headers, so the proxy can route it without parsing the payload.
+     *
+     * @param guildId      guild the message concerns, or -1
+     * @param targetServer destination server for point-to-point messages, or null
+     */
+    public static void sendToBungee(String type, String payload, int guildId, String targetServer) {
+        BungeeOutboundQueue queue = outboundQueue;
+        if (!initialized || queue == null) {
             if (logger != null) {
                 logger.warning("[BungeeClient] Not initialized — message dropped: " + type);
             }
@@ -347,28 +421,86 @@ public final class BungeeClientAPI implements PluginMessageListener {
                 .target("guild-bungee")
                 .payload(payload)
                 .sequence(seq)
+                .guildId(guildId)
+                .targetServer(targetServer)
                 .build();
 
-        // Serialize to JSON
-        JsonObject json = new JsonObject();
-        json.addProperty("type", packet.getType());
-        json.addProperty("source", packet.getSource());
-        json.addProperty("target", packet.getTarget());
-        json.addProperty("payload", packet.getPayload());
-        json.addProperty("sequence", packet.getSequence());
-        json.addProperty("timestamp", packet.getTimestamp());
-
-        byte[] data = gson.toJson(json).getBytes(StandardCharsets.UTF_8);
-
-        // Send via any online player (BungeeCord Plugin Messaging requires a player carrier)
-        Player carrier = getAnyOnlinePlayer();
-        if (carrier == null) {
-            logger.warning("[BungeeClient] No online players to carry message: " + type);
-            return;
+        queue.offer(packet);
+        logger.fine("[BungeeClient] Queued: " + packet);
+    }
+
+    /**
+     * Send a point-to-point request to another server and await its response.
+     * <p>
+     * The proxy forwards the request to {@code targetServer} with the originating server name as
+     * {@link MessagePacket#getSource() source}; the handler there answers with
+     * {@link #reply(MessagePacket, String)}. The future completes on the thread that receives the
+     * response (the main thread on Spigot), fails with {@link java.util.concurrent.TimeoutException}
+     * after {@code timeoutMs}, or with {@link IllegalStateException} if the proxy reports the
+     * target as unknown. Request types other than {@code guild.sync.request} must start with
+     * {@code guild.rpc.} to be routed by the proxy.
+     *
+     * @param targetServer destination server name as configured on the proxy
+     */
+    public static CompletableFuture<MessagePacket> request(String type, String payload, int guildId,
+                                                           String targetServer, long timeoutMs) {
+        BungeeOutboundQueue queue = outboundQueue;
+        if (!initialized || queue == null) {
+            return CompletableFuture.failedFuture(
+                    new IllegalStateException("BungeeClientAPI not initialized"));
+        }
+        ExtensionBridge bridge = ExtensionBridge.getInstance();
+        long seq = bridge.nextSequence();
+        CompletableFuture<MessagePacket> future;
+        try {
+            future = bridge.awaitResponse(seq, type, timeoutMs);
+        } catch (IllegalStateException e) {
+            // bridge not initialized or sequence already pending: fail like the branch above
+            return CompletableFuture.failedFuture(e);
         }
+        queue.offer(MessagePacket.create(type, "guild-core")
+                .target("guild-bungee")
+                .payload(payload)
+                .sequence(seq)
+                .guildId(guildId)
+                .targetServer(targetServer)
+                .build());
+        return future;
+    }
 
-        carrier.sendPluginMessage(plugin, CHANNEL_NAME, data);
-        logger.fine("[BungeeClient] Sent: " + packet + " via " + carrier.getName());
+    /**
+     * Answer a request received from another server (see {@link #request}).
+     *
+     * @param request the request packet as delivered to the topic handler
+     * @param payload JSON response payload
+     */
+    public static void reply(MessagePacket request, String payload) {
+        sendReply(MessagePacket.replyTo(request, "guild-core"), request, payload);
+    }
+
+    /**
+     * Answer a request with an error; the requester's future fails with {@code reason}.
+     */
+    public static void replyError(MessagePacket request, String reason) {
+        MessagePacket.Builder builder = MessagePacket.create(ExtensionBridge.ERROR_TYPE, "guild-core")
+                .target(request.getSource())
+                .guildId(request.getGuildId())
+                .correlationId(request.getSequence());
+        sendReply(builder, request, "{\"error\":\"" + escapeJson(reason) + "\"}");
+    }
+
+    /** Responses go back to the server that sent the request (the proxy sets it as source). */
+    private static void sendReply(MessagePacket.Builder builder, MessagePacket request, String payload) {
+        BungeeOutboundQueue queue = outboundQueue;
+        if (!initialized || queue == null) {
+            return;
+        }
+        MessagePacket response = builder.payload(payload)
+                .sequence(ExtensionBridge.getInstance().nextSequence())
+                .targetServer(request.getSource())
+                .build();
+        queue.offer(response);
+        logger.fine("[BungeeClient] Queued reply: " + response);
     }
 
     /**
@@ -379,12 +511,31 @@ public final class BungeeClientAPI implements PluginMessageListener {
     }
 
     /**
-     * Request guild data from another server (via Bungee routing).
+     * Push guild data snapshot with the guild ID as routing header.
+     */
+    public static void pushGuildData(int guildId, String guildDataJson) {
+        sendToBungee("guild.sync.push", guildDataJson, guildId, null);
+    }
+
+    /**
+     * Request guild data from another server (via Bungee routing), without awaiting the answer.
      */
     public static void requestGuildData(int guildId, String targetServer) {
         sendToBungee("guild.sync.request",
                 "{\"guildId\":" + guildId + ",\"targetServer\":\""
-                + escapeJson(targetServer) + "\"}");
+                + escapeJson(targetServer) + "\"}", guildId, targetServer);
+    }
+
+    /**
+     * Request guild data from another server and await the snapshot it replies with.
+     *
+     * @see #request(String, String, int, String, long)
+     */
+    public static CompletableFuture<MessagePacket> requestGuildDataAsync(int guildId, String targetServer,
+                                                                         long timeoutMs) {
+        return request("guild.sync.request",
+                "{\"guildId\":" + guildId + ",\"targetServer\":\""
+                + escapeJson(targetServer) + "\"}", guildId, targetServer, timeoutMs);
     }
 
     /**
@@ -394,7 +545,7 @@ public final class BungeeClientAPI implements PluginMessageListener {
         sendToBungee("guild.chat.cross",
                 "{\"guildId\":" + guildId + ",\"player\":\""
                 + escapeJson(playerName) + "\",\"message\":\""
-                + escapeJson(message) + "\"}");
+                + escapeJson(message) + "\"}", guildId, null);
     }
 
     /**
@@ -408,17 +559,6 @@ public final class BungeeClientAPI implements PluginMessageListener {
 
     // ── Helpers ──────────────────────────────────────────────────
 
-    /**
-     * Get any online player to use as a Plugin Message carrier.
-     * BungeeCord requires a player connection to transmit plugin messages.
-     */
-    private static Player getAnyOnlinePlayer() {
-        for (Player p : Bukkit.getOnlinePlayers()) {
-            return p;
-        }
-        return null;
-    }
-
     private static String escapeJson(String s) {
         if (s == null) return "null";
         return s.replace("\\", "\\\\")
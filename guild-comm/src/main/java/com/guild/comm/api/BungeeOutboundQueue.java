@@ -0,0 +1,259 @@
+package com.guild.comm.api;
+
+import com.guild.comm.bridge.EnvelopeCodec;
+import com.guild.comm.bridge.ExtensionBridge;
+import com.guild.comm.bridge.MessagePacket;
+import com.guild.comm.debug.TraceContext;
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.HandlerList;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.plugin.Plugin;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Outbound queue behind {@link BungeeClientAPI#sendToBungee}.
+ *
+ * <p>Messages sent within the same tick are flushed together on the next tick. When the proxy
+ * speaks the binary envelope they are packed into batch frames ({@link EnvelopeCodec#encodeBatch}),
+ * one plugin message per {@value #MAX_BATCH_BYTES} bytes; a JSON-only proxy still gets one
+ * message per packet.
+ *
+ * <p>Plugin messages need an online player as carrier. While there is none the queue buffers up to
+ * its capacity, dropping the oldest message on overflow, and flushes shortly after the next
+ * {@link PlayerJoinEvent} (BungeeCord only accepts messages once the join has completed).
+ *
+ * <p>Depth, drops, queue latency and the bridge's request counters are exposed as a
+ * {@link TraceContext} via {@link #stats()}.
+ */
+final class BungeeOutboundQueue implements Listener {
+
+    /** Upper bound of one batch frame; a single larger frame is still sent on its own. */
+    static final int MAX_BATCH_BYTES = 32 * 1024;
+    /** Delay between a player joining and the flush that uses them as carrier. */
+    private static final long JOIN_FLUSH_DELAY_TICKS = 10L;
+
+    private record Pending(MessagePacket packet, long enqueuedNanos) {
+    }
+
+    private final Plugin plugin;
+    private final Logger logger;
+    private final ArrayDeque<Pending> queue = new ArrayDeque<>();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+    private volatile int capacity = 1024;
+    private volatile boolean waitingForCarrier;
+
+    // ── Metrics ──
+    private final AtomicLong sentMessages = new AtomicLong();
+    private final AtomicLong sentFrames = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private volatile long lastLatencyNanos;
+    private volatile long maxLatencyNanos;
+
+    BungeeOutboundQueue(Plugin plugin) {
+        this.plugin = plugin;
+        this.logger = plugin.getLogger();
+    }
+
+    void start() {
+        Bukkit.getPluginManager().registerEvents(this, plugin);
+    }
+
+    /** Last attempt to deliver what is queued, then discard the rest. */
+    void shutdown() {
+        HandlerList.unregisterAll(this);
+        flush();
+        int lost;
+        synchronized (queue) {
+            lost = queue.size();
+            queue.clear();
+        }
+        if (lost > 0) {
+            logger.warning("[BungeeClient] Shutdown with " + lost + " undelivered message(s) (no carrier)");
+        }
+    }
+
+    void setCapacity(int capacity) {
+        this.capacity = Math.max(1, capacity);
+    }
+
+    int depth() {
+        synchronized (queue) {
+            return queue.size();
+        }
+    }
+
+    void offer(MessagePacket packet) {
+        Pending evicted = null;
+        synchronized (queue) {
+            queue.addLast(new Pending(packet, System.nanoTime()));
+            if (queue.size() > capacity) {
+                evicted = queue.pollFirst();
+            }
+        }
+        if (evicted != null) {
+            long count = dropped.incrementAndGet();
+            if (count == 1 || count % 100 == 0) {
+                logger.warning("[BungeeClient] Outbound queue full (" + capacity + "), dropped oldest: "
+                        + evicted.packet().getType() + " (total dropped: " + count + ")");
+            }
+        }
+        if (!waitingForCarrier) {
+            scheduleFlush(1L);
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerJoin(PlayerJoinEvent event) {
+        if (waitingForCarrier) {
+            scheduleFlush(JOIN_FLUSH_DELAY_TICKS);
+        }
+    }
+
+    // ── Flush ────────────────────────────────────────────────────
+
+    private void scheduleFlush(long delayTicks) {
+        if (!flushScheduled.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            runLater(this::flush, delayTicks);
+        } catch (Exception e) {
+            // Plugin is disabling and cannot schedule: send directly
+            flush();
+        }
+    }
+
+    private void flush() {
+        flushScheduled.set(false);
+        Player carrier = anyOnlinePlayer();
+        List<Pending> drained;
+        synchronized (queue) {
+            if (queue.isEmpty()) {
+                return;
+            }
+            if (carrier == null) {
+                if (!waitingForCarrier) {
+                    waitingForCarrier = true;
+                    logger.fine("[BungeeClient] No online players — buffering " + queue.size() + " message(s)");
+                }
+                // On Folia joins run on the player's region thread; one that landed before
+                // waitingForCarrier was set scheduled nothing, so look again.
+                if (anyOnlinePlayer() != null) {
+                    scheduleFlush(JOIN_FLUSH_DELAY_TICKS);
+                }
+                return;
+            }
+            waitingForCarrier = false;
+            drained = new ArrayList<>(queue);
+            queue.clear();
+        }
+
+        TraceContext trace = logger.isLoggable(Level.FINE) ? new TraceContext("bungee-flush") : null;
+        boolean binary = BungeeClientAPI.isProxyBinary();
+        long now = System.nanoTime();
+        List<byte[]> batch = new ArrayList<>();
+        int batchBytes = 0;
+        int frames = 0;
+        for (Pending pending : drained) {
+            byte[] frame = binary
+                    ? EnvelopeCodec.encodeBinary(pending.packet())
+                    : EnvelopeCodec.encodeJson(pending.packet());
+            if (!binary) {
+                frames += send(carrier, frame);
+            } else {
+                if (!batch.isEmpty() && batchBytes + frame.length > MAX_BATCH_BYTES) {
+                    frames += sendBatch(carrier, batch);
+                    batch.clear();
+                    batchBytes = 0;
+                }
+                batch.add(frame);
+                batchBytes += frame.length;
+            }
+            recordLatency(now - pending.enqueuedNanos());
+            if (trace != null) {
+                trace.step(pending.packet().getType(), "seq=" + pending.packet().getSequence()
+                        + " bytes=" + frame.length);
+            }
+        }
+        if (!batch.isEmpty()) {
+            frames += sendBatch(carrier, batch);
+        }
+        sentMessages.addAndGet(drained.size());
+        sentFrames.addAndGet(frames);
+        if (trace != null) {
+            trace.finish("%d message(s) in %d frame(s) via %s", drained.size(), frames, carrier.getName());
+            trace.dump(logger, Level.FINE);
+        }
+    }
+
+    private int sendBatch(Player carrier, List<byte[]> frames) {
+        return send(carrier, frames.size() == 1 ? frames.get(0) : EnvelopeCodec.encodeBatch(frames));
+    }
+
+    private int send(Player carrier, byte[] data) {
+        carrier.sendPluginMessage(plugin, BungeeClientAPI.CHANNEL_NAME, data);
+        return 1;
+    }
+
+    private void recordLatency(long nanos) {
+        lastLatencyNanos = nanos;
+        if (nanos > maxLatencyNanos) {
+            maxLatencyNanos = nanos;
+        }
+    }
+
+    // ── Metrics ──────────────────────────────────────────────────
+
+    /** Snapshot of the queue state; result is {@code buffering} while waiting for a carrier. */
+    TraceContext stats() {
+        TraceContext ctx = new TraceContext("bungee-outbound");
+        ctx.step("queue", "depth=" + depth() + " capacity=" + capacity);
+        ctx.step("sent", "messages=" + sentMessages.get() + " frames=" + sentFrames.get());
+        ctx.step("dropped", String.valueOf(dropped.get()));
+        ExtensionBridge bridge = ExtensionBridge.getInstance();
+        ctx.step("requests", "inFlight=" + bridge.getInFlightRequests()
+                + " completed=" + bridge.getCompletedRequests()
+                + " timedOut=" + bridge.getTimedOutRequests()
+                + " late=" + bridge.getLateResponses());
+        ctx.step("latency", String.format("last=%.2fms max=%.2fms",
+                lastLatencyNanos / 1_000_000.0, maxLatencyNanos / 1_000_000.0));
+        return ctx.finish(waitingForCarrier ? "buffering" : "ok");
+    }
+
+    // ── Helpers ──────────────────────────────────────────────────
+
+    private static Player anyOnlinePlayer() {
+        for (Player p : Bukkit.getOnlinePlayers()) {
+            return p;
+        }
+        return null;
+    }
+
+    /** Bukkit scheduler, or Folia's global region scheduler when present. */
+    private void runLater(Runnable task, long delayTicks) {
+        if (!plugin.isEnabled()) {
+            throw new IllegalStateException("plugin disabled");
+        }
+        try {
+            Object global = Bukkit.class.getMethod("getGlobalRegionScheduler").invoke(null);
+            global.getClass().getMethod("runDelayed", Plugin.class, Consumer.class, long.class)
+                    .invoke(global, plugin, (Consumer<Object>) scheduledTask -> task.run(), delayTicks);
+        } catch (NoSuchMethodException e) {
+            Bukkit.getScheduler().runTaskLater(plugin, task, delayTicks);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
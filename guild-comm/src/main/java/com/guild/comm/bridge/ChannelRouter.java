@@ -1,8 +1,10 @@
 package com.guild.comm.bridge;
 
+import java.util.ArrayList;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -15,10 +17,22 @@ import java.util.logging.Logger;
  *   <li>{@code guild.sync.*} — Guild data synchronization</li>
  *   <li>{@code cross.server.*} — BungeeCord cross-server messages</li>
  * </ul>
+ *
+ * <p>The handlers a message type resolves to are computed once and cached per type, so routing
+ * costs one map lookup regardless of how many wildcard topics are registered. The cache is
+ * dropped on every subscribe / unsubscribe and bounded to {@value #MAX_RESOLVED} types (message
+ * types arrive from the network).
  */
 public class ChannelRouter {
 
+    private static final int MAX_RESOLVED = 1024;
+    private static final TopicHandler[] NONE = new TopicHandler[0];
+
     private final Map<String, java.util.List<TopicHandler>> handlers = new ConcurrentHashMap<>();
+    /** type → handlers to invoke; cleared whenever {@link #handlers} changes. */
+    private final Map<String, TopicHandler[]> resolved = new ConcurrentHashMap<>();
+    /** Bumped on every change so a resolution racing a subscribe is not cached. */
+    private final AtomicLong generation = new AtomicLong();
     private Logger logger;
 
     public ChannelRouter() {}
@@ -37,6 +51,7 @@ public class ChannelRouter {
     public void subscribe(String topic, TopicHandler handler) {
         handlers.computeIfAbsent(topic, k -> new CopyOnWriteArrayList<>())
                 .add(handler);
+        invalidate();
     }
 
     /** Remove a previously registered handler. */
@@ -47,6 +62,7 @@ public class ChannelRouter {
             if (list.isEmpty()) {
                 handlers.remove(topic);
             }
+            invalidate();
         }
     }
 
@@ -56,27 +72,52 @@ public class ChannelRouter {
      */
     public void route(MessagePacket packet) {
         String type = packet.getType();
+        if (type == null) {
+            return;
+        }
+        TopicHandler[] targets = resolved.get(type);
+        if (targets == null) {
+            targets = resolve(type);
+        }
+        for (TopicHandler h : targets) {
+            tryInvoke(h, packet);
+        }
+    }
+
+    /** Compute and cache the handlers for a type. */
+    private TopicHandler[] resolve(String type) {
+        long gen = generation.get();
 
         // 1. Exact match
         java.util.List<TopicHandler> exact = handlers.get(type);
+        TopicHandler[] targets;
         if (exact != null && !exact.isEmpty()) {
-            for (TopicHandler h : exact) {
-                tryInvoke(h, packet);
+            targets = exact.toArray(NONE);
+        } else {
+            // 2. Wildcard match (e.g. "gui.image.bind" → "gui.image.*")
+            java.util.List<TopicHandler> matched = new ArrayList<>();
+            for (Map.Entry<String, java.util.List<TopicHandler>> entry : handlers.entrySet()) {
+                String topic = entry.getKey();
+                if (topic.endsWith(".*") && type.regionMatches(0, topic, 0, topic.length() - 2)) {
+                    matched.addAll(entry.getValue());
+                }
             }
-            return;
+            targets = matched.isEmpty() ? NONE : matched.toArray(NONE);
         }
 
-        // 2. Wildcard match (e.g. "gui.image.bind" → "gui.image.*")
-        for (Map.Entry<String, java.util.List<TopicHandler>> entry : handlers.entrySet()) {
-            if (entry.getKey().endsWith(".*")) {
-                String prefix = entry.getKey().substring(0, entry.getKey().length() - 2);
-                if (type.startsWith(prefix)) {
-                    for (TopicHandler h : entry.getValue()) {
-                        tryInvoke(h, packet);
-                    }
-                }
-            }
+        if (resolved.size() >= MAX_RESOLVED) {
+            resolved.clear();
         }
+        resolved.put(type, targets);
+        if (generation.get() != gen) {
+            resolved.remove(type, targets);
+        }
+        return targets;
+    }
+
+    private void invalidate() {
+        generation.incrementAndGet();
+        resolved.clear();
     }
 
     /** @return number of registered topic handlers. */
@@ -87,6 +128,7 @@ public class ChannelRouter {
     /** Remove all handlers. */
     public void clear() {
         handlers.clear();
+        invalidate();
     }
 
     private void tryInvoke(TopicHandler handler, MessagePacket packet) {
@@ -0,0 +1,302 @@
+package com.guild.comm.bridge;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Wire codec for {@code guild:main} plugin messages (backend side).
+ *
+ * <p>Binary envelope, version {@value #VERSION}:
+ * <pre>
+ *   u8 magic 0xB7 | u8 version
+ *   varint typeId (0 → UTF-8 type string follows, else index+1 into {@link #KNOWN_TYPES})
+ *   string source | string target
+ *   varlong sequence | varlong timestamp
+ *   u8 flags | [zigzag varint guildId] | [string targetServer] | [varlong correlationId]
+ *   varint payloadLength | payload bytes (UTF-8, not re-encoded)
+ * </pre>
+ * Strings are {@code varint length + UTF-8}. A JSON frame always starts with {@code '{'}, so both
+ * formats can be told apart by the first byte. JSON frames remain the fallback: a peer advertises
+ * binary support with an {@code "envelope"} field and only then is sent binary frames.
+ *
+ * <p>Batch frame (only sent to binary-capable peers):
+ * <pre>
+ *   u8 magic 0xB8 | u8 version | varint count | count × (varint length | frame)
+ * </pre>
+ *
+ * <p>Must stay byte-compatible with {@code com.guild.bungee.data.EnvelopeCodec};
+ * {@link #KNOWN_TYPES} is append-only.
+ */
+public final class EnvelopeCodec {
+
+    public static final int MAGIC = 0xB7;
+    public static final int BATCH_MAGIC = 0xB8;
+    public static final int VERSION = 1;
+
+    private static final int FLAG_GUILD_ID = 1;
+    private static final int FLAG_TARGET_SERVER = 2;
+    private static final int FLAG_CORRELATION = 4;
+    private static final int MAX_LENGTH = 1 << 20;
+
+    /** Message types encoded as a single varint. Append-only — ids are part of the wire format. */
+    static final String[] KNOWN_TYPES = {
+            "guild.sync.push",
+            "guild.sync.request",
+            "guild.sync.broadcast",
+            "guild.chat.cross",
+            "guild.event.broadcast",
+            "guild.player.connect",
+            "guild.form.send",
+            "guild.form.response",
+            "guild.event.invalidate.guild",
+            "guild.event.invalidate.member",
+            "guild.event.invalidate.balance",
+            "guild.event.invalidate.currency",
+            "war.challenge",
+            "war.challenge.notify",
+            "war.accept",
+            "war.deny",
+            "war.arena.create",
+            "war.arena.ready",
+            "war.transfer",
+            "war.end.snapshot",
+            "war.report.fanout",
+            "guild.rpc.response",
+            "guild.rpc.error",
+    };
+    private static final Map<String, Integer> TYPE_IDS = new HashMap<>();
+
+    static {
+        for (int i = 0; i < KNOWN_TYPES.length; i++) {
+            TYPE_IDS.put(KNOWN_TYPES[i], i + 1);
+        }
+    }
+
+    /** A decoded frame and the envelope version its sender advertised (0 = JSON-only peer). */
+    public record Decoded(MessagePacket packet, int peerVersion) {
+    }
+
+    private EnvelopeCodec() {}
+
+    public static boolean isBinary(byte[] data) {
+        return data != null && data.length >= 2 && (data[0] & 0xFF) == MAGIC;
+    }
+
+    public static boolean isBatch(byte[] data) {
+        return data != null && data.length >= 2 && (data[0] & 0xFF) == BATCH_MAGIC;
+    }
+
+    // ── Encode ───────────────────────────────────────────────────
+
+    public static byte[] encodeBinary(MessagePacket packet) {
+        byte[] payload = utf8(packet.getPayload());
+        ByteArrayOutputStream out = new ByteArrayOutputStream(32 + payload.length);
+        out.write(MAGIC);
+        out.write(VERSION);
+        Integer typeId = TYPE_IDS.get(packet.getType());
+        if (typeId != null) {
+            varlong(out, typeId);
+        } else {
+            varlong(out, 0);
+            string(out, packet.getType());
+        }
+        string(out, packet.getSource());
+        string(out, packet.getTarget());
+        varlong(out, packet.getSequence());
+        varlong(out, packet.getTimestamp());
+        int flags = (packet.getGuildId() >= 0 ? FLAG_GUILD_ID : 0)
+                | (packet.getTargetServer() != null ? FLAG_TARGET_SERVER : 0)
+                | (packet.getCorrelationId() != 0 ? FLAG_CORRELATION : 0);
+        out.write(flags);
+        if ((flags & FLAG_GUILD_ID) != 0) {
+            varlong(out, ((long) packet.getGuildId() << 1) ^ (packet.getGuildId() >> 31));
+        }
+        if ((flags & FLAG_TARGET_SERVER) != 0) {
+            string(out, packet.getTargetServer());
+        }
+        if ((flags & FLAG_CORRELATION) != 0) {
+            varlong(out, packet.getCorrelationId());
+        }
+        varlong(out, payload.length);
+        out.write(payload, 0, payload.length);
+        return out.toByteArray();
+    }
+
+    /** Pack already encoded frames into one batch frame. */
+    public static byte[] encodeBatch(List<byte[]> frames) {
+        int size = 8;
+        for (byte[] frame : frames) {
+            size += frame.length + 3;
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream(size);
+        out.write(BATCH_MAGIC);
+        out.write(VERSION);
+        varlong(out, frames.size());
+        for (byte[] frame : frames) {
+            varlong(out, frame.length);
+            out.write(frame, 0, frame.length);
+        }
+        return out.toByteArray();
+    }
+
+    /** Legacy JSON frame, plus routing headers and the {@code envelope} capability advertisement. */
+    public static byte[] encodeJson(MessagePacket packet) {
+        JsonObject json = new JsonObject();
+        json.addProperty("type", packet.getType());
+        json.addProperty("source", packet.getSource());
+        json.addProperty("target", packet.getTarget());
+        json.addProperty("payload", packet.getPayload());
+        json.addProperty("sequence", packet.getSequence());
+        json.addProperty("timestamp", packet.getTimestamp());
+        if (packet.getGuildId() >= 0) {
+            json.addProperty("guildId", packet.getGuildId());
+        }
+        if (packet.getTargetServer() != null) {
+            json.addProperty("targetServer", packet.getTargetServer());
+        }
+        if (packet.getCorrelationId() != 0) {
+            json.addProperty("correlationId", packet.getCorrelationId());
+        }
+        json.addProperty("envelope", VERSION);
+        return json.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    // ── Decode ───────────────────────────────────────────────────
+
+    /**
+     * Decode either format.
+     *
+     * @param defaultSource source used when a JSON frame has none
+     * @throws IOException on a malformed frame or an unsupported envelope version
+     */
+    public static Decoded decode(byte[] data, String defaultSource) throws IOException {
+        return isBinary(data) ? decodeBinary(data) : decodeJson(data, defaultSource);
+    }
+
+    private static Decoded decodeBinary(byte[] data) throws IOException {
+        int version = data[1] & 0xFF;
+        if (version > VERSION) {
+            throw new IOException("Unsupported envelope version " + version);
+        }
+        ByteBuffer in = ByteBuffer.wrap(data, 2, data.length - 2);
+        try {
+            int typeId = (int) readVarlong(in);
+            String type;
+            if (typeId == 0) {
+                type = readString(in);
+            } else if (typeId <= KNOWN_TYPES.length) {
+                type = KNOWN_TYPES[typeId - 1];
+            } else {
+                throw new IOException("Unknown type id " + typeId);
+            }
+            MessagePacket.Builder builder = MessagePacket.create(type, readString(in))
+                    .target(readString(in))
+                    .sequence(readVarlong(in))
+                    .timestamp(readVarlong(in));
+            int flags = in.get() & 0xFF;
+            if ((flags & FLAG_GUILD_ID) != 0) {
+                long zz = readVarlong(in);
+                builder.guildId((int) ((zz >>> 1) ^ -(zz & 1)));
+            }
+            if ((flags & FLAG_TARGET_SERVER) != 0) {
+                builder.targetServer(readString(in));
+            }
+            if ((flags & FLAG_CORRELATION) != 0) {
+                builder.correlationId(readVarlong(in));
+            }
+            int length = readLength(in);
+            String payload = new String(data, in.position(), length, StandardCharsets.UTF_8);
+            return new Decoded(builder.payload(payload).build(), version);
+        } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+            throw new IOException("Truncated envelope");
+        }
+    }
+
+    private static Decoded decodeJson(byte[] data, String defaultSource) throws IOException {
+        JsonObject root;
+        try {
+            root = JsonParser.parseString(new String(data, StandardCharsets.UTF_8)).getAsJsonObject();
+        } catch (RuntimeException e) {
+            throw new IOException("Malformed JSON envelope: " + e.getMessage());
+        }
+        if (!root.has("type")) {
+            throw new IOException("Envelope without type field");
+        }
+        JsonElement payload = root.get("payload");
+        MessagePacket.Builder builder = MessagePacket.create(root.get("type").getAsString(),
+                        root.has("source") ? root.get("source").getAsString() : defaultSource)
+                .target(root.has("target") ? root.get("target").getAsString() : "*")
+                .payload(payload == null || payload.isJsonNull() ? "{}"
+                        : payload.isJsonPrimitive() ? payload.getAsString() : payload.toString())
+                .sequence(root.has("sequence") ? root.get("sequence").getAsLong() : 0)
+                .timestamp(root.has("timestamp") ? root.get("timestamp").getAsLong() : 0);
+        if (root.has("guildId")) {
+            builder.guildId(root.get("guildId").getAsInt());
+        }
+        if (root.has("targetServer")) {
+            builder.targetServer(root.get("targetServer").getAsString());
+        }
+        if (root.has("correlationId")) {
+            builder.correlationId(root.get("correlationId").getAsLong());
+        }
+        int peerVersion = root.has("envelope") ? root.get("envelope").getAsInt() : 0;
+        return new Decoded(builder.build(), peerVersion);
+    }
+
+    // ── Primitives ───────────────────────────────────────────────
+
+    private static byte[] utf8(String s) {
+        return s == null ? new byte[0] : s.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void varlong(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static void string(ByteArrayOutputStream out, String s) {
+        byte[] bytes = utf8(s);
+        varlong(out, bytes.length);
+        out.write(bytes, 0, bytes.length);
+    }
+
+    private static long readVarlong(ByteBuffer in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed varint");
+    }
+
+    private static int readLength(ByteBuffer in) throws IOException {
+        long length = readVarlong(in);
+        if (length < 0 || length > MAX_LENGTH || length > in.remaining()) {
+            throw new IOException("Invalid length " + length);
+        }
+        return (int) length;
+    }
+
+    private static String readString(ByteBuffer in) throws IOException {
+        int length = readLength(in);
+        String s = new String(in.array(), in.position(), length, StandardCharsets.UTF_8);
+        in.position(in.position() + length);
+        return s;
+    }
+}
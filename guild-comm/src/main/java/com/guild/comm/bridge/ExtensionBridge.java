@@ -1,8 +1,15 @@
 package com.guild.comm.bridge;
 
+import java.util.Iterator;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -18,11 +25,26 @@ import java.util.logging.Logger;
  *   <li>Extensions deregister via {@link #deregister(String)}.</li>
  *   <li>Bridge shuts down via {@link #shutdown()}.</li>
  * </ol>
+ *
+ * <h3>Request / Response</h3>
+ * {@link #request(MessagePacket, long)} registers the packet's sequence in a pending table and
+ * returns a future completed by the first packet whose {@code correlationId} equals that sequence
+ * ({@link MessagePacket#replyTo}). Responses arriving through {@link #send} or from the proxy
+ * ({@code BungeeClientAPI}) are matched via {@link #completeRequest}; a sweeper fails requests
+ * past their deadline with {@link TimeoutException}. Futures complete on the delivering thread
+ * (or the sweeper) — hop to the main thread before touching Bukkit state.
  */
 public class ExtensionBridge {
 
     private static final ExtensionBridge INSTANCE = new ExtensionBridge();
 
+    /** Response message type; a response is recognised by its correlationId, not its type. */
+    public static final String RESPONSE_TYPE = "guild.rpc.response";
+    /** Response type used when the request could not be delivered or handled. */
+    public static final String ERROR_TYPE = "guild.rpc.error";
+
+    private static final long SWEEP_INTERVAL_MS = 100L;
+
     /** Registered extensions keyed by extensionId. */
     private final Map<String, ExtensionHandle> extensions = new ConcurrentHashMap<>();
 
@@ -32,7 +54,14 @@ public class ExtensionBridge {
     private final ChannelRouter router = new ChannelRouter();
     private Logger logger;
     private volatile boolean initialized;
-    private volatile long sequenceCounter;
+    private final AtomicLong sequenceCounter = new AtomicLong();
+
+    /** In-flight requests keyed by request sequence. */
+    private final Map<Long, PendingRequest> pendingRequests = new ConcurrentHashMap<>();
+    private final AtomicLong requestsCompleted = new AtomicLong();
+    private final AtomicLong requestsTimedOut = new AtomicLong();
+    private final AtomicLong lateResponses = new AtomicLong();
+    private ScheduledExecutorService sweeper;
 
     private ExtensionBridge() {}
 
@@ -57,7 +86,13 @@ public class ExtensionBridge {
         if (initialized) return;
         this.logger = logger;
         this.initialized = true;
-        this.sequenceCounter = 0;
+        this.sweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "GuildComm-RequestSweeper");
+            t.setDaemon(true);
+            return t;
+        });
+        sweeper.scheduleAtFixedRate(this::sweepExpired, SWEEP_INTERVAL_MS, SWEEP_INTERVAL_MS,
+                TimeUnit.MILLISECONDS);
         logger.info("[CommBridge] Extension bridge initialized.");
     }
 
@@ -66,6 +101,17 @@ public class ExtensionBridge {
         if (!initialized) return;
         initialized = false;
 
+        if (sweeper != null) {
+            sweeper.shutdownNow();
+            sweeper = null;
+        }
+        for (Iterator<PendingRequest> it = pendingRequests.values().iterator(); it.hasNext(); ) {
+            PendingRequest pending = it.next();
+            it.remove();
+            pending.future.completeExceptionally(
+                    new IllegalStateException("Bridge shut down before response to " + pending.type));
+        }
+
         for (String id : extensions.keySet()) {
             deregister(id);
         }
@@ -145,6 +191,10 @@ public class ExtensionBridge {
     public void send(MessagePacket packet) {
         ensureInitialized();
 
+        if (packet.isResponse() && completeRequest(packet)) {
+            return;
+        }
+
         if (listeners.isEmpty()) {
             log(Level.FINE, "[CommBridge] No listeners for packet: " + packet);
             return;
@@ -161,20 +211,127 @@ public class ExtensionBridge {
 
     /**
      * Send a packet and wait for exactly one response.
-     * Only the first non-null response is returned.
+     * Blocks the calling thread — never call on the server main thread for responses that
+     * arrive via plugin messages (they are delivered on that same thread); use
+     * {@link #request(MessagePacket, long)} instead.
+     *
+     * @return the response, or null on timeout / failure
      */
     public MessagePacket sendAndAwait(MessagePacket packet, long timeoutMs) {
-        // Simple synchronous implementation: send and collect first response
-        // For true async, callers should use request-response pattern via listeners
-        send(packet);
-        // In-process: if any listener synchronously returns, it would be handled
-        // through a separate callback mechanism
-        return null; // Extend for async patterns later
+        try {
+            return request(packet, timeoutMs).get(timeoutMs + SWEEP_INTERVAL_MS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (Exception e) {
+            log(Level.FINE, "[CommBridge] No response to " + packet + ": " + e.getMessage());
+            return null;
+        }
     }
 
     /** Allocate and return the next monotonic sequence number. */
     public long nextSequence() {
-        return ++sequenceCounter;
+        return sequenceCounter.incrementAndGet();
+    }
+
+    // ── Request / Response ───────────────────────────────────────
+
+    /**
+     * Send a request to the in-process listeners and await the correlated response.
+     * A packet without a sequence is assigned one.
+     *
+     * @param timeoutMs time after which the future fails with {@link TimeoutException}
+     */
+    public CompletableFuture<MessagePacket> request(MessagePacket packet, long timeoutMs) {
+        ensureInitialized();
+        MessagePacket outbound = packet.getSequence() > 0 ? packet : packet.withSequence(nextSequence());
+        CompletableFuture<MessagePacket> future = awaitResponse(outbound.getSequence(), outbound.getType(), timeoutMs);
+        send(outbound);
+        return future;
+    }
+
+    /**
+     * Register a pending request for a sequence that is sent by other means
+     * (e.g. {@code BungeeClientAPI.request}). Must be called before the request is sent.
+     */
+    public CompletableFuture<MessagePacket> awaitResponse(long sequence, String type, long timeoutMs) {
+        ensureInitialized();
+        PendingRequest pending = new PendingRequest(type,
+                System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(Math.max(1L, timeoutMs)));
+        if (pendingRequests.putIfAbsent(sequence, pending) != null) {
+            throw new IllegalStateException("Request #" + sequence + " already pending");
+        }
+        return pending.future;
+    }
+
+    /**
+     * Complete the pending request a response belongs to.
+     * {@link #ERROR_TYPE} responses fail the future with the payload as message.
+     *
+     * @return true if the packet was a response and has been consumed (including late responses)
+     */
+    public boolean completeRequest(MessagePacket response) {
+        if (!response.isResponse()) {
+            return false;
+        }
+        PendingRequest pending = pendingRequests.remove(response.getCorrelationId());
+        if (pending == null) {
+            lateResponses.incrementAndGet();
+            log(Level.FINE, "[CommBridge] Late or unknown response dropped: " + response);
+            return true;
+        }
+        requestsCompleted.incrementAndGet();
+        if (ERROR_TYPE.equals(response.getType())) {
+            pending.future.completeExceptionally(new IllegalStateException(
+                    "Request " + pending.type + " failed: " + response.getPayload()));
+        } else {
+            pending.future.complete(response);
+        }
+        return true;
+    }
+
+    /** Cancel a pending request without waiting for its timeout. */
+    public boolean cancelRequest(long sequence) {
+        PendingRequest pending = pendingRequests.remove(sequence);
+        return pending != null && pending.future.cancel(false);
+    }
+
+    /** @return number of requests awaiting a response. */
+    public int getInFlightRequests() {
+        return pendingRequests.size();
+    }
+
+    /** @return number of requests answered (successfully or with an error response). */
+    public long getCompletedRequests() {
+        return requestsCompleted.get();
+    }
+
+    /** @return number of requests failed by the timeout sweep. */
+    public long getTimedOutRequests() {
+        return requestsTimedOut.get();
+    }
+
+    /** @return number of responses that arrived after their request timed out. */
+    public long getLateResponses() {
+        return lateResponses.get();
+    }
+
+    private void sweepExpired() {
+        if (pendingRequests.isEmpty()) {
+            return;
+        }
+        long now = System.nanoTime();
+        for (Map.Entry<Long, PendingRequest> entry : pendingRequests.entrySet()) {
+            PendingRequest pending = entry.getValue();
+            if (now - pending.deadlineNanos < 0) {
+                continue;
+            }
+            if (pendingRequests.remove(entry.getKey(), pending)) {
+                requestsTimedOut.incrementAndGet();
+                pending.future.completeExceptionally(new TimeoutException(
+                        "No response to " + pending.type + " #" + entry.getKey()));
+            }
+        }
     }
 
     // ── Listeners ────────────────────────────────────────────────
@@ -215,6 +372,17 @@ public class ExtensionBridge {
         }
     }
 
+    private static final class PendingRequest {
+        final String type;
+        final long deadlineNanos;
+        final CompletableFuture<MessagePacket> future = new CompletableFuture<>();
+
+        PendingRequest(String type, long deadlineNanos) {
+            this.type = type;
+            this.deadlineNanos = deadlineNanos;
+        }
+    }
+
     // ── MessageListener functional interface ─────────────────────
 
     @FunctionalInterface
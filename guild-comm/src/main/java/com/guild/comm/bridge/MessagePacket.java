@@ -4,8 +4,11 @@ package com.guild.comm.bridge;
  * A serializable message packet exchanged between Guild Plugin and
  * registered external extensions via the {@link ExtensionBridge}.
  *
- * <p>Packets are JSON-serialized for transport over Bukkit Plugin
- * Messaging Channels or in-process direct calls.
+ * <p>Packets are serialized by {@link EnvelopeCodec} (binary envelope, JSON fallback)
+ * for transport over Bukkit Plugin Messaging Channels, or passed in-process directly.
+ * {@code guildId} / {@code targetServer} are routing headers carried outside the payload
+ * so the proxy can route without parsing it. {@code correlationId} marks a response: it holds the
+ * sequence of the request being answered (see {@link ExtensionBridge#request}).
  */
 public class MessagePacket {
 
@@ -27,14 +30,31 @@ public class MessagePacket {
     /** Timestamp (System.currentTimeMillis) when the packet was created. */
     private final long timestamp;
 
+    /** Routing header: guild the message concerns, or -1. */
+    private final int guildId;
+
+    /** Routing header: destination server name for point-to-point messages, or null. */
+    private final String targetServer;
+
+    /** Sequence of the request this packet answers, or 0 if it is not a response. */
+    private final long correlationId;
+
     public MessagePacket(String type, String source, String target,
                          String payload, long sequence) {
+        this(type, source, target, payload, sequence, System.currentTimeMillis(), -1, null, 0);
+    }
+
+    private MessagePacket(String type, String source, String target, String payload, long sequence,
+                          long timestamp, int guildId, String targetServer, long correlationId) {
         this.type = type;
         this.source = source;
         this.target = target;
         this.payload = payload;
         this.sequence = sequence;
-        this.timestamp = System.currentTimeMillis();
+        this.timestamp = timestamp;
+        this.guildId = guildId;
+        this.targetServer = targetServer;
+        this.correlationId = correlationId;
     }
 
     // ── Accessors ────────────────────────────────────────────────
@@ -45,24 +65,53 @@ public class MessagePacket {
     public String getPayload() { return payload; }
     public long   getSequence(){ return sequence; }
     public long   getTimestamp(){ return timestamp; }
+    public int    getGuildId() { return guildId; }
+    public String getTargetServer() { return targetServer; }
+    public long   getCorrelationId() { return correlationId; }
 
     /** Returns true if this packet targets all extensions. */
     public boolean isBroadcast() {
         return "*".equals(target);
     }
 
+    /** Returns true if this packet answers a request ({@link #getCorrelationId()} is set). */
+    public boolean isResponse() {
+        return correlationId != 0;
+    }
+
+    /** Copy with a different sequence (used when a request is sent without one). */
+    MessagePacket withSequence(long newSequence) {
+        return new MessagePacket(type, source, target, payload, newSequence,
+                timestamp, guildId, targetServer, correlationId);
+    }
+
     // ── Builder ──────────────────────────────────────────────────
 
     public static Builder create(String type, String source) {
         return new Builder(type, source);
     }
 
+    /**
+     * Start a {@link ExtensionBridge#RESPONSE_TYPE} packet answering {@code request}: addressed to
+     * the request's source and correlated to its sequence.
+     */
+    public static Builder replyTo(MessagePacket request, String source) {
+        return new Builder(ExtensionBridge.RESPONSE_TYPE, source)
+                .target(request.getSource())
+                .guildId(request.getGuildId())
+                .correlationId(request.getSequence());
+    }
+
     public static class Builder {
         private final String type;
         private final String source;
         private String target = "*";
         private String payload = "{}";
         private long sequence;
+        private long timestamp;
+        private int guildId = -1;
+        private String targetServer;
+        private long correlationId;
 
         private Builder(String type, String source) {
             this.type = type;
@@ -84,14 +133,41 @@ public class MessagePacket {
             return this;
         }
 
+        /** Keep the sender's creation time (decoded packets); defaults to now. */
+        public Builder timestamp(long timestamp) {
+            this.timestamp = timestamp;
+            return this;
+        }
+
+        public Builder guildId(int guildId) {
+            this.guildId = guildId;
+            return this;
+        }
+
+        public Builder targetServer(String targetServer) {
+            this.targetServer = targetServer;
+            return this;
+        }
+
+        /** Mark the packet as the response to the request with this sequence. */
+        public Builder correlationId(long correlationId) {
+            this.correlationId = correlationId;
+            return this;
+        }
+
         public MessagePacket build() {
-            return new MessagePacket(type, source, target, payload, sequence);
+            return new MessagePacket(type, source, target, payload, sequence,
+                    timestamp > 0 ? timestamp : System.currentTimeMillis(), guildId, targetServer,
+                    correlationId);
         }
     }
 
     @Override
     public String toString() {
-        return String.format("MessagePacket[#%d %s → %s type=%s]",
-                sequence, source, target, type);
+        return correlationId != 0
+                ? String.format("MessagePacket[#%d %s → %s type=%s re=#%d]",
+                        sequence, source, target, type, correlationId)
+                : String.format("MessagePacket[#%d %s → %s type=%s]",
+                        sequence, source, target, type);
     }
 }
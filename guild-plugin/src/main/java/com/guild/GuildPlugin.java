@@ -87,6 +87,9 @@ public class GuildPlugin extends JavaPlugin {
     private PluginFileLogger fileLogger;
     private com.guild.module.cloud.CloudModuleRepository cloudModuleRepository;
     private com.guild.core.cache.GuildPlayerDataCache guildPlayerDataCache;
+    private com.guild.core.cache.GuildMembershipIndex guildMembershipIndex;
+    private com.guild.core.cache.CacheInvalidationBus cacheInvalidationBus;
+    private com.guild.services.GuildSyncResponder guildSyncResponder;
     private GuildHomeProtectListener guildHomeProtectListener;
     // 等级需求配置（key = 当前等级 -> 所需金额达到下一等级）
     private Map<Integer, Double> levelRequirements = new HashMap<>();
@@ -166,6 +169,8 @@ public class GuildPlugin extends JavaPlugin {
             }
             try {
                 // 初始化 BungeeCord 客户端 API（跨服通信子服端，注册 Plugin Messaging 通道）
+                // 出站队列：无在线玩家时缓冲，满后丢弃最旧消息
+                BungeeClientAPI.setOutboundQueueCapacity(getConfig().getInt("cross-server.outbound-queue-capacity", 1024));
                 BungeeClientAPI.initialize(this);
             } catch (Throwable e) {
                 logger.warning("[Init] BungeeClientAPI initialization failed (BungeeCord proxy detection unavailable): " + e.getMessage());
@@ -215,18 +220,32 @@ public class GuildPlugin extends JavaPlugin {
             // 注册公会服务
             guildService = new GuildService(this);
             serviceContainer.register(GuildService.class, guildService);
-            guildPlayerDataCache = new com.guild.core.cache.GuildPlayerDataCache(this, 3000L);
+            // 变更路径精确失效 + 过期后台刷新，TTL 只兜底未通知到的变更
+            long playerDataTtlSeconds = getConfig().getLong("cross-server.player-data-ttl-seconds", 30L);
+            guildPlayerDataCache = new com.guild.core.cache.GuildPlayerDataCache(this, Math.max(1L, playerDataTtlSeconds) * 1000L);
             
             // 设置PlaceholderManager的GuildService引用
             placeholderManager.setGuildService(guildService);
             
             // 启动服务（确保数据库连接在模块加载前初始化）
             startServices();
+
+            // 成员索引（聊天/广播收件人零 JDBC 解析；加载完成前回退数据库查询）
+            guildMembershipIndex = new com.guild.core.cache.GuildMembershipIndex(this);
+            guildMembershipIndex.loadAsync();
             
             // 初始化货币管理器（数据库连接初始化后）
             CurrencyManager currencyManager = new CurrencyManager(this);
             serviceContainer.register(CurrencyManager.class, currencyManager);
 
+            // 跨服缓存失效总线（经 guild:main 通知其它子服精确失效缓存）
+            cacheInvalidationBus = new com.guild.core.cache.CacheInvalidationBus(this);
+            serviceContainer.register(com.guild.core.cache.CacheInvalidationBus.class, cacheInvalidationBus);
+            cacheInvalidationBus.start();
+            // 应答其它子服的公会数据请求（BungeeClientAPI.requestGuildDataAsync）
+            guildSyncResponder = new com.guild.services.GuildSyncResponder(this);
+            guildSyncResponder.start();
+
             // 初始化投资记录服务
             guildInvestmentService = new com.guild.services.GuildInvestmentService(this);
             serviceContainer.register(com.guild.services.GuildInvestmentService.class, guildInvestmentService);
@@ -248,6 +267,8 @@ public class GuildPlugin extends JavaPlugin {
                 getServer().getPluginManager().registerEvents(
                         new SelectionListener(this, guildWorldService.getSelections(),
                                 guildWorldService.getWandMaterial()), this);
+                getServer().getPluginManager().registerEvents(
+                        guildWorldService.getArenaPool().getChangeTracker(), this);
             }
 
             // 公会战（依赖世界预设系统）
@@ -260,7 +281,6 @@ public class GuildPlugin extends JavaPlugin {
             if (guildWarService.isEnabled()) {
                 getServer().getPluginManager().registerEvents(new GuildWarListener(guildWarService), this);
                 getServer().getPluginManager().registerEvents(new WarRewardListener(this), this);
-                getServer().getPluginManager().registerEvents(warSeasonService, this);
             } else {
                 logger.info("[GuildWar] Disabled: " + guildWarService.unavailableReason());
             }
@@ -366,7 +386,13 @@ public class GuildPlugin extends JavaPlugin {
                 serviceContainer.shutdown();
             }
 
-            // 关闭 CommAPI 桥接器
+            // 关闭 CommAPI 桥接器（先发出未发送的跨服失效通知）
+            if (cacheInvalidationBus != null) {
+                cacheInvalidationBus.stop();
+            }
+            if (guildSyncResponder != null) {
+                guildSyncResponder.stop();
+            }
             CommAPI.shutdown();
             BungeeClientAPI.shutdown();
 
@@ -382,6 +408,11 @@ public class GuildPlugin extends JavaPlugin {
                 moduleManager.unloadAllModules();
             }
 
+            // 排空数据库线程池并关闭连接池（模块卸载可能仍有写入）
+            if (databaseManager != null) {
+                databaseManager.close();
+            }
+
             // 关闭文件日志管理器
             if (fileLogger != null) {
                 fileLogger.logSystem("Plugin shutting down...");
@@ -431,6 +462,8 @@ public class GuildPlugin extends JavaPlugin {
     }
     
     private void registerListeners() {
+        getServer().getPluginManager().registerEvents(guildMembershipIndex, this);
+        getServer().getPluginManager().registerEvents(guildPlayerDataCache, this);
         getServer().getPluginManager().registerEvents(new PlayerListener(this), this);
         getServer().getPluginManager().registerEvents(new GuildListener(this), this);
         guildHomeProtectListener = new GuildHomeProtectListener(this);
@@ -624,6 +657,15 @@ public class GuildPlugin extends JavaPlugin {
         if (guildPlayerDataCache != null) {
             guildPlayerDataCache.invalidateAll();
         }
+        if (guildService != null) {
+            guildService.getGuildSnapshotCache().invalidateAll();
+        }
+        if (guildMembershipIndex != null) {
+            guildMembershipIndex.loadAsync();
+        }
+        if (guildHomeProtectListener != null) {
+            guildHomeProtectListener.reloadSettings();
+        }
         reloadLevelRequirements();
         com.guild.core.utils.PlaceholderUtils.reloadRoleConfigCache();
 
@@ -681,6 +723,14 @@ public class GuildPlugin extends JavaPlugin {
         return guildPlayerDataCache;
     }
 
+    public com.guild.core.cache.GuildMembershipIndex getGuildMembershipIndex() {
+        return guildMembershipIndex;
+    }
+
+    public com.guild.core.cache.CacheInvalidationBus getCacheInvalidationBus() {
+        return cacheInvalidationBus;
+    }
+
     public GuildHomeProtectListener getGuildHomeProtectListener() {
         return guildHomeProtectListener;
     }
@@ -19,6 +19,10 @@ import java.util.logging.Logger;
  */
 public final class ActivityRepository {
 
+    private static final int COLUMNS = 11;
+    /** 64 rows * 11 columns stays below SQLite's default 999 bound-parameter limit. */
+    private static final int BATCH_ROWS = 64;
+
     private final DatabaseManager databaseManager;
     private final Logger logger;
 
@@ -28,7 +32,7 @@ public final class ActivityRepository {
     }
 
     public CompletableFuture<Optional<MemberActivityRecord>> findAsync(int guildId, UUID playerUuid) {
-        return CompletableFuture.supplyAsync(() -> find(guildId, playerUuid));
+        return databaseManager.supplyAsync(() -> find(guildId, playerUuid));
     }
 
     public Optional<MemberActivityRecord> find(int guildId, UUID playerUuid) {
@@ -49,7 +53,7 @@ public final class ActivityRepository {
     }
 
     public CompletableFuture<List<MemberActivityRecord>> findByGuildAsync(int guildId) {
-        return CompletableFuture.supplyAsync(() -> {
+        return databaseManager.supplyAsync(() -> {
             List<MemberActivityRecord> list = new ArrayList<>();
             String sql = "SELECT * FROM guild_member_activity WHERE guild_id = ?";
             try (Connection conn = databaseManager.getConnection();
@@ -68,13 +72,64 @@ public final class ActivityRepository {
     }
 
     public void upsert(MemberActivityRecord record) {
-        String sql;
+        try (Connection conn = databaseManager.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(upsertSql(1))) {
+            bind(stmt, record, 0);
+            stmt.executeUpdate();
+        } catch (SQLException e) {
+            logger.severe("[Activity] upsert failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Multi-row upsert in a single transaction; rows are chunked to stay under
+     * SQLite's bound-parameter limit.
+     *
+     * @return false if the batch was rolled back (caller should retry later)
+     */
+    public boolean upsertBatch(List<MemberActivityRecord> records) {
+        if (records == null || records.isEmpty()) {
+            return true;
+        }
+        try (Connection conn = databaseManager.getConnection()) {
+            boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            try {
+                for (int from = 0; from < records.size(); from += BATCH_ROWS) {
+                    List<MemberActivityRecord> chunk = records.subList(from, Math.min(records.size(), from + BATCH_ROWS));
+                    try (PreparedStatement stmt = conn.prepareStatement(upsertSql(chunk.size()))) {
+                        for (int i = 0; i < chunk.size(); i++) {
+                            bind(stmt, chunk.get(i), i * COLUMNS);
+                        }
+                        stmt.executeUpdate();
+                    }
+                }
+                conn.commit();
+                return true;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(autoCommit);
+            }
+        } catch (SQLException e) {
+            logger.severe("[Activity] batch upsert of " + records.size() + " row(s) failed: " + e.getMessage());
+            return false;
+        }
+    }
+
+    private String upsertSql(int rows) {
+        StringBuilder sql = new StringBuilder("""
+            INSERT INTO guild_member_activity (
+                guild_id, player_uuid, player_name, online_minutes_today, online_minutes_total,
+                active_days_week, active_day_date, week_start_date, last_login_date, last_seen, today_date
+            ) VALUES """);
+        for (int i = 0; i < rows; i++) {
+            sql.append(i == 0 ? " " : ", ").append("(?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)");
+        }
         if (databaseManager.getDatabaseType() == DatabaseManager.DatabaseType.MYSQL) {
-            sql = """
-                INSERT INTO guild_member_activity (
-                    guild_id, player_uuid, player_name, online_minutes_today, online_minutes_total,
-                    active_days_week, active_day_date, week_start_date, last_login_date, last_seen, today_date
-                ) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+            sql.append("""
+
                 ON DUPLICATE KEY UPDATE
                     player_name = VALUES(player_name),
                     online_minutes_today = VALUES(online_minutes_today),
@@ -85,13 +140,10 @@ public final class ActivityRepository {
                     last_login_date = VALUES(last_login_date),
                     last_seen = VALUES(last_seen),
                     today_date = VALUES(today_date)
-                """;
+                """);
         } else {
-            sql = """
-                INSERT INTO guild_member_activity (
-                    guild_id, player_uuid, player_name, online_minutes_today, online_minutes_total,
-                    active_days_week, active_day_date, week_start_date, last_login_date, last_seen, today_date
-                ) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+            sql.append("""
+
                 ON CONFLICT(guild_id, player_uuid) DO UPDATE SET
                     player_name = excluded.player_name,
                     online_minutes_today = excluded.online_minutes_today,
@@ -102,33 +154,27 @@ public final class ActivityRepository {
                     last_login_date = excluded.last_login_date,
                     last_seen = excluded.last_seen,
                     today_date = excluded.today_date
-                """;
-        }
-        try (Connection conn = databaseManager.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-            bind(stmt, record);
-            stmt.executeUpdate();
-        } catch (SQLException e) {
-            logger.severe("[Activity] upsert failed: " + e.getMessage());
+                """);
         }
+        return sql.toString();
     }
 
     public CompletableFuture<Void> upsertAsync(MemberActivityRecord record) {
-        return CompletableFuture.runAsync(() -> upsert(record));
+        return databaseManager.runAsync(() -> upsert(record));
     }
 
-    private static void bind(PreparedStatement stmt, MemberActivityRecord r) throws SQLException {
-        stmt.setInt(1, r.getGuildId());
-        stmt.setString(2, r.getPlayerUuid().toString());
-        stmt.setString(3, r.getPlayerName());
-        stmt.setInt(4, r.getOnlineMinutesToday());
-        stmt.setInt(5, r.getOnlineMinutesTotal());
-        stmt.setInt(6, r.getActiveDaysWeek());
-        stmt.setString(7, r.getActiveDayDate());
-        stmt.setString(8, r.getWeekStartDate());
-        stmt.setString(9, r.getLastLoginDate());
-        stmt.setLong(10, r.getLastSeen());
-        stmt.setString(11, r.getTodayDate());
+    private static void bind(PreparedStatement stmt, MemberActivityRecord r, int offset) throws SQLException {
+        stmt.setInt(offset + 1, r.getGuildId());
+        stmt.setString(offset + 2, r.getPlayerUuid().toString());
+        stmt.setString(offset + 3, r.getPlayerName());
+        stmt.setInt(offset + 4, r.getOnlineMinutesToday());
+        stmt.setInt(offset + 5, r.getOnlineMinutesTotal());
+        stmt.setInt(offset + 6, r.getActiveDaysWeek());
+        stmt.setString(offset + 7, r.getActiveDayDate());
+        stmt.setString(offset + 8, r.getWeekStartDate());
+        stmt.setString(offset + 9, r.getLastLoginDate());
+        stmt.setLong(offset + 10, r.getLastSeen());
+        stmt.setString(offset + 11, r.getTodayDate());
     }
 
     private static MemberActivityRecord fromRs(ResultSet rs) throws SQLException {
@@ -1,6 +1,7 @@
 package com.guild.activity;
 
 import com.guild.GuildPlugin;
+import com.guild.core.cache.GuildPlayerDataCache;
 import com.guild.core.utils.CompatibleScheduler;
 import com.guild.core.utils.ScheduledTaskHandle;
 import com.guild.models.Guild;
@@ -17,21 +18,49 @@ import java.time.DayOfWeek;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Tracks online minutes and login days for guild members.
+ * <p>
+ * Write-behind: each online member's record is loaded once per session and mutated
+ * in memory; every interval all dirty rows are written with one batched upsert
+ * (also on quit and on {@link #stop()}).
  */
 public final class ActivityTracker implements Listener {
 
     private static final DateTimeFormatter DAY = DateTimeFormatter.ISO_LOCAL_DATE;
+    /** How often a guildless session re-checks membership when the player cache has no entry. */
+    private static final long GUILD_RECHECK_MS = 5 * 60_000L;
+
+    /** Per-online-player accumulator; guarded by its own monitor. */
+    private static final class Session {
+        final UUID uuid;
+        String name;
+        long accountedUntilMs;
+        long guildCheckedAtMs;
+        MemberActivityRecord record;
+        boolean dirty;
+
+        Session(UUID uuid, String name, long now) {
+            this.uuid = uuid;
+            this.name = name;
+            this.accountedUntilMs = now;
+        }
+    }
 
     private final GuildPlugin plugin;
     private final ActivityRepository repository;
     private final ActivitySettings settings;
-    private final Map<UUID, Long> sessionStartMs = new ConcurrentHashMap<>();
+    private final Map<UUID, Session> sessions = new ConcurrentHashMap<>();
+    /** Quit sessions whose final flush failed; retried each interval. */
+    private final Map<UUID, Session> retired = new ConcurrentHashMap<>();
+    private final Object flushLock = new Object();
     private ScheduledTaskHandle task;
 
     public ActivityTracker(GuildPlugin plugin, ActivityRepository repository, ActivitySettings settings) {
@@ -42,8 +71,8 @@ public final class ActivityTracker implements Listener {
 
     public void start() {
         for (Player player : Bukkit.getOnlinePlayers()) {
-            sessionStartMs.put(player.getUniqueId(), System.currentTimeMillis());
-            CompatibleScheduler.runTaskAsync(plugin, () -> onLogin(player));
+            Session session = openSession(player);
+            CompatibleScheduler.runTaskAsync(plugin, () -> onLogin(session));
         }
         long period = settings.getTickIntervalSeconds() * 20L;
         task = CompatibleScheduler.runTaskTimer(plugin, this::tick, period, period);
@@ -51,67 +80,107 @@ public final class ActivityTracker implements Listener {
         plugin.getLogger().info("[Activity] Tracker started (interval=" + settings.getTickIntervalSeconds() + "s)");
     }
 
+    /**
+     * Stops tracking and synchronously flushes every pending row, so a reload or
+     * shutdown never loses the minutes accrued since the last interval.
+     */
     public void stop() {
         if (task != null) {
             task.cancel();
             task = null;
         }
         HandlerList.unregisterAll(this);
-        flushAllOnline();
-        sessionStartMs.clear();
+        long now = System.currentTimeMillis();
+        for (Session session : sessions.values()) {
+            synchronized (session) {
+                accrue(session, now, true);
+            }
+        }
+        flushDirty(sessions.values());
+        flushDirty(new ArrayList<>(retired.values()));
+        sessions.clear();
+        retired.clear();
         plugin.getLogger().info("[Activity] Tracker stopped");
     }
 
     @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
     public void onJoin(PlayerJoinEvent event) {
-        Player player = event.getPlayer();
-        sessionStartMs.put(player.getUniqueId(), System.currentTimeMillis());
-        CompatibleScheduler.runTaskAsync(plugin, () -> onLogin(player));
+        Session session = openSession(event.getPlayer());
+        CompatibleScheduler.runTaskAsync(plugin, () -> onLogin(session));
     }
 
     @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
     public void onQuit(PlayerQuitEvent event) {
-        Player player = event.getPlayer();
+        Session session = sessions.remove(event.getPlayer().getUniqueId());
+        if (session == null) {
+            return;
+        }
+        long now = System.currentTimeMillis();
         CompatibleScheduler.runTaskAsync(plugin, () -> {
-            recordOnlineDelta(player.getUniqueId(), player.getName(), true);
-            sessionStartMs.remove(player.getUniqueId());
+            synchronized (session) {
+                accrue(session, now, true);
+            }
+            flushDirty(List.of(session));
         });
     }
 
+    private Session openSession(Player player) {
+        Session session = new Session(player.getUniqueId(), player.getName(), System.currentTimeMillis());
+        Session previous = retired.remove(player.getUniqueId());
+        if (previous != null) {
+            synchronized (previous) {
+                // unflushed row from the last session is newer than the database copy
+                session.record = previous.record;
+                session.dirty = previous.dirty;
+            }
+        }
+        sessions.put(player.getUniqueId(), session);
+        return session;
+    }
+
     private void tick() {
         CompatibleScheduler.runTaskAsync(plugin, this::flushAllOnline);
     }
 
     private void flushAllOnline() {
-        for (Player player : Bukkit.getOnlinePlayers()) {
-            recordOnlineDelta(player.getUniqueId(), player.getName(), false);
-            sessionStartMs.put(player.getUniqueId(), System.currentTimeMillis());
+        long now = System.currentTimeMillis();
+        for (Session session : sessions.values()) {
+            synchronized (session) {
+                accrue(session, now, false);
+            }
+        }
+        flushDirty(sessions.values());
+        if (!retired.isEmpty()) {
+            flushDirty(new ArrayList<>(retired.values()));
+            retired.values().removeIf(session -> !session.dirty);
         }
     }
 
-    private void onLogin(Player player) {
-        Guild guild = plugin.getGuildService().getPlayerGuild(player.getUniqueId());
-        if (guild == null) {
-            return;
+    private void onLogin(Session session) {
+        synchronized (session) {
+            if (session.record == null) {
+                attachGuild(session, plugin.getGuildService().getPlayerGuild(session.uuid));
+            }
+            if (session.record == null) {
+                return;
+            }
+            MemberActivityRecord record = session.record;
+            normalizeCalendar(record);
+            record.setLastLoginDate(today());
+            record.setLastSeen(System.currentTimeMillis());
+            record.setPlayerName(session.name);
+            session.dirty = true;
         }
-        MemberActivityRecord record = loadOrCreate(guild.getId(), player.getUniqueId(), player.getName());
-        normalizeCalendar(record);
-        String today = today();
-        record.setLastLoginDate(today);
-        record.setLastSeen(System.currentTimeMillis());
-        record.setPlayerName(player.getName());
-        repository.upsert(record);
     }
 
     /**
-     * @param endSession if true, consume remaining session without restarting the clock
+     * Folds the time since the last interval into the in-memory record. No JDBC unless
+     * the member's guild changed (record reload).
+     *
+     * @param endSession if true, consume remaining session without attributing a minimum
      */
-    private void recordOnlineDelta(UUID uuid, String name, boolean endSession) {
-        Long start = sessionStartMs.get(uuid);
-        if (start == null) {
-            return;
-        }
-        long now = System.currentTimeMillis();
+    private void accrue(Session session, long now, boolean endSession) {
+        long start = session.accountedUntilMs;
         int minutes = (int) Math.max(0, (now - start) / 60_000L);
         if (!endSession) {
             // attribute at least the tick interval when clock skew yields 0
@@ -119,17 +188,13 @@ public final class ActivityTracker implements Listener {
                 minutes = Math.max(1, settings.getTickIntervalSeconds() / 60);
             }
         }
-        if (minutes <= 0 && endSession) {
-            // still update lastSeen
-            minutes = 0;
-        }
+        session.accountedUntilMs = now;
 
-        Guild guild = plugin.getGuildService().getPlayerGuild(uuid);
-        if (guild == null) {
+        refreshGuild(session, now);
+        MemberActivityRecord record = session.record;
+        if (record == null) {
             return;
         }
-
-        MemberActivityRecord record = loadOrCreate(guild.getId(), uuid, name);
         normalizeCalendar(record);
         if (minutes > 0) {
             record.setOnlineMinutesToday(record.getOnlineMinutesToday() + minutes);
@@ -137,8 +202,84 @@ public final class ActivityTracker implements Listener {
             maybeCountActiveDay(record);
         }
         record.setLastSeen(now);
-        record.setPlayerName(name);
-        repository.upsert(record);
+        record.setPlayerName(session.name);
+        session.dirty = true;
+    }
+
+    /**
+     * Detects guild join/leave during a session. Prefers the player data cache (no JDBC);
+     * guildless sessions fall back to a rate-limited lookup.
+     */
+    private void refreshGuild(Session session, long now) {
+        GuildPlayerDataCache cache = plugin.getGuildPlayerDataCache();
+        GuildPlayerDataCache.Snapshot hit = cache != null ? cache.getIfPresent(session.uuid) : null;
+        Guild guild;
+        if (hit != null) {
+            guild = hit.guild;
+        } else if (session.record == null && now - session.guildCheckedAtMs >= GUILD_RECHECK_MS) {
+            session.guildCheckedAtMs = now;
+            guild = plugin.getGuildService().getPlayerGuild(session.uuid);
+        } else {
+            return;
+        }
+        int current = session.record != null ? session.record.getGuildId() : -1;
+        int actual = guild != null ? guild.getId() : -1;
+        if (current == actual) {
+            return;
+        }
+        if (session.record != null && session.dirty) {
+            // persist the old guild's row before switching
+            if (repository.upsertBatch(List.of(session.record.copy()))) {
+                session.dirty = false;
+            }
+        }
+        session.record = null;
+        session.dirty = false;
+        attachGuild(session, guild);
+    }
+
+    private void attachGuild(Session session, Guild guild) {
+        session.guildCheckedAtMs = System.currentTimeMillis();
+        if (guild == null) {
+            return;
+        }
+        session.record = loadOrCreate(guild.getId(), session.uuid, session.name);
+    }
+
+    /**
+     * Writes every dirty session in one batched upsert. Rows stay dirty if the batch fails,
+     * so they are retried on the next interval.
+     */
+    private void flushDirty(Collection<Session> candidates) {
+        synchronized (flushLock) {
+            List<Session> flushed = new ArrayList<>();
+            List<MemberActivityRecord> rows = new ArrayList<>();
+            for (Session session : candidates) {
+                synchronized (session) {
+                    if (session.dirty && session.record != null) {
+                        rows.add(session.record.copy());
+                        session.dirty = false;
+                        flushed.add(session);
+                    }
+                }
+            }
+            if (rows.isEmpty()) {
+                return;
+            }
+            if (!repository.upsertBatch(rows)) {
+                for (Session session : flushed) {
+                    synchronized (session) {
+                        session.dirty = true;
+                    }
+                }
+                for (Session session : flushed) {
+                    if (sessions.get(session.uuid) != session) {
+                        // already quit: keep the row around so the next interval retries it
+                        retired.put(session.uuid, session);
+                    }
+                }
+            }
+        }
     }
 
     private MemberActivityRecord loadOrCreate(int guildId, UUID uuid, String name) {
@@ -25,6 +25,20 @@ public final class MemberActivityRecord {
         this.playerName = playerName != null ? playerName : "";
     }
 
+    /** Detached copy so write-behind flushes never observe a half-updated record. */
+    public MemberActivityRecord copy() {
+        MemberActivityRecord r = new MemberActivityRecord(guildId, playerUuid, playerName);
+        r.onlineMinutesToday = onlineMinutesToday;
+        r.onlineMinutesTotal = onlineMinutesTotal;
+        r.activeDaysWeek = activeDaysWeek;
+        r.activeDayDate = activeDayDate;
+        r.weekStartDate = weekStartDate;
+        r.lastLoginDate = lastLoginDate;
+        r.lastSeen = lastSeen;
+        r.todayDate = todayDate;
+        return r;
+    }
+
     public int getGuildId() {
         return guildId;
     }
@@ -451,36 +451,44 @@ public class GuildAdminCommand implements CommandExecutor, TabCompleter {
                 return;
             }
 
-            final double[] newBalance = {guild.getBalance()};
-            switch (operation.toLowerCase()) {
-                case "set":
-                    newBalance[0] = amount;
-                    break;
-                case "add":
-                    newBalance[0] += amount;
-                    break;
-                case "remove":
-                    newBalance[0] -= amount;
-                    if (newBalance[0] < 0) newBalance[0] = 0;
-                    break;
-                default:
-                    String invalidOp = languageManager.getCoreMessage("admin.economy.invalid-operation", "&cInvalid operation! Use set|add|remove");
-                    sendMessage(sender, ColorUtils.colorize(invalidOp));
-                    return;
-            }
+            applyEconomyOperation(sender, guild, guildName, operation, amount);
+        });
+    }
 
-            plugin.getGuildService().updateGuildBalanceAsync(guild.getId(), newBalance[0]).thenAccept(success -> {
-                if (success) {
-                    String formattedAmount = plugin.getEconomyManager().format(newBalance[0]);
-                    String successMsg = languageManager.getCoreMessage("admin.economy.success", "&aGuild {guild} balance has been updated to: {balance}")
-                        .replace("{guild}", guildName)
-                        .replace("{balance}", formattedAmount);
-                    sendMessage(sender, ColorUtils.colorize(successMsg));
-                } else {
-                    String failed = languageManager.getCoreMessage("admin.economy.failed", "&cFailed to update guild balance!");
-                    sendMessage(sender, ColorUtils.colorize(failed));
-                }
-            });
+    /**
+     * set 为绝对值写入；add/remove 走 {@link com.guild.services.GuildService#adjustGuildBalanceAsync}
+     * 增量通道，避免覆盖同时发生的存取款。remove 超过当前余额时由通道的条件更新拒绝。
+     */
+    private void applyEconomyOperation(CommandSender sender, Guild guild, String guildName, String operation, double amount) {
+        CompletableFuture<Double> result;
+        switch (operation.toLowerCase()) {
+            case "set":
+                result = plugin.getGuildService().updateGuildBalanceAsync(guild.getId(), amount)
+                    .thenApply(success -> success ? amount : null);
+                break;
+            case "add":
+                result = plugin.getGuildService().adjustGuildBalanceAsync(guild.getId(), amount);
+                break;
+            case "remove":
+                result = plugin.getGuildService().adjustGuildBalanceAsync(guild.getId(), -amount);
+                break;
+            default:
+                String invalidOp = languageManager.getCoreMessage("admin.economy.invalid-operation", "&cInvalid operation! Use set|add|remove");
+                sendMessage(sender, ColorUtils.colorize(invalidOp));
+                return;
+        }
+
+        result.thenAccept(newBalance -> {
+            if (newBalance != null) {
+                String formattedAmount = plugin.getEconomyManager().format(newBalance);
+                String successMsg = languageManager.getCoreMessage("admin.economy.success", "&aGuild {guild} balance has been updated to: {balance}")
+                    .replace("{guild}", guildName)
+                    .replace("{balance}", formattedAmount);
+                sendMessage(sender, ColorUtils.colorize(successMsg));
+            } else {
+                String failed = languageManager.getCoreMessage("admin.economy.failed", "&cFailed to update guild balance!");
+                sendMessage(sender, ColorUtils.colorize(failed));
+            }
         });
     }
     
@@ -930,35 +938,7 @@ public class GuildAdminCommand implements CommandExecutor, TabCompleter {
                         sendMessage(sender, ColorUtils.colorize(notFound));
                         return;
                     }
-                    final double[] newBalance = {guild.getBalance()};
-                    switch (operation.toLowerCase()) {
-                        case "set":
-                            newBalance[0] = amount;
-                            break;
-                        case "add":
-                            newBalance[0] += amount;
-                            break;
-                        case "remove":
-                            newBalance[0] -= amount;
-                            if (newBalance[0] < 0) newBalance[0] = 0;
-                            break;
-                        default:
-                            String invalidOp = languageManager.getCoreMessage("admin.economy.invalid-operation", "&cInvalid operation! Use set|add|remove");
-                            sendMessage(sender, ColorUtils.colorize(invalidOp));
-                            return;
-                    }
-                    plugin.getGuildService().updateGuildBalanceAsync(guild.getId(), newBalance[0]).thenAccept(success -> {
-                        if (success) {
-                            String formattedAmount = plugin.getEconomyManager().format(newBalance[0]);
-                            String successMsg = languageManager.getCoreMessage("admin.economy.success", "&aGuild {guild} balance has been updated to: {balance}")
-                                .replace("{guild}", guildName)
-                                .replace("{balance}", formattedAmount);
-                            sendMessage(sender, ColorUtils.colorize(successMsg));
-                        } else {
-                            String failed = languageManager.getCoreMessage("admin.economy.failed", "&cFailed to update guild balance!");
-                            sendMessage(sender, ColorUtils.colorize(failed));
-                        }
-                    });
+                    applyEconomyOperation(sender, guild, guildName, operation, amount);
                 });
                 break;
             case "relation":
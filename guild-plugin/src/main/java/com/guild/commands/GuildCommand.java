@@ -1116,9 +1116,6 @@ public class GuildCommand implements CommandExecutor, TabCompleter {
                 
                 // 设置公会 home 位置
                 plugin.getGuildService().setGuildHome(guild.getId(), player.getLocation(), player.getUniqueId());
-                if (plugin.getGuildHomeProtectListener() != null) {
-                    plugin.getGuildHomeProtectListener().refreshHomesAsync();
-                }
                 
                 CompatibleScheduler.runTask(plugin, player, () -> {
                     String message = languageManager.getCoreMessage(player, "guild.sethome.success", "&aGuild home has been set!");
@@ -1663,10 +1660,10 @@ public class GuildCommand implements CommandExecutor, TabCompleter {
                     return;
                 }
                 
-                // 增加公会余额（传入操作者信息，避免 updateGuildBalanceAsync 内部产生 SYSTEM 匿名日志）
-                boolean success = plugin.getGuildService().updateGuildBalanceAsync(
-                        guild.getId(), guild.getBalance() + amount,
-                        player.getUniqueId().toString(), player.getName()).join();
+                // 增加公会余额（增量写入，并发存款不会互相覆盖；传入操作者信息用于资金日志）
+                boolean success = plugin.getGuildService().adjustGuildBalanceAsync(
+                        guild.getId(), amount,
+                        player.getUniqueId().toString(), player.getName()).join() != null;
                 if (success) {
                     // 记录投资
                     plugin.getGuildInvestmentService().recordDeposit(guild.getId(), player.getUniqueId(), player.getName(), amount);
@@ -1747,19 +1744,27 @@ public class GuildCommand implements CommandExecutor, TabCompleter {
                     return;
                 }
                 
-                // 增加玩家余额
+                // 先扣公会余额（库内保证不扣成负数，避免并发取款超支）
+                String operatorUuid = player.getUniqueId().toString();
+                if (plugin.getGuildService().adjustGuildBalanceAsync(
+                        guild.getId(), -amount, operatorUuid, player.getName()).join() == null) {
+                    CompatibleScheduler.runTask(plugin, player, () -> {
+                        String message = languageManager.getCoreMessage(player, "guild.withdraw.insufficient-funds", "&cInsufficient guild account balance!");
+                        player.sendMessage(ColorUtils.colorize(message));
+                    });
+                    return;
+                }
+                
+                // 增加玩家余额，失败时退回公会
                 if (!plugin.getEconomyManager().deposit(player, amount)) {
+                    plugin.getGuildService().adjustGuildBalanceAsync(
+                            guild.getId(), amount, operatorUuid, player.getName()).join();
                     CompatibleScheduler.runTask(plugin, player, () -> {
                         String message = languageManager.getCoreMessage(player, "guild.withdraw.error", "&cAn error occurred while withdrawing!");
                         player.sendMessage(ColorUtils.colorize(message));
                     });
                     return;
                 }
-                
-                // 减少公会余额（传入操作者信息，避免产生 SYSTEM 匿名日志）
-                plugin.getGuildService().updateGuildBalanceAsync(
-                        guild.getId(), guild.getBalance() - amount,
-                        player.getUniqueId().toString(), player.getName()).join();
                 // 记录取款
                 plugin.getGuildInvestmentService().recordWithdraw(guild.getId(), player.getUniqueId(), amount);
                 // 分发取款事件给模块
@@ -1855,11 +1860,28 @@ public class GuildCommand implements CommandExecutor, TabCompleter {
                     return;
                 }
                 
-                // 减少源公会余额
-                boolean sourceSuccess = plugin.getGuildService().updateGuildBalanceAsync(sourceGuild.getId(), sourceGuild.getBalance() - amount).join();
+                // 减少源公会余额（余额不足时不扣款）
+                String operatorUuid = player.getUniqueId().toString();
+                if (plugin.getGuildService().adjustGuildBalanceAsync(
+                        sourceGuild.getId(), -amount, operatorUuid, player.getName()).join() == null) {
+                    CompatibleScheduler.runTask(plugin, player, () -> {
+                        String message = languageManager.getCoreMessage(player, "guild.transfer.insufficient-funds", "&cInsufficient guild account balance!");
+                        player.sendMessage(ColorUtils.colorize(message));
+                    });
+                    return;
+                }
                 
-                // 增加目标公会余额
-                boolean targetSuccess = plugin.getGuildService().updateGuildBalanceAsync(targetGuild.getId(), targetGuild.getBalance() + amount).join();
+                // 增加目标公会余额，失败时退回源公会
+                if (plugin.getGuildService().adjustGuildBalanceAsync(
+                        targetGuild.getId(), amount, operatorUuid, player.getName()).join() == null) {
+                    plugin.getGuildService().adjustGuildBalanceAsync(
+                            sourceGuild.getId(), amount, operatorUuid, player.getName()).join();
+                    CompatibleScheduler.runTask(plugin, player, () -> {
+                        String message = languageManager.getCoreMessage(player, "guild.transfer.error", "&cAn error occurred while transferring!");
+                        player.sendMessage(ColorUtils.colorize(message));
+                    });
+                    return;
+                }
                 
                 CompatibleScheduler.runTask(plugin, player, () -> {
                     String message = languageManager.getCoreMessage(player, "guild.transfer.success", "&aSuccessfully transferred {0} coins to {1}!");
@@ -1911,13 +1933,22 @@ public class GuildCommand implements CommandExecutor, TabCompleter {
                     return;
                 }
                 
-                // 减少公会余额
-                plugin.getGuildService().updateGuildBalanceAsync(guild.getId(), guild.getBalance() - amount).join();
+                // 减少公会余额（余额不足时不扣款）
+                String operatorUuid = player.getUniqueId().toString();
+                if (plugin.getGuildService().adjustGuildBalanceAsync(
+                        guild.getId(), -amount, operatorUuid, player.getName()).join() == null) {
+                    CompatibleScheduler.runTask(plugin, player, () -> {
+                        String message = languageManager.getCoreMessage(player, "guild.transfer.insufficient-funds", "&cInsufficient guild account balance!");
+                        player.sendMessage(ColorUtils.colorize(message));
+                    });
+                    return;
+                }
                 
                 // 增加目标玩家余额
                 if (!plugin.getEconomyManager().deposit(targetPlayer, amount)) {
                     // 如果转账失败，恢复公会余额
-                    plugin.getGuildService().updateGuildBalanceAsync(guild.getId(), guild.getBalance() + amount).join();
+                    plugin.getGuildService().adjustGuildBalanceAsync(
+                            guild.getId(), amount, operatorUuid, player.getName()).join();
                     CompatibleScheduler.runTask(plugin, player, () -> {
                         String message = languageManager.getCoreMessage(player, "guild.transfer.error", "&cAn error occurred while transferring!");
                         player.sendMessage(ColorUtils.colorize(message));
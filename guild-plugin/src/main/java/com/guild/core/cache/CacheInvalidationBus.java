@@ -0,0 +1,320 @@
+package com.guild.core.cache;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.guild.GuildPlugin;
+import com.guild.comm.api.BungeeClientAPI;
+import com.guild.comm.api.CommAPI;
+import com.guild.comm.bridge.ChannelRouter;
+import com.guild.comm.bridge.MessagePacket;
+import com.guild.core.utils.CompatibleScheduler;
+import com.guild.listeners.GuildHomeProtectListener;
+import com.guild.sdk.economy.CurrencyManager;
+import com.guild.warehouse.GuildWarehouseService;
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+
+import java.util.EnumMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+
+/**
+ * Cross-server cache invalidation over the {@code guild:main} channel.
+ * <p>
+ * Write paths publish a typed invalidation ({@link Kind}); invalidations are de-duplicated and sent
+ * once per tick as one {@code guild.event.invalidate.<kind>} message per kind. The proxy relays
+ * {@code guild.event.*} to every other backend ({@code CrossServerBridge#handleEventBroadcast}), where
+ * the {@link ChannelRouter} subscriptions below evict exactly the affected entries of the core caches
+ * and notify module listeners registered via {@link #subscribe}. Local caches are still invalidated
+ * by the write path itself — this bus only covers the other servers.
+ * <p>
+ * Off by default ({@code cross-server.cache-invalidation}); with it on, cache TTLs
+ * ({@code cross-server.*-ttl-seconds}) only bound lost messages and can be raised accordingly.
+ */
+public final class CacheInvalidationBus {
+
+    public static final String TOPIC_PREFIX = "guild.event.invalidate.";
+
+    /** Invalidation type; the topic is {@code guild.event.invalidate.<id>}. */
+    public enum Kind {
+        /** 公会行变更（名称、等级、删除等） */
+        GUILD("guild"),
+        /** 成员关系变更（加入、离开、职位） */
+        MEMBER("member"),
+        /** 公会资金 / 公会级账本（银行余额、公会树经验） */
+        BALANCE("balance"),
+        /** 模块货币（{@link CurrencyManager}） */
+        CURRENCY("currency"),
+        /** 公会仓库物品（页缓存） */
+        WAREHOUSE("warehouse");
+
+        private final String id;
+
+        Kind(String id) {
+            this.id = id;
+        }
+
+        public String topic() {
+            return TOPIC_PREFIX + id;
+        }
+    }
+
+    /** One invalidation; {@code playerUuid} / {@code currency} are null when not applicable. */
+    public record Invalidation(Kind kind, int guildId, UUID playerUuid, CurrencyManager.CurrencyType currency) {
+    }
+
+    private final GuildPlugin plugin;
+    private final boolean enabled;
+    private final Set<Invalidation> pending = new LinkedHashSet<>();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+    private final Map<Kind, List<Consumer<Invalidation>>> listeners = new EnumMap<>(Kind.class);
+    private final Map<Kind, ChannelRouter.TopicHandler> handlers = new EnumMap<>(Kind.class);
+    private volatile boolean running;
+
+    public CacheInvalidationBus(GuildPlugin plugin) {
+        this.plugin = plugin;
+        this.enabled = plugin.getConfig().getBoolean("cross-server.cache-invalidation", false);
+        for (Kind kind : Kind.values()) {
+            listeners.put(kind, new CopyOnWriteArrayList<>());
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /** Subscribe to the {@code guild:main} topics (no-op when disabled or the bridge is unavailable). */
+    public void start() {
+        if (!enabled || running) {
+            return;
+        }
+        if (!CommAPI.isInitialized()) {
+            plugin.getLogger().warning("[CacheBus] CommAPI unavailable — cross-server cache invalidation disabled");
+            return;
+        }
+        for (Kind kind : Kind.values()) {
+            ChannelRouter.TopicHandler handler = packet -> receive(kind, packet);
+            handlers.put(kind, handler);
+            CommAPI.on(kind.topic(), handler);
+        }
+        running = true;
+        plugin.getLogger().info("[CacheBus] Cross-server cache invalidation enabled");
+    }
+
+    /** Flush what is still queued and unsubscribe. */
+    public void stop() {
+        if (!running) {
+            return;
+        }
+        flush();
+        running = false;
+        for (Map.Entry<Kind, ChannelRouter.TopicHandler> entry : handlers.entrySet()) {
+            try {
+                CommAPI.off(entry.getKey().topic(), entry.getValue());
+            } catch (Exception ignored) {
+            }
+        }
+        handlers.clear();
+    }
+
+    /**
+     * Register a listener for invalidations received from other servers (module caches).
+     * Called on the thread that delivered the plugin message; keep it to cheap evictions.
+     */
+    public void subscribe(Kind kind, Consumer<Invalidation> listener) {
+        listeners.get(kind).add(listener);
+    }
+
+    public void unsubscribe(Kind kind, Consumer<Invalidation> listener) {
+        listeners.get(kind).remove(listener);
+    }
+
+    // ==================== 发布 ====================
+
+    public void publishGuild(int guildId) {
+        publish(new Invalidation(Kind.GUILD, guildId, null, null));
+    }
+
+    public void publishMember(int guildId, UUID playerUuid) {
+        if (playerUuid != null) {
+            publish(new Invalidation(Kind.MEMBER, guildId, playerUuid, null));
+        }
+    }
+
+    public void publishBalance(int guildId) {
+        publish(new Invalidation(Kind.BALANCE, guildId, null, null));
+    }
+
+    public void publishCurrency(int guildId, UUID playerUuid, CurrencyManager.CurrencyType currency) {
+        if (playerUuid != null && currency != null) {
+            publish(new Invalidation(Kind.CURRENCY, guildId, playerUuid, currency));
+        }
+    }
+
+    public void publishWarehouse(int guildId) {
+        publish(new Invalidation(Kind.WAREHOUSE, guildId, null, null));
+    }
+
+    private void publish(Invalidation invalidation) {
+        if (!running || invalidation.guildId() <= 0) {
+            return;
+        }
+        synchronized (pending) {
+            pending.add(invalidation);
+        }
+        if (flushScheduled.compareAndSet(false, true)) {
+            try {
+                CompatibleScheduler.runTask(plugin, this::flush);
+            } catch (Exception e) {
+                // 插件禁用中无法调度：直接发送
+                flush();
+            }
+        }
+    }
+
+    /** Send everything queued: one message per kind carrying all of its entries. */
+    private void flush() {
+        flushScheduled.set(false);
+        Map<Kind, JsonArray> batches = new EnumMap<>(Kind.class);
+        synchronized (pending) {
+            for (Invalidation inv : pending) {
+                JsonObject entry = new JsonObject();
+                entry.addProperty("guildId", inv.guildId());
+                if (inv.playerUuid() != null) {
+                    entry.addProperty("player", inv.playerUuid().toString());
+                }
+                if (inv.currency() != null) {
+                    entry.addProperty("currency", inv.currency().name());
+                }
+                batches.computeIfAbsent(inv.kind(), k -> new JsonArray()).add(entry);
+            }
+            pending.clear();
+        }
+        // 无在线玩家时由 BungeeClientAPI 出站队列缓冲，下一位玩家加入后发出
+        if (batches.isEmpty() || !BungeeClientAPI.isInitialized()) {
+            return;
+        }
+        for (Map.Entry<Kind, JsonArray> batch : batches.entrySet()) {
+            JsonObject payload = new JsonObject();
+            payload.add("entries", batch.getValue());
+            BungeeClientAPI.sendToBungee(batch.getKey().topic(), payload.toString());
+        }
+    }
+
+    // ==================== 接收 ====================
+
+    private void receive(Kind kind, MessagePacket packet) {
+        JsonArray entries;
+        try {
+            JsonElement root = JsonParser.parseString(packet.getPayload());
+            entries = root.getAsJsonObject().getAsJsonArray("entries");
+        } catch (Exception e) {
+            plugin.getLogger().warning("[CacheBus] Malformed invalidation " + packet.getType() + ": " + e.getMessage());
+            return;
+        }
+        if (entries == null) {
+            return;
+        }
+        for (JsonElement element : entries) {
+            Invalidation inv = parse(kind, element);
+            if (inv == null) {
+                continue;
+            }
+            try {
+                apply(inv);
+            } catch (Exception e) {
+                plugin.getLogger().log(Level.WARNING, "[CacheBus] Failed to apply " + inv + ": " + e.getMessage(), e);
+            }
+            for (Consumer<Invalidation> listener : listeners.get(kind)) {
+                try {
+                    listener.accept(inv);
+                } catch (Exception e) {
+                    plugin.getLogger().log(Level.WARNING, "[CacheBus] Listener error for " + inv + ": " + e.getMessage(), e);
+                }
+            }
+        }
+    }
+
+    private static Invalidation parse(Kind kind, JsonElement element) {
+        try {
+            JsonObject obj = element.getAsJsonObject();
+            int guildId = obj.get("guildId").getAsInt();
+            UUID uuid = obj.has("player") ? UUID.fromString(obj.get("player").getAsString()) : null;
+            CurrencyManager.CurrencyType currency = obj.has("currency")
+                    ? CurrencyManager.CurrencyType.valueOf(obj.get("currency").getAsString()) : null;
+            return new Invalidation(kind, guildId, uuid, currency);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    /** Evict the core caches touched by one remote change. */
+    private void apply(Invalidation inv) {
+        GuildPlayerDataCache playerData = plugin.getGuildPlayerDataCache();
+        GuildMembershipIndex index = plugin.getGuildMembershipIndex();
+        switch (inv.kind()) {
+            case GUILD -> {
+                evictGuild(inv.guildId(), playerData);
+                if (index != null) {
+                    index.refreshGuildAsync(inv.guildId());
+                }
+                // 公会家变更或删除：与本地写路径一样更新保护网格
+                GuildHomeProtectListener homeProtect = plugin.getGuildHomeProtectListener();
+                if (homeProtect != null) {
+                    homeProtect.refreshGuildAsync(inv.guildId());
+                }
+                GuildWarehouseService warehouse = plugin.getGuildWarehouseService();
+                if (warehouse != null) {
+                    warehouse.invalidateGuild(inv.guildId());
+                }
+            }
+            case MEMBER -> {
+                evictGuild(inv.guildId(), playerData);
+                if (playerData != null) {
+                    playerData.invalidate(inv.playerUuid());
+                }
+                if (index != null) {
+                    index.refreshMemberAsync(inv.playerUuid());
+                }
+                Player player = Bukkit.getPlayer(inv.playerUuid());
+                if (player != null && player.isOnline()) {
+                    try {
+                        plugin.getPermissionManager().updatePlayerPermissions(inv.playerUuid());
+                    } catch (Exception ignored) {
+                    }
+                }
+            }
+            case BALANCE -> evictGuild(inv.guildId(), playerData);
+            case CURRENCY -> {
+                if (plugin.getServiceContainer().has(CurrencyManager.class)) {
+                    plugin.getServiceContainer().get(CurrencyManager.class)
+                            .invalidate(inv.guildId(), inv.playerUuid(), inv.currency());
+                }
+            }
+            case WAREHOUSE -> {
+                GuildWarehouseService warehouse = plugin.getGuildWarehouseService();
+                if (warehouse != null) {
+                    warehouse.invalidateGuild(inv.guildId());
+                }
+            }
+        }
+    }
+
+    private void evictGuild(int guildId, GuildPlayerDataCache playerData) {
+        if (plugin.getGuildService() != null) {
+            plugin.getGuildService().getGuildSnapshotCache().invalidate(guildId);
+        }
+        if (playerData != null) {
+            playerData.invalidateGuild(guildId);
+        }
+    }
+}
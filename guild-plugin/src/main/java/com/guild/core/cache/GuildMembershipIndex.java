@@ -0,0 +1,372 @@
+package com.guild.core.cache;
+
+import com.guild.GuildPlugin;
+import com.guild.models.GuildMember;
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory guild membership index: player → guild/role, guild → members, guild → online members.
+ * <p>
+ * Loaded once from {@code guild_members} at startup, then kept current by the mutation paths
+ * in {@link com.guild.services.GuildService} and by join/quit. Guild chat, war broadcasts and
+ * notifications resolve recipients here without JDBC. Until {@link #isReady()} callers should
+ * fall back to the service queries.
+ * <p>
+ * Mutations applied while a bulk load is running are journaled and replayed on top of the loaded
+ * snapshot before it is swapped in, so a join/leave between the query and the swap is not lost.
+ */
+public final class GuildMembershipIndex implements Listener {
+
+    /** Immutable membership entry for one player. */
+    public static final class Entry {
+        public final int guildId;
+        public final UUID playerUuid;
+        public final String playerName;
+        public final GuildMember.Role role;
+
+        Entry(int guildId, UUID playerUuid, String playerName, GuildMember.Role role) {
+            this.guildId = guildId;
+            this.playerUuid = playerUuid;
+            this.playerName = playerName;
+            this.role = role;
+        }
+
+        Entry withRole(GuildMember.Role newRole) {
+            return new Entry(guildId, playerUuid, playerName, newRole);
+        }
+    }
+
+    private final GuildPlugin plugin;
+    private final ConcurrentHashMap<UUID, Entry> byPlayer = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Integer, Set<UUID>> membersByGuild = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Integer, Set<UUID>> onlineByGuild = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Integer, String> guildNames = new ConcurrentHashMap<>();
+    private volatile boolean ready;
+    /** Changes applied during running bulk loads (guarded by {@code this}); null when none is running. */
+    private List<Runnable> loadJournal;
+    private int activeLoads;
+
+    public GuildMembershipIndex(GuildPlugin plugin) {
+        this.plugin = plugin;
+    }
+
+    /**
+     * (Re)build the index from the database. Safe to call again (e.g. after cross-server changes).
+     */
+    public CompletableFuture<Void> loadAsync() {
+        return plugin.getDatabaseManager().runAsync(() -> {
+            beginLoad();
+            try {
+                load();
+            } finally {
+                endLoad();
+            }
+        });
+    }
+
+    private void load() {
+        Map<UUID, Entry> players = new HashMap<>();
+        Map<Integer, String> names = new HashMap<>();
+        try (Connection conn = plugin.getDatabaseManager().getConnection()) {
+            try (PreparedStatement stmt = conn.prepareStatement("SELECT id, name FROM guilds");
+                 ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    names.put(rs.getInt("id"), rs.getString("name"));
+                }
+            }
+            try (PreparedStatement stmt = conn.prepareStatement(
+                    "SELECT guild_id, player_uuid, player_name, role FROM guild_members");
+                 ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    UUID uuid;
+                    try {
+                        uuid = UUID.fromString(rs.getString("player_uuid"));
+                    } catch (IllegalArgumentException e) {
+                        continue;
+                    }
+                    players.put(uuid, new Entry(rs.getInt("guild_id"), uuid,
+                            rs.getString("player_name"), parseRole(rs.getString("role"))));
+                }
+            }
+        } catch (SQLException e) {
+            plugin.getLogger().severe("[MembershipIndex] Load failed, falling back to database lookups: " + e.getMessage());
+            ready = false;
+            return;
+        }
+        synchronized (this) {
+            byPlayer.clear();
+            membersByGuild.clear();
+            onlineByGuild.clear();
+            guildNames.clear();
+            guildNames.putAll(names);
+            for (Entry entry : players.values()) {
+                putEntry(entry);
+            }
+            // 查询之后应用的增量变更（幂等）重放到新快照上
+            for (Runnable change : loadJournal) {
+                change.run();
+            }
+            for (Player online : Bukkit.getOnlinePlayers()) {
+                markOnline(online.getUniqueId());
+            }
+            ready = true;
+        }
+        plugin.getLogger().info("[MembershipIndex] Indexed " + players.size() + " member(s) in " + names.size() + " guild(s)");
+    }
+
+    private synchronized void beginLoad() {
+        if (activeLoads++ == 0) {
+            loadJournal = new ArrayList<>();
+        }
+    }
+
+    private synchronized void endLoad() {
+        if (--activeLoads == 0) {
+            loadJournal = null;
+        }
+    }
+
+    /** Apply a change to the live maps and journal it for any running bulk load. Caller holds the lock. */
+    private void apply(Runnable change) {
+        change.run();
+        if (loadJournal != null) {
+            loadJournal.add(change);
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    // ==================== 查询（零 JDBC） ====================
+
+    public Entry get(UUID playerUuid) {
+        return playerUuid != null ? byPlayer.get(playerUuid) : null;
+    }
+
+    /** @return guild id, or -1 if the player is not in a guild */
+    public int getGuildId(UUID playerUuid) {
+        Entry entry = get(playerUuid);
+        return entry != null ? entry.guildId : -1;
+    }
+
+    public GuildMember.Role getRole(UUID playerUuid) {
+        Entry entry = get(playerUuid);
+        return entry != null ? entry.role : null;
+    }
+
+    public String getGuildName(int guildId) {
+        return guildNames.get(guildId);
+    }
+
+    /** Read-only live view of all member UUIDs of a guild. */
+    public Set<UUID> getMembers(int guildId) {
+        Set<UUID> set = membersByGuild.get(guildId);
+        return set != null ? Collections.unmodifiableSet(set) : Collections.emptySet();
+    }
+
+    /** Read-only live view of the online member UUIDs of a guild. */
+    public Set<UUID> getOnlineMembers(int guildId) {
+        Set<UUID> set = onlineByGuild.get(guildId);
+        return set != null ? Collections.unmodifiableSet(set) : Collections.emptySet();
+    }
+
+    /** Online member players of a guild; O(online members). */
+    public List<Player> getOnlinePlayers(int guildId) {
+        Set<UUID> set = onlineByGuild.get(guildId);
+        if (set == null || set.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<Player> players = new ArrayList<>(set.size());
+        for (UUID uuid : set) {
+            Player player = Bukkit.getPlayer(uuid);
+            if (player != null && player.isOnline()) {
+                players.add(player);
+            }
+        }
+        return players;
+    }
+
+    public int getMemberCount(int guildId) {
+        Set<UUID> set = membersByGuild.get(guildId);
+        return set != null ? set.size() : 0;
+    }
+
+    public int getOnlineCount(int guildId) {
+        Set<UUID> set = onlineByGuild.get(guildId);
+        return set != null ? set.size() : 0;
+    }
+
+    // ==================== 变更（由 GuildService 写库成功后调用） ====================
+
+    public synchronized void onGuildCreated(int guildId, String name) {
+        apply(() -> guildNames.put(guildId, name));
+    }
+
+    public synchronized void onGuildRenamed(int guildId, String name) {
+        if (name != null) {
+            apply(() -> guildNames.put(guildId, name));
+        }
+    }
+
+    public synchronized void onMemberAdded(int guildId, UUID playerUuid, String playerName, GuildMember.Role role) {
+        apply(() -> {
+            removeEntry(playerUuid);
+            putEntry(new Entry(guildId, playerUuid, playerName, role));
+            Player player = Bukkit.getPlayer(playerUuid);
+            if (player != null && player.isOnline()) {
+                markOnline(playerUuid);
+            }
+        });
+    }
+
+    public synchronized void onMemberRemoved(UUID playerUuid) {
+        apply(() -> removeEntry(playerUuid));
+    }
+
+    public synchronized void onRoleChanged(UUID playerUuid, GuildMember.Role role) {
+        apply(() -> byPlayer.computeIfPresent(playerUuid, (k, entry) -> entry.withRole(role)));
+    }
+
+    public synchronized void onGuildRemoved(int guildId) {
+        apply(() -> {
+            Set<UUID> members = membersByGuild.remove(guildId);
+            if (members != null) {
+                for (UUID uuid : members) {
+                    byPlayer.remove(uuid);
+                }
+            }
+            onlineByGuild.remove(guildId);
+            guildNames.remove(guildId);
+        });
+    }
+
+    // ==================== 跨服变更（CacheInvalidationBus） ====================
+
+    /** Re-read one player's membership after another server changed it. */
+    public CompletableFuture<Void> refreshMemberAsync(UUID playerUuid) {
+        if (!ready || playerUuid == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return plugin.getDatabaseManager().runAsync(() -> {
+            try (Connection conn = plugin.getDatabaseManager().getConnection();
+                 PreparedStatement stmt = conn.prepareStatement(
+                         "SELECT guild_id, player_name, role FROM guild_members WHERE player_uuid = ?")) {
+                stmt.setString(1, playerUuid.toString());
+                try (ResultSet rs = stmt.executeQuery()) {
+                    if (rs.next()) {
+                        onMemberAdded(rs.getInt("guild_id"), playerUuid,
+                                rs.getString("player_name"), parseRole(rs.getString("role")));
+                    } else {
+                        onMemberRemoved(playerUuid);
+                    }
+                }
+            } catch (SQLException e) {
+                plugin.getLogger().warning("[MembershipIndex] Member refresh failed for " + playerUuid + ": " + e.getMessage());
+            }
+        });
+    }
+
+    /** Re-read a guild's name after another server changed it; drops the guild if it no longer exists. */
+    public CompletableFuture<Void> refreshGuildAsync(int guildId) {
+        if (!ready) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return plugin.getDatabaseManager().runAsync(() -> {
+            try (Connection conn = plugin.getDatabaseManager().getConnection();
+                 PreparedStatement stmt = conn.prepareStatement("SELECT name FROM guilds WHERE id = ?")) {
+                stmt.setInt(1, guildId);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    if (rs.next()) {
+                        onGuildRenamed(guildId, rs.getString("name"));
+                    } else {
+                        onGuildRemoved(guildId);
+                    }
+                }
+            } catch (SQLException e) {
+                plugin.getLogger().warning("[MembershipIndex] Guild refresh failed for #" + guildId + ": " + e.getMessage());
+            }
+        });
+    }
+
+    // ==================== 在线状态 ====================
+
+    @EventHandler(priority = EventPriority.LOWEST)
+    public void onJoin(PlayerJoinEvent event) {
+        synchronized (this) {
+            markOnline(event.getPlayer().getUniqueId());
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onQuit(PlayerQuitEvent event) {
+        UUID uuid = event.getPlayer().getUniqueId();
+        synchronized (this) {
+            Entry entry = byPlayer.get(uuid);
+            if (entry != null) {
+                Set<UUID> online = onlineByGuild.get(entry.guildId);
+                if (online != null) {
+                    online.remove(uuid);
+                }
+            }
+        }
+    }
+
+    private void markOnline(UUID uuid) {
+        Entry entry = byPlayer.get(uuid);
+        if (entry != null) {
+            onlineByGuild.computeIfAbsent(entry.guildId, k -> ConcurrentHashMap.newKeySet()).add(uuid);
+        }
+    }
+
+    private void putEntry(Entry entry) {
+        byPlayer.put(entry.playerUuid, entry);
+        membersByGuild.computeIfAbsent(entry.guildId, k -> ConcurrentHashMap.newKeySet()).add(entry.playerUuid);
+    }
+
+    private void removeEntry(UUID playerUuid) {
+        Entry old = byPlayer.remove(playerUuid);
+        if (old == null) {
+            return;
+        }
+        Set<UUID> members = membersByGuild.get(old.guildId);
+        if (members != null) {
+            members.remove(playerUuid);
+        }
+        Set<UUID> online = onlineByGuild.get(old.guildId);
+        if (online != null) {
+            online.remove(playerUuid);
+        }
+    }
+
+    private static GuildMember.Role parseRole(String raw) {
+        if (raw == null) {
+            return GuildMember.Role.MEMBER;
+        }
+        try {
+            return GuildMember.Role.valueOf(raw.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return GuildMember.Role.MEMBER;
+        }
+    }
+}
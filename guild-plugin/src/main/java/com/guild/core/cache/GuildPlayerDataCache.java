@@ -4,18 +4,32 @@ import com.guild.GuildPlugin;
 import com.guild.models.Guild;
 import com.guild.models.GuildMember;
 import com.guild.services.GuildService;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
 
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
- * Short-TTL cache to cut sync JDBC on PlaceholderAPI / permission / GUI hot paths.
+ * Per-player guild/member read model for PlaceholderAPI / permission / GUI hot paths.
  * <p>
- * Invalidate via {@link #invalidate(UUID)} on membership changes
- * ({@code PermissionManager.updatePlayerPermissions} already does this).
+ * Snapshots are preloaded on join and invalidated precisely by {@link GuildService} mutation
+ * paths ({@link #invalidate(UUID)} for a member, {@link #invalidateGuild(int)} for guild-wide
+ * changes such as balance, level, rename or membership count); cross-server updates should call
+ * the same methods. The TTL only bounds how long an un-notified change can stay visible.
+ * <p>
+ * Reads are stale-while-revalidate: an expired snapshot is returned immediately while a single
+ * background reload runs. Guild-wide invalidation only expires the guild's snapshots, so a burst of
+ * balance changes costs at most one reload per member, on that member's next read. {@link #peek(UUID)} never blocks (placeholders); {@link #get(UUID)}
+ * blocks only on a cold or explicitly invalidated entry, so permission checks see the change.
  */
-public final class GuildPlayerDataCache {
+public final class GuildPlayerDataCache implements Listener {
 
     public static final class Snapshot {
         public final Guild guild;
@@ -23,70 +37,148 @@ public final class GuildPlayerDataCache {
         public final Double contributionNet;
         public final Integer memberCount;
         public final long loadedAtMs;
+        /** Set by {@link #invalidate}; may still be served by {@link #peek} until the reload lands. */
+        final boolean invalidated;
 
         public Snapshot(Guild guild, GuildMember member, Double contributionNet,
                         Integer memberCount, long loadedAtMs) {
+            this(guild, member, contributionNet, memberCount, loadedAtMs, false);
+        }
+
+        private Snapshot(Guild guild, GuildMember member, Double contributionNet,
+                         Integer memberCount, long loadedAtMs, boolean invalidated) {
             this.guild = guild;
             this.member = member;
             this.contributionNet = contributionNet;
             this.memberCount = memberCount;
             this.loadedAtMs = loadedAtMs;
+            this.invalidated = invalidated;
         }
 
         public Snapshot withContribution(Double net) {
-            return new Snapshot(guild, member, net, memberCount, loadedAtMs);
+            return new Snapshot(guild, member, net, memberCount, loadedAtMs, invalidated);
         }
 
         public Snapshot withMemberCount(Integer count) {
-            return new Snapshot(guild, member, contributionNet, count, loadedAtMs);
+            return new Snapshot(guild, member, contributionNet, count, loadedAtMs, invalidated);
+        }
+
+        Snapshot asInvalidated() {
+            return invalidated ? this : new Snapshot(guild, member, contributionNet, memberCount, loadedAtMs, true);
+        }
+
+        Snapshot asExpired() {
+            return loadedAtMs == 0L ? this : new Snapshot(guild, member, contributionNet, memberCount, 0L, invalidated);
         }
     }
 
     private final GuildPlugin plugin;
     private final long ttlMs;
     private final ConcurrentHashMap<UUID, Snapshot> cache = new ConcurrentHashMap<>();
+    /** Bumped on every invalidation; a load that started under an older generation is stored as invalidated. */
+    private final ConcurrentHashMap<UUID, Long> generations = new ConcurrentHashMap<>();
+    /** Last {@link #invalidateGuild} per guild (nanoTime); a load that started before it is stored already expired. */
+    private final ConcurrentHashMap<Integer, Long> guildExpiredAt = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<UUID, Boolean> refreshing = new ConcurrentHashMap<>();
     private final ConcurrentHashMap<UUID, Boolean> contributionLoading = new ConcurrentHashMap<>();
     private final ConcurrentHashMap<Integer, Boolean> memberCountLoading = new ConcurrentHashMap<>();
     /** Prevent recursive load when GuildService sync wrappers consult this cache. */
     private final ThreadLocal<Boolean> loading = ThreadLocal.withInitial(() -> Boolean.FALSE);
 
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder staleHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder loadFailures = new LongAdder();
+    private final LongAdder loadNanos = new LongAdder();
+    private final AtomicLong maxLoadNanos = new AtomicLong();
+
     public GuildPlayerDataCache(GuildPlugin plugin, long ttlMs) {
         this.plugin = plugin;
         this.ttlMs = Math.max(500L, ttlMs);
     }
 
+    // ==================== 失效 ====================
+
+    /** Mark one player's snapshot invalid; the next {@link #get} reloads it synchronously. */
     public void invalidate(UUID playerUuid) {
         if (playerUuid == null) return;
-        cache.remove(playerUuid);
+        generations.merge(playerUuid, 1L, Long::sum);
+        cache.computeIfPresent(playerUuid, (k, snap) -> snap.asInvalidated());
         contributionLoading.remove(playerUuid);
     }
 
+    /**
+     * Expire every cached member of a guild (guild row changed, balance/level/name, member count).
+     * No reload is started here: the next {@link #peek}/{@link #get} serves the old snapshot and
+     * revalidates it through the single-flight {@link #refreshAsync}.
+     */
+    public void invalidateGuild(int guildId) {
+        memberCountLoading.remove(guildId);
+        guildExpiredAt.put(guildId, System.nanoTime());
+        cache.replaceAll((uuid, snap) ->
+                snap.guild != null && snap.guild.getId() == guildId ? snap.asExpired() : snap);
+    }
+
     public void invalidateAll() {
         cache.clear();
+        generations.clear();
+        guildExpiredAt.clear();
         contributionLoading.clear();
         memberCountLoading.clear();
     }
 
-    /** Return cached snapshot only if still within TTL; never hits JDBC. */
+    // ==================== 读取 ====================
+
+    /** Return cached snapshot only if still within TTL and not invalidated; never hits JDBC. */
     public Snapshot getIfPresent(UUID playerUuid) {
         if (playerUuid == null) return null;
         Snapshot cached = cache.get(playerUuid);
-        if (cached == null) return null;
-        if (System.currentTimeMillis() - cached.loadedAtMs >= ttlMs) return null;
+        if (cached == null || !isFresh(cached)) return null;
+        return cached;
+    }
+
+    /**
+     * Non-blocking read for placeholders: returns whatever is cached (possibly stale) and schedules
+     * a background reload if needed; on a cold miss returns an empty snapshot.
+     */
+    public Snapshot peek(UUID playerUuid) {
+        if (playerUuid == null) return empty();
+        Snapshot cached = cache.get(playerUuid);
+        if (cached == null) {
+            misses.increment();
+            refreshAsync(playerUuid);
+            return empty();
+        }
+        if (isFresh(cached)) {
+            hits.increment();
+        } else {
+            staleHits.increment();
+            refreshAsync(playerUuid);
+        }
+        maybeRefreshContributionAsync(playerUuid, cached);
+        maybeRefreshMemberCountAsync(playerUuid, cached);
         return cached;
     }
 
     /**
-     * Load-through snapshot. Uses async JDBC once (both guild+member), not sync wrappers,
-     * so {@link com.guild.services.GuildService#getPlayerGuild} can safely prefer this cache.
+     * Read-through snapshot. A TTL-expired entry is served stale while it revalidates; a cold or
+     * invalidated entry is loaded synchronously (async JDBC joined, not sync wrappers), so
+     * {@link com.guild.services.GuildService#getPlayerGuild} can safely prefer this cache.
      */
     public Snapshot get(UUID playerUuid) {
         if (playerUuid == null) return empty();
-        Snapshot present = getIfPresent(playerUuid);
-        if (present != null) {
-            maybeRefreshContributionAsync(playerUuid, present);
-            maybeRefreshMemberCountAsync(playerUuid, present);
-            return present;
+        Snapshot cached = cache.get(playerUuid);
+        if (cached != null && !cached.invalidated) {
+            if (isFresh(cached)) {
+                hits.increment();
+            } else {
+                staleHits.increment();
+                refreshAsync(playerUuid);
+            }
+            maybeRefreshContributionAsync(playerUuid, cached);
+            maybeRefreshMemberCountAsync(playerUuid, cached);
+            return cached;
         }
 
         GuildService gs = plugin.getGuildService();
@@ -97,19 +189,10 @@ public final class GuildPlayerDataCache {
             return empty();
         }
 
-        long now = System.currentTimeMillis();
-        Snapshot prev = cache.get(playerUuid);
+        misses.increment();
         loading.set(Boolean.TRUE);
         try {
-            CompletableFuture<Guild> guildFut = gs.getPlayerGuildAsync(playerUuid);
-            CompletableFuture<GuildMember> memberFut = gs.getGuildMemberAsync(playerUuid);
-            Guild guild = guildFut.join();
-            GuildMember member = memberFut.join();
-            Snapshot snap = new Snapshot(guild, member,
-                    prev != null ? prev.contributionNet : null,
-                    prev != null ? prev.memberCount : null,
-                    now);
-            cache.put(playerUuid, snap);
+            Snapshot snap = load(gs, playerUuid).join();
             maybeRefreshContributionAsync(playerUuid, snap);
             maybeRefreshMemberCountAsync(playerUuid, snap);
             return snap;
@@ -128,9 +211,60 @@ public final class GuildPlayerDataCache {
         return get(playerUuid).member;
     }
 
+    // ==================== 加载 ====================
+
+    /** Single-flight background reload for one player. */
+    public void refreshAsync(UUID playerUuid) {
+        if (playerUuid == null) return;
+        GuildService gs = plugin.getGuildService();
+        if (gs == null) return;
+        if (refreshing.putIfAbsent(playerUuid, Boolean.TRUE) != null) return;
+        try {
+            load(gs, playerUuid).whenComplete((snap, err) -> refreshing.remove(playerUuid));
+        } catch (RuntimeException e) {
+            refreshing.remove(playerUuid);
+        }
+    }
+
+    private CompletableFuture<Snapshot> load(GuildService gs, UUID playerUuid) {
+        long start = System.nanoTime();
+        long generation = generations.getOrDefault(playerUuid, 0L);
+        CompletableFuture<Guild> guildFut = gs.getPlayerGuildAsync(playerUuid);
+        CompletableFuture<GuildMember> memberFut = gs.getGuildMemberAsync(playerUuid);
+        return guildFut.thenCombine(memberFut, (guild, member) -> {
+            Snapshot prev = cache.get(playerUuid);
+            boolean sameGuild = prev != null && prev.guild != null && guild != null
+                    && prev.guild.getId() == guild.getId();
+            Long expiredAt = guild != null ? guildExpiredAt.get(guild.getId()) : null;
+            boolean expired = expiredAt != null && expiredAt - start >= 0;
+            Snapshot snap = new Snapshot(guild, member,
+                    sameGuild ? prev.contributionNet : null,
+                    sameGuild ? prev.memberCount : null,
+                    expired ? 0L : System.currentTimeMillis(),
+                    generations.getOrDefault(playerUuid, 0L) != generation);
+            cache.put(playerUuid, snap);
+            recordLoad(System.nanoTime() - start);
+            return snap;
+        }).whenComplete((snap, err) -> {
+            if (err != null) {
+                loadFailures.increment();
+            }
+        });
+    }
+
+    private void recordLoad(long nanos) {
+        loads.increment();
+        loadNanos.add(nanos);
+        maxLoadNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    private boolean isFresh(Snapshot snap) {
+        return !snap.invalidated && System.currentTimeMillis() - snap.loadedAtMs < ttlMs;
+    }
+
     private void maybeRefreshContributionAsync(UUID playerUuid, Snapshot snap) {
         if (snap.guild == null) return;
-        if (snap.contributionNet != null && System.currentTimeMillis() - snap.loadedAtMs < ttlMs) {
+        if (snap.contributionNet != null && isFresh(snap)) {
             return;
         }
         if (contributionLoading.putIfAbsent(playerUuid, Boolean.TRUE) != null) return;
@@ -141,16 +275,10 @@ public final class GuildPlayerDataCache {
             return;
         }
         int guildId = snap.guild.getId();
-        gs.getGuildContributionNetByPlayerAsync(guildId).whenComplete((map, err) -> {
+        gs.getPlayerContributionNetAsync(guildId, playerUuid).whenComplete((value, err) -> {
             try {
-                double net = 0;
-                if (map != null) {
-                    net = map.getOrDefault(playerUuid, 0.0);
-                }
-                Snapshot cur = cache.get(playerUuid);
-                if (cur != null) {
-                    cache.put(playerUuid, cur.withContribution(net));
-                }
+                double net = value != null ? value : 0;
+                cache.computeIfPresent(playerUuid, (k, cur) -> cur.withContribution(net));
             } finally {
                 contributionLoading.remove(playerUuid);
             }
@@ -159,10 +287,17 @@ public final class GuildPlayerDataCache {
 
     private void maybeRefreshMemberCountAsync(UUID playerUuid, Snapshot snap) {
         if (snap.guild == null) return;
-        if (snap.memberCount != null && System.currentTimeMillis() - snap.loadedAtMs < ttlMs) {
+        if (snap.memberCount != null && isFresh(snap)) {
             return;
         }
         int guildId = snap.guild.getId();
+        GuildMembershipIndex index = plugin.getGuildMembershipIndex();
+        if (index != null && index.isReady()) {
+            int count = index.getMemberCount(guildId);
+            cache.computeIfPresent(playerUuid, (k, cur) ->
+                    cur.guild != null && cur.guild.getId() == guildId ? cur.withMemberCount(count) : cur);
+            return;
+        }
         if (memberCountLoading.putIfAbsent(guildId, Boolean.TRUE) != null) return;
 
         GuildService gs = plugin.getGuildService();
@@ -173,16 +308,70 @@ public final class GuildPlayerDataCache {
         gs.getGuildMemberCountAsync(guildId).whenComplete((count, err) -> {
             try {
                 if (count == null) return;
-                Snapshot cur = cache.get(playerUuid);
-                if (cur != null && cur.guild != null && cur.guild.getId() == guildId) {
-                    cache.put(playerUuid, cur.withMemberCount(count));
-                }
+                cache.computeIfPresent(playerUuid, (k, cur) ->
+                        cur.guild != null && cur.guild.getId() == guildId ? cur.withMemberCount(count) : cur);
             } finally {
                 memberCountLoading.remove(guildId);
             }
         });
     }
 
+    // ==================== 在线状态 ====================
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onJoin(PlayerJoinEvent event) {
+        refreshAsync(event.getPlayer().getUniqueId());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onQuit(PlayerQuitEvent event) {
+        UUID uuid = event.getPlayer().getUniqueId();
+        cache.remove(uuid);
+        generations.remove(uuid);
+        contributionLoading.remove(uuid);
+    }
+
+    // ==================== 统计 ====================
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getStaleHitCount() {
+        return staleHits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public long getLoadCount() {
+        return loads.sum();
+    }
+
+    public long getLoadFailureCount() {
+        return loadFailures.sum();
+    }
+
+    public double getAverageLoadMs() {
+        long n = loads.sum();
+        return n == 0 ? 0.0 : loadNanos.sum() / 1_000_000.0 / n;
+    }
+
+    public double getMaxLoadMs() {
+        return maxLoadNanos.get() / 1_000_000.0;
+    }
+
+    public int size() {
+        return cache.size();
+    }
+
+    public String describe() {
+        return String.format("entries=%d hits=%d stale=%d misses=%d loads=%d failures=%d avgLoad=%.1fms maxLoad=%.1fms",
+                size(), getHitCount(), getStaleHitCount(), getMissCount(), getLoadCount(),
+                getLoadFailureCount(), getAverageLoadMs(), getMaxLoadMs());
+    }
+
     private static Snapshot empty() {
         return new Snapshot(null, null, null, null, 0L);
     }
@@ -0,0 +1,175 @@
+package com.guild.core.cache;
+
+import com.guild.models.Guild;
+import com.guild.models.GuildEconomy;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded LRU of guild rows ({@link Guild} / {@link GuildEconomy}) keyed by guild id.
+ * <p>
+ * Readers take a {@link #stamp()} before querying and hand it to {@link #put}; every write
+ * path in {@link com.guild.services.GuildService} calls {@link #invalidate(int)}, which bumps the
+ * guild's version. A row read before the latest invalidation is discarded instead of cached, so
+ * a slow read can never overwrite a newer write. Callers always receive copies; the cached
+ * instances are never handed out. The TTL bounds staleness from writes on other servers.
+ */
+public final class GuildSnapshotCache {
+
+    private static final class Entry<T> {
+        final T value;
+        final long cachedAtMs;
+
+        Entry(T value, long cachedAtMs) {
+            this.value = value;
+            this.cachedAtMs = cachedAtMs;
+        }
+    }
+
+    private final int maxEntries;
+    private final long ttlMs;
+    private final AtomicLong clock = new AtomicLong();
+    /** guildId → clock value of the last invalidation */
+    private final ConcurrentHashMap<Integer, Long> versions = new ConcurrentHashMap<>();
+    /** clock value of the last {@link #invalidateAll()} */
+    private volatile long allInvalidatedAt;
+    private final LinkedHashMap<Integer, Entry<Guild>> guilds;
+    private final LinkedHashMap<Integer, Entry<GuildEconomy>> economies;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    public GuildSnapshotCache(int maxEntries, long ttlMs) {
+        this.maxEntries = Math.max(16, maxEntries);
+        this.ttlMs = Math.max(1000L, ttlMs);
+        this.guilds = lru();
+        this.economies = lru();
+    }
+
+    private <T> LinkedHashMap<Integer, Entry<T>> lru() {
+        return new LinkedHashMap<>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Entry<T>> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /** Take before reading from the database; pass to {@link #put}. */
+    public long stamp() {
+        return clock.get();
+    }
+
+    /** Current version of a guild (0 if never invalidated). */
+    public long getVersion(int guildId) {
+        return Math.max(versions.getOrDefault(guildId, 0L), allInvalidatedAt);
+    }
+
+    // ==================== Guild ====================
+
+    public Guild get(int guildId) {
+        synchronized (guilds) {
+            Entry<Guild> entry = guilds.get(guildId);
+            if (entry == null || System.currentTimeMillis() - entry.cachedAtMs >= ttlMs) {
+                if (entry != null) {
+                    guilds.remove(guildId);
+                }
+                misses.increment();
+                return null;
+            }
+            hits.increment();
+            return entry.value.copy();
+        }
+    }
+
+    /** Cache a row read after {@code stamp} was taken; ignored if the guild changed since. */
+    public void put(Guild guild, long stamp) {
+        if (guild == null) return;
+        synchronized (guilds) {
+            if (getVersion(guild.getId()) > stamp) {
+                rejected.increment();
+                return;
+            }
+            guilds.put(guild.getId(), new Entry<>(guild.copy(), System.currentTimeMillis()));
+        }
+    }
+
+    // ==================== GuildEconomy ====================
+
+    public GuildEconomy getEconomy(int guildId) {
+        synchronized (economies) {
+            Entry<GuildEconomy> entry = economies.get(guildId);
+            if (entry == null || System.currentTimeMillis() - entry.cachedAtMs >= ttlMs) {
+                if (entry != null) {
+                    economies.remove(guildId);
+                }
+                misses.increment();
+                return null;
+            }
+            hits.increment();
+            return entry.value.copy();
+        }
+    }
+
+    public void putEconomy(GuildEconomy economy, long stamp) {
+        if (economy == null) return;
+        synchronized (economies) {
+            if (getVersion(economy.getGuildId()) > stamp) {
+                rejected.increment();
+                return;
+            }
+            economies.put(economy.getGuildId(), new Entry<>(economy.copy(), System.currentTimeMillis()));
+        }
+    }
+
+    // ==================== 失效 ====================
+
+    /** Bump the guild's version and drop its cached rows (call after every write). */
+    public void invalidate(int guildId) {
+        synchronized (guilds) {
+            synchronized (economies) {
+                versions.put(guildId, clock.incrementAndGet());
+                guilds.remove(guildId);
+                economies.remove(guildId);
+            }
+        }
+    }
+
+    public void invalidateAll() {
+        synchronized (guilds) {
+            synchronized (economies) {
+                allInvalidatedAt = clock.incrementAndGet();
+                guilds.clear();
+                economies.clear();
+            }
+        }
+    }
+
+    // ==================== 统计 ====================
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    public String describe() {
+        int size;
+        synchronized (guilds) {
+            size = guilds.size();
+        }
+        return String.format("guilds=%d/%d hits=%d misses=%d rejected=%d",
+                size, maxEntries, getHitCount(), getMissCount(), getRejectedCount());
+    }
+}
@@ -0,0 +1,214 @@
+package com.guild.core.database;
+
+import org.bukkit.Bukkit;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.logging.Logger;
+
+/**
+ * 数据库专用线程池 - 阻塞 JDBC 不再占用 {@code ForkJoinPool.commonPool()}。
+ * <p>
+ * 线程数默认与 Hikari 连接池大小一致（多开线程只会在 getConnection 上排队）；
+ * 有界队列满时，非主线程调用方最多阻塞 {@code offerTimeoutMs} 作为背压，
+ * 主线程或超时则拒绝，{@link #supplyAsync}/{@link #runAsync} 返回异常完成的 future。
+ */
+public final class DatabaseExecutor implements Executor {
+
+    private final Logger logger;
+    private final ThreadPoolExecutor pool;
+    private final ArrayBlockingQueue<Runnable> queue;
+    private final long offerTimeoutMs;
+    private final long slowWaitWarnMs;
+    private final boolean virtualThreads;
+
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+    private final AtomicLong lastSlowWarnMs = new AtomicLong();
+
+    public DatabaseExecutor(Logger logger, int threads, int queueCapacity, long offerTimeoutMs,
+                            long slowWaitWarnMs, boolean preferVirtualThreads) {
+        this.logger = logger;
+        this.offerTimeoutMs = Math.max(0L, offerTimeoutMs);
+        this.slowWaitWarnMs = Math.max(0L, slowWaitWarnMs);
+        int size = Math.max(1, threads);
+        this.queue = new ArrayBlockingQueue<>(Math.max(16, queueCapacity));
+        ThreadFactory factory = preferVirtualThreads ? virtualThreadFactory() : null;
+        this.virtualThreads = factory != null;
+        if (factory == null) {
+            AtomicInteger seq = new AtomicInteger();
+            factory = r -> {
+                Thread t = new Thread(r, "GuildPlugin-DB-" + seq.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            };
+        }
+        this.pool = new ThreadPoolExecutor(size, size, 60L, TimeUnit.SECONDS, queue, factory,
+                this::onSaturated);
+        this.pool.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Java 21+ 时通过反射取得虚拟线程工厂（编译目标为 17）；不可用时返回 null 回退平台线程。
+     */
+    private ThreadFactory virtualThreadFactory() {
+        try {
+            Method ofVirtual = Thread.class.getMethod("ofVirtual");
+            Object builder = ofVirtual.invoke(null);
+            Method name = builder.getClass().getMethod("name", String.class, long.class);
+            builder = name.invoke(builder, "GuildPlugin-DB-v", 1L);
+            Method factory = builder.getClass().getMethod("factory");
+            return (ThreadFactory) factory.invoke(builder);
+        } catch (Throwable t) {
+            logger.info("[Database] Virtual threads unavailable on this JVM, using platform threads");
+            return null;
+        }
+    }
+
+    private void onSaturated(Runnable task, ThreadPoolExecutor executor) {
+        if (executor.isShutdown()) {
+            rejected.incrementAndGet();
+            throw new RejectedExecutionException("Database executor is shut down");
+        }
+        boolean primary;
+        try {
+            primary = Bukkit.isPrimaryThread();
+        } catch (Throwable t) {
+            primary = false;
+        }
+        if (!primary && offerTimeoutMs > 0) {
+            try {
+                if (queue.offer(task, offerTimeoutMs, TimeUnit.MILLISECONDS)) {
+                    return;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        rejected.incrementAndGet();
+        throw new RejectedExecutionException("Database executor saturated (queue=" + queue.size() + ")");
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        long enqueuedAt = System.nanoTime();
+        submitted.incrementAndGet();
+        pool.execute(() -> {
+            recordWait(System.nanoTime() - enqueuedAt);
+            try {
+                command.run();
+            } finally {
+                completed.incrementAndGet();
+            }
+        });
+    }
+
+    /**
+     * 在数据库线程池执行；池已饱和/关闭时返回异常完成的 future，而不是向调用方抛出。
+     */
+    public <T> CompletableFuture<T> supplyAsync(Supplier<T> supplier) {
+        try {
+            return CompletableFuture.supplyAsync(supplier, this);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    public CompletableFuture<Void> runAsync(Runnable task) {
+        try {
+            return CompletableFuture.runAsync(task, this);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private void recordWait(long waitNanos) {
+        totalWaitNanos.addAndGet(waitNanos);
+        maxWaitNanos.accumulateAndGet(waitNanos, Math::max);
+        if (slowWaitWarnMs <= 0) {
+            return;
+        }
+        long waitMs = TimeUnit.NANOSECONDS.toMillis(waitNanos);
+        if (waitMs < slowWaitWarnMs) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        long last = lastSlowWarnMs.get();
+        // 每分钟最多告警一次，避免数据库卡顿时刷屏
+        if (now - last >= 60_000L && lastSlowWarnMs.compareAndSet(last, now)) {
+            logger.warning("[Database] Query waited " + waitMs + "ms in executor queue (" + describe() + ")");
+        }
+    }
+
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    public int getActiveCount() {
+        return pool.getActiveCount();
+    }
+
+    public int getPoolSize() {
+        return pool.getMaximumPoolSize();
+    }
+
+    public long getSubmittedCount() {
+        return submitted.get();
+    }
+
+    public long getCompletedCount() {
+        return completed.get();
+    }
+
+    public long getRejectedCount() {
+        return rejected.get();
+    }
+
+    public double getAverageWaitMs() {
+        long done = completed.get();
+        return done == 0 ? 0.0 : totalWaitNanos.get() / 1_000_000.0 / done;
+    }
+
+    public double getMaxWaitMs() {
+        return maxWaitNanos.get() / 1_000_000.0;
+    }
+
+    public boolean isVirtualThreads() {
+        return virtualThreads;
+    }
+
+    public String describe() {
+        return String.format("threads=%d%s, active=%d, queued=%d, submitted=%d, rejected=%d, avgWait=%.1fms, maxWait=%.1fms",
+                getPoolSize(), virtualThreads ? " (virtual)" : "", getActiveCount(), getQueueDepth(),
+                getSubmittedCount(), getRejectedCount(), getAverageWaitMs(), getMaxWaitMs());
+    }
+
+    /**
+     * 停止接收新任务并等待队列中的写入完成。
+     */
+    public void shutdown(long timeoutMs) {
+        pool.shutdown();
+        try {
+            if (!pool.awaitTermination(timeoutMs, TimeUnit.MILLISECONDS)) {
+                logger.warning("[Database] Executor did not drain in " + timeoutMs + "ms, dropping "
+                        + queue.size() + " queued task(s)");
+                pool.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            pool.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -10,6 +10,8 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
 import java.util.logging.Logger;
 
 /**
@@ -21,6 +23,8 @@ public class DatabaseManager {
     private final Logger logger;
     private HikariDataSource dataSource;
     private DatabaseType databaseType;
+    private DatabaseExecutor executor;
+    private volatile int schemaVersion;
     /** Relative or absolute sqlite file name from config (under data folder when relative). */
     private String sqliteFileName = "guild.db";
     private String mysqlHost = "localhost";
@@ -48,6 +52,9 @@ public class DatabaseManager {
             } else {
                 initializeSQLite(config);
             }
+
+            // 数据库专用线程池（需在建表前就绪：列检查走异步）
+            initializeExecutor(config);
             
             // 创建数据表
             createTables();
@@ -132,6 +139,22 @@ public class DatabaseManager {
         dataSource = new HikariDataSource(hikariConfig);
     }
     
+    /**
+     * 初始化数据库线程池，线程数默认与连接池大小一致
+     */
+    private void initializeExecutor(FileConfiguration config) {
+        int threads = config.getInt("executor.threads", 0);
+        if (threads <= 0) {
+            threads = dataSource.getMaximumPoolSize();
+        }
+        executor = new DatabaseExecutor(logger, threads,
+                config.getInt("executor.queue-capacity", 2048),
+                config.getLong("executor.offer-timeout-ms", 250L),
+                config.getLong("executor.slow-wait-warn-ms", 1000L),
+                config.getBoolean("executor.virtual-threads", false));
+        logger.info("Database executor ready: " + executor.describe());
+    }
+    
     /**
      * 创建数据表
      */
@@ -142,15 +165,8 @@ public class DatabaseManager {
             createMySQLTables();
         }
         
-        // 异步检查并添加缺失的列，避免阻塞启动
-        CompletableFuture.runAsync(() -> {
-            try {
-                Thread.sleep(1000); // 等待1秒确保数据库连接稳定
-                checkAndAddMissingColumns();
-            } catch (Exception e) {
-                logger.warning("Error during async database column check: " + e.getMessage());
-            }
-        });
+        // 版本化迁移：补齐旧库列与二级索引（已迁移的库只查一次 schema_version）
+        schemaVersion = new SchemaMigrator(this, logger).migrate();
         
         logger.info("Database tables created successfully");
     }
@@ -279,6 +295,20 @@ public class DatabaseManager {
             )
         """);
         
+        // 公会贡献汇总表（按公会+玩家维护净贡献，随 addGuildContributionAsync 同事务更新）
+        executeUpdate("""
+            CREATE TABLE IF NOT EXISTS guild_contribution_summary (
+                guild_id INTEGER NOT NULL,
+                player_uuid TEXT NOT NULL,
+                player_name TEXT NOT NULL,
+                net_amount REAL NOT NULL DEFAULT 0.0,
+                deposit_total REAL NOT NULL DEFAULT 0.0,
+                updated_at TEXT,
+                PRIMARY KEY (guild_id, player_uuid),
+                FOREIGN KEY (guild_id) REFERENCES guilds(id) ON DELETE CASCADE
+            )
+        """);
+        
         // 公会日志表
         executeUpdate("""
             CREATE TABLE IF NOT EXISTS guild_logs (
@@ -566,6 +596,20 @@ public class DatabaseManager {
             )
         """);
         
+        // 公会贡献汇总表（按公会+玩家维护净贡献，随 addGuildContributionAsync 同事务更新）
+        executeUpdate("""
+            CREATE TABLE IF NOT EXISTS guild_contribution_summary (
+                guild_id INT NOT NULL,
+                player_uuid VARCHAR(36) NOT NULL,
+                player_name VARCHAR(16) NOT NULL,
+                net_amount DOUBLE NOT NULL DEFAULT 0.0,
+                deposit_total DOUBLE NOT NULL DEFAULT 0.0,
+                updated_at VARCHAR(32),
+                PRIMARY KEY (guild_id, player_uuid),
+                FOREIGN KEY (guild_id) REFERENCES guilds(id) ON DELETE CASCADE
+            )
+        """);
+        
         // 公会日志表
         executeUpdate("""
             CREATE TABLE IF NOT EXISTS guild_logs (
@@ -763,7 +807,37 @@ public class DatabaseManager {
      * 异步执行更新操作
      */
     public CompletableFuture<Integer> executeUpdateAsync(String sql, Object... params) {
-        return CompletableFuture.supplyAsync(() -> executeUpdate(sql, params));
+        return supplyAsync(() -> executeUpdate(sql, params));
+    }
+
+    /**
+     * 获取数据库专用线程池（用于 {@code CompletableFuture.*Async(..., executor)}）
+     */
+    public Executor getExecutor() {
+        return executor;
+    }
+
+    /**
+     * 获取数据库线程池统计（队列深度、等待时间、拒绝次数）
+     */
+    public DatabaseExecutor getDatabaseExecutor() {
+        return executor;
+    }
+
+    /**
+     * 在数据库线程池中执行 JDBC 任务；初始化前回退到公共线程池
+     */
+    public <T> CompletableFuture<T> supplyAsync(Supplier<T> supplier) {
+        DatabaseExecutor ex = executor;
+        return ex != null ? ex.supplyAsync(supplier) : CompletableFuture.supplyAsync(supplier);
+    }
+
+    /**
+     * 在数据库线程池中执行无返回值的 JDBC 任务
+     */
+    public CompletableFuture<Void> runAsync(Runnable task) {
+        DatabaseExecutor ex = executor;
+        return ex != null ? ex.runAsync(task) : CompletableFuture.runAsync(task);
     }
     
     /**
@@ -790,12 +864,31 @@ public class DatabaseManager {
      * 关闭数据库连接
      */
     public void close() {
+        if (executor != null) {
+            // 先排空队列中的写入，再关闭连接池
+            executor.shutdown(10_000L);
+            logger.info("Database executor stopped: " + executor.describe());
+        }
         if (dataSource != null && !dataSource.isClosed()) {
             dataSource.close();
             logger.info("Database connection closed");
         }
     }
     
+    /**
+     * 当前已应用的迁移版本（见 {@link SchemaMigrator}）
+     */
+    public int getSchemaVersion() {
+        return schemaVersion;
+    }
+
+    /**
+     * 贡献汇总表是否已回填可用（否则调用方应回退到 GROUP BY 聚合）
+     */
+    public boolean hasContributionSummary() {
+        return schemaVersion >= SchemaMigrator.CONTRIBUTION_SUMMARY_VERSION;
+    }
+    
     /**
      * 获取数据库类型
      */
@@ -821,166 +914,6 @@ public class DatabaseManager {
     /**
      * 数据库类型枚举
      */
-    /**
-     * 检查并添加缺失的列
-     */
-    private void checkAndAddMissingColumns() {
-        try {
-            if (databaseType == DatabaseType.SQLITE) {
-                checkAndAddSQLiteColumns();
-            } else {
-                checkAndAddMySQLColumns();
-            }
-            logger.info("Database column check completed");
-        } catch (Exception e) {
-            logger.warning("Error checking database columns: " + e.getMessage());
-        }
-    }
-    
-    /**
-     * 检查并添加SQLite缺失的列
-     */
-    private void checkAndAddSQLiteColumns() {
-        try (Connection conn = getConnection()) {
-            conn.setAutoCommit(false); // 开启事务以提高性能
-            
-            // 检查guilds表是否有home相关列
-            try (ResultSet rs = conn.getMetaData().getColumns(null, null, "guilds", "home_world")) {
-                if (!rs.next()) {
-                    // 添加home相关列
-                    try (PreparedStatement stmt = conn.prepareStatement("ALTER TABLE guilds ADD COLUMN home_world TEXT")) {
-                        stmt.executeUpdate();
-                    }
-                    try (PreparedStatement stmt = conn.prepareStatement("ALTER TABLE guilds ADD COLUMN home_x REAL")) {
-                        stmt.executeUpdate();
-                    }
-                    try (PreparedStatement stmt = conn.prepareStatement("ALTER TABLE guilds ADD COLUMN home_y REAL")) {
-                        stmt.executeUpdate();
-                    }
-                    try (PreparedStatement stmt = conn.prepareStatement("ALTER TABLE guilds ADD COLUMN home_z REAL")) {
-                        stmt.executeUpdate();
-                    }
-                    try (PreparedStatement stmt = conn.prepareStatement("ALTER TABLE guilds ADD COLUMN home_yaw REAL")) {
-                        stmt.executeUpdate();
-                    }
-                    try (PreparedStatement stmt = conn.prepareStatement("ALTER TABLE guilds ADD COLUMN home_pitch REAL")) {
-                        stmt.executeUpdate();
-                    }
-                    logger.info("Added home columns to guilds table");
-                }
-            }
-            
-            // 检查guilds表是否有economy相关列
-            try (ResultSet rs = conn.getMetaData().getColumns(null, null, "guilds", "balance")) {
-                if (!rs.next()) {
-                    // 添加economy相关列
-                    try (PreparedStatement stmt = conn.prepareStatement("ALTER TABLE guilds ADD COLUMN balance REAL DEFAULT 0.0")) {
-                        stmt.executeUpdate();
-                    }
-                    try (PreparedStatement stmt = conn.prepareStatement("ALTER TABLE guilds ADD COLUMN level INTEGER DEFAULT 1")) {
-                        stmt.executeUpdate();
-                    }
-                    try (PreparedStatement stmt = conn.prepareStatement("ALTER TABLE guilds ADD COLUMN max_members INTEGER DEFAULT 6")) {
-                        stmt.executeUpdate();
-                    }
-                    try (PreparedStatement stmt = conn.prepareStatement("ALTER TABLE guilds ADD COLUMN frozen INTEGER DEFAULT 0")) {
-                        stmt.executeUpdate();
-                    }
-                    logger.info("Added economy columns to guilds table");
-                }
-            }
-
-            try (ResultSet rs = conn.getMetaData().getColumns(null, null, "guilds", "peak_level")) {
-                if (!rs.next()) {
-                    try (PreparedStatement stmt = conn.prepareStatement("ALTER TABLE guilds ADD COLUMN peak_level INTEGER DEFAULT 1")) {
-                        stmt.executeUpdate();
-                    }
-                    try (PreparedStatement stmt = conn.prepareStatement(
-                            "UPDATE guilds SET peak_level = level WHERE peak_level IS NULL OR peak_level < level")) {
-                        stmt.executeUpdate();
-                    }
-                    logger.info("Added peak_level column to guilds table");
-                }
-            }
-            
-            conn.commit(); // 提交事务
-        } catch (SQLException e) {
-            logger.warning("Error checking SQLite columns: " + e.getMessage());
-        }
-    }
-    
-    /**
-     * 检查并添加MySQL缺失的列
-     */
-    private void checkAndAddMySQLColumns() {
-        try (Connection conn = getConnection()) {
-            conn.setAutoCommit(false); // 开启事务以提高性能
-            
-            // 检查guilds表是否有home相关列
-            try (ResultSet rs = conn.getMetaData().getColumns(null, null, "guilds", "home_world")) {
-                if (!rs.next()) {
-                    // 添加home相关列
-                    try (PreparedStatement stmt = conn.prepareStatement("ALTER TABLE guilds ADD COLUMN home_world VARCHAR(100)")) {
-                        stmt.executeUpdate();
-                    }
-                    try (PreparedStatement stmt = conn.prepareStatement("ALTER TABLE guilds ADD COLUMN home_x DOUBLE")) {
-                        stmt.executeUpdate();
-                    }
-                    try (PreparedStatement stmt = conn.prepareStatement("ALTER TABLE guilds ADD COLUMN home_y DOUBLE")) {
-                        stmt.executeUpdate();
-                    }
-                    try (PreparedStatement stmt = conn.prepareStatement("ALTER TABLE guilds ADD COLUMN home_z DOUBLE")) {
-                        stmt.executeUpdate();
-                    }
-                    try (PreparedStatement stmt = conn.prepareStatement("ALTER TABLE guilds ADD COLUMN home_yaw FLOAT")) {
-                        stmt.executeUpdate();
-                    }
-                    try (PreparedStatement stmt = conn.prepareStatement("ALTER TABLE guilds ADD COLUMN home_pitch FLOAT")) {
-                        stmt.executeUpdate();
-                    }
-                    logger.info("Added home columns to guilds table");
-                }
-            }
-            
-            // 检查guilds表是否有economy相关列
-            try (ResultSet rs = conn.getMetaData().getColumns(null, null, "guilds", "balance")) {
-                if (!rs.next()) {
-                    // 添加economy相关列
-                    try (PreparedStatement stmt = conn.prepareStatement("ALTER TABLE guilds ADD COLUMN balance DOUBLE DEFAULT 0.0")) {
-                        stmt.executeUpdate();
-                    }
-                    try (PreparedStatement stmt = conn.prepareStatement("ALTER TABLE guilds ADD COLUMN level INT DEFAULT 1")) {
-                        stmt.executeUpdate();
-                    }
-                    try (PreparedStatement stmt = conn.prepareStatement("ALTER TABLE guilds ADD COLUMN max_members INT DEFAULT 6")) {
-                        stmt.executeUpdate();
-                    }
-                    try (PreparedStatement stmt = conn.prepareStatement("ALTER TABLE guilds ADD COLUMN frozen BOOLEAN DEFAULT FALSE")) {
-                        stmt.executeUpdate();
-                    }
-                    logger.info("Added economy columns to guilds table");
-                }
-            }
-
-            try (ResultSet rs = conn.getMetaData().getColumns(null, null, "guilds", "peak_level")) {
-                if (!rs.next()) {
-                    try (PreparedStatement stmt = conn.prepareStatement("ALTER TABLE guilds ADD COLUMN peak_level INT DEFAULT 1")) {
-                        stmt.executeUpdate();
-                    }
-                    try (PreparedStatement stmt = conn.prepareStatement(
-                            "UPDATE guilds SET peak_level = level WHERE peak_level IS NULL OR peak_level < level")) {
-                        stmt.executeUpdate();
-                    }
-                    logger.info("Added peak_level column to guilds table");
-                }
-            }
-            
-            conn.commit(); // 提交事务
-        } catch (SQLException e) {
-            logger.warning("Error checking MySQL columns: " + e.getMessage());
-        }
-    }
-    
     public enum DatabaseType {
         MYSQL, SQLITE
     }
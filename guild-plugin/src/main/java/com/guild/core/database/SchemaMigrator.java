@@ -0,0 +1,232 @@
+package com.guild.core.database;
+
+import com.guild.core.time.TimeProvider;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Logger;
+
+/**
+ * 版本化数据库迁移 - 记录在 {@code schema_version} 表中，每个版本只执行一次。
+ * <p>
+ * 迁移在建表（{@code CREATE TABLE IF NOT EXISTS}）之后按版本号顺序运行；已迁移的库启动时
+ * 只需一次 {@code SELECT MAX(version)}，不再逐列探测元数据。新增列 / 索引请追加新版本，
+ * 不要修改已发布的版本。
+ */
+final class SchemaMigrator {
+
+    @FunctionalInterface
+    interface Step {
+        void apply(Connection conn, DatabaseManager.DatabaseType type) throws SQLException;
+    }
+
+    record Migration(int version, String description, Step step) {}
+
+    /** 自此版本起 guild_contribution_summary 可用 */
+    static final int CONTRIBUTION_SUMMARY_VERSION = 3;
+
+    private final DatabaseManager databaseManager;
+    private final Logger logger;
+    private final List<Migration> migrations = new ArrayList<>();
+
+    SchemaMigrator(DatabaseManager databaseManager, Logger logger) {
+        this.databaseManager = databaseManager;
+        this.logger = logger;
+        registerMigrations();
+    }
+
+    private void registerMigrations() {
+        // v1: 旧版 checkAndAdd*Columns 的列补齐（已有这些列的库会直接跳过）
+        migrations.add(new Migration(1, "guilds home/economy/peak_level columns", (conn, type) -> {
+            boolean mysql = type == DatabaseManager.DatabaseType.MYSQL;
+            if (!columnExists(conn, "guilds", "home_world")) {
+                addColumn(conn, "guilds", "home_world", mysql ? "VARCHAR(100)" : "TEXT");
+                addColumn(conn, "guilds", "home_x", mysql ? "DOUBLE" : "REAL");
+                addColumn(conn, "guilds", "home_y", mysql ? "DOUBLE" : "REAL");
+                addColumn(conn, "guilds", "home_z", mysql ? "DOUBLE" : "REAL");
+                addColumn(conn, "guilds", "home_yaw", mysql ? "FLOAT" : "REAL");
+                addColumn(conn, "guilds", "home_pitch", mysql ? "FLOAT" : "REAL");
+                logger.info("Added home columns to guilds table");
+            }
+            if (!columnExists(conn, "guilds", "balance")) {
+                addColumn(conn, "guilds", "balance", mysql ? "DOUBLE DEFAULT 0.0" : "REAL DEFAULT 0.0");
+                addColumn(conn, "guilds", "level", mysql ? "INT DEFAULT 1" : "INTEGER DEFAULT 1");
+                addColumn(conn, "guilds", "max_members", mysql ? "INT DEFAULT 6" : "INTEGER DEFAULT 6");
+                addColumn(conn, "guilds", "frozen", mysql ? "BOOLEAN DEFAULT FALSE" : "INTEGER DEFAULT 0");
+                logger.info("Added economy columns to guilds table");
+            }
+            if (!columnExists(conn, "guilds", "peak_level")) {
+                addColumn(conn, "guilds", "peak_level", mysql ? "INT DEFAULT 1" : "INTEGER DEFAULT 1");
+                execute(conn, "UPDATE guilds SET peak_level = level WHERE peak_level IS NULL OR peak_level < level");
+                logger.info("Added peak_level column to guilds table");
+            }
+        }));
+
+        // v2: 热点查询二级索引
+        migrations.add(new Migration(2, "secondary indexes for hot query paths", (conn, type) -> {
+            // getGuildMember / getPlayerGuild 按玩家查（guild_id 前缀已由 UNIQUE(guild_id, player_uuid) 覆盖）
+            createIndex(conn, type, "guild_members", "idx_members_player", "player_uuid");
+            // 贡献按公会聚合 / 按玩家倒序
+            createIndex(conn, type, "guild_contributions", "idx_contrib_guild_player", "guild_id, player_uuid");
+            createIndex(conn, type, "guild_contributions", "idx_contrib_player_time", "player_uuid, created_at");
+            // 日志分页与过期清理
+            createIndex(conn, type, "guild_logs", "idx_logs_guild_time", "guild_id, created_at");
+            createIndex(conn, type, "guild_logs", "idx_logs_created", "created_at");
+            // 申请：公会待处理列表 / 玩家重复申请检查
+            createIndex(conn, type, "guild_applications", "idx_apps_guild_status", "guild_id, status, created_at");
+            createIndex(conn, type, "guild_applications", "idx_apps_player", "player_uuid, guild_id, status");
+            // 邀请：玩家待处理邀请 / 定时过期
+            createIndex(conn, type, "guild_invites", "idx_invites_player_status", "player_uuid, status, expires_at");
+            createIndex(conn, type, "guild_invites", "idx_invites_status_expiry", "status, expires_at");
+            // 关系：guild1_id 前缀已由 UNIQUE 覆盖
+            createIndex(conn, type, "guild_relations", "idx_relations_guild2", "guild2_id");
+            // 公会战战报
+            createIndex(conn, type, "war_match_players", "idx_war_players_player", "player_uuid, match_report_id");
+            createIndex(conn, type, "war_match_players", "idx_war_players_match", "match_report_id");
+            createIndex(conn, type, "war_season_stats", "idx_war_season_rank", "season_id, wins, kills");
+            // 任务树流水、仓库访问日志（MySQL 建表时已带 idx_wh_access_guild）
+            createIndex(conn, type, "guild_quest_tree_ledger", "idx_quest_ledger_guild_time", "guild_id, created_at");
+            createIndex(conn, type, "guild_warehouse_access_log", "idx_wh_access_guild", "guild_id, created_at");
+        }));
+
+        // v3: 由贡献流水回填 guild_contribution_summary（先清空，失败重试时不会重复累加）
+        migrations.add(new Migration(CONTRIBUTION_SUMMARY_VERSION, "backfill guild_contribution_summary", (conn, type) -> {
+            execute(conn, "DELETE FROM guild_contribution_summary");
+            try (PreparedStatement stmt = conn.prepareStatement("""
+                INSERT INTO guild_contribution_summary (guild_id, player_uuid, player_name, net_amount, deposit_total, updated_at)
+                SELECT guild_id, player_uuid, MAX(player_name),
+                       SUM(CASE WHEN contribution_type = 'WITHDRAW' THEN -amount ELSE amount END),
+                       SUM(CASE WHEN contribution_type = 'DEPOSIT' THEN amount ELSE 0 END),
+                       ?
+                FROM guild_contributions
+                GROUP BY guild_id, player_uuid
+            """)) {
+                stmt.setString(1, TimeProvider.nowString());
+                int rows = stmt.executeUpdate();
+                logger.info("Backfilled " + rows + " contribution summary row(s)");
+            }
+        }));
+    }
+
+    /**
+     * 执行所有未应用的迁移。任一版本失败即停止，下次启动重试该版本。
+     *
+     * @return 迁移后的 schema 版本
+     */
+    int migrate() {
+        DatabaseManager.DatabaseType type = databaseManager.getDatabaseType();
+        try (Connection conn = databaseManager.getConnection()) {
+            ensureVersionTable(conn, type);
+            int current = currentVersion(conn);
+            int latest = migrations.isEmpty() ? 0 : migrations.get(migrations.size() - 1).version();
+            if (current >= latest) {
+                logger.info("Database schema up to date (version " + current + ")");
+                return current;
+            }
+            for (Migration migration : migrations) {
+                if (migration.version() <= current) {
+                    continue;
+                }
+                long start = System.currentTimeMillis();
+                boolean autoCommit = conn.getAutoCommit();
+                conn.setAutoCommit(false);
+                try {
+                    migration.step().apply(conn, type);
+                    try (PreparedStatement stmt = conn.prepareStatement(
+                            "INSERT INTO schema_version (version, description, applied_at) VALUES (?, ?, ?)")) {
+                        stmt.setInt(1, migration.version());
+                        stmt.setString(2, migration.description());
+                        stmt.setString(3, TimeProvider.nowString());
+                        stmt.executeUpdate();
+                    }
+                    conn.commit();
+                } catch (SQLException e) {
+                    conn.rollback();
+                    logger.severe("Database migration v" + migration.version() + " (" + migration.description()
+                            + ") failed: " + e.getMessage());
+                    return current;
+                } finally {
+                    conn.setAutoCommit(autoCommit);
+                }
+                current = migration.version();
+                logger.info("Applied database migration v" + migration.version() + ": " + migration.description()
+                        + " (" + (System.currentTimeMillis() - start) + "ms)");
+            }
+            return current;
+        } catch (SQLException e) {
+            logger.severe("Database migration check failed: " + e.getMessage());
+            return 0;
+        }
+    }
+
+    private static void ensureVersionTable(Connection conn, DatabaseManager.DatabaseType type) throws SQLException {
+        if (type == DatabaseManager.DatabaseType.MYSQL) {
+            execute(conn, """
+                CREATE TABLE IF NOT EXISTS schema_version (
+                    version INT PRIMARY KEY,
+                    description VARCHAR(255) NOT NULL,
+                    applied_at VARCHAR(32) NOT NULL
+                )
+            """);
+        } else {
+            execute(conn, """
+                CREATE TABLE IF NOT EXISTS schema_version (
+                    version INTEGER PRIMARY KEY,
+                    description TEXT NOT NULL,
+                    applied_at TEXT NOT NULL
+                )
+            """);
+        }
+    }
+
+    private static int currentVersion(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT MAX(version) FROM schema_version")) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    private static boolean columnExists(Connection conn, String table, String column) throws SQLException {
+        try (ResultSet rs = conn.getMetaData().getColumns(null, null, table, column)) {
+            return rs.next();
+        }
+    }
+
+    private static void addColumn(Connection conn, String table, String column, String definition) throws SQLException {
+        execute(conn, "ALTER TABLE " + table + " ADD COLUMN " + column + " " + definition);
+    }
+
+    /**
+     * SQLite 支持 {@code IF NOT EXISTS}；MySQL 先查 information_schema，避免重复索引报错。
+     */
+    private static void createIndex(Connection conn, DatabaseManager.DatabaseType type,
+                                    String table, String name, String columns) throws SQLException {
+        if (type == DatabaseManager.DatabaseType.MYSQL) {
+            try (PreparedStatement stmt = conn.prepareStatement(
+                    "SELECT 1 FROM information_schema.statistics WHERE table_schema = DATABASE() "
+                            + "AND table_name = ? AND index_name = ? LIMIT 1")) {
+                stmt.setString(1, table);
+                stmt.setString(2, name);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    if (rs.next()) {
+                        return;
+                    }
+                }
+            }
+            execute(conn, "CREATE INDEX " + name + " ON " + table + " (" + columns + ")");
+        } else {
+            execute(conn, "CREATE INDEX IF NOT EXISTS " + name + " ON " + table + " (" + columns + ")");
+        }
+    }
+
+    private static void execute(Connection conn, String sql) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute(sql);
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.guild.core.placeholder;
 
 import com.guild.GuildPlugin;
+import com.guild.core.cache.GuildMembershipIndex;
 import com.guild.core.cache.GuildPlayerDataCache;
 import com.guild.core.time.TimeProvider;
 import com.guild.core.utils.PlaceholderUtils;
@@ -59,7 +60,8 @@ public class GuildPlaceholderExpansion extends PlaceholderExpansion {
     private GuildPlayerDataCache.Snapshot snap(Player player) {
         GuildPlayerDataCache cache = plugin.getGuildPlayerDataCache();
         if (cache != null) {
-            return cache.get(player.getUniqueId());
+            // 非阻塞：过期快照先返回，后台刷新
+            return cache.peek(player.getUniqueId());
         }
         // Fallback without cache
         try {
@@ -103,6 +105,8 @@ public class GuildPlaceholderExpansion extends PlaceholderExpansion {
                 case "membercount" -> {
                     GuildPlayerDataCache.Snapshot s = snap(player);
                     if (s.guild == null) return "0";
+                    GuildMembershipIndex index = plugin.getGuildMembershipIndex();
+                    if (index != null && index.isReady()) return String.valueOf(index.getMemberCount(s.guild.getId()));
                     if (s.memberCount != null) return String.valueOf(s.memberCount);
                     return "0"; // async fill; next tick/refresh will show
                 }
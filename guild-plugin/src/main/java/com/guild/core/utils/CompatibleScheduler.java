@@ -352,6 +352,23 @@ public class CompatibleScheduler {
         }
     }
 
+    /**
+     * 检查当前线程是否拥有指定位置所在的区域（Folia）；非 Folia 等价于主线程检查。
+     * 用于分批任务判断能否在本次回调内继续处理相邻区块，而不必重新调度。
+     */
+    public static boolean isRegionThread(Location location) {
+        if (ServerUtils.isFolia()) {
+            try {
+                return (Boolean) Bukkit.class.getMethod("isOwnedByCurrentRegion", Location.class)
+                    .invoke(null, location);
+            } catch (Exception e) {
+                return false;
+            }
+        } else {
+            return Bukkit.isPrimaryThread();
+        }
+    }
+
     /**
      * 在指定实体所在区域延迟执行任务 — Folia 使用 entity.getScheduler().runDelayed，
      * 确保延迟回调中对实体的操作在正确的区域线程内执行。
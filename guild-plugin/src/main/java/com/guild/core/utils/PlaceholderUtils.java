@@ -3,6 +3,7 @@ package com.guild.core.utils;
 import com.guild.models.Guild;
 import com.guild.models.GuildMember;
 import com.guild.GuildPlugin;
+import com.guild.core.cache.GuildMembershipIndex;
 import org.bukkit.entity.Player;
 
 import java.time.format.DateTimeFormatter;
@@ -126,6 +127,17 @@ public class PlaceholderUtils {
         // 先替换静态占位符
         String result = replaceGuildPlaceholders(text, guild, player);
         
+        // 成员索引就绪时直接取内存计数（含真实在线人数），不查库
+        GuildPlugin plugin = GuildPlugin.getInstance();
+        GuildMembershipIndex index = plugin != null ? plugin.getGuildMembershipIndex() : null;
+        if (index != null && index.isReady()) {
+            return CompletableFuture.completedFuture(result
+                .replace("{member_count}", String.valueOf(index.getMemberCount(guild.getId())))
+                .replace("{online_member_count}", String.valueOf(index.getOnlineCount(guild.getId())))
+                .replace("{guild_max_exp}", getNextLevelRequirement(guild.getLevel(), lang))
+                .replace("{guild_exp_percentage}", getLevelProgress(guild.getLevel(), guild.getBalance())));
+        }
+
         // 异步获取动态数据
         return guildService.getGuildMemberCountAsync(guild.getId()).thenApply(memberCount -> {
             try {
@@ -18,7 +18,6 @@ import org.geysermc.cumulus.form.SimpleForm;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.CompletableFuture;
 
 /**
  * 管理员公会GUI
@@ -171,23 +170,12 @@ public class AdminGuildGUI implements GUI {
                     }
                 }
 
-                // 获取总成员数
-                CompletableFuture<Integer>[] memberCountFutures = new CompletableFuture[guilds.size()];
-                for (int i = 0; i < guilds.size(); i++) {
-                    memberCountFutures[i] = plugin.getGuildService().getGuildMemberCountAsync(guilds.get(i).getId());
-                }
-
-                CompletableFuture.allOf(memberCountFutures).thenRun(() -> {
+                // 获取总成员数（一次 GROUP BY 查询）
+                List<Integer> guildIds = guilds.stream().map(Guild::getId).toList();
+                plugin.getGuildService().getMemberCountsAsync(guildIds).thenAccept(counts -> {
                     final int[] totalMembers = {0};
-                    for (CompletableFuture<Integer> future : memberCountFutures) {
-                        try {
-                            Integer count = future.join();
-                            if (count != null) {
-                                totalMembers[0] += count;
-                            }
-                        } catch (Exception e) {
-                            plugin.getLogger().severe("Failed to get member count: " + e.getMessage());
-                        }
+                    for (Integer count : counts.values()) {
+                        totalMembers[0] += count;
                     }
 
                     player.sendMessage(ColorUtils.colorize(plugin.getLanguageManager().getGuiMessage(player, "gui.admin-gui.admin-gui-statistics-total-members", "&eTotal Members: &f{count}", "{count}", String.valueOf(totalMembers[0]))));
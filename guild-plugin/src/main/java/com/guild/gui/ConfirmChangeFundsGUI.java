@@ -20,6 +20,7 @@ import org.geysermc.cumulus.form.SimpleForm;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * 确认变更公会资金 GUI
@@ -132,9 +133,20 @@ public class ConfirmChangeFundsGUI implements GUI {
         double currentBalance = guild.getBalance();
         double newBalance = calculateNewBalance(currentBalance);
 
-        // 执行资金变更
-        plugin.getGuildService().updateGuildBalanceAsync(guild.getId(), newBalance,
-                player.getUniqueId().toString(), player.getName())
+        // 执行资金变更：set 为绝对值写入，add/remove 走增量通道以免覆盖并发的存取款
+        String operatorUuid = player.getUniqueId().toString();
+        CompletableFuture<Boolean> change;
+        if ("set".equals(operationType)) {
+            change = plugin.getGuildService().updateGuildBalanceAsync(guild.getId(), newBalance,
+                    operatorUuid, player.getName());
+        } else {
+            // 增减量不依赖可能过期的缓存余额；扣除超过余额时由条件更新拒绝
+            double delta = "remove".equals(operationType) ? -amount : amount;
+            change = plugin.getGuildService().adjustGuildBalanceAsync(guild.getId(), delta,
+                    operatorUuid, player.getName())
+                    .thenApply(balance -> balance != null);
+        }
+        change
                 .thenAccept(success -> {
                     CompatibleScheduler.runTask(plugin, player, () -> {
                         if (success) {
@@ -334,26 +334,28 @@ public class GuildFilterGUI implements GUI {
     }
 
     /**
-     * 异步获取成员数，应用排序/仅满员，然后显示
+     * 一次批量查询取回所有公会的成员数，按原顺序组装
      */
-    private void processWithMemberCounts(Inventory inventory, List<Guild> levelFiltered) {
-        List<GuildItemData> itemDataList = new ArrayList<>();
-        List<CompletableFuture<Void>> futures = new ArrayList<>();
-
-        for (int i = 0; i < levelFiltered.size(); i++) {
-            Guild guild = levelFiltered.get(i);
-            final int originalIdx = i;
-
-            CompletableFuture<Void> future = plugin.getGuildService().getGuildMemberCountAsync(guild.getId())
-                .thenAccept(memberCount -> {
-                    synchronized (itemDataList) {
-                        itemDataList.add(new GuildItemData(guild, memberCount, originalIdx));
-                    }
-                });
-            futures.add(future);
+    private CompletableFuture<List<GuildItemData>> loadItemData(List<Guild> guilds) {
+        List<Integer> ids = new ArrayList<>(guilds.size());
+        for (Guild guild : guilds) {
+            ids.add(guild.getId());
         }
+        return plugin.getGuildService().getMemberCountsAsync(ids).thenApply(counts -> {
+            List<GuildItemData> itemDataList = new ArrayList<>(guilds.size());
+            for (int i = 0; i < guilds.size(); i++) {
+                Guild guild = guilds.get(i);
+                itemDataList.add(new GuildItemData(guild, counts.getOrDefault(guild.getId(), 0), i));
+            }
+            return itemDataList;
+        });
+    }
 
-        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).thenRun(() -> {
+    /**
+     * 异步获取成员数，应用排序/仅满员，然后显示
+     */
+    private void processWithMemberCounts(Inventory inventory, List<Guild> levelFiltered) {
+        loadItemData(levelFiltered).thenAccept(itemDataList -> {
             CompatibleScheduler.runTask(plugin, player, () -> {
                 // 仅满员筛选
                 if ("FULL_ONLY".equals(sortMode)) {
@@ -624,21 +626,7 @@ public class GuildFilterGUI implements GUI {
     }
 
     private void processBedrockWithMemberCounts(Player player, List<Guild> levelFiltered, int page) {
-        List<GuildItemData> itemDataList = new ArrayList<>();
-        List<CompletableFuture<Void>> futures = new ArrayList<>();
-
-        for (int i = 0; i < levelFiltered.size(); i++) {
-            Guild g = levelFiltered.get(i);
-            final int originalIdx = i;
-            futures.add(plugin.getGuildService().getGuildMemberCountAsync(g.getId())
-                .thenAccept(count -> {
-                    synchronized (itemDataList) {
-                        itemDataList.add(new GuildItemData(g, count, originalIdx));
-                    }
-                }));
-        }
-
-        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).thenRun(() -> {
+        loadItemData(levelFiltered).thenAccept(itemDataList -> {
             CompatibleScheduler.runTask(plugin, player, () -> {
                 if ("FULL_ONLY".equals(sortMode)) {
                     itemDataList.removeIf(data -> data.getMemberCount() < data.getGuild().getMaxMembers());
@@ -20,7 +20,10 @@ import org.bukkit.inventory.meta.ItemMeta;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * 公会列表GUI - 仅负责搜索功能
@@ -43,6 +46,7 @@ public class GuildListGUI implements GUI {
     private static final int GUILDS_PER_PAGE = 28;
     private String searchQuery = "";
     private List<Guild> displayedGuilds = new ArrayList<>();
+    private volatile Map<Integer, Integer> memberCounts = Collections.emptyMap();
 
     public GuildListGUI(GuildPlugin plugin, Player player) {
         this.plugin = plugin;
@@ -284,7 +288,7 @@ public class GuildListGUI implements GUI {
      * 加载公会列表（仅搜索筛选）
      */
     private void loadGuilds(Inventory inventory) {
-        plugin.getGuildService().getAllGuildsAsync().thenAccept(guilds -> {
+        loadGuildsWithCounts().thenAccept(guilds -> {
             CompatibleScheduler.runTask(plugin, player, () -> {
                 if (guilds == null || guilds.isEmpty()) {
                     ItemStack noGuilds = createItem(
@@ -317,6 +321,25 @@ public class GuildListGUI implements GUI {
         });
     }
 
+    /**
+     * 加载公会列表，并用一次批量查询取回成员数
+     */
+    private CompletableFuture<List<Guild>> loadGuildsWithCounts() {
+        return plugin.getGuildService().getAllGuildsAsync().thenCompose(guilds -> {
+            if (guilds == null || guilds.isEmpty()) {
+                return CompletableFuture.completedFuture(guilds);
+            }
+            List<Integer> ids = new ArrayList<>(guilds.size());
+            for (Guild guild : guilds) {
+                ids.add(guild.getId());
+            }
+            return plugin.getGuildService().getMemberCountsAsync(ids).thenApply(counts -> {
+                this.memberCounts = counts;
+                return guilds;
+            });
+        });
+    }
+
     /**
      * 按搜索关键词筛选公会（名称、标签、描述）
      */
@@ -405,6 +428,8 @@ public class GuildListGUI implements GUI {
         lore.add(PlaceholderUtils.replaceGuildPlaceholders("&7" + languageManager.getGuiMessage(player, "gui.common.guild-tag", "Guild Tag") + ": {guild_tag}", guild, null));
         lore.add(PlaceholderUtils.replaceGuildPlaceholders("&7" + languageManager.getGuiMessage(player, "gui.common.leader", "Leader") + ": {leader_name}", guild, null));
         lore.add(ColorUtils.colorize("&7" + languageManager.getGuiMessage(player, "gui.guild-list.level", "Level") + ": " + guild.getLevel()));
+        lore.add(ColorUtils.colorize("&7" + languageManager.getGuiMessage(player, "gui.guild-list.members", "Members") + ": "
+                + memberCounts.getOrDefault(guild.getId(), 0) + "/" + guild.getMaxMembers()));
         lore.add(PlaceholderUtils.replaceGuildPlaceholders("&7" + languageManager.getGuiMessage(player, "gui.guild-list.created-time", "Created time") + ": {guild_created_time}", guild, null));
         lore.add("");
         lore.add(ColorUtils.colorize("&a" + languageManager.getGuiMessage(player, "gui.guild-list.left-click-detail", "Left click: View details")));
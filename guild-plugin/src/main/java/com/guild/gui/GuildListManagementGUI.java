@@ -1,7 +1,9 @@
 package com.guild.gui;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 import com.guild.core.utils.CompatibleScheduler;
 import com.guild.core.geyser.BedrockFormSender;
@@ -43,6 +45,7 @@ public class GuildListManagementGUI implements GUI {
     private static final int BACK_SLOT = 46;
     private static final int REFRESH_SLOT = 52;
     private List<Guild> allGuilds = new ArrayList<>();
+    private volatile Map<Integer, Integer> memberCounts = Collections.emptyMap();
 
     public GuildListManagementGUI(GuildPlugin plugin, Player player) {
         this.plugin = plugin;
@@ -103,6 +106,7 @@ public class GuildListManagementGUI implements GUI {
         List<String> lore = new ArrayList<>();
         lore.add(ColorUtils.colorize("&7" + languageManager.getGuiMessage(player, "gui.common.leader", "Leader") + ": &e" + guild.getLeaderName()));
         lore.add(ColorUtils.colorize("&7" + languageManager.getGuiMessage(player, "gui.guild-list.level", "Level") + ": &e" + guild.getLevel() + "  &7" + languageManager.getGuiMessage(player, "gui.guild-list.balance", "Balance") + ": &a" + plugin.getEconomyManager().format(guild.getBalance())));
+        lore.add(ColorUtils.colorize("&7" + languageManager.getGuiMessage(player, "gui.guild-list.members", "Members") + ": &e" + memberCounts.getOrDefault(guild.getId(), 0) + "/" + guild.getMaxMembers()));
         lore.add(ColorUtils.colorize("&e" + languageManager.getGuiMessage(player, "gui.guild-list.left-click-view", "Left click: View") + "  &c" + languageManager.getGuiMessage(player, "gui.guild-list.right-click-delete", "Right click: Delete") + "  &6" + languageManager.getGuiMessage(player, "gui.guild-list.shift-right-freeze", "Shift+Right click: Freeze/Unfreeze")));
 
         return createItem(material, ColorUtils.colorize("&6" + guild.getName()), lore.toArray(new String[0]));
@@ -159,8 +163,16 @@ public class GuildListManagementGUI implements GUI {
     }
     
     private void loadGuilds() {
-        plugin.getGuildService().getAllGuildsAsync().thenAccept(guilds -> {
-            this.allGuilds = guilds;
+        plugin.getGuildService().getAllGuildsAsync().thenCompose(guilds -> {
+            List<Integer> ids = new ArrayList<>(guilds.size());
+            for (Guild guild : guilds) {
+                ids.add(guild.getId());
+            }
+            return plugin.getGuildService().getMemberCountsAsync(ids).thenAccept(counts -> {
+                this.memberCounts = counts;
+                this.allGuilds = guilds;
+            });
+        }).thenRun(() -> {
             CompatibleScheduler.runTask(plugin, player, () -> {
                 if (player.isOnline()) {
                     refresh(player);
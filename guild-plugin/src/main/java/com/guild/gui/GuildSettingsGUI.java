@@ -526,9 +526,6 @@ public class GuildSettingsGUI implements GUI {
         plugin.getGuildService().setGuildHomeAsync(guild.getId(), player.getLocation(), player.getUniqueId()).thenAccept(success -> {
             CompatibleScheduler.runTask(plugin, player, () -> {
                 if (success) {
-                    if (plugin.getGuildHomeProtectListener() != null) {
-                        plugin.getGuildHomeProtectListener().refreshHomesAsync();
-                    }
                     String message = languageManager.getGuiMessage(player, "gui.guild-settings.sethome.success", "&aGuild home set successfully!");
                     player.sendMessage(ColorUtils.colorize(message));
                     plugin.getGuiManager().openGUI(player, new GuildSettingsGUI(plugin, guild, player));
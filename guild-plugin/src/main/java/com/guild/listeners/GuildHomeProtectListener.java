@@ -1,8 +1,8 @@
 package com.guild.listeners;
 
 import com.guild.GuildPlugin;
+import com.guild.core.cache.GuildMembershipIndex;
 import com.guild.core.utils.CompatibleScheduler;
-import com.guild.core.utils.ScheduledTaskHandle;
 import com.guild.models.Guild;
 import com.guild.models.GuildMember;
 import org.bukkit.Location;
@@ -14,15 +14,20 @@ import org.bukkit.event.block.BlockBreakEvent;
 import org.bukkit.event.block.BlockPlaceEvent;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
-import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongConsumer;
 
 /**
  * Lightweight guild-home protection: non-members cannot break/place within home radius.
  * Config: {@code guild.home-protect.enabled} / {@code guild.home-protect.radius}
  * <p>
- * Home locations are refreshed on a timer (not on every block event) to avoid
- * {@code getAllGuilds()} sync JDBC on the main thread.
+ * Homes are loaded once at startup into a per-world chunk grid (chunk key → homes whose
+ * radius touches that chunk), then updated incrementally via {@link #onHomeSet} /
+ * {@link #onGuildRemoved} from {@link com.guild.services.GuildService}. A block check is one
+ * hash lookup plus a distance test against the (usually zero or one) homes in that chunk.
  */
 public final class GuildHomeProtectListener implements Listener {
 
@@ -41,23 +46,41 @@ public final class GuildHomeProtectListener implements Listener {
     }
 
     private final GuildPlugin plugin;
-    private final List<HomePoint> homes = new CopyOnWriteArrayList<>();
-    private ScheduledTaskHandle refreshTask;
+    private final Map<Integer, HomePoint> homesByGuild = new ConcurrentHashMap<>();
+    /**
+     * world → chunk key → homes covering that chunk; bucket lists are replaced, never mutated.
+     * Full rebuilds build a new grid and swap it in, so lookups never see a half-filled grid.
+     */
+    private volatile Map<String, Map<Long, List<HomePoint>>> grid = new ConcurrentHashMap<>();
+
+    private volatile boolean enabled;
+    private volatile double radius;
+    private volatile double radiusSq;
 
     public GuildHomeProtectListener(GuildPlugin plugin) {
         this.plugin = plugin;
-        startRefreshTask();
+        reloadSettings();
+        refreshHomesAsync();
     }
 
-    private void startRefreshTask() {
-        CompatibleScheduler.runTaskAsync(plugin, this::refreshHomes);
-        refreshTask = CompatibleScheduler.runTaskTimer(plugin,
-                () -> CompatibleScheduler.runTaskAsync(plugin, this::refreshHomes),
-                20L * 30L,
-                20L * 30L);
+    /** Re-read config (call on plugin reload); rebuilds the grid if the radius changed. */
+    public void reloadSettings() {
+        boolean nextEnabled = plugin.getConfigManager().getMainConfig()
+                .getBoolean("guild.home-protect.enabled", false);
+        double nextRadius = Math.max(0, plugin.getConfigManager().getMainConfig()
+                .getDouble("guild.home-protect.radius", 16));
+        synchronized (this) {
+            boolean radiusChanged = nextRadius != radius;
+            enabled = nextEnabled;
+            radius = nextRadius;
+            radiusSq = nextRadius * nextRadius;
+            if (radiusChanged) {
+                rebuildGrid();
+            }
+        }
     }
 
-    /** Optional: call after /guild sethome so protection updates sooner than the timer. */
+    /** Full reload from the database (startup / admin reload); normal updates are incremental. */
     public void refreshHomesAsync() {
         CompatibleScheduler.runTaskAsync(plugin, this::refreshHomes);
     }
@@ -65,32 +88,124 @@ public final class GuildHomeProtectListener implements Listener {
     private void refreshHomes() {
         try {
             List<Guild> guilds = plugin.getGuildService().getAllGuildsAsync().join();
-            List<HomePoint> next = new ArrayList<>();
-            if (guilds != null) {
+            if (guilds == null) {
+                return;
+            }
+            synchronized (this) {
+                homesByGuild.clear();
                 for (Guild guild : guilds) {
                     if (guild.getHomeWorld() == null || guild.getHomeWorld().isEmpty()) {
                         continue;
                     }
-                    next.add(new HomePoint(guild.getId(), guild.getHomeWorld(),
+                    homesByGuild.put(guild.getId(), new HomePoint(guild.getId(), guild.getHomeWorld(),
                             guild.getHomeX(), guild.getHomeZ()));
                 }
+                rebuildGrid();
             }
-            homes.clear();
-            homes.addAll(next);
         } catch (Exception ignored) {
             // keep previous snapshot
         }
     }
 
-    private boolean enabled() {
-        return plugin.getConfigManager().getMainConfig()
-                .getBoolean("guild.home-protect.enabled", false);
+    /** Called after a guild home was written. */
+    public synchronized void onHomeSet(int guildId, String world, double x, double z) {
+        if (world == null || world.isEmpty()) {
+            onGuildRemoved(guildId);
+            return;
+        }
+        HomePoint home = new HomePoint(guildId, world, x, z);
+        HomePoint previous = homesByGuild.put(guildId, home);
+        if (previous != null) {
+            unindex(previous);
+        }
+        index(home);
+    }
+
+    /**
+     * Re-read one guild's home after another server changed or deleted it
+     * (see {@link com.guild.core.cache.CacheInvalidationBus}).
+     */
+    public void refreshGuildAsync(int guildId) {
+        plugin.getGuildService().getGuildByIdAsync(guildId).whenComplete((guild, error) -> {
+            if (error != null) {
+                return; // keep previous entry
+            }
+            if (guild == null) {
+                onGuildRemoved(guildId);
+            } else {
+                onHomeSet(guildId, guild.getHomeWorld(), guild.getHomeX(), guild.getHomeZ());
+            }
+        });
+    }
+
+    /** Called after a guild was deleted. */
+    public synchronized void onGuildRemoved(int guildId) {
+        HomePoint previous = homesByGuild.remove(guildId);
+        if (previous != null) {
+            unindex(previous);
+        }
+    }
+
+    private void rebuildGrid() {
+        Map<String, Map<Long, List<HomePoint>>> next = new ConcurrentHashMap<>();
+        for (HomePoint home : homesByGuild.values()) {
+            index(next, home);
+        }
+        grid = next;
+    }
+
+    private void index(HomePoint home) {
+        index(grid, home);
+    }
+
+    private void index(Map<String, Map<Long, List<HomePoint>>> target, HomePoint home) {
+        Map<Long, List<HomePoint>> chunks = target.computeIfAbsent(home.world, k -> new ConcurrentHashMap<>());
+        forEachCoveredChunk(home, key -> {
+            List<HomePoint> bucket = chunks.get(key);
+            List<HomePoint> next = new ArrayList<>(bucket != null ? bucket.size() + 1 : 1);
+            if (bucket != null) {
+                next.addAll(bucket);
+            }
+            next.add(home);
+            chunks.put(key, Collections.unmodifiableList(next));
+        });
+    }
+
+    private void unindex(HomePoint home) {
+        Map<Long, List<HomePoint>> chunks = grid.get(home.world);
+        if (chunks == null) {
+            return;
+        }
+        forEachCoveredChunk(home, key -> {
+            List<HomePoint> bucket = chunks.get(key);
+            if (bucket == null) {
+                return;
+            }
+            List<HomePoint> next = new ArrayList<>(bucket);
+            next.remove(home);
+            if (next.isEmpty()) {
+                chunks.remove(key);
+            } else {
+                chunks.put(key, Collections.unmodifiableList(next));
+            }
+        });
+    }
+
+    private void forEachCoveredChunk(HomePoint home, LongConsumer action) {
+        double r = radius;
+        int minCx = (int) Math.floor(home.x - r) >> 4;
+        int maxCx = (int) Math.floor(home.x + r) >> 4;
+        int minCz = (int) Math.floor(home.z - r) >> 4;
+        int maxCz = (int) Math.floor(home.z + r) >> 4;
+        for (int cx = minCx; cx <= maxCx; cx++) {
+            for (int cz = minCz; cz <= maxCz; cz++) {
+                action.accept(chunkKey(cx, cz));
+            }
+        }
     }
 
-    private double radiusSq() {
-        double r = plugin.getConfigManager().getMainConfig()
-                .getDouble("guild.home-protect.radius", 16);
-        return r * r;
+    private static long chunkKey(int cx, int cz) {
+        return ((long) cx << 32) | (cz & 0xFFFFFFFFL);
     }
 
     @EventHandler(priority = EventPriority.HIGH, ignoreCancelled = true)
@@ -108,40 +223,48 @@ public final class GuildHomeProtectListener implements Listener {
     }
 
     private boolean shouldCancel(Player player, Location loc) {
-        if (!enabled() || player == null || loc == null || loc.getWorld() == null) {
+        if (!enabled || player == null || loc == null || loc.getWorld() == null) {
             return false;
         }
-        if (player.hasPermission("guild.admin")) {
+        Map<Long, List<HomePoint>> chunks = grid.get(loc.getWorld().getName());
+        if (chunks == null) {
             return false;
         }
-        if (homes.isEmpty()) {
+        List<HomePoint> bucket = chunks.get(chunkKey(loc.getBlockX() >> 4, loc.getBlockZ() >> 4));
+        if (bucket == null) {
             return false;
         }
-        String world = loc.getWorld().getName();
         double x = loc.getX();
         double z = loc.getZ();
-        double r2 = radiusSq();
+        double r2 = radiusSq;
 
-        GuildMember member = null;
-        boolean memberLoaded = false;
-
-        for (HomePoint home : homes) {
-            if (!world.equals(home.world)) {
-                continue;
-            }
+        int playerGuildId = Integer.MIN_VALUE;
+        for (HomePoint home : bucket) {
             double dx = x - home.x;
             double dz = z - home.z;
             if (dx * dx + dz * dz > r2) {
                 continue;
             }
-            if (!memberLoaded) {
-                member = plugin.getGuildService().getGuildMember(player.getUniqueId());
-                memberLoaded = true;
+            if (player.hasPermission("guild.admin")) {
+                return false;
+            }
+            if (playerGuildId == Integer.MIN_VALUE) {
+                playerGuildId = resolveGuildId(player);
             }
-            if (member == null || member.getGuildId() != home.guildId) {
+            if (playerGuildId != home.guildId) {
                 return true;
             }
         }
         return false;
     }
+
+    /** Guild id of the player, -1 if none; prefers the in-memory membership index. */
+    private int resolveGuildId(Player player) {
+        GuildMembershipIndex index = plugin.getGuildMembershipIndex();
+        if (index != null && index.isReady()) {
+            return index.getGuildId(player.getUniqueId());
+        }
+        GuildMember member = plugin.getGuildService().getGuildMember(player.getUniqueId());
+        return member != null ? member.getGuildId() : -1;
+    }
 }
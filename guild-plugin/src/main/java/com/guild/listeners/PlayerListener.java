@@ -2,6 +2,7 @@ package com.guild.listeners;
 
 import com.guild.GuildPlugin;
 import com.guild.chat.GuildChatManager;
+import com.guild.core.cache.GuildMembershipIndex;
 import com.guild.core.geyser.PlayerConnectionService;
 import com.guild.core.gui.GUIManager;
 import com.guild.core.language.LanguageManager;
@@ -154,6 +155,12 @@ public class PlayerListener implements Listener {
         event.setCancelled(true);
         String rawMessage = event.getMessage();
 
+        GuildMembershipIndex index = plugin.getGuildMembershipIndex();
+        if (index != null && index.isReady()) {
+            handleGuildChatIndexed(player, rawMessage, index);
+            return;
+        }
+
         plugin.getGuildService().getGuildMemberAsync(player.getUniqueId()).thenAccept(member -> {
             if (member == null) {
                 String msg = languageManager.getCoreMessage(player, "guild.chat.not-in-guild",
@@ -209,4 +216,44 @@ public class PlayerListener implements Listener {
             });
         });
     }
+
+    /**
+     * 成员索引就绪时的公会聊天 — 收件人直接取自内存索引，无数据库查询
+     */
+    private void handleGuildChatIndexed(Player player, String rawMessage, GuildMembershipIndex index) {
+        GuildMembershipIndex.Entry member = index.get(player.getUniqueId());
+        String guildName = member != null ? index.getGuildName(member.guildId) : null;
+        if (member == null || guildName == null) {
+            String msg = languageManager.getCoreMessage(player, "guild.chat.not-in-guild",
+                "&cYou are not in a guild! Chat mode disabled.");
+            player.sendMessage(ColorUtils.colorize(msg));
+            chatManager.removePlayer(player.getUniqueId());
+            return;
+        }
+
+        String formatted = chatManager.formatMessage(player, member.role, rawMessage);
+        Set<UUID> onlineUuids = new HashSet<>(index.getOnlineMembers(member.guildId));
+
+        GuildChatEvent chatEvent = new GuildChatEvent(
+            player, member.guildId, guildName,
+            onlineUuids, rawMessage, formatted);
+        Bukkit.getPluginManager().callEvent(chatEvent);
+
+        if (chatEvent.isCancelled()) return;
+
+        String finalMessage = ColorUtils.colorize(chatEvent.getFormat());
+        for (UUID uuid : chatEvent.getRecipients()) {
+            Player recipient = Bukkit.getPlayer(uuid);
+            if (recipient != null && recipient.isOnline()) {
+                recipient.sendMessage(finalMessage);
+            }
+        }
+
+        // Cache for offline members
+        for (UUID uuid : index.getMembers(member.guildId)) {
+            if (!onlineUuids.contains(uuid)) {
+                chatManager.cacheOfflineMessage(uuid, finalMessage);
+            }
+        }
+    }
 }
@@ -229,6 +229,33 @@ public class Guild {
         return new Location(world, homeX, homeY, homeZ, homeYaw, homePitch);
     }
     
+    /**
+     * 浅拷贝（字段均为不可变值），供缓存对外返回独立副本
+     */
+    public Guild copy() {
+        Guild copy = new Guild();
+        copy.id = id;
+        copy.name = name;
+        copy.tag = tag;
+        copy.description = description;
+        copy.leaderUuid = leaderUuid;
+        copy.leaderName = leaderName;
+        copy.homeWorld = homeWorld;
+        copy.homeX = homeX;
+        copy.homeY = homeY;
+        copy.homeZ = homeZ;
+        copy.homeYaw = homeYaw;
+        copy.homePitch = homePitch;
+        copy.balance = balance;
+        copy.level = level;
+        copy.peakLevel = peakLevel;
+        copy.maxMembers = maxMembers;
+        copy.frozen = frozen;
+        copy.createdAt = createdAt;
+        copy.updatedAt = updatedAt;
+        return copy;
+    }
+    
     @Override
     public String toString() {
         return "Guild{" +
@@ -190,6 +190,22 @@ public class GuildEconomy {
         return (this.balance / this.maxExperience) * 100.0;
     }
     
+    /**
+     * 浅拷贝，供缓存对外返回独立副本（不改动 lastUpdated）
+     */
+    public GuildEconomy copy() {
+        GuildEconomy copy = new GuildEconomy();
+        copy.id = id;
+        copy.guildId = guildId;
+        copy.balance = balance;
+        copy.level = level;
+        copy.experience = experience;
+        copy.maxExperience = maxExperience;
+        copy.maxMembers = maxMembers;
+        copy.lastUpdated = lastUpdated;
+        return copy;
+    }
+    
     @Override
     public String toString() {
         return "GuildEconomy{" +
@@ -4,12 +4,14 @@ import java.io.File;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
+import java.util.function.Consumer;
 
 import org.bukkit.Material;
 import org.bukkit.entity.Player;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.inventory.meta.ItemMeta;
 
+import com.guild.core.cache.CacheInvalidationBus;
 import com.guild.core.module.GuildModule;
 import com.guild.core.module.ModuleContext;
 import com.guild.core.module.ModuleDataDirectory;
@@ -51,6 +53,9 @@ public class GuildQuestModule implements GuildModule {
     private QuestTracker questTracker;
     private QuestRewardHandler rewardHandler;
     private GuildTreeService treeService;
+    /** 其它子服公会树变更时丢弃本服缓存 */
+    private final Consumer<CacheInvalidationBus.Invalidation> remoteTreeChange =
+        inv -> { if (treeService != null) treeService.invalidate(inv.guildId()); };
     private QuestTexts texts;
 
     @Override
@@ -69,6 +74,10 @@ public class GuildQuestModule implements GuildModule {
         this.rewardHandler = new QuestRewardHandler(context);
         this.treeService = new GuildTreeService(context);
         this.rewardHandler.setTreeService(treeService);
+        CacheInvalidationBus bus = context.getPlugin().getCacheInvalidationBus();
+        if (bus != null) {
+            bus.subscribe(CacheInvalidationBus.Kind.BALANCE, remoteTreeChange);
+        }
         this.questTracker = new QuestTracker(this);
 
         GuildPluginAPI api = context.getApi();
@@ -559,6 +568,10 @@ public class GuildQuestModule implements GuildModule {
     public void onDisable() {
         this.state = ModuleState.UNLOADED;
         if (questTracker != null) questTracker.stop();
+        CacheInvalidationBus bus = context.getPlugin().getCacheInvalidationBus();
+        if (bus != null) {
+            bus.unsubscribe(CacheInvalidationBus.Kind.BALANCE, remoteTreeChange);
+        }
         if (questManager != null) {
             questManager.saveAllSync();
         }
@@ -1,5 +1,6 @@
 package com.guild.module.example.quest.tree;
 
+import com.guild.core.cache.CacheInvalidationBus;
 import com.guild.core.database.DatabaseManager;
 import com.guild.core.module.ModuleContext;
 import org.bukkit.entity.Player;
@@ -69,6 +70,7 @@ public class GuildTreeService {
             String name = player != null ? player.getName() : "system";
             repository.insertLedger(guildId, uuid, name, "DEPOSIT", amount, 0,
                 state.getTreeLevel(), reason);
+            publishChange(guildId);
             context.logDetail("[GuildTree] Guild #" + guildId + " +" + amount + " virtual EXP (" + reason + ")");
             return true;
         }
@@ -113,6 +115,7 @@ public class GuildTreeService {
             if (!repository.update(state)) {
                 return WithdrawResult.ERROR;
             }
+            publishChange(guildId);
 
             player.giveExp(vanilla);
             repository.addDailyWithdrawn(guildId, player.getUniqueId(), dayKey, vanilla);
@@ -157,6 +160,7 @@ public class GuildTreeService {
             if (!repository.update(state)) {
                 return UpgradeResult.ERROR;
             }
+            publishChange(guildId);
             repository.insertLedger(guildId, player.getUniqueId(), player.getName(),
                 "UPGRADE", cost, 0, state.getTreeLevel(), "tree_upgrade");
             context.logDetail("[GuildTree] Guild #" + guildId + " tree upgraded to " + state.getTreeLevel()
@@ -190,6 +194,14 @@ public class GuildTreeService {
         return repository.getDailyWithdrawn(guildId, playerUuid, LocalDate.now().toString());
     }
 
+    /** Tree state is a guild-level ledger: other backends drop it on a BALANCE invalidation. */
+    private void publishChange(int guildId) {
+        CacheInvalidationBus bus = context.getPlugin().getCacheInvalidationBus();
+        if (bus != null) {
+            bus.publishBalance(guildId);
+        }
+    }
+
     public void invalidate(int guildId) {
         cache.remove(guildId);
     }
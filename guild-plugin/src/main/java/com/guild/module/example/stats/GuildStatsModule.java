@@ -1,6 +1,7 @@
 package com.guild.module.example.stats;
 
 import com.guild.GuildPlugin;
+import com.guild.core.cache.CacheInvalidationBus;
 import com.guild.core.module.GuildModule;
 import com.guild.core.module.ModuleContext;
 import com.guild.core.module.ModuleDataDirectory;
@@ -33,6 +34,7 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 public class GuildStatsModule implements GuildModule {
 
@@ -47,6 +49,12 @@ public class GuildStatsModule implements GuildModule {
     private ActivityTracker activityTracker;
     private ActivityCalculator activityCalculator;
     private EconomyContributionFetcher economyFetcher;
+    /** 其它子服的公会 / 成员 / 余额变更：丢弃本服统计缓存 */
+    private final Consumer<CacheInvalidationBus.Invalidation> remoteChange =
+        inv -> { if (dataCache != null) dataCache.invalidate(inv.guildId()); };
+    private static final CacheInvalidationBus.Kind[] REMOTE_KINDS = {
+        CacheInvalidationBus.Kind.GUILD, CacheInvalidationBus.Kind.MEMBER, CacheInvalidationBus.Kind.BALANCE
+    };
 
     @Override
     public void onEnable(ModuleContext context) throws Exception {
@@ -68,6 +76,13 @@ public class GuildStatsModule implements GuildModule {
 
         statsManager.loadAll();
 
+        CacheInvalidationBus bus = context.getPlugin().getCacheInvalidationBus();
+        if (bus != null) {
+            for (CacheInvalidationBus.Kind kind : REMOTE_KINDS) {
+                bus.subscribe(kind, remoteChange);
+            }
+        }
+
         // Prefer core builtin activity; keep local tracker only as demo fallback
         boolean coreActivity = false;
         try {
@@ -117,6 +132,12 @@ public class GuildStatsModule implements GuildModule {
                 statsManager.clearAll();
             });
         }
+        CacheInvalidationBus bus = context.getPlugin().getCacheInvalidationBus();
+        if (bus != null) {
+            for (CacheInvalidationBus.Kind kind : REMOTE_KINDS) {
+                bus.unsubscribe(kind, remoteChange);
+            }
+        }
         dataCache.clearAll();
         context.getLogger().info(
             context.getMessage("module.stats.unloaded", "[Stats] Stats system disabled"));
@@ -89,7 +89,7 @@ public class GuildPluginAPI {
 
     // ==================== 公会查询 API ====================
 
-    /** 根据 ID 获取公会信息（异步） */
+    /** 根据 ID 获取公会信息（异步；命中公会快照缓存时不访问数据库） */
     public CompletableFuture<GuildData> getGuildById(int id) {
         return plugin.getGuildService().getGuildByIdAsync(id).thenApply(this::convertGuild);
     }
@@ -948,7 +948,7 @@ public class GuildPluginAPI {
         try {
             var cache = plugin.getGuildPlayerDataCache();
             if (cache != null) {
-                var snap = cache.get(member.getPlayerUuid());
+                var snap = cache.peek(member.getPlayerUuid());
                 if (snap.contributionNet != null) {
                     contribution = snap.contributionNet;
                 }
@@ -1,6 +1,7 @@
 package com.guild.sdk.economy;
 
 import com.guild.GuildPlugin;
+import com.guild.core.cache.CacheInvalidationBus;
 import com.guild.core.database.DatabaseManager;
 import com.guild.core.database.DatabaseManager.DatabaseType;
 import com.guild.core.utils.ColorUtils;
@@ -136,7 +137,7 @@ public class CurrencyManager {
         if (cached != null) {
             return CompletableFuture.completedFuture(cached);
         }
-        return CompletableFuture.supplyAsync(() -> getBalance(guildId, playerUuid, currencyType));
+        return databaseManager.supplyAsync(() -> getBalance(guildId, playerUuid, currencyType));
     }
 
     /**
@@ -175,6 +176,7 @@ public class CurrencyManager {
                                 } else {
                                     currencyCache.put(key, loadBalanceFromDatabase(guildId, playerUuid, currencyType));
                                 }
+                                publishInvalidation(guildId, playerUuid, currencyType);
                                 return true;
                             }
                         }
@@ -191,6 +193,7 @@ public class CurrencyManager {
                             int affected = insertStmt.executeUpdate();
                             if (affected > 0) {
                                 currencyCache.put(key, amount);
+                                publishInvalidation(guildId, playerUuid, currencyType);
                                 return true;
                             }
                         }
@@ -205,7 +208,7 @@ public class CurrencyManager {
 
     public CompletableFuture<Boolean> depositAsync(int guildId, UUID playerUuid, String playerName,
                                                    CurrencyType currencyType, double amount) {
-        return CompletableFuture.supplyAsync(
+        return databaseManager.supplyAsync(
                 () -> deposit(guildId, playerUuid, playerName, currencyType, amount));
     }
 
@@ -243,6 +246,7 @@ public class CurrencyManager {
                 if (affected > 0) {
                     String key = buildCacheKey(guildId, playerUuid, currencyType);
                     currencyCache.put(key, currentBalance - amount);
+                    publishInvalidation(guildId, playerUuid, currencyType);
                     return true;
                 }
             }
@@ -254,7 +258,7 @@ public class CurrencyManager {
 
     public CompletableFuture<Boolean> withdrawAsync(int guildId, UUID playerUuid,
                                                     CurrencyType currencyType, double amount) {
-        return CompletableFuture.supplyAsync(() -> withdraw(guildId, playerUuid, currencyType, amount));
+        return databaseManager.supplyAsync(() -> withdraw(guildId, playerUuid, currencyType, amount));
     }
 
     private double loadBalanceFromDatabase(int guildId, UUID playerUuid, CurrencyType currencyType) {
@@ -293,6 +297,14 @@ public class CurrencyManager {
         currencyCache.remove(buildCacheKey(guildId, playerUuid, currencyType));
     }
 
+    /** Tell other backends to drop their cached balance after a successful write. */
+    private void publishInvalidation(int guildId, UUID playerUuid, CurrencyType currencyType) {
+        CacheInvalidationBus bus = plugin.getCacheInvalidationBus();
+        if (bus != null) {
+            bus.publishCurrency(guildId, playerUuid, currencyType);
+        }
+    }
+
     public void sendCurrencyMessage(Player player, CurrencyType currencyType, double amount, boolean isDeposit) {
         String key = isDeposit ? "currency.notify.gain" : "currency.notify.spend";
         String fallback = isDeposit
@@ -1,7 +1,11 @@
 package com.guild.services;
 
 import com.guild.GuildPlugin;
+import com.guild.core.cache.CacheInvalidationBus;
+import com.guild.core.cache.GuildMembershipIndex;
+import com.guild.core.cache.GuildSnapshotCache;
 import com.guild.core.database.DatabaseManager;
+import com.guild.listeners.GuildHomeProtectListener;
 import com.guild.models.Guild;
 import com.guild.models.GuildMember;
 import com.guild.models.GuildApplication;
@@ -18,11 +22,17 @@ import java.sql.*;
 import java.time.LocalDateTime;
 import com.guild.core.time.TimeProvider;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
 import java.util.logging.Logger;
 
 import com.guild.core.utils.CompatibleScheduler;
@@ -34,11 +44,19 @@ public class GuildService {
     private final GuildPlugin plugin;
     private final DatabaseManager databaseManager;
     private final Logger logger;
+    /** guildId → 公会行/经济行快照（LRU，写路径统一失效） */
+    private final GuildSnapshotCache guildCache;
+    /** 每个公会一条余额变更队列：同一公会的并发增减串行执行，并合并到同一事务中 */
+    private final Map<Integer, BalanceLane> balanceLanes = new ConcurrentHashMap<>();
+    /** 单个事务最多合并的余额变更数 */
+    private static final int BALANCE_BATCH_LIMIT = 32;
     
     public GuildService(GuildPlugin plugin) {
         this.plugin = plugin;
         this.databaseManager = plugin.getDatabaseManager();
         this.logger = plugin.getLogger();
+        long snapshotTtlSeconds = plugin.getConfig().getLong("cross-server.guild-snapshot-ttl-seconds", 60L);
+        this.guildCache = new GuildSnapshotCache(1024, Math.max(1L, snapshotTtlSeconds) * 1000L);
     }
 
     // ==================== 模块事件分发辅助 ====================
@@ -93,6 +111,70 @@ public class GuildService {
         } catch (Exception ignored) {}
     }
     
+    /** 写库成功后同步内存成员索引（索引未初始化时忽略）。 */
+    private void updateMembershipIndex(Consumer<GuildMembershipIndex> change) {
+        GuildMembershipIndex index = plugin.getGuildMembershipIndex();
+        if (index != null) {
+            try { change.accept(index); } catch (Exception ignored) {}
+        }
+    }
+    
+    /** 写库成功后通知其它子服失效缓存（未启用跨服失效时忽略）。 */
+    private void publishInvalidation(Consumer<CacheInvalidationBus> change) {
+        CacheInvalidationBus bus = plugin.getCacheInvalidationBus();
+        if (bus != null) {
+            try { change.accept(bus); } catch (Exception ignored) {}
+        }
+    }
+    
+    /**
+     * 公会数据（等级、名称、公会家等）变更后调用：递增公会快照版本，
+     * 失效该公会成员的玩家数据缓存快照，并通知其它子服。
+     */
+    private void invalidateGuildSnapshots(int guildId) {
+        evictGuildSnapshots(guildId);
+        publishInvalidation(bus -> bus.publishGuild(guildId));
+    }
+    
+    /** 公会余额变更：本服失效同 {@link #invalidateGuildSnapshots}，跨服只按余额失效。 */
+    private void invalidateGuildBalance(int guildId) {
+        evictGuildSnapshots(guildId);
+        publishInvalidation(bus -> bus.publishBalance(guildId));
+    }
+    
+    /** 成员加入/离开：本服失效公会快照，其它子服额外失效该玩家并刷新成员索引。 */
+    private void invalidateMemberSnapshots(int guildId, UUID playerUuid) {
+        evictGuildSnapshots(guildId);
+        publishInvalidation(bus -> bus.publishMember(guildId, playerUuid));
+    }
+    
+    private void evictGuildSnapshots(int guildId) {
+        guildCache.invalidate(guildId);
+        var cache = plugin.getGuildPlayerDataCache();
+        if (cache != null) {
+            try { cache.invalidateGuild(guildId); } catch (Exception ignored) {}
+        }
+    }
+    
+    /** 公会家变更后增量更新领地保护网格。 */
+    private void updateHomeProtection(Consumer<GuildHomeProtectListener> change) {
+        GuildHomeProtectListener listener = plugin.getGuildHomeProtectListener();
+        if (listener != null) {
+            try { change.accept(listener); } catch (Exception ignored) {}
+        }
+    }
+    
+    /** 按 ID 读取的公会行快照缓存（命中率统计、跨服同步失效入口） */
+    public GuildSnapshotCache getGuildSnapshotCache() {
+        return guildCache;
+    }
+
+    /** 查询结果写入快照缓存；{@code stamp} 须在发起查询前通过 {@link GuildSnapshotCache#stamp()} 取得。 */
+    private Guild cacheGuild(Guild guild, long stamp) {
+        guildCache.put(guild, stamp);
+        return guild;
+    }
+    
     // 时间工具：统一使用操作系统本地时间字符串（yyyy-MM-dd HH:mm:ss）
     private String nowString() { return TimeProvider.nowString(); }
     private String plusMinutesString(int minutes) { return TimeProvider.plusMinutesString(minutes); }
@@ -112,7 +194,7 @@ public class GuildService {
                     return CompletableFuture.completedFuture(false);
                 }
                 
-                return CompletableFuture.supplyAsync(() -> {
+                return databaseManager.supplyAsync(() -> {
                     try {
                         String sql = "INSERT INTO guilds (name, tag, description, leader_uuid, leader_name, balance, level, peak_level, max_members, frozen, created_at, updated_at) VALUES (?, ?, ?, ?, ?, 0.0, 1, 1, 6, 0, ?, ?)";
                         
@@ -133,6 +215,7 @@ public class GuildService {
                                     if (rs.next()) {
                                         int guildId = rs.getInt(1);
                                         QuietLog.system("Guild created successfully: " + name + " (ID: " + guildId + ")");
+                                        updateMembershipIndex(index -> index.onGuildCreated(guildId, name));
                                         return guildId;
                                     }
                                 }
@@ -190,7 +273,7 @@ public class GuildService {
                     return CompletableFuture.completedFuture(false);
                 }
                 
-                return CompletableFuture.supplyAsync(() -> {
+                return databaseManager.supplyAsync(() -> {
                     try {
                         // 获取公会余额用于退款
                         double guildBalance = guild.getBalance();
@@ -213,6 +296,9 @@ public class GuildService {
                             int affectedRows = stmt.executeUpdate();
                             if (affectedRows > 0) {
                                 QuietLog.system("Guild deleted successfully: " + guild.getName() + " (ID: " + guildId + ")");
+                                updateMembershipIndex(index -> index.onGuildRemoved(guildId));
+                                updateHomeProtection(listener -> listener.onGuildRemoved(guildId));
+                                invalidateGuildSnapshots(guildId);
                                 
                                 // 退款给会长（如果经济系统可用）
                                 if (guildBalance > 0 && plugin.getEconomyManager().isVaultAvailable()) {
@@ -270,6 +356,12 @@ public class GuildService {
                 stmt.executeUpdate();
             }
         }
+        // 丢弃本服的页缓存与未写入的槽位变更，并通知其它子服
+        com.guild.warehouse.GuildWarehouseService warehouse = plugin.getGuildWarehouseService();
+        if (warehouse != null) {
+            warehouse.discardGuild(guildId);
+        }
+        publishInvalidation(bus -> bus.publishWarehouse(guildId));
     }
 
     /**
@@ -283,7 +375,7 @@ public class GuildService {
                 return CompletableFuture.completedFuture(false);
             }
             
-            return CompletableFuture.supplyAsync(() -> {
+            return databaseManager.supplyAsync(() -> {
                 try {
                     // 获取公会余额用于退款（退款给会长，而非管理员）
                     double guildBalance = guild.getBalance();
@@ -305,6 +397,9 @@ public class GuildService {
                         int affectedRows = stmt.executeUpdate();
                         if (affectedRows > 0) {
                             QuietLog.system("Admin force-deleted guild: " + guild.getName() + " (ID: " + guildId + ", by: " + adminUuid + ")");
+                            updateMembershipIndex(index -> index.onGuildRemoved(guildId));
+                            updateHomeProtection(listener -> listener.onGuildRemoved(guildId));
+                            invalidateGuildSnapshots(guildId);
                             
                             // 退款给会长（如果经济系统可用）— 注意：退款给会长而非管理员
                             if (guildBalance > 0 && plugin.getEconomyManager().isVaultAvailable()) {
@@ -372,7 +467,7 @@ public class GuildService {
                             return CompletableFuture.completedFuture(false);
                         }
                         
-                        return CompletableFuture.supplyAsync(() -> {
+                        return databaseManager.supplyAsync(() -> {
                             try {
                                 String sql = "UPDATE guilds SET name = COALESCE(?, name), tag = COALESCE(?, tag), description = COALESCE(?, description), updated_at = ? WHERE id = ?";
                                 
@@ -388,6 +483,8 @@ public class GuildService {
                                     int affectedRows = stmt.executeUpdate();
                                     if (affectedRows > 0) {
                                         QuietLog.system("Guild info updated successfully: " + guild.getName() + " (ID: " + guildId + ")");
+                                        updateMembershipIndex(index -> index.onGuildRenamed(guildId, name));
+                                        invalidateGuildSnapshots(guildId);
                                         return true;
                                     }
                                 }
@@ -445,7 +542,7 @@ public class GuildService {
                     
                     DebugLog.info(logger, "[AddMember-Debug] Capacity OK (" + memberCount + "/" + effectiveMax + "), preparing database insert");
                     
-                    return CompletableFuture.supplyAsync(() -> {
+                    return databaseManager.supplyAsync(() -> {
                         try {
                         
                         String sql = "INSERT INTO guild_members (guild_id, player_uuid, player_name, role, joined_at) VALUES (?, ?, ?, ?, ?)";
@@ -464,6 +561,8 @@ public class GuildService {
                             int affectedRows = stmt.executeUpdate();
                             if (affectedRows > 0) {
                                 DebugLog.info(logger, "[AddMember-Debug] Player " + playerName + " successfully joined guild (ID: " + guildId + ")");
+                                updateMembershipIndex(index -> index.onMemberAdded(guildId, playerUuid, playerName, role));
+                                invalidateMemberSnapshots(guildId, playerUuid);
                                 // 更新内置权限缓存
                                 try { plugin.getPermissionManager().updatePlayerPermissions(playerUuid); } catch (Exception ignored) {}
                                 
@@ -527,7 +626,7 @@ public class GuildService {
                     return CompletableFuture.completedFuture(false);
                 }
                 
-                return CompletableFuture.supplyAsync(() -> {
+                return databaseManager.supplyAsync(() -> {
                     try {
                         String sql = "DELETE FROM guild_members WHERE player_uuid = ?";
                         
@@ -539,6 +638,8 @@ public class GuildService {
                             int affectedRows = stmt.executeUpdate();
                             if (affectedRows > 0) {
                                 QuietLog.system("Player " + member.getPlayerName() + " left guild (ID: " + member.getGuildId() + ")");
+                                updateMembershipIndex(index -> index.onMemberRemoved(playerUuid));
+                                invalidateMemberSnapshots(member.getGuildId(), playerUuid);
                                 // 更新内置权限缓存
                                 try { plugin.getPermissionManager().updatePlayerPermissions(playerUuid); } catch (Exception ignored) {}
                                 
@@ -601,7 +702,7 @@ public class GuildService {
                     return CompletableFuture.completedFuture(false);
                 }
                 
-                return CompletableFuture.supplyAsync(() -> {
+                return databaseManager.supplyAsync(() -> {
                     try {
                         String sql = "UPDATE guild_members SET role = ? WHERE player_uuid = ?";
                         
@@ -614,6 +715,8 @@ public class GuildService {
                             int affectedRows = stmt.executeUpdate();
                             if (affectedRows > 0) {
                                 QuietLog.system("Player " + member.getPlayerName() + " role updated to: " + newRole.name());
+                                updateMembershipIndex(index -> index.onRoleChanged(playerUuid, newRole));
+                                publishInvalidation(bus -> bus.publishMember(member.getGuildId(), playerUuid));
                                 // 更新内置权限缓存
                                 try { plugin.getPermissionManager().updatePlayerPermissions(playerUuid); } catch (Exception ignored) {}
                                 
@@ -669,7 +772,7 @@ public class GuildService {
             if (member == null || member.getGuildId() != guildId) {
                 return CompletableFuture.completedFuture(false);
             }
-            return CompletableFuture.supplyAsync(() -> {
+            return databaseManager.supplyAsync(() -> {
                 try {
                     String sql = "DELETE FROM guild_members WHERE player_uuid = ?";
                     try (Connection conn = databaseManager.getConnection();
@@ -677,6 +780,8 @@ public class GuildService {
                         stmt.setString(1, playerUuid.toString());
                         int affectedRows = stmt.executeUpdate();
                         if (affectedRows > 0) {
+                            updateMembershipIndex(index -> index.onMemberRemoved(playerUuid));
+                            invalidateMemberSnapshots(guildId, playerUuid);
                             try { plugin.getPermissionManager().updatePlayerPermissions(playerUuid); } catch (Exception ignored) {}
                             getGuildByIdAsync(guildId).thenAccept(guild -> {
                                 if (guild != null) {
@@ -712,7 +817,7 @@ public class GuildService {
                 return CompletableFuture.completedFuture(false);
             }
             String oldRole = member.getRole().name();
-            return CompletableFuture.supplyAsync(() -> {
+            return databaseManager.supplyAsync(() -> {
                 try {
                     String sql = "UPDATE guild_members SET role = ? WHERE player_uuid = ?";
                     try (Connection conn = databaseManager.getConnection();
@@ -721,6 +826,8 @@ public class GuildService {
                         stmt.setString(2, playerUuid.toString());
                         int affectedRows = stmt.executeUpdate();
                         if (affectedRows > 0) {
+                            updateMembershipIndex(index -> index.onRoleChanged(playerUuid, newRole));
+                            publishInvalidation(bus -> bus.publishMember(guildId, playerUuid));
                             try { plugin.getPermissionManager().updatePlayerPermissions(playerUuid); } catch (Exception ignored) {}
                             getGuildByIdAsync(guildId).thenAccept(guild -> {
                                 if (guild != null) {
@@ -769,7 +876,7 @@ public class GuildService {
                 }
                 String resolvedName = (newLeaderName != null && !newLeaderName.isEmpty())
                         ? newLeaderName : newMember.getPlayerName();
-                return CompletableFuture.supplyAsync(() -> {
+                return databaseManager.supplyAsync(() -> {
                     try (Connection conn = databaseManager.getConnection()) {
                         conn.setAutoCommit(false);
                         try {
@@ -806,6 +913,15 @@ public class GuildService {
                                 return false;
                             }
                             conn.commit();
+                            invalidateGuildSnapshots(guildId);
+                            updateMembershipIndex(index -> {
+                                index.onRoleChanged(oldLeaderUuid, GuildMember.Role.MEMBER);
+                                index.onRoleChanged(newLeaderUuid, GuildMember.Role.LEADER);
+                            });
+                            publishInvalidation(bus -> {
+                                bus.publishMember(guildId, oldLeaderUuid);
+                                bus.publishMember(guildId, newLeaderUuid);
+                            });
 
                             // 刷新权限缓存
                             try { plugin.getPermissionManager().updatePlayerPermissions(oldLeaderUuid); } catch (Exception ignored) {}
@@ -852,7 +968,8 @@ public class GuildService {
      * 获取玩家公会 (异步)
      */
     public CompletableFuture<Guild> getPlayerGuildAsync(UUID playerUuid) {
-        return CompletableFuture.supplyAsync(() -> {
+        return databaseManager.supplyAsync(() -> {
+            long stamp = guildCache.stamp();
             try {
                 String sql = "SELECT g.* FROM guilds g " +
                             "INNER JOIN guild_members gm ON g.id = gm.guild_id " +
@@ -865,7 +982,7 @@ public class GuildService {
                     
                     try (ResultSet rs = stmt.executeQuery()) {
                         if (rs.next()) {
-                            return createGuildFromResultSet(rs);
+                            return cacheGuild(createGuildFromResultSet(rs), stamp);
                         }
                     }
                 }
@@ -901,7 +1018,7 @@ public class GuildService {
      * 获取公会成员 (异步)
      */
     public CompletableFuture<GuildMember> getGuildMemberAsync(UUID playerUuid) {
-        return CompletableFuture.supplyAsync(() -> {
+        return databaseManager.supplyAsync(() -> {
             try {
                 String sql = "SELECT * FROM guild_members WHERE player_uuid = ?";
                 
@@ -947,7 +1064,7 @@ public class GuildService {
      * 获取公会成员数量 (异步)
      */
     public CompletableFuture<Integer> getGuildMemberCountAsync(int guildId) {
-        return CompletableFuture.supplyAsync(() -> {
+        return databaseManager.supplyAsync(() -> {
             try {
                 String sql = "SELECT COUNT(*) FROM guild_members WHERE guild_id = ?";
                 
@@ -969,6 +1086,45 @@ public class GuildService {
         });
     }
     
+    /**
+     * 批量获取公会成员数量 (异步)
+     * 成员索引就绪时直接读内存；否则一条 {@code GROUP BY guild_id} 查询取回全部计数。
+     *
+     * @param guildIds 需要的公会 ID；为 {@code null} 时返回所有有成员的公会
+     * @return guildId → 成员数（请求的公会没有成员时为 0）
+     */
+    public CompletableFuture<Map<Integer, Integer>> getMemberCountsAsync(Collection<Integer> guildIds) {
+        GuildMembershipIndex index = plugin.getGuildMembershipIndex();
+        if (index != null && index.isReady() && guildIds != null) {
+            Map<Integer, Integer> counts = new HashMap<>();
+            for (Integer guildId : guildIds) {
+                counts.put(guildId, index.getMemberCount(guildId));
+            }
+            return CompletableFuture.completedFuture(counts);
+        }
+        return databaseManager.supplyAsync(() -> {
+            Map<Integer, Integer> counts = new HashMap<>();
+            String sql = "SELECT guild_id, COUNT(*) AS member_count FROM guild_members GROUP BY guild_id";
+            try (Connection conn = databaseManager.getConnection();
+                 PreparedStatement stmt = conn.prepareStatement(sql);
+                 ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    counts.put(rs.getInt("guild_id"), rs.getInt("member_count"));
+                }
+            } catch (SQLException e) {
+                logger.severe("Error fetching guild member counts: " + e.getMessage());
+            }
+            if (guildIds == null) {
+                return counts;
+            }
+            Map<Integer, Integer> requested = new HashMap<>();
+            for (Integer guildId : guildIds) {
+                requested.put(guildId, counts.getOrDefault(guildId, 0));
+            }
+            return requested;
+        });
+    }
+
     /**
      * 获取公会成员数量 (同步包装器)
      */
@@ -985,7 +1141,7 @@ public class GuildService {
      * 获取公会所有成员 (异步)
      */
     public CompletableFuture<List<GuildMember>> getGuildMembersAsync(int guildId) {
-        return CompletableFuture.supplyAsync(() -> {
+        return databaseManager.supplyAsync(() -> {
             List<GuildMember> members = new ArrayList<>();
             try {
                 String sql = "SELECT * FROM guild_members WHERE guild_id = ? ORDER BY role ASC, joined_at ASC";
@@ -1024,7 +1180,12 @@ public class GuildService {
      * 根据ID获取公会 (异步)
      */
     public CompletableFuture<Guild> getGuildByIdAsync(int guildId) {
-        return CompletableFuture.supplyAsync(() -> {
+        Guild cached = guildCache.get(guildId);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+        return databaseManager.supplyAsync(() -> {
+            long stamp = guildCache.stamp();
             try {
                 String sql = "SELECT * FROM guilds WHERE id = ?";
                 
@@ -1035,7 +1196,7 @@ public class GuildService {
                     
                     try (ResultSet rs = stmt.executeQuery()) {
                         if (rs.next()) {
-                            return createGuildFromResultSet(rs);
+                            return cacheGuild(createGuildFromResultSet(rs), stamp);
                         }
                     }
                 }
@@ -1062,7 +1223,8 @@ public class GuildService {
      * 根据名称获取公会 (异步)
      */
     public CompletableFuture<Guild> getGuildByNameAsync(String name) {
-        return CompletableFuture.supplyAsync(() -> {
+        return databaseManager.supplyAsync(() -> {
+            long stamp = guildCache.stamp();
             try {
                 String sql = "SELECT * FROM guilds WHERE name = ?";
                 
@@ -1073,7 +1235,7 @@ public class GuildService {
                     
                     try (ResultSet rs = stmt.executeQuery()) {
                         if (rs.next()) {
-                            return createGuildFromResultSet(rs);
+                            return cacheGuild(createGuildFromResultSet(rs), stamp);
                         }
                     }
                 }
@@ -1100,7 +1262,8 @@ public class GuildService {
      * 根据标签获取公会 (异步)
      */
     public CompletableFuture<Guild> getGuildByTagAsync(String tag) {
-        return CompletableFuture.supplyAsync(() -> {
+        return databaseManager.supplyAsync(() -> {
+            long stamp = guildCache.stamp();
             try {
                 String sql = "SELECT * FROM guilds WHERE tag = ?";
                 
@@ -1111,7 +1274,7 @@ public class GuildService {
                     
                     try (ResultSet rs = stmt.executeQuery()) {
                         if (rs.next()) {
-                            return createGuildFromResultSet(rs);
+                            return cacheGuild(createGuildFromResultSet(rs), stamp);
                         }
                     }
                 }
@@ -1138,7 +1301,8 @@ public class GuildService {
      * 获取所有公会 (异步)
      */
     public CompletableFuture<List<Guild>> getAllGuildsAsync() {
-        return CompletableFuture.supplyAsync(() -> {
+        return databaseManager.supplyAsync(() -> {
+            long stamp = guildCache.stamp();
             List<Guild> guilds = new ArrayList<>();
             try {
                 String sql = "SELECT * FROM guilds ORDER BY created_at DESC";
@@ -1148,7 +1312,7 @@ public class GuildService {
                      ResultSet rs = stmt.executeQuery()) {
                     
                     while (rs.next()) {
-                        guilds.add(createGuildFromResultSet(rs));
+                        guilds.add(cacheGuild(createGuildFromResultSet(rs), stamp));
                     }
                 }
             } catch (SQLException e) {
@@ -1319,7 +1483,7 @@ public class GuildService {
      * 提交申请 (异步)
      */
     public CompletableFuture<Boolean> submitApplicationAsync(int guildId, UUID playerUuid, String playerName, String message) {
-        return CompletableFuture.supplyAsync(() -> {
+        return databaseManager.supplyAsync(() -> {
             try {
                 // 检查是否已有待处理的申请
                 if (hasPendingApplication(playerUuid, guildId)) {
@@ -1417,7 +1581,7 @@ public class GuildService {
      */
     private CompletableFuture<Boolean> doProcessApplication(int applicationId, GuildApplication application,
             GuildApplication.ApplicationStatus status, GuildMember processor, UUID processorUuid) {
-        return CompletableFuture.supplyAsync(() -> {
+        return databaseManager.supplyAsync(() -> {
             try {
                 String sql = "UPDATE guild_applications SET status = ? WHERE id = ?";
                 
@@ -1478,7 +1642,7 @@ public class GuildService {
      * 检查是否有待处理的申请 (异步)
      */
     public CompletableFuture<Boolean> hasPendingApplicationAsync(UUID playerUuid, int guildId) {
-        return CompletableFuture.supplyAsync(() -> {
+        return databaseManager.supplyAsync(() -> {
             try {
                 String sql = "SELECT COUNT(*) FROM guild_applications WHERE player_uuid = ? AND guild_id = ? AND status = ?";
                 
@@ -1518,7 +1682,7 @@ public class GuildService {
      * 获取公会申请列表 (异步)
      */
     public CompletableFuture<List<GuildApplication>> getGuildApplicationsAsync(int guildId) {
-        return CompletableFuture.supplyAsync(() -> {
+        return databaseManager.supplyAsync(() -> {
             List<GuildApplication> applications = new ArrayList<>();
             try {
                 String sql = "SELECT * FROM guild_applications WHERE guild_id = ? ORDER BY created_at DESC";
@@ -1557,7 +1721,7 @@ public class GuildService {
      * 获取玩家申请列表 (异步)
      */
     public CompletableFuture<List<GuildApplication>> getPlayerApplicationsAsync(UUID playerUuid) {
-        return CompletableFuture.supplyAsync(() -> {
+        return databaseManager.supplyAsync(() -> {
             List<GuildApplication> applications = new ArrayList<>();
             try {
                 String sql = "SELECT * FROM guild_applications WHERE player_uuid = ? ORDER BY created_at DESC";
@@ -1596,7 +1760,7 @@ public class GuildService {
      * 根据ID获取申请 (异步)
      */
     public CompletableFuture<GuildApplication> getApplicationByIdAsync(int applicationId) {
-        return CompletableFuture.supplyAsync(() -> {
+        return databaseManager.supplyAsync(() -> {
             try {
                 String sql = "SELECT * FROM guild_applications WHERE id = ?";
                 
@@ -1661,7 +1825,7 @@ public class GuildService {
                      return CompletableFuture.completedFuture(false);
                  }
                  
-                 return CompletableFuture.supplyAsync(() -> {
+                 return databaseManager.supplyAsync(() -> {
                      try {
                          String sql = "UPDATE guilds SET home_world = ?, home_x = ?, home_y = ?, home_z = ?, home_yaw = ?, home_pitch = ?, updated_at = ? WHERE id = ?";
                          
@@ -1680,6 +1844,9 @@ public class GuildService {
                              int affectedRows = stmt.executeUpdate();
                              if (affectedRows > 0) {
                                  QuietLog.system("Guild home set successfully: " + guild.getName() + " (ID: " + guildId + ")");
+                                 updateHomeProtection(listener -> listener.onHomeSet(guildId,
+                                         location.getWorld().getName(), location.getX(), location.getZ()));
+                                 invalidateGuildSnapshots(guildId);
                                  return true;
                              }
                          }
@@ -1751,7 +1918,7 @@ public class GuildService {
                      return CompletableFuture.completedFuture(false);
                  }
                  
-                 return CompletableFuture.supplyAsync(() -> {
+                 return databaseManager.supplyAsync(() -> {
                      try {
                          String sql = "INSERT INTO guild_invites (guild_id, player_uuid, player_name, inviter_uuid, inviter_name, status, expires_at, created_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
                          
@@ -1845,7 +2012,7 @@ public class GuildService {
      * 执行邀请处理的数据库操作（内部方法）
      */
     private CompletableFuture<Boolean> doProcessInvitation(GuildInvitation invitation, boolean accept) {
-        return CompletableFuture.supplyAsync(() -> {
+        return databaseManager.supplyAsync(() -> {
             try {
                 String status = accept ? "ACCEPTED" : "DECLINED";
                 String sql = "UPDATE guild_invites SET status = ? WHERE id = ?";
@@ -1927,7 +2094,7 @@ public class GuildService {
       * 获取待处理邀请 (异步)
       */
      public CompletableFuture<GuildInvitation> getPendingInvitationAsync(UUID targetUuid, UUID inviterUuid) {
-         return CompletableFuture.supplyAsync(() -> {
+         return databaseManager.supplyAsync(() -> {
              try {
                  String sql = "SELECT * FROM guild_invites WHERE player_uuid = ? AND inviter_uuid = ? AND status = 'PENDING' AND expires_at > ? ORDER BY created_at DESC LIMIT 1";
                  
@@ -1967,7 +2134,7 @@ public class GuildService {
       * 获取玩家的待处理邀请 (异步)
       */
     public CompletableFuture<GuildInvitation> getPendingInvitationAsync(UUID targetUuid, int guildId) {
-        return CompletableFuture.supplyAsync(() -> {
+        return databaseManager.supplyAsync(() -> {
             try {
                 String sql = "SELECT * FROM guild_invites WHERE player_uuid = ? AND guild_id = ? AND status = 'PENDING' AND expires_at > ? ORDER BY created_at DESC LIMIT 1";
                 
@@ -2030,7 +2197,7 @@ public class GuildService {
       * 获取待处理申请 (异步)
       */
      public CompletableFuture<List<GuildApplication>> getPendingApplicationsAsync(int guildId) {
-         return CompletableFuture.supplyAsync(() -> {
+         return databaseManager.supplyAsync(() -> {
              List<GuildApplication> applications = new ArrayList<>();
              try {
                  String sql = "SELECT * FROM guild_applications WHERE guild_id = ? AND status = 'PENDING' ORDER BY created_at DESC";
@@ -2057,7 +2224,7 @@ public class GuildService {
       * 获取申请历史 (异步)
       */
      public CompletableFuture<List<GuildApplication>> getApplicationHistoryAsync(int guildId) {
-         return CompletableFuture.supplyAsync(() -> {
+         return databaseManager.supplyAsync(() -> {
              List<GuildApplication> applications = new ArrayList<>();
              try {
                  String sql = "SELECT * FROM guild_applications WHERE guild_id = ? AND status != 'PENDING' ORDER BY created_at DESC";
@@ -2084,7 +2251,7 @@ public class GuildService {
      * 获取玩家所有待处理的邀请 (异步)
      */
     public CompletableFuture<List<GuildInvitation>> getPendingInvitationsAsync(UUID playerUuid) {
-        return CompletableFuture.supplyAsync(() -> {
+        return databaseManager.supplyAsync(() -> {
             List<GuildInvitation> invitations = new ArrayList<>();
             try {
                 String sql = "SELECT * FROM guild_invites WHERE player_uuid = ? AND status = 'PENDING' AND expires_at > ? ORDER BY created_at DESC";
@@ -2113,7 +2280,7 @@ public class GuildService {
      * 建议定时调用，避免数据库中积累过多过期邀请
      */
     public CompletableFuture<Integer> cleanupExpiredInvitationsAsync() {
-        return CompletableFuture.supplyAsync(() -> {
+        return databaseManager.supplyAsync(() -> {
             try {
                 String sql = "UPDATE guild_invites SET status = 'EXPIRED' WHERE status = 'PENDING' AND expires_at < ?";
                 
@@ -2140,7 +2307,7 @@ public class GuildService {
      * @param days 保留天数，超过此天数的已处理邀请（ACCEPTED/DECLINED/EXPIRED）将被删除
      */
     public CompletableFuture<Integer> cleanupOldProcessedInvitationsAsync(int days) {
-        return CompletableFuture.supplyAsync(() -> {
+        return databaseManager.supplyAsync(() -> {
             try {
                 String sql = "DELETE FROM guild_invites WHERE status != 'PENDING' AND created_at < DATE_SUB(NOW(), INTERVAL ? DAY)";
                 
@@ -2166,7 +2333,7 @@ public class GuildService {
      * 获取公会成员 (异步) - 重载方法，接受guildId参数
      */
     public CompletableFuture<GuildMember> getGuildMemberAsync(int guildId, UUID playerUuid) {
-         return CompletableFuture.supplyAsync(() -> {
+         return databaseManager.supplyAsync(() -> {
              try {
                  String sql = "SELECT * FROM guild_members WHERE guild_id = ? AND player_uuid = ?";
                  
@@ -2193,7 +2360,7 @@ public class GuildService {
       * 更新公会描述 (异步)
       */
      public CompletableFuture<Boolean> updateGuildDescriptionAsync(int guildId, String description) {
-         return CompletableFuture.supplyAsync(() -> {
+         return databaseManager.supplyAsync(() -> {
              try {
                  String sql = "UPDATE guilds SET description = ? WHERE id = ?";
                  
@@ -2204,6 +2371,9 @@ public class GuildService {
                      stmt.setInt(2, guildId);
                      
                      int rowsAffected = stmt.executeUpdate();
+                     if (rowsAffected > 0) {
+                         invalidateGuildSnapshots(guildId);
+                     }
                      return rowsAffected > 0;
                  }
              } catch (SQLException e) {
@@ -2220,7 +2390,7 @@ public class GuildService {
       */
      public CompletableFuture<Boolean> createGuildRelationAsync(int guild1Id, int guild2Id, String guild1Name, String guild2Name,
                                                               GuildRelation.RelationType type, UUID initiatorUuid, String initiatorName) {
-         return CompletableFuture.supplyAsync(() -> {
+         return databaseManager.supplyAsync(() -> {
              try {
                  String sql = "INSERT INTO guild_relations (guild1_id, guild2_id, guild1_name, guild2_name, relation_type, initiator_uuid, initiator_name, expires_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
                  
@@ -2267,7 +2437,7 @@ public class GuildService {
              if (relation == null) {
                  return CompletableFuture.completedFuture(false);
              }
-             return CompletableFuture.supplyAsync(() -> {
+             return databaseManager.supplyAsync(() -> {
                  try {
                      String sql = "UPDATE guild_relations SET status = ?, updated_at = ? WHERE id = ?";
                      try (Connection conn = databaseManager.getConnection();
@@ -2307,7 +2477,7 @@ public class GuildService {
       * 获取公会关系 (异步)
       */
      public CompletableFuture<GuildRelation> getGuildRelationAsync(int guild1Id, int guild2Id) {
-         return CompletableFuture.supplyAsync(() -> {
+         return databaseManager.supplyAsync(() -> {
              try {
                  String sql = "SELECT * FROM guild_relations WHERE (guild1_id = ? AND guild2_id = ?) OR (guild1_id = ? AND guild2_id = ?)";
                  
@@ -2336,7 +2506,7 @@ public class GuildService {
       * 获取公会的所有关系 (异步)
       */
      public CompletableFuture<List<GuildRelation>> getGuildRelationsAsync(int guildId) {
-         return CompletableFuture.supplyAsync(() -> {
+         return databaseManager.supplyAsync(() -> {
              List<GuildRelation> relations = new ArrayList<>();
              try {
                  String sql = "SELECT * FROM guild_relations WHERE guild1_id = ? OR guild2_id = ? ORDER BY created_at DESC";
@@ -2364,7 +2534,7 @@ public class GuildService {
       * 按 ID 获取公会关系 (异步)
       */
      public CompletableFuture<GuildRelation> getGuildRelationByIdAsync(int relationId) {
-         return CompletableFuture.supplyAsync(() -> {
+         return databaseManager.supplyAsync(() -> {
              try {
                  String sql = "SELECT * FROM guild_relations WHERE id = ?";
                  try (Connection conn = databaseManager.getConnection();
@@ -2391,7 +2561,7 @@ public class GuildService {
              if (relation == null) {
                  return CompletableFuture.completedFuture(false);
              }
-             return CompletableFuture.supplyAsync(() -> {
+             return databaseManager.supplyAsync(() -> {
                  try {
                      String sql = "DELETE FROM guild_relations WHERE id = ?";
                      try (Connection conn = databaseManager.getConnection();
@@ -2428,7 +2598,7 @@ public class GuildService {
       * 初始化公会经济 (异步)
       */
      public CompletableFuture<Boolean> initializeGuildEconomyAsync(int guildId) {
-         return CompletableFuture.supplyAsync(() -> {
+         return databaseManager.supplyAsync(() -> {
              try {
                  String sql = "INSERT INTO guild_economy (guild_id, balance, level, experience, max_experience, max_members) " +
                              "VALUES (?, 0.0, 1, 0.0, 5000.0, 6)";
@@ -2452,7 +2622,12 @@ public class GuildService {
       * 获取公会经济信息 (异步)
       */
      public CompletableFuture<GuildEconomy> getGuildEconomyAsync(int guildId) {
-         return CompletableFuture.supplyAsync(() -> {
+         GuildEconomy cached = guildCache.getEconomy(guildId);
+         if (cached != null) {
+             return CompletableFuture.completedFuture(cached);
+         }
+         return databaseManager.supplyAsync(() -> {
+             long stamp = guildCache.stamp();
              try {
                  String sql = "SELECT * FROM guild_economy WHERE guild_id = ?";
                  
@@ -2463,7 +2638,9 @@ public class GuildService {
                      
                      try (ResultSet rs = stmt.executeQuery()) {
                          if (rs.next()) {
-                             return createGuildEconomyFromResultSet(rs);
+                             GuildEconomy economy = createGuildEconomyFromResultSet(rs);
+                             guildCache.putEconomy(economy, stamp);
+                             return economy;
                          }
                      }
                  }
@@ -2478,7 +2655,7 @@ public class GuildService {
       * 更新公会经济 (异步)
       */
      public CompletableFuture<Boolean> updateGuildEconomyAsync(int guildId, double balance, int level, double experience, double maxExperience, int maxMembers) {
-         return CompletableFuture.supplyAsync(() -> {
+         return databaseManager.supplyAsync(() -> {
              try {
                  String sql = "UPDATE guild_economy SET balance = ?, level = ?, experience = ?, max_experience = ?, max_members = ?, last_updated = ? WHERE guild_id = ?";
                  
@@ -2494,6 +2671,10 @@ public class GuildService {
                      stmt.setInt(7, guildId);
                  
                      int rowsAffected = stmt.executeUpdate();
+                     if (rowsAffected > 0) {
+                         guildCache.invalidate(guildId);
+                         publishInvalidation(bus -> bus.publishBalance(guildId));
+                     }
                      return rowsAffected > 0;
                  }
              } catch (SQLException e) {
@@ -2505,26 +2686,46 @@ public class GuildService {
      
      /**
       * 添加公会贡献记录 (异步)
+      * 流水与 guild_contribution_summary 在同一事务中写入，汇总表始终与流水一致。
       */
      public CompletableFuture<Boolean> addGuildContributionAsync(int guildId, UUID playerUuid, String playerName,
                                                                double amount, GuildContribution.ContributionType type, String description) {
-         return CompletableFuture.supplyAsync(() -> {
-             try {
-                 String sql = "INSERT INTO guild_contributions (guild_id, player_uuid, player_name, amount, contribution_type, description) " +
-                             "VALUES (?, ?, ?, ?, ?, ?)";
-                 
-                 try (Connection conn = databaseManager.getConnection();
-                      PreparedStatement stmt = conn.prepareStatement(sql)) {
-                     
-                     stmt.setInt(1, guildId);
-                     stmt.setString(2, playerUuid.toString());
-                     stmt.setString(3, playerName);
-                     stmt.setDouble(4, amount);
-                     stmt.setString(5, type.name());
-                     stmt.setString(6, description);
-                     
-                     int rowsAffected = stmt.executeUpdate();
+         return databaseManager.supplyAsync(() -> {
+             String sql = "INSERT INTO guild_contributions (guild_id, player_uuid, player_name, amount, contribution_type, description) " +
+                         "VALUES (?, ?, ?, ?, ?, ?)";
+             try (Connection conn = databaseManager.getConnection()) {
+                 conn.setAutoCommit(false);
+                 try {
+                     int rowsAffected;
+                     try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                         stmt.setInt(1, guildId);
+                         stmt.setString(2, playerUuid.toString());
+                         stmt.setString(3, playerName);
+                         stmt.setDouble(4, amount);
+                         stmt.setString(5, type.name());
+                         stmt.setString(6, description);
+                         rowsAffected = stmt.executeUpdate();
+                     }
+                     if (rowsAffected > 0 && databaseManager.hasContributionSummary()) {
+                         double net = type == GuildContribution.ContributionType.WITHDRAW ? -amount : amount;
+                         double deposit = type == GuildContribution.ContributionType.DEPOSIT ? amount : 0.0;
+                         try (PreparedStatement stmt = conn.prepareStatement(contributionSummaryUpsertSql())) {
+                             stmt.setInt(1, guildId);
+                             stmt.setString(2, playerUuid.toString());
+                             stmt.setString(3, playerName);
+                             stmt.setDouble(4, net);
+                             stmt.setDouble(5, deposit);
+                             stmt.setString(6, nowString());
+                             stmt.executeUpdate();
+                         }
+                     }
+                     conn.commit();
                      return rowsAffected > 0;
+                 } catch (SQLException e) {
+                     conn.rollback();
+                     throw e;
+                 } finally {
+                     conn.setAutoCommit(true);
                  }
              } catch (SQLException e) {
                  logger.severe("Error adding guild contribution record: " + e.getMessage());
@@ -2532,12 +2733,26 @@ public class GuildService {
              }
          });
      }
+
+    private String contributionSummaryUpsertSql() {
+        if (databaseManager.getDatabaseType() == DatabaseManager.DatabaseType.MYSQL) {
+            return "INSERT INTO guild_contribution_summary (guild_id, player_uuid, player_name, net_amount, deposit_total, updated_at) " +
+                   "VALUES (?, ?, ?, ?, ?, ?) ON DUPLICATE KEY UPDATE player_name = VALUES(player_name), " +
+                   "net_amount = net_amount + VALUES(net_amount), deposit_total = deposit_total + VALUES(deposit_total), " +
+                   "updated_at = VALUES(updated_at)";
+        }
+        return "INSERT INTO guild_contribution_summary (guild_id, player_uuid, player_name, net_amount, deposit_total, updated_at) " +
+               "VALUES (?, ?, ?, ?, ?, ?) ON CONFLICT(guild_id, player_uuid) DO UPDATE SET player_name = excluded.player_name, " +
+               "net_amount = guild_contribution_summary.net_amount + excluded.net_amount, " +
+               "deposit_total = guild_contribution_summary.deposit_total + excluded.deposit_total, " +
+               "updated_at = excluded.updated_at";
+    }
      
      /**
       * 获取公会贡献记录 (异步)
       */
      public CompletableFuture<List<GuildContribution>> getGuildContributionsAsync(int guildId) {
-         return CompletableFuture.supplyAsync(() -> {
+         return databaseManager.supplyAsync(() -> {
              List<GuildContribution> contributions = new ArrayList<>();
              try {
                  String sql = "SELECT * FROM guild_contributions WHERE guild_id = ? ORDER BY created_at DESC";
@@ -2564,7 +2779,7 @@ public class GuildService {
       * 获取玩家贡献记录 (异步)
       */
      public CompletableFuture<List<GuildContribution>> getPlayerContributionsAsync(UUID playerUuid) {
-         return CompletableFuture.supplyAsync(() -> {
+         return databaseManager.supplyAsync(() -> {
              List<GuildContribution> contributions = new ArrayList<>();
              try {
                  String sql = "SELECT * FROM guild_contributions WHERE player_uuid = ? ORDER BY created_at DESC";
@@ -2589,30 +2804,21 @@ public class GuildService {
 
     /**
      * 按玩家聚合公会净贡献（WITHDRAW 为负，其余为正）。
-     * 返回 Map&lt;playerUuid, netAmount&gt;。
+     * 返回 Map&lt;playerUuid, netAmount&gt;。读汇总表（每成员一行）；汇总表不可用时回退 GROUP BY。
      */
     public CompletableFuture<Map<UUID, Double>> getGuildContributionNetByPlayerAsync(int guildId) {
-        return CompletableFuture.supplyAsync(() -> {
+        return databaseManager.supplyAsync(() -> {
             Map<UUID, Double> nets = new HashMap<>();
-            try {
-                String sql = "SELECT player_uuid, contribution_type, amount FROM guild_contributions WHERE guild_id = ?";
-                try (Connection conn = databaseManager.getConnection();
-                     PreparedStatement stmt = conn.prepareStatement(sql)) {
-                    stmt.setInt(1, guildId);
-                    try (ResultSet rs = stmt.executeQuery()) {
-                        while (rs.next()) {
-                            UUID uuid = UUID.fromString(rs.getString("player_uuid"));
-                            String typeName = rs.getString("contribution_type");
-                            double amount = rs.getDouble("amount");
-                            GuildContribution.ContributionType type;
-                            try {
-                                type = GuildContribution.ContributionType.valueOf(typeName);
-                            } catch (IllegalArgumentException ex) {
-                                type = GuildContribution.ContributionType.ADMIN;
-                            }
-                            double net = (type == GuildContribution.ContributionType.WITHDRAW) ? -amount : amount;
-                            nets.merge(uuid, net, Double::sum);
-                        }
+            String sql = databaseManager.hasContributionSummary()
+                    ? "SELECT player_uuid, net_amount FROM guild_contribution_summary WHERE guild_id = ?"
+                    : "SELECT player_uuid, SUM(CASE WHEN contribution_type = 'WITHDRAW' THEN -amount ELSE amount END) AS net_amount " +
+                      "FROM guild_contributions WHERE guild_id = ? GROUP BY player_uuid";
+            try (Connection conn = databaseManager.getConnection();
+                 PreparedStatement stmt = conn.prepareStatement(sql)) {
+                stmt.setInt(1, guildId);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        nets.merge(UUID.fromString(rs.getString("player_uuid")), rs.getDouble("net_amount"), Double::sum);
                     }
                 }
             } catch (SQLException e) {
@@ -2622,19 +2828,49 @@ public class GuildService {
         });
     }
 
+    /**
+     * 单个成员在公会中的净贡献（汇总表主键查询）。
+     */
+    public CompletableFuture<Double> getPlayerContributionNetAsync(int guildId, UUID playerUuid) {
+        return databaseManager.supplyAsync(() -> {
+            String sql = databaseManager.hasContributionSummary()
+                    ? "SELECT net_amount FROM guild_contribution_summary WHERE guild_id = ? AND player_uuid = ?"
+                    : "SELECT SUM(CASE WHEN contribution_type = 'WITHDRAW' THEN -amount ELSE amount END) AS net_amount " +
+                      "FROM guild_contributions WHERE guild_id = ? AND player_uuid = ?";
+            try (Connection conn = databaseManager.getConnection();
+                 PreparedStatement stmt = conn.prepareStatement(sql)) {
+                stmt.setInt(1, guildId);
+                stmt.setString(2, playerUuid.toString());
+                try (ResultSet rs = stmt.executeQuery()) {
+                    if (rs.next()) {
+                        return rs.getDouble(1);
+                    }
+                }
+            } catch (SQLException e) {
+                logger.severe("Error fetching player net contribution: " + e.getMessage());
+            }
+            return 0.0;
+        });
+    }
+
     /**
      * 获取公会中各成员的存款总额（聚合查询，仅 DEPOSIT 类型）
      * 返回 List<GuildContribution>，每个玩家一条，amount 为累计存款总额。
      */
     public CompletableFuture<List<GuildContribution>> getGuildContributionTotalsAsync(int guildId) {
-        return CompletableFuture.supplyAsync(() -> {
+        return databaseManager.supplyAsync(() -> {
             List<GuildContribution> totals = new ArrayList<>();
             try {
-                String sql = "SELECT player_uuid, player_name, SUM(amount) AS total_amount " +
-                             "FROM guild_contributions " +
-                             "WHERE guild_id = ? AND contribution_type = 'DEPOSIT' " +
-                             "GROUP BY player_uuid, player_name " +
-                             "ORDER BY total_amount DESC";
+                String sql = databaseManager.hasContributionSummary()
+                        ? "SELECT player_uuid, player_name, deposit_total AS total_amount " +
+                          "FROM guild_contribution_summary " +
+                          "WHERE guild_id = ? AND deposit_total > 0 " +
+                          "ORDER BY total_amount DESC"
+                        : "SELECT player_uuid, player_name, SUM(amount) AS total_amount " +
+                          "FROM guild_contributions " +
+                          "WHERE guild_id = ? AND contribution_type = 'DEPOSIT' " +
+                          "GROUP BY player_uuid, player_name " +
+                          "ORDER BY total_amount DESC";
 
                 try (Connection conn = databaseManager.getConnection();
                      PreparedStatement stmt = conn.prepareStatement(sql)) {
@@ -2713,6 +2949,7 @@ public class GuildService {
      
      /**
       * 更新公会余额 (异步)
+      * 绝对值写入，仅用于管理员"设置余额"；存取款等增减请使用 {@link #adjustGuildBalanceAsync}。
       */
      public CompletableFuture<Boolean> updateGuildBalanceAsync(int guildId, double balance) {
         return updateGuildBalanceAsync(guildId, balance, null, null);
@@ -2725,7 +2962,7 @@ public class GuildService {
                  return CompletableFuture.completedFuture(false);
              }
              
-             return CompletableFuture.supplyAsync(() -> {
+             return databaseManager.supplyAsync(() -> {
                  try {
                      String sql = "UPDATE guilds SET balance = ?, updated_at = ? WHERE id = ?";
                      
@@ -2739,9 +2976,10 @@ public class GuildService {
                          int affectedRows = stmt.executeUpdate();
                          if (affectedRows > 0) {
                              QuietLog.system("Guild balance updated: " + guild.getName() + " (ID: " + guildId + ") new balance: " + balance);
+                             invalidateGuildBalance(guildId);
                              
                              // 异步检查是否需要自动升级，不阻塞当前操作
-                             CompletableFuture.runAsync(() -> {
+                             databaseManager.runAsync(() -> {
                                  checkAndUpgradeGuildLevel(guildId, balance);
                              });
                              
@@ -2770,11 +3008,208 @@ public class GuildService {
          });
      }
     
+    // ==================== 余额增量账本 ====================
+
+    private static final class BalanceAdjustment {
+        final double delta;
+        final String operatorUuid;
+        final String operatorName;
+        final CompletableFuture<Double> result = new CompletableFuture<>();
+
+        BalanceAdjustment(double delta, String operatorUuid, String operatorName) {
+            this.delta = delta;
+            this.operatorUuid = operatorUuid;
+            this.operatorName = operatorName;
+        }
+    }
+
+    private static final class BalanceLane {
+        final ConcurrentLinkedQueue<BalanceAdjustment> queue = new ConcurrentLinkedQueue<>();
+        final AtomicBoolean draining = new AtomicBoolean();
+    }
+
+    /**
+     * 按增量调整公会余额 (异步)
+     * <p>
+     * 单条 {@code UPDATE guilds SET balance = balance + ?} 完成读改写，扣款时要求余额不为负；
+     * 资金日志与自动升级在同一事务中完成。同一公会的并发调用在内存队列中串行，突发的多笔变更
+     * 合并为一个事务（一次取连接、一次提交）。
+     *
+     * @param delta 正数为存入，负数为扣除
+     * @return 调整后的余额；公会不存在、余额不足或写库失败时为 {@code null}
+     */
+    public CompletableFuture<Double> adjustGuildBalanceAsync(int guildId, double delta,
+                                                             String operatorUuid, String operatorName) {
+        BalanceAdjustment adjustment = new BalanceAdjustment(delta, operatorUuid, operatorName);
+        BalanceLane lane = balanceLanes.computeIfAbsent(guildId, k -> new BalanceLane());
+        lane.queue.add(adjustment);
+        scheduleBalanceDrain(guildId, lane);
+        return adjustment.result;
+    }
+
+    public CompletableFuture<Double> adjustGuildBalanceAsync(int guildId, double delta) {
+        return adjustGuildBalanceAsync(guildId, delta, null, null);
+    }
+
+    private void scheduleBalanceDrain(int guildId, BalanceLane lane) {
+        if (!lane.draining.compareAndSet(false, true)) {
+            return;
+        }
+        // 线程池拒绝时返回失败的 future：释放标记并让排队中的变更以失败结束，避免调用方永久等待。
+        // 只处理拒绝——已执行的 drain 自行在 finally 中释放标记，此时可能已有新的 drain 在运行。
+        databaseManager.runAsync(() -> drainBalanceLane(guildId, lane)).whenComplete((v, e) -> {
+            if (!(e instanceof RejectedExecutionException)) {
+                return;
+            }
+            logger.severe("Failed to run guild balance update: " + e.getMessage());
+            BalanceAdjustment pending;
+            while ((pending = lane.queue.poll()) != null) {
+                pending.result.complete(null);
+            }
+            lane.draining.set(false);
+            if (!lane.queue.isEmpty()) {
+                scheduleBalanceDrain(guildId, lane);
+            }
+        });
+    }
+
+    private void drainBalanceLane(int guildId, BalanceLane lane) {
+        try {
+            List<BalanceAdjustment> batch = new ArrayList<>();
+            BalanceAdjustment next;
+            while ((next = lane.queue.poll()) != null) {
+                batch.add(next);
+                if (batch.size() >= BALANCE_BATCH_LIMIT) {
+                    applyBalanceBatchSafely(guildId, batch);
+                    batch.clear();
+                }
+            }
+            if (!batch.isEmpty()) {
+                applyBalanceBatchSafely(guildId, batch);
+            }
+        } finally {
+            lane.draining.set(false);
+        }
+        // 释放标记后仍有新入队的变更时重新调度
+        if (!lane.queue.isEmpty()) {
+            scheduleBalanceDrain(guildId, lane);
+        }
+    }
+
+    /** 任何意外异常都让本批次以失败结束，不能留下永不完成的 future（调用方可能在 join）。 */
+    private void applyBalanceBatchSafely(int guildId, List<BalanceAdjustment> batch) {
+        try {
+            applyBalanceBatch(guildId, batch);
+        } catch (RuntimeException e) {
+            logger.severe("An error occurred while adjusting the guild balance: " + e.getMessage());
+            for (BalanceAdjustment adjustment : batch) {
+                adjustment.result.complete(null);
+            }
+        }
+    }
+
+    private void applyBalanceBatch(int guildId, List<BalanceAdjustment> batch) {
+        String updateSql = "UPDATE guilds SET balance = balance + ?, updated_at = ? WHERE id = ? AND (? >= 0 OR balance + ? >= 0)";
+        String selectSql = "SELECT name, balance, level FROM guilds WHERE id = ?";
+        Double[] results = new Double[batch.size()];
+        try (Connection conn = databaseManager.getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement update = conn.prepareStatement(updateSql);
+                 PreparedStatement select = conn.prepareStatement(selectSql)) {
+                for (int i = 0; i < batch.size(); i++) {
+                    BalanceAdjustment adjustment = batch.get(i);
+                    update.setDouble(1, adjustment.delta);
+                    update.setString(2, nowString());
+                    update.setInt(3, guildId);
+                    update.setDouble(4, adjustment.delta);
+                    update.setDouble(5, adjustment.delta);
+                    if (update.executeUpdate() == 0) {
+                        continue; // 公会不存在或余额不足
+                    }
+                    String guildName;
+                    double balance;
+                    int level;
+                    select.setInt(1, guildId);
+                    try (ResultSet rs = select.executeQuery()) {
+                        if (!rs.next()) {
+                            continue;
+                        }
+                        guildName = rs.getString("name");
+                        balance = rs.getDouble("balance");
+                        level = rs.getInt("level");
+                    }
+                    results[i] = balance;
+                    if (adjustment.delta != 0) {
+                        insertFundLog(conn, guildId, guildName, adjustment, balance);
+                    }
+                    if (adjustment.delta > 0) {
+                        applyLevelUp(conn, guildId, guildName, level, balance);
+                    }
+                }
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            logger.severe("An error occurred while adjusting the guild balance: " + e.getMessage());
+            for (BalanceAdjustment adjustment : batch) {
+                adjustment.result.complete(null);
+            }
+            return;
+        }
+        invalidateGuildBalance(guildId);
+        for (int i = 0; i < batch.size(); i++) {
+            if (results[i] != null) {
+                QuietLog.system("Guild balance adjusted: ID " + guildId + " change: " + batch.get(i).delta + " new balance: " + results[i]);
+            }
+            batch.get(i).result.complete(results[i]);
+        }
+    }
+
+    private void insertFundLog(Connection conn, int guildId, String guildName,
+                               BalanceAdjustment adjustment, double balance) throws SQLException {
+        double change = adjustment.delta;
+        GuildLog.LogType logType = change > 0 ? GuildLog.LogType.FUND_DEPOSITED : GuildLog.LogType.FUND_WITHDRAWN;
+        String description = change > 0 ? "Fund deposited" : "Fund withdrawn";
+        String details = "Change: " + (change > 0 ? "+" : "") + change + " coins, New balance: " + balance + " coins";
+        String logUuid = (adjustment.operatorUuid != null && !adjustment.operatorUuid.isEmpty()) ? adjustment.operatorUuid : "SYSTEM";
+        String logName = (adjustment.operatorName != null && !adjustment.operatorName.isEmpty()) ? adjustment.operatorName : "System";
+        insertGuildLog(conn, guildId, guildName, logUuid, logName, logType, description, details);
+    }
+
+    /** 在当前事务内检查并执行自动升级（每次最多升一级，与旧的异步检查一致）。 */
+    private void applyLevelUp(Connection conn, int guildId, String guildName, int currentLevel, double balance) throws SQLException {
+        if (currentLevel >= 10 || balance < getRequiredBalanceForLevel(currentLevel)) {
+            return;
+        }
+        int newLevel = currentLevel + 1;
+        int newMaxMembers = getMaxMembersForLevel(newLevel);
+        String sql = "UPDATE guilds SET level = ?, max_members = ?, peak_level = CASE WHEN peak_level IS NULL OR peak_level < ? THEN ? ELSE peak_level END, updated_at = ? WHERE id = ? AND level = ?";
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setInt(1, newLevel);
+            stmt.setInt(2, newMaxMembers);
+            stmt.setInt(3, newLevel);
+            stmt.setInt(4, newLevel);
+            stmt.setString(5, nowString());
+            stmt.setInt(6, guildId);
+            stmt.setInt(7, currentLevel);
+            if (stmt.executeUpdate() == 0) {
+                return;
+            }
+        }
+        QuietLog.system("Guild auto-upgraded successfully: " + guildName + " (ID: " + guildId + ") level: " + currentLevel + " -> " + newLevel);
+        insertGuildLog(conn, guildId, guildName, "SYSTEM", "系统",
+                GuildLog.LogType.GUILD_LEVEL_UP, "公会升级", "新等级: " + newLevel + ", 新最大成员数: " + newMaxMembers);
+    }
+    
     /**
      * 更新公会等级 (异步)
      */
     public CompletableFuture<Boolean> updateGuildLevelAsync(int guildId, int level) {
-        return CompletableFuture.supplyAsync(() -> {
+        return databaseManager.supplyAsync(() -> {
             try {
                 // peak_level 只升不降：降级只改 level
                 String sql = "UPDATE guilds SET level = ?, peak_level = CASE WHEN peak_level IS NULL OR peak_level < ? THEN ? ELSE peak_level END WHERE id = ?";
@@ -2788,6 +3223,9 @@ public class GuildService {
                     stmt.setInt(4, guildId);
                     
                     int affectedRows = stmt.executeUpdate();
+                    if (affectedRows > 0) {
+                        invalidateGuildSnapshots(guildId);
+                    }
                     return affectedRows > 0;
                 }
             } catch (SQLException e) {
@@ -2801,7 +3239,7 @@ public class GuildService {
      * 更新公会最大成员数 (异步)
      */
     public CompletableFuture<Boolean> updateGuildMaxMembersAsync(int guildId, int maxMembers) {
-        return CompletableFuture.supplyAsync(() -> {
+        return databaseManager.supplyAsync(() -> {
             try {
                 String sql = "UPDATE guilds SET max_members = ? WHERE id = ?";
                 
@@ -2812,6 +3250,9 @@ public class GuildService {
                     stmt.setInt(2, guildId);
                     
                     int affectedRows = stmt.executeUpdate();
+                    if (affectedRows > 0) {
+                        invalidateGuildSnapshots(guildId);
+                    }
                     return affectedRows > 0;
                 }
             } catch (SQLException e) {
@@ -2830,7 +3271,7 @@ public class GuildService {
                 return CompletableFuture.completedFuture(false);
             }
             
-            return CompletableFuture.supplyAsync(() -> {
+            return databaseManager.supplyAsync(() -> {
                 try {
                     String sql = "UPDATE guilds SET frozen = ? WHERE id = ?";
                     
@@ -2842,6 +3283,7 @@ public class GuildService {
                         
                         int affectedRows = stmt.executeUpdate();
                         if (affectedRows > 0) {
+                            invalidateGuildSnapshots(guildId);
                             // 记录冻结状态变更日志
                             GuildLog.LogType logType = frozen ? GuildLog.LogType.GUILD_FROZEN : GuildLog.LogType.GUILD_UNFROZEN;
                             String description = frozen ? "公会冻结" : "公会解冻";
@@ -2865,7 +3307,7 @@ public class GuildService {
      * 仅用于建会后插入会长，以避免额外读库造成的连接争用。
      */
     private CompletableFuture<Boolean> addGuildMemberDirectAsync(int guildId, UUID playerUuid, String playerName, GuildMember.Role role) {
-        return CompletableFuture.supplyAsync(() -> {
+        return databaseManager.supplyAsync(() -> {
             try {
                 String sql = "INSERT INTO guild_members (guild_id, player_uuid, player_name, role, joined_at) VALUES (?, ?, ?, ?, ?)";
                 try (Connection conn = databaseManager.getConnection();
@@ -2877,6 +3319,8 @@ public class GuildService {
                     stmt.setString(5, nowString());
                     int affectedRows = stmt.executeUpdate();
                     if (affectedRows > 0) {
+                        updateMembershipIndex(index -> index.onMemberAdded(guildId, playerUuid, playerName, role));
+                        invalidateMemberSnapshots(guildId, playerUuid);
                         try { plugin.getPermissionManager().updatePlayerPermissions(playerUuid); } catch (Exception ignored) {}
                         return true;
                     }
@@ -2905,7 +3349,7 @@ public class GuildService {
                 int newLevel = currentLevel + 1;
                 int newMaxMembers = getMaxMembersForLevel(newLevel);
                 
-                CompletableFuture.supplyAsync(() -> {
+                databaseManager.supplyAsync(() -> {
                     try {
                         String sql = "UPDATE guilds SET level = ?, max_members = ?, peak_level = CASE WHEN peak_level IS NULL OR peak_level < ? THEN ? ELSE peak_level END, updated_at = ? WHERE id = ?";
                         
@@ -2922,6 +3366,7 @@ public class GuildService {
                             int affectedRows = stmt.executeUpdate();
                             if (affectedRows > 0) {
                                 QuietLog.system("Guild auto-upgraded successfully: " + guild.getName() + " (ID: " + guildId + ") level: " + currentLevel + " -> " + newLevel);
+                                invalidateGuildSnapshots(guildId);
                                 
                                 // 记录升级日志
                                 logGuildActionAsync(guildId, guild.getName(), "SYSTEM", "系统",
@@ -3044,31 +3489,33 @@ public class GuildService {
     public CompletableFuture<Boolean> logGuildActionAsync(int guildId, String guildName, String playerUuid, 
                                                         String playerName, GuildLog.LogType logType, 
                                                         String description, String details) {
-        return CompletableFuture.supplyAsync(() -> {
+        return databaseManager.supplyAsync(() -> {
             try {
-                String sql = "INSERT INTO guild_logs (guild_id, guild_name, player_uuid, player_name, log_type, description, details, created_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
-                
-                try (Connection conn = databaseManager.getConnection();
-                     PreparedStatement stmt = conn.prepareStatement(sql)) {
-                 
-                     stmt.setInt(1, guildId);
-                     stmt.setString(2, guildName);
-                     stmt.setString(3, playerUuid);
-                     stmt.setString(4, playerName);
-                     stmt.setString(5, logType.name());
-                     stmt.setString(6, description);
-                     stmt.setString(7, details);
-                     stmt.setString(8, nowString());
-                 
-                     int affectedRows = stmt.executeUpdate();
-                     return affectedRows > 0;
-                 }
+                try (Connection conn = databaseManager.getConnection()) {
+                    return insertGuildLog(conn, guildId, guildName, playerUuid, playerName, logType, description, details);
+                }
             } catch (SQLException e) {
                 logger.severe("Error recording guild log: " + e.getMessage());
                 return false;
             }
         });
     }
+
+    private boolean insertGuildLog(Connection conn, int guildId, String guildName, String playerUuid, String playerName,
+                                   GuildLog.LogType logType, String description, String details) throws SQLException {
+        String sql = "INSERT INTO guild_logs (guild_id, guild_name, player_uuid, player_name, log_type, description, details, created_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setInt(1, guildId);
+            stmt.setString(2, guildName);
+            stmt.setString(3, playerUuid);
+            stmt.setString(4, playerName);
+            stmt.setString(5, logType.name());
+            stmt.setString(6, description);
+            stmt.setString(7, details);
+            stmt.setString(8, nowString());
+            return stmt.executeUpdate() > 0;
+        }
+    }
     
     /**
      * 记录公会日志 (同步包装器)
@@ -3087,7 +3534,7 @@ public class GuildService {
      * 获取公会日志列表 (异步)
      */
     public CompletableFuture<List<GuildLog>> getGuildLogsAsync(int guildId, int limit, int offset) {
-        return CompletableFuture.supplyAsync(() -> {
+        return databaseManager.supplyAsync(() -> {
             List<GuildLog> logs = new ArrayList<>();
             try {
                 String sql = "SELECT * FROM guild_logs WHERE guild_id = ? ORDER BY created_at DESC LIMIT ? OFFSET ?";
@@ -3129,7 +3576,7 @@ public class GuildService {
      * 获取公会日志总数 (异步)
      */
     public CompletableFuture<Integer> getGuildLogsCountAsync(int guildId) {
-        return CompletableFuture.supplyAsync(() -> {
+        return databaseManager.supplyAsync(() -> {
             try {
                 String sql = "SELECT COUNT(*) FROM guild_logs WHERE guild_id = ?";
                 
@@ -3200,7 +3647,7 @@ public class GuildService {
      * 清理旧日志 (异步)
      */
     public CompletableFuture<Integer> cleanOldLogsAsync(int daysToKeep) {
-        return CompletableFuture.supplyAsync(() -> {
+        return databaseManager.supplyAsync(() -> {
             try {
                 // 统一使用参数绑定的阈值时间（字符串），避免数据库侧时区差异
                 String sql = "DELETE FROM guild_logs WHERE created_at < ?";
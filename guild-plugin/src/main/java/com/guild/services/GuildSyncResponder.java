@@ -0,0 +1,97 @@
+package com.guild.services;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.guild.GuildPlugin;
+import com.guild.comm.api.BungeeClientAPI;
+import com.guild.comm.api.CommAPI;
+import com.guild.comm.bridge.ChannelRouter;
+import com.guild.comm.bridge.MessagePacket;
+import com.guild.models.Guild;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Answers {@code guild.sync.request} from other servers with a guild snapshot.
+ * <p>
+ * Counterpart of {@link BungeeClientAPI#requestGuildDataAsync}: the proxy forwards the request
+ * here with the requesting server as source, and the reply ({@link BungeeClientAPI#reply}) is
+ * routed back and completes the requester's future. The payload is
+ * {@code {"guildId":..,"guild":{..},"memberCount":..}}; unknown guilds get an error reply.
+ */
+public final class GuildSyncResponder {
+
+    public static final String TOPIC = "guild.sync.request";
+
+    private final GuildPlugin plugin;
+    private final ChannelRouter.TopicHandler handler = this::onRequest;
+    private volatile boolean running;
+
+    public GuildSyncResponder(GuildPlugin plugin) {
+        this.plugin = plugin;
+    }
+
+    public void start() {
+        if (running || !CommAPI.isInitialized()) {
+            return;
+        }
+        CommAPI.on(TOPIC, handler);
+        running = true;
+    }
+
+    public void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        try {
+            CommAPI.off(TOPIC, handler);
+        } catch (Exception ignored) {
+        }
+    }
+
+    private void onRequest(MessagePacket request) {
+        int guildId = request.getGuildId();
+        if (guildId < 0) {
+            try {
+                guildId = JsonParser.parseString(request.getPayload()).getAsJsonObject().get("guildId").getAsInt();
+            } catch (Exception e) {
+                BungeeClientAPI.replyError(request, "missing guildId");
+                return;
+            }
+        }
+        int id = guildId;
+        plugin.getGuildService().getGuildByIdAsync(id).thenCompose(guild -> {
+            if (guild == null) {
+                BungeeClientAPI.replyError(request, "guild " + id + " not found");
+                return CompletableFuture.<Void>completedFuture(null);
+            }
+            return plugin.getGuildService().getGuildMemberCountAsync(id)
+                    .thenAccept(count -> BungeeClientAPI.reply(request, snapshot(guild, count).toString()));
+        }).exceptionally(e -> {
+            plugin.getLogger().warning("[GuildSync] Failed to answer " + request + ": " + e.getMessage());
+            BungeeClientAPI.replyError(request, "lookup failed");
+            return null;
+        });
+    }
+
+    private static JsonObject snapshot(Guild guild, Integer memberCount) {
+        JsonObject data = new JsonObject();
+        data.addProperty("id", guild.getId());
+        data.addProperty("name", guild.getName());
+        data.addProperty("tag", guild.getTag());
+        data.addProperty("description", guild.getDescription());
+        data.addProperty("leaderUuid", guild.getLeaderUuid() != null ? guild.getLeaderUuid().toString() : null);
+        data.addProperty("leaderName", guild.getLeaderName());
+        data.addProperty("level", guild.getLevel());
+        data.addProperty("balance", guild.getBalance());
+        data.addProperty("maxMembers", guild.getMaxMembers());
+        data.addProperty("frozen", guild.isFrozen());
+
+        JsonObject payload = new JsonObject();
+        payload.addProperty("guildId", guild.getId());
+        payload.add("guild", data);
+        payload.addProperty("memberCount", memberCount != null ? memberCount : 0);
+        return payload;
+    }
+}
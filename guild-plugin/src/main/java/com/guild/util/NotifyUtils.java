@@ -1,6 +1,7 @@
 package com.guild.util;
 
 import com.guild.GuildPlugin;
+import com.guild.core.cache.GuildMembershipIndex;
 import com.guild.core.utils.ColorUtils;
 import com.guild.core.utils.CompatibleScheduler;
 import com.guild.models.Guild;
@@ -131,6 +132,17 @@ public final class NotifyUtils {
      * 玩家上线时检查并通知待处理申请和邀请
      */
     public static void notifyOnLogin(GuildPlugin plugin, Player player) {
+        GuildMembershipIndex index = plugin.getGuildMembershipIndex();
+        if (index != null && index.isReady()) {
+            // 成员索引就绪：直接判断身份，不查库
+            GuildMembershipIndex.Entry entry = index.get(player.getUniqueId());
+            if (entry == null) {
+                notifyPendingInvitations(plugin, player);
+            } else if (entry.role == GuildMember.Role.LEADER) {
+                notifyPendingApplications(plugin, player, entry.guildId);
+            }
+            return;
+        }
         // 异步检查
         plugin.getGuildService().getGuildMemberAsync(player.getUniqueId()).thenAccept(member -> {
             if (member == null) {
@@ -152,35 +164,41 @@ public final class NotifyUtils {
             
             plugin.getGuildService().getGuildByIdAsync(member.getGuildId()).thenAccept(guild -> {
                 if (guild == null) return;
+                notifyPendingApplications(plugin, leader, guild.getId());
+            });
+        });
+    }
+
+    /**
+     * 通知会长有未处理的申请（已知公会ID）
+     */
+    private static void notifyPendingApplications(GuildPlugin plugin, Player leader, int guildId) {
+        plugin.getGuildService().getPendingApplicationsAsync(guildId).thenAccept(applications -> {
+            if (applications.isEmpty()) return;
+            
+            CompatibleScheduler.runTask(plugin, leader, () -> {
+                String msg = plugin.getLanguageManager().getMessage(leader, "notify.pending-applications",
+                    "&6[Guild] &eYou have &c{count} &epending applications!",
+                    "{count}", String.valueOf(applications.size()));
                 
-                plugin.getGuildService().getPendingApplicationsAsync(guild.getId()).thenAccept(applications -> {
-                    if (applications.isEmpty()) return;
-                    
-                    CompatibleScheduler.runTask(plugin, leader, () -> {
-                        String msg = plugin.getLanguageManager().getMessage(leader, "notify.pending-applications",
-                            "&6[Guild] &eYou have &c{count} &epending applications!",
-                            "{count}", String.valueOf(applications.size()));
-                        
-                        leader.sendMessage(ColorUtils.colorize("&a"));
-                        leader.sendMessage(ColorUtils.colorize(msg));
+                leader.sendMessage(ColorUtils.colorize("&a"));
+                leader.sendMessage(ColorUtils.colorize(msg));
 
-                        // Clickable tip → opens ApplicationManagementGUI
-                        String tipText = plugin.getLanguageManager().getMessage(leader, "notify.applications-tip",
-                            "&7[&a&lClick here&7] &7to review pending applications");
-                        String hoverText = plugin.getLanguageManager().getMessage(leader, "notify.applications-tip-hover",
-                            "&7Click to open application management");
-                        TextComponent tipComponent = new TextComponent(ColorUtils.colorize(tipText));
-                        tipComponent.setClickEvent(new ClickEvent(ClickEvent.Action.RUN_COMMAND, "/guild applications"));
-                        tipComponent.setHoverEvent(new HoverEvent(HoverEvent.Action.SHOW_TEXT, new Text(ColorUtils.colorize(hoverText))));
-                        leader.spigot().sendMessage(tipComponent);
-                        
-                        // 如果申请超过0个，发送ActionBar
-                        if (!applications.isEmpty()) {
-                            sendActionBar(plugin, leader, plugin.getLanguageManager().getMessage(leader, 
-                                "notify.applications-actionbar", "&e您有 {count} 个待处理申请！", "{count}", String.valueOf(applications.size())));
-                        }
-                    });
-                });
+                // Clickable tip → opens ApplicationManagementGUI
+                String tipText = plugin.getLanguageManager().getMessage(leader, "notify.applications-tip",
+                    "&7[&a&lClick here&7] &7to review pending applications");
+                String hoverText = plugin.getLanguageManager().getMessage(leader, "notify.applications-tip-hover",
+                    "&7Click to open application management");
+                TextComponent tipComponent = new TextComponent(ColorUtils.colorize(tipText));
+                tipComponent.setClickEvent(new ClickEvent(ClickEvent.Action.RUN_COMMAND, "/guild applications"));
+                tipComponent.setHoverEvent(new HoverEvent(HoverEvent.Action.SHOW_TEXT, new Text(ColorUtils.colorize(hoverText))));
+                leader.spigot().sendMessage(tipComponent);
+                
+                // 如果申请超过0个，发送ActionBar
+                if (!applications.isEmpty()) {
+                    sendActionBar(plugin, leader, plugin.getLanguageManager().getMessage(leader, 
+                        "notify.applications-actionbar", "&e您有 {count} 个待处理申请！", "{count}", String.valueOf(applications.size())));
+                }
             });
         });
     }
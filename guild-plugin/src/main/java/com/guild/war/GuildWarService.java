@@ -1,6 +1,7 @@
 package com.guild.war;
 
 import com.guild.GuildPlugin;
+import com.guild.core.cache.GuildMembershipIndex;
 import com.guild.core.language.CoreMsg;
 import com.guild.core.language.LocalizedException;
 import com.guild.core.utils.ColorUtils;
@@ -20,6 +21,7 @@ import com.guild.war.model.WarReportSnapshot;
 import com.guild.war.model.WarTeamSide;
 import com.guild.war.report.WarReportRepository;
 import com.guild.world.GuildWorldService;
+import com.guild.world.pool.ArenaPool;
 import com.guildplugin.util.FoliaTeleportUtils;
 import org.bukkit.Bukkit;
 import org.bukkit.GameMode;
@@ -31,6 +33,7 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
@@ -51,6 +54,10 @@ public final class GuildWarService {
     private final Map<Integer, Integer> guildToMatch = new ConcurrentHashMap<>();
     private final Map<UUID, Integer> playerToMatch = new ConcurrentHashMap<>();
     private final Map<Integer, ScheduledTaskHandle> timers = new ConcurrentHashMap<>();
+    /** 已分配给对局的战场世界名，供方块/伤害事件 O(1) 判定 */
+    private final Set<String> arenaWorlds = ConcurrentHashMap.newKeySet();
+    /** 同一 tick 内的击杀广播合并为一次下发：matchId → 待发送的占位符组 */
+    private final Map<Integer, List<String[]>> pendingKills = new ConcurrentHashMap<>();
 
     public GuildWarService(GuildPlugin plugin, GuildService guildService, GuildWorldService worldService) {
         this.plugin = plugin;
@@ -101,6 +108,11 @@ public final class GuildWarService {
         return matches.get(id);
     }
 
+    /** 是否有任何玩家处于对局中；为 false 时战斗事件可直接跳过。 */
+    public boolean hasParticipants() {
+        return !playerToMatch.isEmpty();
+    }
+
     public WarMatch getMatchByPlayer(UUID uuid) {
         Integer id = playerToMatch.get(uuid);
         return id == null ? null : matches.get(id);
@@ -303,6 +315,7 @@ public final class GuildWarService {
             WarParticipant p = new WarParticipant(player.getUniqueId(), player.getName(), side);
             match.participants().put(player.getUniqueId(), p);
             playerToMatch.put(player.getUniqueId(), match.id());
+            match.roster(side).add(player.getUniqueId());
             broadcastMatch(match, "war.broadcast.joined",
                     "&a{player} &7加入了 &f{guild} &7（{a} vs {b}）",
                     "{player}", player.getName(),
@@ -379,7 +392,7 @@ public final class GuildWarService {
 
     /** 是否为当前进行中对局的战场世界名。 */
     public boolean isArenaWorld(String worldName) {
-        if (worldName == null) {
+        if (worldName == null || !arenaWorlds.contains(worldName)) {
             return false;
         }
         for (WarMatch m : matches.values()) {
@@ -393,6 +406,9 @@ public final class GuildWarService {
     }
 
     public boolean shouldCancelDamage(Player attacker, Player victim) {
+        if (playerToMatch.isEmpty()) {
+            return false;
+        }
         WarMatch match = getMatchByPlayer(victim.getUniqueId());
         if (match == null) {
             return false;
@@ -445,8 +461,7 @@ public final class GuildWarService {
             if (killerP != null && killerP.side() != victimP.side()) {
                 killerP.addKill();
                 match.addScore(killerP.side(), 1);
-                broadcastMatch(match, "war.broadcast.kill",
-                        "&e{killer} &7击杀了 &c{victim} &7| &a{a} {sa} &7: &c{sb} {b}",
+                queueKillBroadcast(match,
                         "{killer}", killer.getName(),
                         "{victim}", victim.getName(),
                         "{a}", match.guildAName(),
@@ -517,7 +532,39 @@ public final class GuildWarService {
         }
     }
 
+    /** 上线玩家若属于对局中的公会，加入该方在线名单。 */
+    public void handleJoin(Player player) {
+        if (guildToMatch.isEmpty()) {
+            return;
+        }
+        UUID uuid = player.getUniqueId();
+        GuildMembershipIndex index = plugin.getGuildMembershipIndex();
+        if (index != null && index.isReady()) {
+            addToRoster(index.getGuildId(uuid), uuid);
+            return;
+        }
+        guildService.getPlayerGuildAsync(uuid).thenAccept(guild -> {
+            if (guild != null) {
+                addToRoster(guild.getId(), uuid);
+            }
+        });
+    }
+
+    private void addToRoster(int guildId, UUID uuid) {
+        WarMatch match = getMatchByGuild(guildId);
+        if (match != null) {
+            WarTeamSide side = match.sideOfGuild(guildId);
+            if (side != null) {
+                match.roster(side).add(uuid);
+            }
+        }
+    }
+
     public void handleQuit(Player player) {
+        for (WarMatch m : matches.values()) {
+            m.roster(WarTeamSide.A).remove(player.getUniqueId());
+            m.roster(WarTeamSide.B).remove(player.getUniqueId());
+        }
         WarMatch match = getMatchByPlayer(player.getUniqueId());
         if (match == null) {
             return;
@@ -585,6 +632,17 @@ public final class GuildWarService {
         match.setPhase(WarPhase.PREPARING);
         broadcastMatch(match, "war.broadcast.preparing", "&a报名结束，正在创建战场…");
 
+        ArenaPool.Lease lease = worldService.getArenaPool().lease(match.presetName());
+        if (lease != null) {
+            // 池中已有就绪战场：直接传送，无需等待建世界与粘贴
+            assignWorld(match, lease.worldName());
+            match.setSpawnA(lease.spawns().spawnA());
+            match.setSpawnB(lease.spawns().spawnB());
+            match.setSpectatorSpawn(lease.spawns().spectator());
+            teleportParticipants(match).thenRun(() -> startCountdown(match));
+            return;
+        }
+
         String worldKey = "war" + match.id() + "_" + System.currentTimeMillis() % 100000;
         worldService.createArenaFromPreset(worldKey, match.presetName())
                 .whenComplete((result, err) -> CompatibleScheduler.runTask(plugin, () -> {
@@ -597,7 +655,11 @@ public final class GuildWarService {
                         cleanupMatch(match, false);
                         return;
                     }
-                    match.setWorldName(result.world().getWorldName());
+                    assignWorld(match, result.world().getWorldName());
+                    if ("reset".equalsIgnoreCase(worldService.getPostMatchPolicy())) {
+                        worldService.getArenaPool().attach(result.world().getWorldName(),
+                                match.presetName(), result.spawns());
+                    }
                     match.setSpawnA(result.spawns().spawnA());
                     match.setSpawnB(result.spawns().spawnB());
                     match.setSpectatorSpawn(result.spawns().spectator());
@@ -817,8 +879,11 @@ public final class GuildWarService {
         if (world == null) {
             return;
         }
+        // 池世界 / reset 策略的战场：差量恢复后回池（池不需要时由池删除）
+        if (worldService.getArenaPool().release(world)) {
+            return;
+        }
         String policy = worldService.getPostMatchPolicy();
-        // reset 本期等同 destroy（下次开战会重新 create+paste）
         worldService.deleteWorld(world, true).whenComplete((v, err) -> {
             if (err != null) {
                 plugin.getLogger().log(Level.WARNING, "[GuildWar] Failed to delete arena " + world
@@ -848,15 +913,62 @@ public final class GuildWarService {
         matches.put(match.id(), match);
         guildToMatch.put(match.guildAId(), match.id());
         guildToMatch.put(match.guildBId(), match.id());
+        buildRoster(match);
     }
 
     private void unregisterMatch(WarMatch match) {
         matches.remove(match.id());
         guildToMatch.remove(match.guildAId(), match.id());
         guildToMatch.remove(match.guildBId(), match.id());
+        pendingKills.remove(match.id());
+        if (match.worldName() != null) {
+            arenaWorlds.remove(match.worldName());
+        }
         cancelTimer(match.id());
     }
 
+    private void assignWorld(WarMatch match, String worldName) {
+        match.setWorldName(worldName);
+        arenaWorlds.add(worldName);
+    }
+
+    /**
+     * 对局登记时一次性算出两方在线名单；之后由报名 / 上下线增量维护，广播不再逐次查库。
+     * 成员索引未就绪时退回各查一次成员表，加载完成前广播走原有路径。
+     */
+    private void buildRoster(WarMatch match) {
+        GuildMembershipIndex index = plugin.getGuildMembershipIndex();
+        if (index != null && index.isReady()) {
+            match.roster(WarTeamSide.A).addAll(index.getOnlineMembers(match.guildAId()));
+            match.roster(WarTeamSide.B).addAll(index.getOnlineMembers(match.guildBId()));
+            match.setRosterReady(true);
+            return;
+        }
+        guildService.getGuildMembersAsync(match.guildAId())
+                .thenCombine(guildService.getGuildMembersAsync(match.guildBId()), (a, b) -> {
+                    addOnline(match.roster(WarTeamSide.A), a);
+                    addOnline(match.roster(WarTeamSide.B), b);
+                    match.setRosterReady(true);
+                    return null;
+                })
+                .exceptionally(e -> {
+                    plugin.getLogger().log(Level.WARNING, "[GuildWar] Failed to load roster for match " + match.id(), e);
+                    return null;
+                });
+    }
+
+    private static void addOnline(Set<UUID> roster, List<GuildMember> members) {
+        if (members == null) {
+            return;
+        }
+        for (GuildMember m : members) {
+            Player p = Bukkit.getPlayer(m.getPlayerUuid());
+            if (p != null && p.isOnline()) {
+                roster.add(m.getPlayerUuid());
+            }
+        }
+    }
+
     private void cancelTimer(int matchId) {
         ScheduledTaskHandle h = timers.remove(matchId);
         if (h != null) {
@@ -907,6 +1019,28 @@ public final class GuildWarService {
     }
 
     private void broadcastGuild(int guildId, String key, String def, String... ph) {
+        WarMatch match = getMatchByGuild(guildId);
+        if (match != null && match.isRosterReady()) {
+            Set<UUID> roster = match.roster(match.sideOfGuild(guildId));
+            CompatibleScheduler.runTask(plugin, () -> {
+                for (UUID uuid : roster) {
+                    Player p = Bukkit.getPlayer(uuid);
+                    if (p != null && p.isOnline()) {
+                        sendWarMessage(p, key, def, ph);
+                    }
+                }
+            });
+            return;
+        }
+        GuildMembershipIndex index = plugin.getGuildMembershipIndex();
+        if (index != null && index.isReady()) {
+            CompatibleScheduler.runTask(plugin, () -> {
+                for (Player p : index.getOnlinePlayers(guildId)) {
+                    sendWarMessage(p, key, def, ph);
+                }
+            });
+            return;
+        }
         guildService.getGuildMembersAsync(guildId).thenAccept(members -> {
             if (members == null) {
                 return;
@@ -915,16 +1049,63 @@ public final class GuildWarService {
                 for (GuildMember m : members) {
                     Player p = Bukkit.getPlayer(m.getPlayerUuid());
                     if (p != null && p.isOnline()) {
-                        String[] localizedPh = localizePlaceholders(p, ph);
-                        String prefix = CoreMsg.raw(plugin, p, "war.prefix", "&c[公会战] &r");
-                        String body = CoreMsg.raw(plugin, p, key, def, localizedPh);
-                        p.sendMessage(ColorUtils.colorize(prefix + body));
+                        sendWarMessage(p, key, def, ph);
                     }
                 }
             });
         });
     }
 
+    /** 击杀广播入队；每场对局每 tick 至多调度一次下发。 */
+    private void queueKillBroadcast(WarMatch match, String... ph) {
+        List<String[]> queue = pendingKills.computeIfAbsent(match.id(), id -> new ArrayList<>());
+        boolean first;
+        synchronized (queue) {
+            queue.add(ph);
+            first = queue.size() == 1;
+        }
+        if (first) {
+            CompatibleScheduler.runTask(plugin, () -> flushKills(match, queue));
+        }
+    }
+
+    private void flushKills(WarMatch match, List<String[]> queue) {
+        List<String[]> batch;
+        synchronized (queue) {
+            batch = new ArrayList<>(queue);
+            queue.clear();
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+        String key = "war.broadcast.kill";
+        String def = "&e{killer} &7击杀了 &c{victim} &7| &a{a} {sa} &7: &c{sb} {b}";
+        if (!match.isRosterReady()) {
+            for (String[] ph : batch) {
+                broadcastMatch(match, key, def, ph);
+            }
+            return;
+        }
+        for (WarTeamSide side : WarTeamSide.values()) {
+            for (UUID uuid : match.roster(side)) {
+                Player p = Bukkit.getPlayer(uuid);
+                if (p == null || !p.isOnline()) {
+                    continue;
+                }
+                for (String[] ph : batch) {
+                    sendWarMessage(p, key, def, ph);
+                }
+            }
+        }
+    }
+
+    private void sendWarMessage(Player p, String key, String def, String... ph) {
+        String[] localizedPh = localizePlaceholders(p, ph);
+        String prefix = CoreMsg.raw(plugin, p, "war.prefix", "&c[公会战] &r");
+        String body = CoreMsg.raw(plugin, p, key, def, localizedPh);
+        p.sendMessage(ColorUtils.colorize(prefix + body));
+    }
+
     /** Resolve placeholder values that are lang keys (war.* / world.*) per recipient. */
     private String[] localizePlaceholders(Player player, String... ph) {
         if (ph == null || ph.length == 0) {
@@ -4,6 +4,7 @@ import org.bukkit.Location;
 
 import java.util.Collection;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -38,6 +39,10 @@ public final class WarMatch {
     private volatile boolean teamBReady;
 
     private final Map<UUID, WarParticipant> participants = new ConcurrentHashMap<>();
+    /** 两方在线名单（参战者 + 在线公会成员），由 GuildWarService 维护，广播时复用 */
+    private final Set<UUID> rosterA = ConcurrentHashMap.newKeySet();
+    private final Set<UUID> rosterB = ConcurrentHashMap.newKeySet();
+    private volatile boolean rosterReady;
     private final long createdAt = System.currentTimeMillis();
     private volatile long startedAt;
 
@@ -189,6 +194,19 @@ public final class WarMatch {
         this.teamBReady = teamBReady;
     }
 
+    /** 某一方的在线名单（可变、线程安全）。 */
+    public Set<UUID> roster(WarTeamSide side) {
+        return side == WarTeamSide.A ? rosterA : rosterB;
+    }
+
+    public boolean isRosterReady() {
+        return rosterReady;
+    }
+
+    public void setRosterReady(boolean rosterReady) {
+        this.rosterReady = rosterReady;
+    }
+
     public long createdAt() {
         return createdAt;
     }
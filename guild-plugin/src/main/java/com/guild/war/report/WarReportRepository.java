@@ -6,40 +6,153 @@ import com.guild.war.model.VictoryMode;
 import com.guild.war.model.WarParticipantSnapshot;
 import com.guild.war.model.WarReportSnapshot;
 import com.guild.war.model.WarTeamSide;
+import com.guild.war.season.WarSeasonService;
 
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Queue;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.logging.Level;
 
-/** 公会战战报持久化。 */
+/**
+ * 公会战战报持久化。
+ *
+ * <p>结算写入走批量写入器：{@link #saveAsync} 只入队，数据库线程一次取走队列中全部战报，
+ * 在同一事务内写对局行、批量插入参战者、并以一条语句 upsert 双方赛季战绩；
+ * 提交后通知 {@link WarSeasonService} 增量更新排行榜。
+ */
 public final class WarReportRepository {
 
+    private record PendingReport(WarReportSnapshot snapshot, CompletableFuture<WarReportSnapshot> future) {
+    }
+
     private final GuildPlugin plugin;
     private final DatabaseManager db;
+    private final Queue<PendingReport> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean draining = new AtomicBoolean();
 
     public WarReportRepository(GuildPlugin plugin) {
         this.plugin = plugin;
         this.db = plugin.getDatabaseManager();
     }
 
+    /**
+     * 入队异步写入；失败时记录日志并以未带 reportId 的原快照完成。
+     */
     public CompletableFuture<WarReportSnapshot> saveAsync(WarReportSnapshot snap) {
-        return CompletableFuture.supplyAsync(() -> {
+        CompletableFuture<WarReportSnapshot> future = new CompletableFuture<>();
+        pending.add(new PendingReport(snap, future));
+        scheduleDrain();
+        return future;
+    }
+
+    private void scheduleDrain() {
+        if (pending.isEmpty() || !draining.compareAndSet(false, true)) {
+            return;
+        }
+        db.runAsync(this::drain).whenComplete((v, e) -> {
+            if (e != null) {
+                // 线程池拒绝（或写入线程异常）：以原快照完成排队中的战报，避免调用方永久等待
+                plugin.getLogger().log(Level.WARNING, "[GuildWar] War report writer failed", e);
+                PendingReport p;
+                while ((p = pending.poll()) != null) {
+                    p.future().complete(p.snapshot());
+                }
+            }
+            draining.set(false);
+            // 释放标志前入队的战报可能错过了调度
+            scheduleDrain();
+        });
+    }
+
+    private void drain() {
+        List<PendingReport> batch = new ArrayList<>();
+        PendingReport next;
+        while ((next = pending.poll()) != null) {
+            batch.add(next);
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+        List<WarReportSnapshot> snaps = new ArrayList<>(batch.size());
+        for (PendingReport p : batch) {
+            snaps.add(p.snapshot());
+        }
+        WarSeasonService seasons = plugin.getWarSeasonService();
+        if (seasons != null) {
+            seasons.beginSeasonWrite();
+        }
+        List<WarReportSnapshot> saved;
+        try {
             try {
-                return save(snap);
+                saved = saveAll(snaps);
             } catch (Exception e) {
-                plugin.getLogger().log(Level.WARNING, "[GuildWar] Failed to persist war report", e);
-                return snap;
+                plugin.getLogger().log(Level.WARNING, "[GuildWar] Failed to persist " + batch.size() + " war report(s)", e);
+                for (PendingReport p : batch) {
+                    p.future().complete(p.snapshot());
+                }
+                return;
             }
-        });
+            if (seasons != null) {
+                for (WarReportSnapshot s : saved) {
+                    seasons.applyToLeaderboard(s, seasonOf(s));
+                }
+            }
+        } finally {
+            if (seasons != null) {
+                seasons.endSeasonWrite();
+            }
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            batch.get(i).future().complete(saved.get(i));
+        }
     }
 
+    /** 同步写入单份战报（同一事务内含赛季战绩）。 */
     public WarReportSnapshot save(WarReportSnapshot snap) throws Exception {
+        return saveAll(List.of(snap)).get(0);
+    }
+
+    /** 单事务写入多份战报；任一失败整体回滚。返回带 reportId 的快照，顺序与入参一致。 */
+    public List<WarReportSnapshot> saveAll(List<WarReportSnapshot> snaps) throws SQLException {
+        try (Connection conn = db.getConnection()) {
+            boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            try {
+                List<WarReportSnapshot> out = new ArrayList<>(snaps.size());
+                for (WarReportSnapshot snap : snaps) {
+                    WarReportSnapshot saved = insertReport(conn, snap);
+                    upsertSeasonStats(conn, snap, seasonOf(snap));
+                    out.add(saved);
+                }
+                conn.commit();
+                return out;
+            } catch (SQLException | RuntimeException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(autoCommit);
+            }
+        }
+    }
+
+    private String seasonOf(WarReportSnapshot snap) {
+        if (snap.seasonId() != null && !snap.seasonId().isEmpty()) {
+            return snap.seasonId();
+        }
+        WarSeasonService seasons = plugin.getWarSeasonService();
+        return seasons != null ? seasons.currentSeasonId() : "default";
+    }
+
+    private WarReportSnapshot insertReport(Connection conn, WarReportSnapshot snap) throws SQLException {
         String insertMatch = """
             INSERT INTO war_matches (
               runtime_match_id, guild_a_id, guild_a_name, guild_b_id, guild_b_name,
@@ -47,8 +160,7 @@ public final class WarReportRepository {
               end_reason, started_at, ended_at, duration_ms, season_id
             ) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
             """;
-        try (Connection conn = db.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(insertMatch, Statement.RETURN_GENERATED_KEYS)) {
+        try (PreparedStatement stmt = conn.prepareStatement(insertMatch, Statement.RETURN_GENERATED_KEYS)) {
             stmt.setInt(1, snap.runtimeMatchId());
             stmt.setInt(2, snap.guildAId());
             stmt.setString(3, snap.guildAName());
@@ -101,8 +213,60 @@ public final class WarReportRepository {
         }
     }
 
+    /** 双方赛季战绩一条语句两行 upsert（两方 guild_id 不同，不会同句冲突）。 */
+    private void upsertSeasonStats(Connection conn, WarReportSnapshot snap, String season) throws SQLException {
+        int killsA = 0;
+        int killsB = 0;
+        for (WarParticipantSnapshot p : snap.participants()) {
+            if (p.guildId() == snap.guildAId()) {
+                killsA += p.kills();
+            } else if (p.guildId() == snap.guildBId()) {
+                killsB += p.kills();
+            }
+        }
+        String sql = db.getDatabaseType() == DatabaseManager.DatabaseType.MYSQL
+                ? """
+                INSERT INTO war_season_stats (guild_id, guild_name, season_id, wins, losses, draws, kills, matches)
+                VALUES (?, ?, ?, ?, ?, ?, ?, 1), (?, ?, ?, ?, ?, ?, ?, 1)
+                ON DUPLICATE KEY UPDATE
+                  guild_name = VALUES(guild_name),
+                  wins = wins + VALUES(wins),
+                  losses = losses + VALUES(losses),
+                  draws = draws + VALUES(draws),
+                  kills = kills + VALUES(kills),
+                  matches = matches + 1
+                """
+                : """
+                INSERT INTO war_season_stats (guild_id, guild_name, season_id, wins, losses, draws, kills, matches)
+                VALUES (?, ?, ?, ?, ?, ?, ?, 1), (?, ?, ?, ?, ?, ?, ?, 1)
+                ON CONFLICT(guild_id, season_id) DO UPDATE SET
+                  guild_name = excluded.guild_name,
+                  wins = wins + excluded.wins,
+                  losses = losses + excluded.losses,
+                  draws = draws + excluded.draws,
+                  kills = kills + excluded.kills,
+                  matches = matches + 1
+                """;
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            bindSeasonRow(stmt, 0, snap.guildAId(), snap.guildAName(), season, snap.winnerGuildId(), killsA);
+            bindSeasonRow(stmt, 7, snap.guildBId(), snap.guildBName(), season, snap.winnerGuildId(), killsB);
+            stmt.executeUpdate();
+        }
+    }
+
+    private static void bindSeasonRow(PreparedStatement stmt, int offset, int guildId, String guildName,
+                                      String season, Integer winnerId, int kills) throws SQLException {
+        stmt.setInt(offset + 1, guildId);
+        stmt.setString(offset + 2, guildName);
+        stmt.setString(offset + 3, season);
+        stmt.setInt(offset + 4, winnerId != null && winnerId == guildId ? 1 : 0);
+        stmt.setInt(offset + 5, winnerId != null && winnerId != guildId ? 1 : 0);
+        stmt.setInt(offset + 6, winnerId == null ? 1 : 0);
+        stmt.setInt(offset + 7, kills);
+    }
+
     public CompletableFuture<List<WarReportSnapshot>> getRecentAsync(int limit) {
-        return CompletableFuture.supplyAsync(() -> getRecent(Math.max(1, Math.min(limit, 50))));
+        return db.supplyAsync(() -> getRecent(Math.max(1, Math.min(limit, 50))));
     }
 
     public List<WarReportSnapshot> getRecent(int limit) {
@@ -123,7 +287,7 @@ public final class WarReportRepository {
     }
 
     public CompletableFuture<WarReportSnapshot> getByReportIdAsync(int reportId) {
-        return CompletableFuture.supplyAsync(() -> getByReportId(reportId));
+        return db.supplyAsync(() -> getByReportId(reportId));
     }
 
     public WarReportSnapshot getByReportId(int reportId) {
@@ -143,7 +307,7 @@ public final class WarReportRepository {
     }
 
     public CompletableFuture<WarReportSnapshot> getLatestForPlayerAsync(UUID uuid) {
-        return CompletableFuture.supplyAsync(() -> getLatestForPlayer(uuid));
+        return db.supplyAsync(() -> getLatestForPlayer(uuid));
     }
 
     public WarReportSnapshot getLatestForPlayer(UUID uuid) {
@@ -65,13 +65,7 @@ public final class WarRewardListener implements Listener {
         }
         int guildId = snap.winnerGuildId();
         double add = settings.rewardWinnerGuildBank;
-        plugin.getGuildService().getGuildByIdAsync(guildId).thenAccept(guild -> {
-            if (guild == null) {
-                return;
-            }
-            plugin.getGuildService().updateGuildBalanceAsync(
-                    guildId, guild.getBalance() + add, null, "GuildWar");
-        });
+        plugin.getGuildService().adjustGuildBalanceAsync(guildId, add, null, "GuildWar");
     }
 
     private void grantContribution(WarReportSnapshot snap, WarSettings settings) {
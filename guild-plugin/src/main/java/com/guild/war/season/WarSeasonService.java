@@ -3,30 +3,99 @@ package com.guild.war.season;
 import com.guild.GuildPlugin;
 import com.guild.core.database.DatabaseManager;
 import com.guild.war.WarSettings;
-import com.guild.war.event.WarMatchEndEvent;
 import com.guild.war.model.WarParticipantSnapshot;
 import com.guild.war.model.WarReportSnapshot;
-import org.bukkit.event.EventHandler;
-import org.bukkit.event.EventPriority;
-import org.bukkit.event.Listener;
 
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Level;
 
-/** 赛季战绩统计（监听结算事件）。 */
-public final class WarSeasonService implements Listener {
+/**
+ * 赛季战绩统计与排行榜。
+ *
+ * <p>战绩随战报在同一事务内写入（见 {@link com.guild.war.report.WarReportRepository}）；
+ * 排行榜按赛季物化在内存中，首次查询整表排序一次，之后每场结算只调整两方位置。
+ * 物化结果超过 {@link #LEADERBOARD_TTL_MS} 后重新加载，以吸收其他子服的写入。
+ *
+ * <p>加载与增量更新的顺序：战报写入从事务开始（{@link #beginSeasonWrite}）到增量应用完成
+ * （{@link #endSeasonWrite}）都计入写入代数。加载期间若有写入进行或完成，读到的快照可能已含
+ * 该场对局，不予缓存（本次查询照常返回），避免同一场被计两次或漏计。
+ */
+public final class WarSeasonService {
 
     public record SeasonRow(int guildId, String guildName, String seasonId,
                             int wins, int losses, int draws, int kills, int matches) {
     }
 
+    private static final long LEADERBOARD_TTL_MS = 5 * 60_000L;
+
+    /** 与原 SQL 排序一致：胜场降序、击杀降序、场次升序；guild_id 兜底保证次序稳定 */
+    private static final Comparator<SeasonRow> RANKING = Comparator
+            .comparingInt(SeasonRow::wins).reversed()
+            .thenComparing(Comparator.comparingInt(SeasonRow::kills).reversed())
+            .thenComparingInt(SeasonRow::matches)
+            .thenComparingInt(SeasonRow::guildId);
+
+    /** 单个赛季的有序排行 + guildId 索引。 */
+    private static final class Leaderboard {
+        final long loadedAt = System.currentTimeMillis();
+        private final List<SeasonRow> ranked;
+        private final Map<Integer, SeasonRow> byGuild = new HashMap<>();
+
+        Leaderboard(List<SeasonRow> rows) {
+            this.ranked = new ArrayList<>(rows);
+            ranked.sort(RANKING);
+            for (SeasonRow row : ranked) {
+                byGuild.put(row.guildId(), row);
+            }
+        }
+
+        synchronized List<SeasonRow> top(int limit) {
+            return new ArrayList<>(ranked.subList(0, Math.min(limit, ranked.size())));
+        }
+
+        synchronized SeasonRow get(int guildId) {
+            return byGuild.get(guildId);
+        }
+
+        synchronized void apply(int guildId, String guildName, String season, Integer winnerId, int kills) {
+            SeasonRow old = byGuild.get(guildId);
+            if (old != null) {
+                int at = Collections.binarySearch(ranked, old, RANKING);
+                if (at >= 0) {
+                    ranked.remove(at);
+                }
+            }
+            boolean draw = winnerId == null;
+            boolean win = !draw && winnerId == guildId;
+            SeasonRow row = new SeasonRow(guildId, guildName, season,
+                    (old != null ? old.wins() : 0) + (win ? 1 : 0),
+                    (old != null ? old.losses() : 0) + (!draw && !win ? 1 : 0),
+                    (old != null ? old.draws() : 0) + (draw ? 1 : 0),
+                    (old != null ? old.kills() : 0) + kills,
+                    (old != null ? old.matches() : 0) + 1);
+            int pos = Collections.binarySearch(ranked, row, RANKING);
+            ranked.add(pos < 0 ? -pos - 1 : pos, row);
+            byGuild.put(guildId, row);
+        }
+    }
+
     private final GuildPlugin plugin;
     private final DatabaseManager db;
+    private final Map<String, Leaderboard> boards = new ConcurrentHashMap<>();
+    /** 每次战绩写入开始/结束及失效时递增；与 writesInFlight 一起由 this 保护 */
+    private long writeGeneration;
+    private int writesInFlight;
 
     public WarSeasonService(GuildPlugin plugin) {
         this.plugin = plugin;
@@ -39,21 +108,15 @@ public final class WarSeasonService implements Listener {
         return s != null ? s.seasonId : "default";
     }
 
-    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
-    public void onWarEnd(WarMatchEndEvent event) {
-        WarReportSnapshot snap = event.getSnapshot();
-        String season = snap.seasonId() != null && !snap.seasonId().isEmpty()
-                ? snap.seasonId() : currentSeasonId();
-        CompletableFuture.runAsync(() -> {
-            try {
-                applyResult(snap, season);
-            } catch (Exception e) {
-                plugin.getLogger().log(Level.WARNING, "[GuildWar] Season stats update failed", e);
-            }
-        });
-    }
-
-    private void applyResult(WarReportSnapshot snap, String season) throws Exception {
+    /**
+     * 战报事务提交后由 {@link com.guild.war.report.WarReportRepository} 调用：
+     * 若该赛季排行榜已物化，仅把两方的行按新战绩重新插入到有序位置，不重排全表。
+     */
+    public synchronized void applyToLeaderboard(WarReportSnapshot snap, String season) {
+        Leaderboard board = boards.get(season);
+        if (board == null) {
+            return;
+        }
         int killsA = 0;
         int killsB = 0;
         for (WarParticipantSnapshot p : snap.participants()) {
@@ -63,110 +126,110 @@ public final class WarSeasonService implements Listener {
                 killsB += p.kills();
             }
         }
-        upsert(snap.guildAId(), snap.guildAName(), season,
-                snap.winnerGuildId(), snap.guildAId(), killsA);
-        upsert(snap.guildBId(), snap.guildBName(), season,
-                snap.winnerGuildId(), snap.guildBId(), killsB);
-    }
-
-    private void upsert(int guildId, String guildName, String season,
-                        Integer winnerId, int selfId, int kills) throws Exception {
-        int win = 0;
-        int loss = 0;
-        int draw = 0;
-        if (winnerId == null) {
-            draw = 1;
-        } else if (winnerId == selfId) {
-            win = 1;
-        } else {
-            loss = 1;
-        }
-        String sql = """
-            INSERT INTO war_season_stats (guild_id, guild_name, season_id, wins, losses, draws, kills, matches)
-            VALUES (?, ?, ?, ?, ?, ?, ?, 1)
-            ON CONFLICT(guild_id, season_id) DO UPDATE SET
-              guild_name = excluded.guild_name,
-              wins = wins + excluded.wins,
-              losses = losses + excluded.losses,
-              draws = draws + excluded.draws,
-              kills = kills + excluded.kills,
-              matches = matches + 1
-            """;
-        // MySQL uses different upsert; detect via config
-        boolean mysql = isMySql();
-        if (mysql) {
-            sql = """
-                INSERT INTO war_season_stats (guild_id, guild_name, season_id, wins, losses, draws, kills, matches)
-                VALUES (?, ?, ?, ?, ?, ?, ?, 1)
-                ON DUPLICATE KEY UPDATE
-                  guild_name = VALUES(guild_name),
-                  wins = wins + VALUES(wins),
-                  losses = losses + VALUES(losses),
-                  draws = draws + VALUES(draws),
-                  kills = kills + VALUES(kills),
-                  matches = matches + 1
-                """;
-        }
-        try (Connection conn = db.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-            stmt.setInt(1, guildId);
-            stmt.setString(2, guildName);
-            stmt.setString(3, season);
-            stmt.setInt(4, win);
-            stmt.setInt(5, loss);
-            stmt.setInt(6, draw);
-            stmt.setInt(7, kills);
-            stmt.executeUpdate();
-        }
+        board.apply(snap.guildAId(), snap.guildAName(), season, snap.winnerGuildId(), killsA);
+        board.apply(snap.guildBId(), snap.guildBName(), season, snap.winnerGuildId(), killsB);
     }
 
-    private boolean isMySql() {
-        try {
-            String type = plugin.getConfigManager().getMainConfig().getString("database.type", "sqlite");
-            return "mysql".equalsIgnoreCase(type);
-        } catch (Exception e) {
-            return false;
-        }
+    /** 战绩事务开始前调用，须与 {@link #endSeasonWrite} 成对。 */
+    public synchronized void beginSeasonWrite() {
+        writesInFlight++;
+        writeGeneration++;
+    }
+
+    /** 事务结束（提交并已 {@link #applyToLeaderboard}，或失败）后调用。 */
+    public synchronized void endSeasonWrite() {
+        writesInFlight--;
+        writeGeneration++;
+    }
+
+    /** 丢弃已物化的排行榜（跨服写入或手动改库后调用），下次查询时重新加载。 */
+    public synchronized void invalidateLeaderboards() {
+        writeGeneration++;
+        boards.clear();
     }
 
     public CompletableFuture<List<SeasonRow>> getLeaderboardAsync(String seasonId, int limit) {
-        return CompletableFuture.supplyAsync(() -> getLeaderboard(seasonId, limit));
+        Leaderboard board = freshBoard(seasonId);
+        if (board != null) {
+            return CompletableFuture.completedFuture(board.top(clampLimit(limit)));
+        }
+        return db.supplyAsync(() -> getLeaderboard(seasonId, limit));
     }
 
     public List<SeasonRow> getLeaderboard(String seasonId, int limit) {
-        String sql = """
-            SELECT * FROM war_season_stats WHERE season_id = ?
-            ORDER BY wins DESC, kills DESC, matches ASC LIMIT ?
-            """;
-        List<SeasonRow> out = new ArrayList<>();
+        Leaderboard board = freshBoard(seasonId);
+        if (board == null) {
+            board = loadBoard(seasonId);
+            if (board == null) {
+                return new ArrayList<>();
+            }
+        }
+        return board.top(clampLimit(limit));
+    }
+
+    private static int clampLimit(int limit) {
+        return Math.max(1, Math.min(limit, 50));
+    }
+
+    private Leaderboard freshBoard(String seasonId) {
+        Leaderboard board = boards.get(seasonId);
+        if (board == null || System.currentTimeMillis() - board.loadedAt > LEADERBOARD_TTL_MS) {
+            return null;
+        }
+        return board;
+    }
+
+    /** 一次性读取整个赛季并排序，之后由 {@link #applyToLeaderboard} 增量维护。 */
+    private Leaderboard loadBoard(String seasonId) {
+        long generation;
+        synchronized (this) {
+            generation = writeGeneration;
+        }
+        String sql = "SELECT * FROM war_season_stats WHERE season_id = ?";
+        List<SeasonRow> rows = new ArrayList<>();
         try (Connection conn = db.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
             stmt.setString(1, seasonId);
-            stmt.setInt(2, Math.max(1, Math.min(limit, 50)));
             try (ResultSet rs = stmt.executeQuery()) {
                 while (rs.next()) {
-                    out.add(new SeasonRow(
-                            rs.getInt("guild_id"),
-                            rs.getString("guild_name"),
-                            rs.getString("season_id"),
-                            rs.getInt("wins"),
-                            rs.getInt("losses"),
-                            rs.getInt("draws"),
-                            rs.getInt("kills"),
-                            rs.getInt("matches")));
+                    rows.add(readRow(rs));
                 }
             }
         } catch (Exception e) {
             plugin.getLogger().log(Level.WARNING, "[GuildWar] Failed to load season leaderboard", e);
+            return null;
         }
-        return out;
+        Leaderboard board = new Leaderboard(rows);
+        synchronized (this) {
+            if (writesInFlight == 0 && writeGeneration == generation) {
+                boards.put(seasonId, board);
+            }
+        }
+        return board;
+    }
+
+    private static SeasonRow readRow(ResultSet rs) throws SQLException {
+        return new SeasonRow(
+                rs.getInt("guild_id"),
+                rs.getString("guild_name"),
+                rs.getString("season_id"),
+                rs.getInt("wins"),
+                rs.getInt("losses"),
+                rs.getInt("draws"),
+                rs.getInt("kills"),
+                rs.getInt("matches"));
     }
 
     public CompletableFuture<SeasonRow> getGuildStatsAsync(int guildId, String seasonId) {
-        return CompletableFuture.supplyAsync(() -> getGuildStats(guildId, seasonId));
+        return db.supplyAsync(() -> getGuildStats(guildId, seasonId));
     }
 
     public SeasonRow getGuildStats(int guildId, String seasonId) {
+        Leaderboard board = freshBoard(seasonId);
+        if (board != null) {
+            SeasonRow row = board.get(guildId);
+            return row != null ? row : new SeasonRow(guildId, "", seasonId, 0, 0, 0, 0, 0);
+        }
         String sql = "SELECT * FROM war_season_stats WHERE guild_id = ? AND season_id = ?";
         try (Connection conn = db.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
@@ -174,15 +237,7 @@ public final class WarSeasonService implements Listener {
             stmt.setString(2, seasonId);
             try (ResultSet rs = stmt.executeQuery()) {
                 if (rs.next()) {
-                    return new SeasonRow(
-                            rs.getInt("guild_id"),
-                            rs.getString("guild_name"),
-                            rs.getString("season_id"),
-                            rs.getInt("wins"),
-                            rs.getInt("losses"),
-                            rs.getInt("draws"),
-                            rs.getInt("kills"),
-                            rs.getInt("matches"));
+                    return readRow(rs);
                 }
             }
         } catch (Exception e) {
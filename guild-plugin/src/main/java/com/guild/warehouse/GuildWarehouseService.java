@@ -1,6 +1,7 @@
 package com.guild.warehouse;
 
 import com.guild.GuildPlugin;
+import com.guild.core.cache.CacheInvalidationBus;
 import com.guild.core.database.DatabaseManager;
 import com.guild.core.time.TimeProvider;
 import com.guild.core.utils.ColorUtils;
@@ -20,7 +21,9 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
@@ -33,6 +36,8 @@ import java.util.logging.Logger;
  */
 public class GuildWarehouseService {
 
+    private static final int SNBT_CACHE_PER_GUILD = 256;
+
     private final GuildPlugin plugin;
     private final DatabaseManager databaseManager;
     private final Logger logger;
@@ -40,6 +45,19 @@ public class GuildWarehouseService {
     private final ConcurrentHashMap<Integer, UUID> openSessions = new ConcurrentHashMap<>();
     /** In-flight page saves keyed by guild id; quit must not drop the session until these finish. */
     private final ConcurrentHashMap<Integer, CompletableFuture<Boolean>> pendingSaves = new ConcurrentHashMap<>();
+    /** Slot changes not yet written, keyed by guild then absolute slot; a null stack means delete. */
+    private final ConcurrentHashMap<Integer, Map<Integer, ItemStack>> dirtySlots = new ConcurrentHashMap<>();
+    /** Per-guild LRU of item → SNBT, filled on load and save so moved items are not re-serialized. */
+    private final ConcurrentHashMap<Integer, Map<ItemStack, String>> snbtCache = new ConcurrentHashMap<>();
+    /** Decoded pages (local slot order) keyed by {@link #pageKey}; access-order LRU bounded by settings. */
+    private final Map<Long, ItemStack[]> pageCache = new LinkedHashMap<>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, ItemStack[]> eldest) {
+            return size() > settings.getPageCacheSize();
+        }
+    };
+    /** Page loads in flight (open or prefetch), so a prefetch and an open of the same page share one query. */
+    private final ConcurrentHashMap<Long, CompletableFuture<ItemStack[]>> pageLoads = new ConcurrentHashMap<>();
     private volatile boolean nbtApiAvailable;
 
     public GuildWarehouseService(GuildPlugin plugin) {
@@ -53,6 +71,23 @@ public class GuildWarehouseService {
     public void reload() {
         settings.reload();
         refreshAvailability();
+        synchronized (pageCache) {
+            pageCache.clear();
+        }
+    }
+
+    /** Drop cached pages and SNBT of a guild (e.g. after it was changed on another server). */
+    public void invalidateGuild(int guildId) {
+        synchronized (pageCache) {
+            pageCache.keySet().removeIf(key -> (int) (key >>> 32) == guildId);
+        }
+        snbtCache.remove(guildId);
+    }
+
+    /** Forget everything held for a deleted guild, including slot changes not yet written. */
+    public void discardGuild(int guildId) {
+        dirtySlots.remove(guildId);
+        invalidateGuild(guildId);
     }
 
     public void refreshAvailability() {
@@ -159,7 +194,7 @@ public class GuildWarehouseService {
         if (role != Role.OFFICER && role != Role.MEMBER) {
             return CompletableFuture.completedFuture(false);
         }
-        return CompletableFuture.supplyAsync(() -> {
+        return databaseManager.supplyAsync(() -> {
             String sql = databaseManager.getDatabaseType() == DatabaseManager.DatabaseType.MYSQL
                     ? "INSERT INTO guild_warehouse_role_perms (guild_id, role, can_open) VALUES (?, ?, ?) "
                     + "ON DUPLICATE KEY UPDATE can_open = VALUES(can_open)"
@@ -200,7 +235,7 @@ public class GuildWarehouseService {
     }
 
     public CompletableFuture<Map<Integer, ItemStack>> loadItemsInRange(int guildId, int fromInclusive, int toExclusive) {
-        return CompletableFuture.supplyAsync(() -> {
+        return databaseManager.supplyAsync(() -> {
             Map<Integer, ItemStack> items = new HashMap<>();
             try (Connection conn = databaseManager.getConnection();
                  PreparedStatement stmt = conn.prepareStatement(
@@ -212,9 +247,11 @@ public class GuildWarehouseService {
                     while (rs.next()) {
                         int slot = rs.getInt("slot");
                         try {
-                            ItemStack stack = NbtItemSerializer.itemFromSnbt(rs.getString("nbt"));
+                            String snbt = rs.getString("nbt");
+                            ItemStack stack = NbtItemSerializer.itemFromSnbt(snbt);
                             if (stack != null && !stack.getType().isAir()) {
                                 items.put(slot, stack);
+                                snbtCacheFor(guildId).put(stack.clone(), snbt);
                             }
                         } catch (Throwable t) {
                             logger.warning("[Warehouse] Skipping corrupt NBT at guild=" + guildId
@@ -225,75 +262,278 @@ public class GuildWarehouseService {
             } catch (SQLException e) {
                 throw new CompletionException(e);
             }
+            overlayDirty(guildId, items, fromInclusive, toExclusive);
             return items;
         });
     }
 
     /**
-     * Saves one warehouse page. Only replaces absolute slots in [slotOffset, slotOffset + pageCapacity).
+     * Saves one warehouse page incrementally: only slots in [slotOffset, slotOffset + pageCapacity)
+     * that differ from {@code before} (the contents loaded at open) are queued, then written as
+     * UPSERT/DELETE. Pass {@code before == null} to rewrite the whole page range.
      * Callers must invoke from the region/main thread so inventory contents are snapshotted safely.
      */
-    public CompletableFuture<Boolean> savePage(int guildId, Inventory inventory, int slotOffset, int pageCapacity) {
-        ItemStack[] contents = cloneContents(inventory.getContents());
-        CompletableFuture<Boolean> future = CompletableFuture.supplyAsync(() -> {
-            try (Connection conn = databaseManager.getConnection()) {
-                conn.setAutoCommit(false);
-                try {
-                    try (PreparedStatement del = conn.prepareStatement(
-                            "DELETE FROM guild_warehouse_items WHERE guild_id = ? AND slot >= ? AND slot < ?")) {
-                        del.setInt(1, guildId);
-                        del.setInt(2, slotOffset);
-                        del.setInt(3, slotOffset + pageCapacity);
-                        del.executeUpdate();
-                    }
-                    try (PreparedStatement ins = conn.prepareStatement(
-                            "INSERT INTO guild_warehouse_items (guild_id, slot, nbt) VALUES (?, ?, ?)")) {
-                        int limit = Math.min(pageCapacity, contents.length);
-                        for (int local = 0; local < limit; local++) {
-                            ItemStack stack = contents[local];
-                            if (stack == null || stack.getType().isAir()) {
-                                continue;
-                            }
-                            String snbt = NbtItemSerializer.itemToSnbt(stack);
-                            if (snbt == null) {
-                                continue;
-                            }
-                            ins.setInt(1, guildId);
-                            ins.setInt(2, slotOffset + local);
-                            ins.setString(3, snbt);
-                            ins.addBatch();
-                        }
-                        ins.executeBatch();
-                    }
-                    conn.commit();
-                    return true;
-                } catch (Exception e) {
-                    conn.rollback();
-                    logger.severe("[Warehouse] Failed to save items: " + e.getMessage());
-                    return false;
-                } finally {
-                    conn.setAutoCommit(true);
+    public CompletableFuture<Boolean> savePage(int guildId, Inventory inventory, int slotOffset,
+                                               int pageCapacity, ItemStack[] before) {
+        ItemStack[] after = inventory.getContents();
+        cachePage(guildId, slotOffset / WarehouseSettings.PAGE_SIZE + 1, after, pageCapacity);
+        int changed = 0;
+        Map<Integer, ItemStack> dirty = dirtySlots.computeIfAbsent(guildId, id -> new HashMap<>());
+        synchronized (dirty) {
+            for (int local = 0; local < pageCapacity; local++) {
+                ItemStack stack = slotAt(after, local);
+                if (before != null && sameStack(slotAt(before, local), stack)) {
+                    continue;
                 }
-            } catch (SQLException e) {
-                logger.severe("[Warehouse] Save connection error: " + e.getMessage());
-                return false;
+                dirty.put(slotOffset + local, stack == null ? null : stack.clone());
+                changed++;
+            }
+            if (changed == 0 && dirty.isEmpty() && !pendingSaves.containsKey(guildId)) {
+                return CompletableFuture.completedFuture(true);
             }
+        }
+        return scheduleFlush(guildId);
+    }
+
+    /**
+     * Chains a flush after any in-flight save of the guild. Rapid close/open cycles merge their
+     * slot changes into {@link #dirtySlots}; the first flush to run writes all of them and later
+     * ones find nothing left to do.
+     */
+    private CompletableFuture<Boolean> scheduleFlush(int guildId) {
+        CompletableFuture<Boolean> future = pendingSaves.compute(guildId, (id, prev) -> {
+            CompletableFuture<Boolean> ready = prev == null
+                    ? CompletableFuture.completedFuture(true)
+                    : prev.handle((ok, err) -> true);
+            return ready.thenCompose(x -> databaseManager.supplyAsync(() -> flushDirty(id)));
         });
-        pendingSaves.put(guildId, future);
         future.whenComplete((ok, err) -> pendingSaves.remove(guildId, future));
         return future;
     }
 
-    private static ItemStack[] cloneContents(ItemStack[] source) {
-        if (source == null) {
-            return new ItemStack[0];
+    /** Completes once every save queued so far for the guild has been written (or failed). */
+    private CompletableFuture<Void> awaitPendingSave(int guildId) {
+        CompletableFuture<Boolean> pending = pendingSaves.get(guildId);
+        return pending == null
+                ? CompletableFuture.completedFuture(null)
+                : pending.handle((ok, err) -> null);
+    }
+
+    private boolean flushDirty(int guildId) {
+        Map<Integer, ItemStack> dirty = dirtySlots.get(guildId);
+        if (dirty == null) {
+            return true;
+        }
+        Map<Integer, ItemStack> batch;
+        synchronized (dirty) {
+            if (dirty.isEmpty()) {
+                return true;
+            }
+            batch = new HashMap<>(dirty);
+            dirty.clear();
+        }
+        String upsertSql = databaseManager.getDatabaseType() == DatabaseManager.DatabaseType.MYSQL
+                ? "INSERT INTO guild_warehouse_items (guild_id, slot, nbt) VALUES (?, ?, ?) "
+                + "ON DUPLICATE KEY UPDATE nbt = VALUES(nbt)"
+                : "INSERT INTO guild_warehouse_items (guild_id, slot, nbt) VALUES (?, ?, ?) "
+                + "ON CONFLICT(guild_id, slot) DO UPDATE SET nbt = excluded.nbt";
+        try (Connection conn = databaseManager.getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement upsert = conn.prepareStatement(upsertSql);
+                 PreparedStatement del = conn.prepareStatement(
+                         "DELETE FROM guild_warehouse_items WHERE guild_id = ? AND slot = ?")) {
+                for (Map.Entry<Integer, ItemStack> e : batch.entrySet()) {
+                    String snbt = e.getValue() == null ? null : toSnbt(guildId, e.getValue());
+                    if (snbt == null) {
+                        del.setInt(1, guildId);
+                        del.setInt(2, e.getKey());
+                        del.addBatch();
+                    } else {
+                        upsert.setInt(1, guildId);
+                        upsert.setInt(2, e.getKey());
+                        upsert.setString(3, snbt);
+                        upsert.addBatch();
+                    }
+                }
+                del.executeBatch();
+                upsert.executeBatch();
+                conn.commit();
+                publishInvalidation(guildId);
+                return true;
+            } catch (Exception e) {
+                conn.rollback();
+                requeue(dirty, batch);
+                logger.severe("[Warehouse] Failed to save " + batch.size() + " slot(s): " + e.getMessage());
+                return false;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            requeue(dirty, batch);
+            logger.severe("[Warehouse] Save connection error: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /** Tell other servers to drop their cached pages of the guild (no-op without cross-server invalidation). */
+    private void publishInvalidation(int guildId) {
+        CacheInvalidationBus bus = plugin.getCacheInvalidationBus();
+        if (bus != null) {
+            bus.publishWarehouse(guildId);
         }
-        ItemStack[] copy = new ItemStack[source.length];
-        for (int i = 0; i < source.length; i++) {
-            ItemStack stack = source[i];
+    }
+
+    /** Put a failed batch back without overwriting newer changes to the same slots. */
+    private static void requeue(Map<Integer, ItemStack> dirty, Map<Integer, ItemStack> batch) {
+        synchronized (dirty) {
+            for (Map.Entry<Integer, ItemStack> e : batch.entrySet()) {
+                if (!dirty.containsKey(e.getKey())) {
+                    dirty.put(e.getKey(), e.getValue());
+                }
+            }
+        }
+    }
+
+    /** Apply not-yet-written slot changes (e.g. after a failed flush) over freshly loaded items. */
+    private void overlayDirty(int guildId, Map<Integer, ItemStack> items, int fromInclusive, int toExclusive) {
+        Map<Integer, ItemStack> dirty = dirtySlots.get(guildId);
+        if (dirty == null) {
+            return;
+        }
+        synchronized (dirty) {
+            for (Map.Entry<Integer, ItemStack> e : dirty.entrySet()) {
+                int slot = e.getKey();
+                if (slot < fromInclusive || slot >= toExclusive) {
+                    continue;
+                }
+                if (e.getValue() == null) {
+                    items.remove(slot);
+                } else {
+                    items.put(slot, e.getValue().clone());
+                }
+            }
+        }
+    }
+
+    private static long pageKey(int guildId, int page) {
+        return ((long) guildId << 32) | (page & 0xffffffffL);
+    }
+
+    /** Cached page if present and sized for the current capacity; callers must not modify it. */
+    private ItemStack[] cachedPage(int guildId, int page, int pageSlots) {
+        if (settings.getPageCacheSize() <= 0) {
+            return null;
+        }
+        synchronized (pageCache) {
+            ItemStack[] cached = pageCache.get(pageKey(guildId, page));
+            return cached != null && cached.length == pageSlots ? cached : null;
+        }
+    }
+
+    private void cachePage(int guildId, int page, ItemStack[] contents, int pageSlots) {
+        if (settings.getPageCacheSize() <= 0) {
+            return;
+        }
+        ItemStack[] copy = new ItemStack[pageSlots];
+        for (int i = 0; i < pageSlots; i++) {
+            ItemStack stack = slotAt(contents, i);
             copy[i] = stack == null ? null : stack.clone();
         }
-        return copy;
+        synchronized (pageCache) {
+            pageCache.put(pageKey(guildId, page), copy);
+        }
+    }
+
+    /**
+     * Decoded contents of one page: from the cache, else from the database once any in-flight save
+     * of the guild has committed. Concurrent requests for the same page share one load.
+     */
+    private CompletableFuture<ItemStack[]> loadPage(int guildId, int page, int pageSlots) {
+        ItemStack[] cached = cachedPage(guildId, page, pageSlots);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+        long key = pageKey(guildId, page);
+        CompletableFuture<ItemStack[]> existing = pageLoads.get(key);
+        if (existing != null) {
+            return existing;
+        }
+        int offset = WarehouseSettings.getPageOffset(page);
+        CompletableFuture<ItemStack[]> load = awaitPendingSave(guildId)
+                .thenCompose(v -> loadItemsInRange(guildId, offset, offset + pageSlots))
+                .thenApply(items -> {
+                    ItemStack[] contents = new ItemStack[pageSlots];
+                    for (Map.Entry<Integer, ItemStack> e : items.entrySet()) {
+                        int local = e.getKey() - offset;
+                        if (local >= 0 && local < pageSlots) {
+                            contents[local] = e.getValue();
+                        }
+                    }
+                    // A save that raced this load already cached newer contents
+                    if (cachedPage(guildId, page, pageSlots) == null) {
+                        cachePage(guildId, page, contents, pageSlots);
+                    }
+                    return contents;
+                });
+        CompletableFuture<ItemStack[]> raced = pageLoads.putIfAbsent(key, load);
+        if (raced != null) {
+            return raced;
+        }
+        load.whenComplete((c, err) -> pageLoads.remove(key, load));
+        return load;
+    }
+
+    /** Warm the cache with the pages before and after {@code page}. */
+    private void prefetchAdjacent(int guildId, int page, int totalSlots) {
+        if (!settings.isPrefetchAdjacent()) {
+            return;
+        }
+        int pageCount = WarehouseSettings.getPageCount(totalSlots);
+        for (int p : new int[]{page + 1, page - 1}) {
+            if (p < 1 || p > pageCount) {
+                continue;
+            }
+            loadPage(guildId, p, WarehouseSettings.getPageSlotCount(totalSlots, p)).exceptionally(err -> {
+                logger.fine("[Warehouse] Prefetch of page " + p + " failed for guild " + guildId
+                        + ": " + err.getMessage());
+                return null;
+            });
+        }
+    }
+
+    private Map<ItemStack, String> snbtCacheFor(int guildId) {
+        return snbtCache.computeIfAbsent(guildId, id -> Collections.synchronizedMap(
+                new LinkedHashMap<>(64, 0.75f, true) {
+                    @Override
+                    protected boolean removeEldestEntry(Map.Entry<ItemStack, String> eldest) {
+                        return size() > SNBT_CACHE_PER_GUILD;
+                    }
+                }));
+    }
+
+    /** SNBT for a stack, reusing the guild cache (keyed by the item itself, so equal stacks share it). */
+    private String toSnbt(int guildId, ItemStack stack) {
+        Map<ItemStack, String> cache = snbtCacheFor(guildId);
+        String snbt = cache.get(stack);
+        if (snbt == null) {
+            snbt = NbtItemSerializer.itemToSnbt(stack);
+            if (snbt != null) {
+                cache.put(stack.clone(), snbt);
+            }
+        }
+        return snbt;
+    }
+
+    private static ItemStack slotAt(ItemStack[] contents, int index) {
+        if (contents == null || index >= contents.length) {
+            return null;
+        }
+        ItemStack stack = contents[index];
+        return stack == null || stack.getType().isAir() ? null : stack;
+    }
+
+    private static boolean sameStack(ItemStack a, ItemStack b) {
+        return a == null ? b == null : a.equals(b);
     }
 
     public void openWarehouse(Player player, Guild guild) {
@@ -347,7 +587,6 @@ public class GuildWarehouseService {
         }
 
         int pageSlots = WarehouseSettings.getPageSlotCount(totalSlots, page);
-        int offset = WarehouseSettings.getPageOffset(page);
         String titleTemplate = pageCount > 1
                 ? plugin.getLanguageManager().getCoreMessage(player, "warehouse.title-page",
                 "&8Guild Warehouse ({page}/{pages})")
@@ -358,43 +597,43 @@ public class GuildWarehouseService {
                 .replace("{pages}", String.valueOf(pageCount)));
 
         final int guildId = guild.getId();
-        loadItemsInRange(guildId, offset, offset + pageSlots).whenComplete((items, err) -> {
-            if (err != null || items == null) {
-                Throwable cause = err instanceof CompletionException && err.getCause() != null
-                        ? err.getCause() : err;
-                logger.severe("[Warehouse] Failed to load items for guild " + guildId + ": "
-                        + (cause != null ? cause.getMessage() : "unknown"));
-                CompatibleScheduler.runTask(plugin, player, () -> {
-                    releaseSession(guildId, player.getUniqueId());
-                    if (player.isOnline()) {
-                        String msg = plugin.getLanguageManager().getCoreMessage(player, "warehouse.load-failed",
-                                "&cFailed to load guild warehouse. Please try again.");
-                        player.sendMessage(ColorUtils.colorize(msg));
+        loadPage(guildId, page, pageSlots)
+                .whenComplete((items, err) -> {
+                    if (err != null || items == null) {
+                        Throwable cause = err instanceof CompletionException && err.getCause() != null
+                                ? err.getCause() : err;
+                        logger.severe("[Warehouse] Failed to load items for guild " + guildId + ": "
+                                + (cause != null ? cause.getMessage() : "unknown"));
+                        CompatibleScheduler.runTask(plugin, player, () -> {
+                            releaseSession(guildId, player.getUniqueId());
+                            if (player.isOnline()) {
+                                String msg = plugin.getLanguageManager().getCoreMessage(player, "warehouse.load-failed",
+                                        "&cFailed to load guild warehouse. Please try again.");
+                                player.sendMessage(ColorUtils.colorize(msg));
+                            }
+                        });
+                        return;
                     }
+                    CompatibleScheduler.runTask(plugin, player, () -> {
+                        if (!player.isOnline()) {
+                            releaseSession(guildId, player.getUniqueId());
+                            return;
+                        }
+                        WarehouseChestHolder holder = new WarehouseChestHolder(guildId, page, pageSlots, totalSlots);
+                        Inventory inv = Bukkit.createInventory(holder, pageSlots, title);
+                        holder.setInventory(inv);
+                        for (int local = 0; local < items.length; local++) {
+                            if (items[local] != null) {
+                                inv.setItem(local, items[local].clone());
+                            }
+                        }
+                        holder.captureOpenSnapshot(inv.getContents());
+                        player.openInventory(inv);
+                        prefetchAdjacent(guildId, page, totalSlots);
+                        logAccessAsync(guildId, player.getUniqueId(), player.getName(), "OPEN", page,
+                                "slots=" + pageSlots);
+                    });
                 });
-                return;
-            }
-            CompatibleScheduler.runTask(plugin, player, () -> {
-                if (!player.isOnline()) {
-                    releaseSession(guildId, player.getUniqueId());
-                    return;
-                }
-                WarehouseChestHolder holder = new WarehouseChestHolder(guildId, page, pageSlots, totalSlots);
-                Inventory inv = Bukkit.createInventory(holder, pageSlots, title);
-                holder.setInventory(inv);
-                for (Map.Entry<Integer, ItemStack> e : items.entrySet()) {
-                    int absolute = e.getKey();
-                    int local = absolute - offset;
-                    if (local >= 0 && local < pageSlots) {
-                        inv.setItem(local, e.getValue());
-                    }
-                }
-                holder.captureOpenSnapshot(inv.getContents());
-                player.openInventory(inv);
-                logAccessAsync(guildId, player.getUniqueId(), player.getName(), "OPEN", page,
-                        "slots=" + pageSlots);
-            });
-        });
     }
 
     public void handleClose(Player player, WarehouseChestHolder holder, Inventory inventory) {
@@ -412,13 +651,13 @@ public class GuildWarehouseService {
         String diffSummary = summarizeDiff(holder.getOpenSnapshot(), inventory.getContents(), capacity);
         UUID playerUuid = player.getUniqueId();
         String playerName = player.getName();
-        savePage(guildId, inventory, offset, capacity).whenComplete((ok, err) -> {
+        savePage(guildId, inventory, offset, capacity, holder.getOpenSnapshot()).whenComplete((ok, err) -> {
             if (!Boolean.TRUE.equals(ok) || err != null) {
                 Throwable cause = err instanceof CompletionException && err.getCause() != null
                         ? err.getCause() : err;
                 logger.severe("[Warehouse] Save incomplete for guild " + guildId
                         + (cause != null ? ": " + cause.getMessage() : ""));
-            } else {
+            } else if (!"unchanged".equals(diffSummary)) {
                 logAccessAsync(guildId, playerUuid, playerName, "SAVE", page, diffSummary);
             }
             CompatibleScheduler.runTask(plugin, player, () -> {
@@ -441,7 +680,7 @@ public class GuildWarehouseService {
         if (!settings.isAccessLogEnabled()) {
             return;
         }
-        CompletableFuture.runAsync(() -> {
+        databaseManager.runAsync(() -> {
             try (Connection conn = databaseManager.getConnection();
                  PreparedStatement stmt = conn.prepareStatement(
                          "INSERT INTO guild_warehouse_access_log "
@@ -15,7 +15,7 @@ public class WarehouseChestHolder implements InventoryHolder {
     private final int pageSlotCount;
     private final int totalSlots;
     private Inventory inventory;
-    /** Snapshot of page contents when opened (for optional access-log diffs). */
+    /** Snapshot of page contents when opened; close saves only slots that differ from it. */
     private ItemStack[] openSnapshot = new ItemStack[0];
 
     public WarehouseChestHolder(int guildId, int page, int pageSlotCount, int totalSlots) {
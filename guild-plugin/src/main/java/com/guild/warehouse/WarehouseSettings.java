@@ -19,6 +19,8 @@ public class WarehouseSettings {
     private final GuildPlugin plugin;
     private boolean enabled = true;
     private boolean accessLogEnabled = false;
+    private int pageCacheSize = 64;
+    private boolean prefetchAdjacent = true;
     private final NavigableMap<Integer, Integer> slotsByLevel = new TreeMap<>();
 
     public WarehouseSettings(GuildPlugin plugin) {
@@ -30,6 +32,8 @@ public class WarehouseSettings {
         FileConfiguration cfg = plugin.getConfigManager().getMainConfig();
         enabled = cfg.getBoolean("guild-warehouse.enabled", true);
         accessLogEnabled = cfg.getBoolean("guild-warehouse.access-log", false);
+        pageCacheSize = Math.max(0, cfg.getInt("guild-warehouse.page-cache.max-pages", 64));
+        prefetchAdjacent = cfg.getBoolean("guild-warehouse.page-cache.prefetch-adjacent", true);
         slotsByLevel.clear();
         ConfigurationSection section = cfg.getConfigurationSection("guild-warehouse.slots-by-level");
         if (section != null) {
@@ -62,6 +66,16 @@ public class WarehouseSettings {
         return accessLogEnabled;
     }
 
+    /** Max decoded pages kept in memory across all guilds; 0 disables the page cache. */
+    public int getPageCacheSize() {
+        return pageCacheSize;
+    }
+
+    /** When true, pages next to the opened one are loaded in the background. */
+    public boolean isPrefetchAdjacent() {
+        return prefetchAdjacent && pageCacheSize > 0;
+    }
+
     public int getSlotsForPeakLevel(int peakLevel) {
         if (peakLevel < 1) {
             peakLevel = 1;
@@ -10,10 +10,13 @@ import com.guild.world.generator.VoidWorldGen;
 import com.guild.world.model.GuildWorld;
 import com.guild.world.model.WorldStatus;
 import com.guild.world.model.WorldType;
+import com.guild.world.pool.ArenaPool;
 import com.guild.world.preset.PresetService;
 import com.guild.world.recovery.WorldRecoveryService;
 import com.guild.world.registry.WorldJournal;
 import com.guild.world.registry.WorldRegistry;
+import com.guild.world.schematic.PasteTask;
+import com.guild.world.schematic.PreparedSchematic;
 import com.guild.world.schematic.SchematicCodec;
 import com.guild.world.schematic.SchematicData;
 import com.guild.world.schematic.SchematicExporter;
@@ -30,6 +33,7 @@ import org.bukkit.World;
 import org.bukkit.WorldCreator;
 import org.bukkit.block.Block;
 import org.bukkit.configuration.file.FileConfiguration;
+import org.bukkit.entity.Entity;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.Listener;
@@ -38,7 +42,10 @@ import org.bukkit.event.player.PlayerJoinEvent;
 import java.io.File;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
@@ -70,6 +77,8 @@ import java.util.logging.Level;
 public class GuildWorldService {
 
     private static final long RECOVERY_DELAY_TICKS = 100L;
+    /** Folia 下按区块清理战场实体时，在预设范围外额外覆盖的区块数（飞出的箭、掉落物等）。 */
+    private static final int ARENA_ENTITY_MARGIN_CHUNKS = 2;
 
     private final GuildPlugin plugin;
     private final File worldsDir;
@@ -78,9 +87,12 @@ public class GuildWorldService {
     private final WorldRecoveryService recovery;
     private final PresetService presets;
     private final SelectionManager selections = new SelectionManager();
+    private final ArenaPool arenaPool;
     private final Set<String> loading = ConcurrentHashMap.newKeySet();
     /** 自动触发恢复自检的一次性去重标志（玩家加入 / 延迟兜底二选一）。 */
     private final AtomicBoolean recoveryTriggered = new AtomicBoolean(false);
+    /** 进行中的预设粘贴（世界名 → 任务），卸载/删除世界时取消。 */
+    private final Map<String, PasteTask> activePastes = new ConcurrentHashMap<>();
 
     /**
      * 多世界功能是否启用。仅当「Folia 且版本不在支持列表」时为 false；
@@ -98,6 +110,8 @@ public class GuildWorldService {
     private int maxSchematicVolume;
     private boolean ignoreAirOnPaste;
     private boolean includeBlockEntities;
+    private SchematicPaster.Budget pasteBudget;
+    private List<String> presetWarmUp = List.of();
     private String postMatchPolicy;
 
     public GuildWorldService(GuildPlugin plugin) {
@@ -110,6 +124,7 @@ public class GuildWorldService {
         this.journal = new WorldJournal(worldsDir, plugin.getLogger());
         this.recovery = new WorldRecoveryService(plugin.getLogger());
         this.presets = new PresetService(worldsDir, plugin.getLogger());
+        this.arenaPool = new ArenaPool(this);
         // Folia 需 NMS 桥接，仅支持列表内版本；非 Folia 用 Bukkit.createWorld，始终可用
         this.enabled = !ServerUtils.isFolia() || ServerUtils.isFoliaVersionSupported();
         reloadSettings();
@@ -129,7 +144,15 @@ public class GuildWorldService {
         this.maxSchematicVolume = Math.max(1000, config.getInt("world.schematic.max-volume", 2_000_000));
         this.ignoreAirOnPaste = config.getBoolean("world.schematic.ignore-air", true);
         this.includeBlockEntities = config.getBoolean("world.schematic.include-block-entities", true);
+        this.presetWarmUp = config.getStringList("world.schematic.preset-cache.warm-up");
+        presets.configureCache(config.getInt("world.schematic.preset-cache.max-entries", 8),
+                config.getLong("world.schematic.preset-cache.max-mb", 64L) * 1024L * 1024L);
+        presets.setBenchmarkOnConvert(config.getBoolean("world.schematic.benchmark-on-convert", false));
+        this.pasteBudget = SchematicPaster.Budget.of(
+                config.getInt("world.schematic.paste.blocks-per-tick", 4096),
+                config.getDouble("world.schematic.paste.max-millis-per-tick", 8.0));
         this.postMatchPolicy = config.getString("world.arena.post-match", "destroy");
+        arenaPool.reloadSettings(config);
     }
 
     private static Material parseMaterial(String name, Material fallback) {
@@ -159,6 +182,15 @@ public class GuildWorldService {
         registry.save();
         recovery.recordShutdownState(wasClean);
         DebugLog.info(plugin.getLogger(), "[World] Registry loaded: " + registry.size() + " managed world(s).");
+        CompatibleScheduler.runTaskAsync(plugin, () -> {
+            int converted = presets.convertLegacySchematics();
+            if (converted > 0) {
+                plugin.getLogger().info("[World] Converted " + converted + " legacy preset schematic(s) to .gwsb");
+            }
+            if (!presetWarmUp.isEmpty()) {
+                presets.warmUp(presetWarmUp);
+            }
+        });
     }
 
     /**
@@ -190,6 +222,8 @@ public class GuildWorldService {
         }
         DebugLog.info(plugin.getLogger(), "[World] Startup recovery check triggered by " + source + ".");
         runRecovery();
+        // 此时服务器已 RUNNING，可安全创建/加载池世界
+        arenaPool.start();
     }
 
     /**
@@ -217,6 +251,9 @@ public class GuildWorldService {
      * 插件 onDisable 时调用：优雅卸载所有受管世界 + 标记 cleanShutdown。
      */
     public void shutdown() {
+        arenaPool.stop();
+        activePastes.values().forEach(PasteTask::cancel);
+        activePastes.clear();
         for (GuildWorld gw : new ArrayList<>(registry.all())) {
             WorldStatus status = gw.getStatus();
             if (status == WorldStatus.REGISTERED || status == WorldStatus.UNLOADED) {
@@ -389,6 +426,7 @@ public class GuildWorldService {
             return future;
         }
 
+        cancelPaste(name);
         journal.begin(WorldJournal.Op.UNLOAD, name);
         gw.setStatus(WorldStatus.UNLOADING);
         registry.save();
@@ -442,6 +480,7 @@ public class GuildWorldService {
             return future;
         }
 
+        cancelPaste(name);
         journal.begin(WorldJournal.Op.DELETE, name);
         gw.setStatus(WorldStatus.UNLOADING);
         registry.save();
@@ -828,8 +867,9 @@ public class GuildWorldService {
                                   CompletableFuture<PresetService.PresetMeta> future) {
         CompatibleScheduler.runTaskAsync(plugin, () -> {
             try {
-                Path gws = presets.gwsFile(presetName).toPath();
-                SchematicCodec.write(gws, data);
+                Path gwsb = presets.gwsbFile(presetName).toPath();
+                SchematicCodec.write(gwsb, data);
+                presets.invalidatePrepared(presetName);
                 PresetService.Anchor a = toAnchor(session.spawnA, originAbs);
                 PresetService.Anchor b = toAnchor(session.spawnB, originAbs);
                 PresetService.Anchor spec = toAnchor(session.spectator, originAbs);
@@ -874,6 +914,13 @@ public class GuildWorldService {
     }
 
     public CompletableFuture<Void> pastePreset(World world, Location pasteAt, String presetName) {
+        return pastePreset(world, pasteAt, presetName, ignoreAirOnPaste);
+    }
+
+    /**
+     * @param ignoreAir 是否跳过空气；重置已用过的战场时须为 false，才能清掉玩家放置的方块
+     */
+    public CompletableFuture<Void> pastePreset(World world, Location pasteAt, String presetName, boolean ignoreAir) {
         CompletableFuture<Void> future = new CompletableFuture<>();
         if (!enabled) {
             future.completeExceptionally(new IllegalStateException(unsupportedMessage()));
@@ -886,18 +933,24 @@ public class GuildWorldService {
         }
         CompatibleScheduler.runTaskAsync(plugin, () -> {
             try {
-                SchematicData data = SchematicCodec.read(presets.gwsFile(presetName).toPath());
+                PreparedSchematic schematic = presets.loadPrepared(presetName);
                 Location at = pasteAt.clone();
                 at.setWorld(world);
-                SchematicPaster.pasteAsync(plugin, world, at, data, ignoreAirOnPaste, includeBlockEntities, plugin.getLogger())
-                        .whenComplete((v, err) -> {
-                            if (err != null) {
-                                future.completeExceptionally(err);
-                            } else {
-                                applyAnchorsToManagedWorld(world.getName(), meta, at, data);
-                                future.complete(null);
-                            }
-                        });
+                PasteTask task = SchematicPaster.start(plugin, world, at, schematic, ignoreAir,
+                        includeBlockEntities, pasteBudget, plugin.getLogger());
+                PasteTask previous = activePastes.put(world.getName(), task);
+                if (previous != null) {
+                    previous.cancel();
+                }
+                task.future().whenComplete((v, err) -> {
+                    activePastes.remove(world.getName(), task);
+                    if (err != null) {
+                        future.completeExceptionally(err);
+                    } else {
+                        applyAnchorsToManagedWorld(world.getName(), meta, at);
+                        future.complete(null);
+                    }
+                });
             } catch (Throwable t) {
                 future.completeExceptionally(t);
             }
@@ -906,7 +959,7 @@ public class GuildWorldService {
     }
 
     private void applyAnchorsToManagedWorld(String worldName, PresetService.PresetMeta meta,
-                                            Location pasteAt, SchematicData data) {
+                                            Location pasteAt) {
         GuildWorld gw = registry.get(worldName);
         if (gw == null) {
             return;
@@ -972,7 +1025,7 @@ public class GuildWorldService {
                         return CompletableFuture.failedFuture(
                                 new IllegalStateException("World missing after create"));
                     }
-                    Location pasteAt = new Location(world, 0.5, 64, 0.5);
+                    Location pasteAt = arenaPasteAt(world);
                     return pastePreset(world, pasteAt, presetName).thenApply(v -> {
                         ArenaSpawns spawns = resolvePresetSpawns(world, pasteAt, meta);
                         gw.setStatus(WorldStatus.BUSY);
@@ -983,6 +1036,150 @@ public class GuildWorldService {
                 });
     }
 
+    /**
+     * 将已存在的战场世界恢复为预设原样（含空气，覆盖玩家改动；与现有相同的方块不重写）。
+     * 粘贴前先清除世界中的非玩家实体（见 {@link #clearArenaEntities}）。
+     */
+    public CompletableFuture<ArenaSpawns> resetArena(String worldName, String presetName) {
+        PresetService.PresetMeta meta = presets.get(presetName);
+        World world = Bukkit.getWorld(worldName);
+        if (meta == null || world == null) {
+            return CompletableFuture.failedFuture(new IllegalStateException(
+                    "Cannot reset arena " + worldName + " (preset=" + presetName + ")"));
+        }
+        Location pasteAt = arenaPasteAt(world);
+        return clearArenaEntities(world, meta)
+                .thenCompose(v -> pastePreset(world, pasteAt, presetName, false))
+                .thenApply(v -> resolvePresetSpawns(world, pasteAt, meta));
+    }
+
+    /**
+     * 只恢复对局中改动过的位置（见 {@link com.guild.world.pool.ArenaChangeTracker}），
+     * 不触碰其余方块；预设中的方块实体（容器内容等）总是整体重写。粘贴前先清除非玩家实体。
+     *
+     * @param positions {@link SchematicPaster#packPosition} 打包的世界坐标
+     */
+    public CompletableFuture<ArenaSpawns> restoreArena(String worldName, String presetName, long[] positions) {
+        PresetService.PresetMeta meta = presets.get(presetName);
+        World world = Bukkit.getWorld(worldName);
+        if (meta == null || world == null) {
+            return CompletableFuture.failedFuture(new IllegalStateException(
+                    "Cannot restore arena " + worldName + " (preset=" + presetName + ")"));
+        }
+        Location pasteAt = arenaPasteAt(world);
+        CompletableFuture<ArenaSpawns> future = new CompletableFuture<>();
+        clearArenaEntities(world, meta).whenComplete((cleared, clearErr) -> {
+            if (clearErr != null) {
+                future.completeExceptionally(clearErr);
+                return;
+            }
+            CompatibleScheduler.runTaskAsync(plugin, () -> restoreArenaBlocks(world, pasteAt, presetName, meta, positions, future));
+        });
+        return future;
+    }
+
+    private void restoreArenaBlocks(World world, Location pasteAt, String presetName, PresetService.PresetMeta meta,
+                                    long[] positions, CompletableFuture<ArenaSpawns> future) {
+        String worldName = world.getName();
+        try {
+            PreparedSchematic schematic = presets.loadPrepared(presetName);
+            PasteTask task = SchematicPaster.restore(plugin, world, pasteAt, schematic, positions,
+                    includeBlockEntities, pasteBudget, plugin.getLogger());
+            PasteTask previous = activePastes.put(worldName, task);
+            if (previous != null) {
+                previous.cancel();
+            }
+            task.future().whenComplete((v, err) -> {
+                activePastes.remove(worldName, task);
+                if (err != null) {
+                    future.completeExceptionally(err);
+                } else {
+                    future.complete(resolvePresetSpawns(world, pasteAt, meta));
+                }
+            });
+        } catch (Throwable t) {
+            future.completeExceptionally(t);
+        }
+    }
+
+    /**
+     * 移除战场世界中除玩家外的全部实体（掉落物、箭、点燃的 TNT、下落方块、载具、盔甲架、展示框、生物等），
+     * 避免带入下一场对局。在实体所属线程执行：Spigot 为主线程一次遍历整个世界；Folia 按区块调度到
+     * 各区域线程，覆盖预设范围并外扩 {@link #ARENA_ENTITY_MARGIN_CHUNKS} 个区块。全部完成后 future 完成。
+     */
+    public CompletableFuture<Void> clearArenaEntities(World world, PresetService.PresetMeta meta) {
+        if (!ServerUtils.isFolia()) {
+            CompletableFuture<Void> done = new CompletableFuture<>();
+            CompatibleScheduler.runTask(plugin, () -> {
+                try {
+                    removeNonPlayers(world.getEntities());
+                    done.complete(null);
+                } catch (Throwable t) {
+                    done.completeExceptionally(t);
+                }
+            });
+            return done;
+        }
+        Location center = arenaPasteAt(world);
+        int radius = (Math.max(meta.sizeX(), meta.sizeZ()) >> 4) + 1 + ARENA_ENTITY_MARGIN_CHUNKS;
+        int centerX = center.getBlockX() >> 4;
+        int centerZ = center.getBlockZ() >> 4;
+        List<CompletableFuture<Void>> parts = new ArrayList<>();
+        for (int cx = centerX - radius; cx <= centerX + radius; cx++) {
+            for (int cz = centerZ - radius; cz <= centerZ + radius; cz++) {
+                int chunkX = cx;
+                int chunkZ = cz;
+                CompletableFuture<Void> part = new CompletableFuture<>();
+                parts.add(part);
+                CompatibleScheduler.runTask(plugin, new Location(world, (chunkX << 4) + 8, 64, (chunkZ << 4) + 8), () -> {
+                    try {
+                        if (world.isChunkLoaded(chunkX, chunkZ)) {
+                            removeNonPlayers(Arrays.asList(world.getChunkAt(chunkX, chunkZ).getEntities()));
+                        }
+                        part.complete(null);
+                    } catch (Throwable t) {
+                        part.completeExceptionally(t);
+                    }
+                });
+            }
+        }
+        return CompletableFuture.allOf(parts.toArray(new CompletableFuture[0]));
+    }
+
+    private static void removeNonPlayers(Collection<? extends Entity> entities) {
+        for (Entity entity : new ArrayList<>(entities)) {
+            if (!(entity instanceof Player)) {
+                entity.remove();
+            }
+        }
+    }
+
+    private static Location arenaPasteAt(World world) {
+        return new Location(world, 0.5, 64, 0.5);
+    }
+
+    /** 预热战场池（未启用时为空操作）。 */
+    public ArenaPool getArenaPool() {
+        return arenaPool;
+    }
+
+    /** 世界上进行中的粘贴（无则 null），可用于查询进度。 */
+    public PasteTask getActivePaste(String worldName) {
+        return activePastes.get(worldName);
+    }
+
+    /** 取消世界上进行中的粘贴；已写入的方块保留。 */
+    public boolean cancelPaste(String worldName) {
+        PasteTask task = activePastes.remove(worldName);
+        if (task == null) {
+            return false;
+        }
+        task.cancel();
+        plugin.getLogger().info("[World] Cancelled paste in '" + worldName + "' at "
+                + Math.round(task.getProgress() * 100) + "%");
+        return true;
+    }
+
     public GuildPlugin getPlugin() {
         return plugin;
     }
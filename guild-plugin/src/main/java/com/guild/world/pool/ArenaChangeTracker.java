@@ -0,0 +1,281 @@
+package com.guild.world.pool;
+
+import com.guild.world.schematic.SchematicPaster;
+import org.bukkit.block.Block;
+import org.bukkit.block.BlockFace;
+import org.bukkit.block.BlockState;
+import org.bukkit.block.data.Directional;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.block.BlockBreakEvent;
+import org.bukkit.event.block.BlockBurnEvent;
+import org.bukkit.event.block.BlockDispenseEvent;
+import org.bukkit.event.block.BlockExplodeEvent;
+import org.bukkit.event.block.BlockFadeEvent;
+import org.bukkit.event.block.BlockFormEvent;
+import org.bukkit.event.block.BlockFromToEvent;
+import org.bukkit.event.block.BlockIgniteEvent;
+import org.bukkit.event.block.BlockMultiPlaceEvent;
+import org.bukkit.event.block.BlockPhysicsEvent;
+import org.bukkit.event.block.BlockPistonExtendEvent;
+import org.bukkit.event.block.BlockPistonRetractEvent;
+import org.bukkit.event.block.BlockPlaceEvent;
+import org.bukkit.event.block.LeavesDecayEvent;
+import org.bukkit.event.entity.EntityChangeBlockEvent;
+import org.bukkit.event.entity.EntityExplodeEvent;
+import org.bukkit.event.player.PlayerBucketEmptyEvent;
+import org.bukkit.event.player.PlayerBucketFillEvent;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 记录被跟踪战场世界内对局期间改动过的方块位置（只记坐标，不记状态）。
+ *
+ * <p>{@link ArenaPool} 在租出战场时开始跟踪，归还时取出改动集合交给
+ * {@link SchematicPaster#restore} 只恢复这些位置。改动数超过阈值即标记溢出并停止记录，
+ * 由调用方退回整图重建。事件均在 MONITOR 优先级、忽略已取消事件。
+ * <p>移除类事件（破坏、爆炸、燃烧等）同时记录六个相邻位置：依附其上的火把、告示牌、铁轨、地毯、
+ * 压力板以及门 / 床 / 高草的另一半都会随之掉落而不产生自己的事件。更远的连锁掉落（甘蔗、仙人掌、
+ * 脚手架等）由 {@link BlockPhysicsEvent} 记录。
+ * <p>容器内容等方块实体状态不在此记录：恢复时总是重写预设中的全部方块实体。
+ */
+public final class ArenaChangeTracker implements Listener {
+
+    private static final BlockFace[] NEIGHBOURS = {
+            BlockFace.UP, BlockFace.DOWN, BlockFace.NORTH, BlockFace.SOUTH, BlockFace.EAST, BlockFace.WEST
+    };
+
+    /** 单个世界的改动集合；溢出后 positions 清空且不再记录。 */
+    public static final class ChangeSet {
+        private final Set<Long> positions = ConcurrentHashMap.newKeySet();
+        private final int limit;
+        private volatile boolean overflowed;
+
+        ChangeSet(int limit) {
+            this.limit = limit;
+        }
+
+        void add(Block block) {
+            if (overflowed) {
+                return;
+            }
+            positions.add(SchematicPaster.packPosition(block.getX(), block.getY(), block.getZ()));
+            if (positions.size() > limit) {
+                overflowed = true;
+                positions.clear();
+            }
+        }
+
+        /** 方块本身及六个相邻位置（依附方块与双格方块的另一半）。 */
+        void addWithNeighbours(Block block) {
+            add(block);
+            for (BlockFace face : NEIGHBOURS) {
+                add(block.getRelative(face));
+            }
+        }
+
+        public boolean isOverflowed() {
+            return overflowed;
+        }
+
+        public int size() {
+            return positions.size();
+        }
+
+        public long[] toArray() {
+            long[] out = new long[positions.size()];
+            int i = 0;
+            for (Long p : positions) {
+                if (i == out.length) {
+                    break;
+                }
+                out[i++] = p;
+            }
+            return i == out.length ? out : Arrays.copyOf(out, i);
+        }
+    }
+
+    private final Map<String, ChangeSet> tracked = new ConcurrentHashMap<>();
+    private volatile int limit = 50_000;
+
+    public void setLimit(int limit) {
+        this.limit = Math.max(1, limit);
+    }
+
+    /** 开始（重新）跟踪世界，丢弃之前的记录。 */
+    public void track(String worldName) {
+        tracked.put(worldName, new ChangeSet(limit));
+    }
+
+    /** 停止跟踪并返回记录；未跟踪返回 null。 */
+    public ChangeSet untrack(String worldName) {
+        return tracked.remove(worldName);
+    }
+
+    public boolean isTracked(String worldName) {
+        return tracked.containsKey(worldName);
+    }
+
+    private ChangeSet changes(Block block) {
+        if (tracked.isEmpty()) {
+            return null;
+        }
+        return tracked.get(block.getWorld().getName());
+    }
+
+    private void record(Block block) {
+        ChangeSet set = changes(block);
+        if (set != null) {
+            set.add(block);
+        }
+    }
+
+    /** 移除类改动：连同相邻位置一起记录。 */
+    private void recordRemoval(Block block) {
+        ChangeSet set = changes(block);
+        if (set != null) {
+            set.addWithNeighbours(block);
+        }
+    }
+
+    private void recordRemoval(List<Block> blocks) {
+        if (blocks.isEmpty()) {
+            return;
+        }
+        ChangeSet set = changes(blocks.get(0));
+        if (set != null) {
+            for (Block block : blocks) {
+                set.addWithNeighbours(block);
+            }
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBreak(BlockBreakEvent event) {
+        recordRemoval(event.getBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onPlace(BlockPlaceEvent event) {
+        if (event instanceof BlockMultiPlaceEvent multi) {
+            ChangeSet set = changes(event.getBlock());
+            if (set != null) {
+                for (BlockState state : multi.getReplacedBlockStates()) {
+                    set.add(state.getBlock());
+                }
+            }
+        }
+        record(event.getBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onEntityExplode(EntityExplodeEvent event) {
+        recordRemoval(event.blockList());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockExplode(BlockExplodeEvent event) {
+        recordRemoval(event.getBlock());
+        recordRemoval(event.blockList());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBurn(BlockBurnEvent event) {
+        recordRemoval(event.getBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onFade(BlockFadeEvent event) {
+        recordRemoval(event.getBlock());
+    }
+
+    /** 连锁掉落：失去支撑的方块在自身收到物理更新时被移除。 */
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onPhysics(BlockPhysicsEvent event) {
+        record(event.getBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onIgnite(BlockIgniteEvent event) {
+        record(event.getBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onLeavesDecay(LeavesDecayEvent event) {
+        recordRemoval(event.getBlock());
+    }
+
+    /** 发射器/投掷器本体及其朝向的方块（倒水、放置方块、剪羊毛等）。 */
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onDispense(BlockDispenseEvent event) {
+        ChangeSet set = changes(event.getBlock());
+        if (set == null) {
+            return;
+        }
+        Block block = event.getBlock();
+        set.add(block);
+        if (block.getBlockData() instanceof Directional directional) {
+            set.add(block.getRelative(directional.getFacing()));
+        }
+    }
+
+    /** 含 BlockSpreadEvent（火、菌丝等蔓延）。 */
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onForm(BlockFormEvent event) {
+        record(event.getBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onFlow(BlockFromToEvent event) {
+        record(event.getToBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onPistonExtend(BlockPistonExtendEvent event) {
+        ChangeSet set = changes(event.getBlock());
+        if (set == null) {
+            return;
+        }
+        recordPiston(set, event.getBlock(), event.getDirection(), event.getBlocks());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onPistonRetract(BlockPistonRetractEvent event) {
+        ChangeSet set = changes(event.getBlock());
+        if (set == null) {
+            return;
+        }
+        recordPiston(set, event.getBlock(), event.getDirection(), event.getBlocks());
+    }
+
+    /** 活塞本体、两侧（活塞头）以及被推/拉方块的原位置与目标位置。 */
+    private static void recordPiston(ChangeSet set, Block piston, BlockFace face, List<Block> moved) {
+        set.add(piston);
+        set.add(piston.getRelative(face));
+        set.add(piston.getRelative(face.getOppositeFace()));
+        for (Block block : moved) {
+            set.add(block);
+            set.add(block.getRelative(face));
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onEntityChangeBlock(EntityChangeBlockEvent event) {
+        recordRemoval(event.getBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBucketEmpty(PlayerBucketEmptyEvent event) {
+        record(event.getBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBucketFill(PlayerBucketFillEvent event) {
+        recordRemoval(event.getBlock());
+    }
+}
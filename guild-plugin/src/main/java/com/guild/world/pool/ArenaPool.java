@@ -0,0 +1,411 @@
+package com.guild.world.pool;
+
+import com.guild.core.utils.CompatibleScheduler;
+import com.guild.core.utils.ScheduledTaskHandle;
+import com.guild.world.GuildWorldService;
+import com.guild.world.model.GuildWorld;
+import com.guild.world.model.WorldStatus;
+import org.bukkit.Bukkit;
+import org.bukkit.World;
+import org.bukkit.configuration.file.FileConfiguration;
+import org.bukkit.entity.Player;
+
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * 预热战场池：按预设预先创建并粘贴好的战场世界，开战时直接租用，只需传送。
+ *
+ * <p>生命周期：后台补足（create + paste）→ READY 入池 → {@link #lease} 置 BUSY →
+ * 对局结束 {@link #release} → 只恢复 {@link ArenaChangeTracker} 记录的改动位置 → 回池
+ * （改动超过 {@code world.arena.reset.max-changed-blocks} 时删除世界、由补足流程重建；
+ * 池满或预设已移出配置时同样删除）。
+ * 池世界名以 {@link #KEY_PREFIX} 开头；重启后残留的池世界会被加载并重置后重新入池。
+ *
+ * <p>配置：{@code world.arena.pool.enabled / size / presets / refill-interval-seconds}
+ */
+public final class ArenaPool {
+
+    /** 池世界名前缀（在 world.name-prefix 之后） */
+    public static final String KEY_PREFIX = "pool_";
+
+    /** 租用结果：世界名 + 出生点。 */
+    public record Lease(String worldName, GuildWorldService.ArenaSpawns spawns) {
+    }
+
+    private record Arena(String preset, String worldName, GuildWorldService.ArenaSpawns spawns) {
+    }
+
+    private static final class PresetPool {
+        final Deque<Arena> ready = new ConcurrentLinkedDeque<>();
+        /** 正在创建或重置、稍后会入池的数量 */
+        final AtomicInteger pending = new AtomicInteger();
+    }
+
+    private final GuildWorldService service;
+    private final Logger logger;
+    private final Map<String, PresetPool> pools = new ConcurrentHashMap<>();
+    private final Map<String, Arena> leased = new ConcurrentHashMap<>();
+    private final ArenaChangeTracker tracker = new ArenaChangeTracker();
+    private final AtomicBoolean started = new AtomicBoolean(false);
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong resets = new AtomicLong();
+    private final AtomicLong diffResets = new AtomicLong();
+    private final AtomicLong recreates = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+
+    private volatile boolean enabled;
+    private volatile int sizePerPreset;
+    private volatile Set<String> presets = Set.of();
+    private volatile long refillIntervalTicks;
+    private ScheduledTaskHandle refillTask;
+
+    public ArenaPool(GuildWorldService service) {
+        this.service = service;
+        this.logger = service.getPlugin().getLogger();
+    }
+
+    public void reloadSettings(FileConfiguration config) {
+        this.enabled = config.getBoolean("world.arena.pool.enabled", false);
+        this.sizePerPreset = Math.max(0, config.getInt("world.arena.pool.size", 1));
+        Set<String> names = new LinkedHashSet<>();
+        for (String name : config.getStringList("world.arena.pool.presets")) {
+            if (name != null && !name.isBlank()) {
+                names.add(name.trim().toLowerCase(Locale.ROOT));
+            }
+        }
+        this.presets = names;
+        tracker.setLimit(config.getInt("world.arena.reset.max-changed-blocks", 50_000));
+        long interval = Math.max(5L, config.getLong("world.arena.pool.refill-interval-seconds", 30L)) * 20L;
+        boolean intervalChanged = interval != refillIntervalTicks;
+        this.refillIntervalTicks = interval;
+        if (started.get() && intervalChanged) {
+            scheduleRefill();
+        }
+    }
+
+    /** 服务器 RUNNING 后调用一次：收编残留池世界并开始后台补足。 */
+    public void start() {
+        if (!service.isEnabled() || !started.compareAndSet(false, true)) {
+            return;
+        }
+        adoptLeftovers();
+        scheduleRefill();
+    }
+
+    public synchronized void stop() {
+        if (refillTask != null) {
+            refillTask.cancel();
+            refillTask = null;
+        }
+    }
+
+    private synchronized void scheduleRefill() {
+        if (refillTask != null) {
+            refillTask.cancel();
+        }
+        refillTask = CompatibleScheduler.runTaskTimer(service.getPlugin(), this::refill,
+                refillIntervalTicks, refillIntervalTicks);
+    }
+
+    /* ── 租用 / 归还 ─────────────────────────────────────── */
+
+    /**
+     * 取出一个已就绪的战场；池未启用或没有就绪实例时返回 null（调用方回退到现建）。
+     */
+    public Lease lease(String presetName) {
+        if (!enabled || presetName == null) {
+            return null;
+        }
+        String preset = presetName.toLowerCase(Locale.ROOT);
+        PresetPool pool = pools.get(preset);
+        Arena arena;
+        while (pool != null && (arena = pool.ready.pollFirst()) != null) {
+            GuildWorld gw = service.getWorld(arena.worldName());
+            if (gw == null || Bukkit.getWorld(arena.worldName()) == null) {
+                continue;
+            }
+            gw.setStatus(WorldStatus.BUSY);
+            gw.touch();
+            service.getRegistry().save();
+            leased.put(arena.worldName(), arena);
+            tracker.track(arena.worldName());
+            hits.incrementAndGet();
+            CompatibleScheduler.runTask(service.getPlugin(), this::refill);
+            return new Lease(arena.worldName(), arena.spawns());
+        }
+        misses.incrementAndGet();
+        if (presets.contains(preset)) {
+            CompatibleScheduler.runTask(service.getPlugin(), this::refill);
+        }
+        return null;
+    }
+
+    /**
+     * 将现建的战场（post-match=reset）纳入跟踪，结束时与池世界一样经 {@link #release} 差量恢复；
+     * 池不需要时仍会被删除。
+     */
+    public void attach(String worldName, String presetName, GuildWorldService.ArenaSpawns spawns) {
+        if (worldName == null || presetName == null) {
+            return;
+        }
+        leased.put(worldName, new Arena(presetName.toLowerCase(Locale.ROOT), worldName, spawns));
+        tracker.track(worldName);
+    }
+
+    /**
+     * 对局结束后归还。非池世界返回 false（调用方按原策略处理）；
+     * 池世界在此差量恢复后回池，改动过多、池满或预设已不在配置中则删除。
+     * 恢复前撤出玩家并清除其余实体（{@link GuildWorldService#clearArenaEntities}），二者与粘贴都完成后才回到 ready。
+     */
+    public boolean release(String worldName) {
+        Arena arena = worldName == null ? null : leased.remove(worldName);
+        if (arena == null) {
+            return false;
+        }
+        ArenaChangeTracker.ChangeSet changes = tracker.untrack(worldName);
+        PresetPool pool = pool(arena.preset());
+        if (!wanted(arena.preset(), pool)) {
+            retire(worldName);
+            return true;
+        }
+        if (changes != null && changes.isOverflowed()) {
+            // 改动过多：差量恢复不划算，删除后由 refill 整图重建
+            recreates.incrementAndGet();
+            logger.info("[World] Arena pool: '" + worldName + "' changed too much, recreating");
+            retire(worldName);
+            CompatibleScheduler.runTask(service.getPlugin(), this::refill);
+            return true;
+        }
+        pool.pending.incrementAndGet();
+        evacuate(worldName);
+        if (changes != null) {
+            restore(arena.preset(), worldName, pool, changes.toArray());
+        } else {
+            reset(arena.preset(), worldName, pool);
+        }
+        return true;
+    }
+
+    public boolean isPooled(String worldName) {
+        return worldName != null && leased.containsKey(worldName);
+    }
+
+    /* ── 后台维护 ─────────────────────────────────────────── */
+
+    /** 每个预设每轮最多补一个，避免同时建多个世界造成卡顿。 */
+    private void refill() {
+        if (!enabled || !started.get()) {
+            return;
+        }
+        for (String preset : presets) {
+            PresetPool pool = pool(preset);
+            if (pool.ready.size() + pool.pending.get() >= sizePerPreset) {
+                continue;
+            }
+            if (!service.getPresets().hasSchematicFile(preset)) {
+                logger.warning("[World] Arena pool: preset '" + preset + "' has no schematic, skipping");
+                continue;
+            }
+            pool.pending.incrementAndGet();
+            String key = nextWorldKey(preset);
+            service.createArenaFromPreset(key, preset).whenComplete((result, err) -> {
+                pool.pending.decrementAndGet();
+                if (err != null) {
+                    failures.incrementAndGet();
+                    logger.log(Level.WARNING, "[World] Arena pool: failed to create '" + key + "'", err);
+                    String name = service.buildWorldName(key);
+                    if (service.isManaged(name)) {
+                        retire(name);
+                    }
+                    return;
+                }
+                offer(preset, pool, result.world(), result.spawns());
+            });
+        }
+        // 池缩小或预设移出配置：删除多余的空闲实例
+        for (Map.Entry<String, PresetPool> e : pools.entrySet()) {
+            PresetPool pool = e.getValue();
+            int keep = presets.contains(e.getKey()) && enabled ? sizePerPreset : 0;
+            while (pool.ready.size() > keep) {
+                Arena extra = pool.ready.pollLast();
+                if (extra == null) {
+                    break;
+                }
+                retire(extra.worldName());
+            }
+        }
+    }
+
+    /** 上次运行留下的池世界：仍需要的加载并重置后入池，其余删除。 */
+    private void adoptLeftovers() {
+        String prefix = service.buildWorldName(KEY_PREFIX);
+        for (GuildWorld gw : new ArrayList<>(service.getWorlds())) {
+            String name = gw.getWorldName();
+            if (name == null || !name.startsWith(prefix)) {
+                continue;
+            }
+            String preset = gw.getPresetName() == null ? "" : gw.getPresetName().toLowerCase(Locale.ROOT);
+            PresetPool pool = pool(preset);
+            if (!enabled || !wanted(preset, pool)) {
+                retire(name);
+                continue;
+            }
+            pool.pending.incrementAndGet();
+            service.loadWorld(name).whenComplete((loaded, err) -> {
+                if (err != null) {
+                    pool.pending.decrementAndGet();
+                    failures.incrementAndGet();
+                    logger.log(Level.WARNING, "[World] Arena pool: failed to load leftover '" + name + "'", err);
+                    retire(name);
+                    return;
+                }
+                reset(preset, name, pool);
+            });
+        }
+    }
+
+    /** 调用前已 pending++；只恢复改动位置，完成后 pending-- 并入池或删除。 */
+    private void restore(String preset, String worldName, PresetPool pool, long[] positions) {
+        markResetting(worldName);
+        service.restoreArena(worldName, preset, positions).whenComplete((spawns, err) -> {
+            if (err == null) {
+                diffResets.incrementAndGet();
+            }
+            onReset(preset, worldName, pool, spawns, err);
+        });
+    }
+
+    /** 调用前已 pending++；整图重新粘贴（无改动记录时，如重启后收编），完成后 pending-- 并入池或删除。 */
+    private void reset(String preset, String worldName, PresetPool pool) {
+        markResetting(worldName);
+        service.resetArena(worldName, preset).whenComplete((spawns, err) ->
+                onReset(preset, worldName, pool, spawns, err));
+    }
+
+    private void markResetting(String worldName) {
+        GuildWorld gw = service.getWorld(worldName);
+        if (gw != null) {
+            gw.setStatus(WorldStatus.LOADING);
+            gw.touch();
+            service.getRegistry().save();
+        }
+    }
+
+    private void onReset(String preset, String worldName, PresetPool pool,
+                         GuildWorldService.ArenaSpawns spawns, Throwable err) {
+        pool.pending.decrementAndGet();
+        if (err != null) {
+            failures.incrementAndGet();
+            logger.log(Level.WARNING, "[World] Arena pool: failed to reset '" + worldName + "'", err);
+            retire(worldName);
+            return;
+        }
+        resets.incrementAndGet();
+        GuildWorld current = service.getWorld(worldName);
+        if (current == null) {
+            return;
+        }
+        offer(preset, pool, current, spawns);
+    }
+
+    private void offer(String preset, PresetPool pool, GuildWorld gw, GuildWorldService.ArenaSpawns spawns) {
+        if (!enabled || !presets.contains(preset) || pool.ready.size() >= sizePerPreset) {
+            retire(gw.getWorldName());
+            return;
+        }
+        gw.setStatus(WorldStatus.READY);
+        gw.touch();
+        service.getRegistry().save();
+        pool.ready.addLast(new Arena(preset, gw.getWorldName(), spawns));
+        logger.info("[World] Arena pool: '" + gw.getWorldName() + "' ready (preset=" + preset
+                + ", ready=" + pool.ready.size() + "/" + sizePerPreset + ")");
+    }
+
+    private boolean wanted(String preset, PresetPool pool) {
+        return enabled && presets.contains(preset)
+                && pool.ready.size() + pool.pending.get() < sizePerPreset;
+    }
+
+    private void retire(String worldName) {
+        tracker.untrack(worldName);
+        evacuate(worldName);
+        service.deleteWorld(worldName, true).whenComplete((v, err) -> {
+            if (err != null) {
+                logger.log(Level.WARNING, "[World] Arena pool: failed to delete '" + worldName + "'", err);
+            }
+        });
+    }
+
+    /** 观战者 / 掉线重连者可能仍在世界中。 */
+    private void evacuate(String worldName) {
+        World world = Bukkit.getWorld(worldName);
+        if (world == null) {
+            return;
+        }
+        for (Player player : new ArrayList<>(world.getPlayers())) {
+            service.teleportToFallbackWorld(player);
+        }
+    }
+
+    private String nextWorldKey(String preset) {
+        int n = 1;
+        String key;
+        do {
+            key = KEY_PREFIX + preset.replaceAll("[^a-z0-9_]", "_") + "_" + n++;
+        } while (service.isManaged(service.buildWorldName(key)));
+        return key;
+    }
+
+    private PresetPool pool(String preset) {
+        return pools.computeIfAbsent(preset, k -> new PresetPool());
+    }
+
+    public ArenaChangeTracker getChangeTracker() {
+        return tracker;
+    }
+
+    /* ── 指标 ─────────────────────────────────────────────── */
+
+    public int getReadyCount(String presetName) {
+        PresetPool pool = pools.get(presetName.toLowerCase(Locale.ROOT));
+        return pool == null ? 0 : pool.ready.size();
+    }
+
+    public int getLeasedCount() {
+        return leased.size();
+    }
+
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    public String describe() {
+        List<String> parts = new ArrayList<>();
+        for (Map.Entry<String, PresetPool> e : pools.entrySet()) {
+            parts.add(e.getKey() + "{ready=" + e.getValue().ready.size()
+                    + ", pending=" + e.getValue().pending.get() + "}");
+        }
+        return String.format("enabled=%s size=%d leased=%d hits=%d misses=%d resets=%d (diff=%d) recreates=%d"
+                        + " failures=%d %s",
+                enabled, sizePerPreset, leased.size(), hits.get(), misses.get(), resets.get(), diffResets.get(),
+                recreates.get(), failures.get(), parts);
+    }
+}
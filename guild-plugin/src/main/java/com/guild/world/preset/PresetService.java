@@ -1,19 +1,35 @@
 package com.guild.world.preset;
 
+import com.guild.world.schematic.PreparedSchematic;
+import com.guild.world.schematic.SchematicBinaryCodec;
+import com.guild.world.schematic.SchematicCodec;
+import com.guild.world.schematic.SchematicData;
+import com.guild.world.schematic.SchematicFormatBenchmark;
 import org.bukkit.configuration.file.YamlConfiguration;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Objects;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 /**
- * 预设仓库：{@code <name>.yml} 元数据 + {@code <name>.gws} schematic。
+ * 预设仓库：{@code <name>.yml} 元数据 + {@code <name>.gwsb} schematic。
+ *
+ * <p>旧版 {@code <name>.gws}（GZIP + JSON）仍可读取；启动时 {@link #convertLegacySchematics}
+ * 将其转换为 {@code .gwsb}，原文件改名为 {@code .gws.bak} 保留。
+ *
+ * <p>{@link #loadPrepared} 维护已解码 schematic 的 LRU 缓存（按条数与估算字节数限额），
+ * 文件 mtime / 长度变化即视为失效；公会战反复用同几张图建战场时无需每次解压与解析调色板。
  */
 public class PresetService {
 
@@ -60,8 +76,20 @@ public class PresetService {
     ) {
     }
 
+    private record CachedSchematic(long lastModified, long length, PreparedSchematic schematic) {
+    }
+
     private final File presetDir;
     private final Logger logger;
+    /** 访问序 LRU：预设名 → 已解码 schematic；所有访问在 this 上同步。 */
+    private final LinkedHashMap<String, CachedSchematic> preparedCache = new LinkedHashMap<>(16, 0.75f, true);
+    private long preparedCacheBytes;
+    private int cacheMaxEntries = 8;
+    private long cacheMaxBytes = 64L * 1024 * 1024;
+    private long cacheHits;
+    private long cacheMisses;
+    /** 转换时是否运行格式对比（强制 GC + 多次全量加载），仅用于排查，默认关闭。 */
+    private volatile boolean benchmarkOnConvert;
 
     public PresetService(File worldsDir, Logger logger) {
         this.presetDir = new File(worldsDir, "presets");
@@ -76,20 +104,164 @@ public class PresetService {
     }
 
     public boolean hasSchematicFile(String name) {
-        return gwsFile(name).isFile();
+        return gwsbFile(name).isFile() || gwsFile(name).isFile();
+    }
+
+    /** 读取用：优先 .gwsb，未转换时回退旧版 .gws；都不存在时返回 .gwsb 路径。 */
+    public File schematicFile(String name) {
+        File binary = gwsbFile(name);
+        if (binary.isFile()) {
+            return binary;
+        }
+        File legacy = gwsFile(name);
+        return legacy.isFile() ? legacy : binary;
+    }
+
+    /** 新版二进制 schematic（写入目标）。 */
+    public File gwsbFile(String name) {
+        return new File(presetDir, normalize(name) + SchematicBinaryCodec.EXTENSION);
     }
 
+    /** 旧版 GZIP + JSON schematic。 */
     public File gwsFile(String name) {
         return new File(presetDir, normalize(name) + ".gws");
     }
 
+    // ==================== 已解码 schematic 缓存 ====================
+
+    /** 调整缓存上限（配置重载时调用），超出部分立即淘汰。 */
+    public synchronized void configureCache(int maxEntries, long maxBytes) {
+        this.cacheMaxEntries = Math.max(0, maxEntries);
+        this.cacheMaxBytes = Math.max(0, maxBytes);
+        evict();
+    }
+
+    public void setBenchmarkOnConvert(boolean benchmarkOnConvert) {
+        this.benchmarkOnConvert = benchmarkOnConvert;
+    }
+
+    /**
+     * 读取并解码预设 schematic（IO + 解析调色板，须在异步线程调用）。
+     * 缓存命中且文件未变化时直接返回共享的不可变实例。
+     */
+    public PreparedSchematic loadPrepared(String name) throws IOException {
+        String key = normalize(name);
+        File file = schematicFile(key);
+        if (!file.isFile()) {
+            throw new IOException("Preset schematic not found: " + key);
+        }
+        long lastModified = file.lastModified();
+        long length = file.length();
+        synchronized (this) {
+            CachedSchematic cached = preparedCache.get(key);
+            if (cached != null && cached.lastModified() == lastModified && cached.length() == length) {
+                cacheHits++;
+                return cached.schematic();
+            }
+            cacheMisses++;
+        }
+        PreparedSchematic schematic = PreparedSchematic.of(SchematicCodec.read(file.toPath()));
+        synchronized (this) {
+            CachedSchematic previous = preparedCache.put(key, new CachedSchematic(lastModified, length, schematic));
+            if (previous != null) {
+                preparedCacheBytes -= previous.schematic().estimatedBytes();
+            }
+            preparedCacheBytes += schematic.estimatedBytes();
+            evict();
+        }
+        return schematic;
+    }
+
+    /** 预设 schematic 被改写/删除后调用。 */
+    public synchronized void invalidatePrepared(String name) {
+        CachedSchematic removed = preparedCache.remove(normalize(name));
+        if (removed != null) {
+            preparedCacheBytes -= removed.schematic().estimatedBytes();
+        }
+    }
+
+    /** 启动预热（异步线程调用）：逐个加载，失败仅记录。 */
+    public void warmUp(Collection<String> names) {
+        for (String name : names) {
+            if (!hasSchematicFile(name)) {
+                logger.warning("[World] Preset cache warm-up skipped, no schematic: " + name);
+                continue;
+            }
+            try {
+                PreparedSchematic schematic = loadPrepared(name);
+                logger.info("[World] Preset cache warmed: " + normalize(name)
+                        + " (palette=" + schematic.paletteSize() + ", runs=" + schematic.runCount() + ")");
+            } catch (Exception e) {
+                logger.log(Level.WARNING, "[World] Preset cache warm-up failed: " + name, e);
+            }
+        }
+    }
+
+    public synchronized String describeCache() {
+        return String.format("entries=%d/%d bytes~%dKB/%dKB hits=%d misses=%d",
+                preparedCache.size(), cacheMaxEntries, preparedCacheBytes / 1024, cacheMaxBytes / 1024,
+                cacheHits, cacheMisses);
+    }
+
+    private void evict() {
+        Iterator<Map.Entry<String, CachedSchematic>> it = preparedCache.entrySet().iterator();
+        while (it.hasNext() && (preparedCache.size() > cacheMaxEntries || preparedCacheBytes > cacheMaxBytes)) {
+            preparedCacheBytes -= it.next().getValue().schematic().estimatedBytes();
+            it.remove();
+        }
+    }
+
+    /**
+     * 将尚无 .gwsb 的旧版 .gws 逐个转换（IO 密集，须在异步线程调用）。
+     * 转换后回读校验并记录文件大小；开启 {@code world.schematic.benchmark-on-convert} 时另记录两种格式的
+     * 加载耗时 / 堆占用对比。失败的保留原文件，下次启动重试。
+     *
+     * @return 成功转换的数量
+     */
+    public int convertLegacySchematics() {
+        File[] files = presetDir.listFiles((dir, n) -> n.toLowerCase(Locale.ROOT).endsWith(".gws"));
+        if (files == null || files.length == 0) {
+            return 0;
+        }
+        int converted = 0;
+        for (File legacy : files) {
+            String name = legacy.getName().substring(0, legacy.getName().length() - 4);
+            File binary = gwsbFile(name);
+            if (binary.isFile()) {
+                continue;
+            }
+            try {
+                SchematicData data = SchematicCodec.readJson(legacy.toPath());
+                SchematicBinaryCodec.write(binary.toPath(), data);
+                SchematicData check = SchematicBinaryCodec.read(binary.toPath());
+                if (check.palette.size() != data.palette.size()
+                        || check.blocks.size() != data.blocks.size()
+                        || check.blockEntities.size() != data.blockEntities.size()) {
+                    Files.deleteIfExists(binary.toPath());
+                    logger.warning("[World] Preset '" + name + "' .gwsb verification failed, keeping .gws");
+                    continue;
+                }
+                String summary = benchmarkOnConvert
+                        ? SchematicFormatBenchmark.compare(legacy.toPath(), binary.toPath(), 3).describe()
+                        : String.format("size %.1fKB -> %.1fKB", legacy.length() / 1024.0, binary.length() / 1024.0);
+                Files.move(legacy.toPath(), new File(presetDir, legacy.getName() + ".bak").toPath(),
+                        StandardCopyOption.REPLACE_EXISTING);
+                converted++;
+                logger.info("[World] Converted preset '" + name + "' to .gwsb: " + summary);
+            } catch (Exception e) {
+                logger.log(Level.WARNING, "[World] Failed to convert preset '" + name + "' to .gwsb", e);
+            }
+        }
+        return converted;
+    }
+
     public PresetMeta get(String name) {
         File file = yamlFile(name);
         if (!file.isFile()) {
             return null;
         }
         YamlConfiguration yaml = YamlConfiguration.loadConfiguration(file);
-        boolean schem = yaml.getBoolean("schematic", false) || gwsFile(name).isFile();
+        boolean schem = yaml.getBoolean("schematic", false) || hasSchematicFile(name);
         return new PresetMeta(
                 normalize(name),
                 yaml.getString("source-world", ""),
@@ -178,14 +350,17 @@ public class PresetService {
     }
 
     public boolean delete(String name) {
+        invalidatePrepared(name);
         boolean ok = true;
         File yml = yamlFile(name);
-        File gws = gwsFile(name);
         if (yml.exists() && !yml.delete()) {
             ok = false;
         }
-        if (gws.exists() && !gws.delete()) {
-            ok = false;
+        for (File schematic : new File[]{gwsbFile(name), gwsFile(name),
+                new File(presetDir, normalize(name) + ".gws.bak")}) {
+            if (schematic.exists() && !schematic.delete()) {
+                ok = false;
+            }
         }
         return ok;
     }
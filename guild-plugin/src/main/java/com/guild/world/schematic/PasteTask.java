@@ -0,0 +1,90 @@
+package com.guild.world.schematic;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 一次进行中的粘贴：进度查询与取消。
+ *
+ * <p>由 {@link SchematicPaster#start} 返回；{@link #cancel()} 后下一个 tick 片段即停止，
+ * 已写入的方块不回滚，{@link #future()} 以 {@link CancellationException} 结束。
+ */
+public final class PasteTask {
+
+    private final int total;
+    private final AtomicInteger processed = new AtomicInteger();
+    private final AtomicInteger skipped = new AtomicInteger();
+    private final AtomicInteger ticks = new AtomicInteger();
+    private final CompletableFuture<Void> future = new CompletableFuture<>();
+    private final long startedAtMs = System.currentTimeMillis();
+    private volatile boolean cancelled;
+
+    PasteTask(int total) {
+        this.total = total;
+    }
+
+    public CompletableFuture<Void> future() {
+        return future;
+    }
+
+    /** 请求取消；已完成的任务无影响。 */
+    public void cancel() {
+        cancelled = true;
+        future.completeExceptionally(new CancellationException("Paste cancelled"));
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    public boolean isDone() {
+        return future.isDone();
+    }
+
+    /** 待处理方块总数（已排除 ignore-air 跳过的空气）。 */
+    public int getTotal() {
+        return total;
+    }
+
+    /** 已处理方块数（含因与世界相同而跳过写入的）。 */
+    public int getProcessed() {
+        return processed.get();
+    }
+
+    /** 与世界中已有状态相同而未写入的方块数。 */
+    public int getSkipped() {
+        return skipped.get();
+    }
+
+    /** 已执行的 tick 片段数。 */
+    public int getTicks() {
+        return ticks.get();
+    }
+
+    /** 0.0 ~ 1.0 */
+    public double getProgress() {
+        return total == 0 ? 1.0 : Math.min(1.0, processed.get() / (double) total);
+    }
+
+    public long getElapsedMs() {
+        return System.currentTimeMillis() - startedAtMs;
+    }
+
+    void addProcessed(int placed, int same) {
+        processed.addAndGet(placed + same);
+        skipped.addAndGet(same);
+    }
+
+    void tick() {
+        ticks.incrementAndGet();
+    }
+
+    void complete() {
+        future.complete(null);
+    }
+
+    void fail(Throwable t) {
+        future.completeExceptionally(t);
+    }
+}
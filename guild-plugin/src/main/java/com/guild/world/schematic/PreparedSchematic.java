@@ -0,0 +1,132 @@
+package com.guild.world.schematic;
+
+import org.bukkit.Bukkit;
+import org.bukkit.block.data.BlockData;
+
+import java.util.List;
+
+/**
+ * 已解码、可直接粘贴的 schematic：调色板已解析为 {@link BlockData}，RLE 存为两个 int 数组。
+ *
+ * <p>不可变，可在多次粘贴之间共享（{@link com.guild.world.preset.PresetService} 的缓存即缓存此对象）。
+ */
+public final class PreparedSchematic {
+
+    private final Vec3i origin;
+    private final Size3i size;
+    private final BlockData[] palette;
+    private final boolean[] air;
+    private final int[] runIndex;
+    private final int[] runLength;
+    /** 第 i 段结束位置（不含）的线性下标，供 {@link #paletteIndexAt} 二分查找 */
+    private final int[] runEnd;
+    private final List<SchematicData.BlockEntityData> blockEntities;
+
+    private PreparedSchematic(Vec3i origin, Size3i size, BlockData[] palette, boolean[] air,
+                              int[] runIndex, int[] runLength,
+                              List<SchematicData.BlockEntityData> blockEntities) {
+        this.origin = origin;
+        this.size = size;
+        this.palette = palette;
+        this.air = air;
+        this.runIndex = runIndex;
+        this.runLength = runLength;
+        this.runEnd = new int[runLength.length];
+        int end = 0;
+        for (int i = 0; i < runLength.length; i++) {
+            end += runLength[i];
+            runEnd[i] = end;
+        }
+        this.blockEntities = blockEntities;
+    }
+
+    /** 解析调色板并展开 RLE 为数组；之后 {@code data.blocks} 不再被引用。 */
+    public static PreparedSchematic of(SchematicData data) {
+        BlockData[] palette = new BlockData[data.palette.size()];
+        boolean[] air = new boolean[palette.length];
+        for (int i = 0; i < palette.length; i++) {
+            palette[i] = Bukkit.createBlockData(data.palette.get(i));
+            air[i] = palette[i].getMaterial().isAir();
+        }
+        int runs = data.blocks.size();
+        int[] runIndex = new int[runs];
+        int[] runLength = new int[runs];
+        for (int i = 0; i < runs; i++) {
+            int[] entry = data.blocks.get(i);
+            runIndex[i] = entry[0];
+            runLength[i] = entry[1];
+        }
+        List<SchematicData.BlockEntityData> tiles = data.blockEntities == null
+                ? List.of() : List.copyOf(data.blockEntities);
+        return new PreparedSchematic(data.origin, data.size, palette, air, runIndex, runLength, tiles);
+    }
+
+    public Vec3i origin() {
+        return origin;
+    }
+
+    public Size3i size() {
+        return size;
+    }
+
+    public int paletteSize() {
+        return palette.length;
+    }
+
+    public int runCount() {
+        return runIndex.length;
+    }
+
+    public List<SchematicData.BlockEntityData> blockEntities() {
+        return blockEntities;
+    }
+
+    /**
+     * 相对选区最小角坐标处的调色板下标（RLE 二分查找）；越界或超出数据末尾返回 -1。
+     */
+    public int paletteIndexAt(int rx, int ry, int rz) {
+        if (rx < 0 || ry < 0 || rz < 0 || rx >= size.dx() || ry >= size.dy() || rz >= size.dz()) {
+            return -1;
+        }
+        int linear = (ry * size.dz() + rz) * size.dx() + rx;
+        int lo = 0;
+        int hi = runEnd.length - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            if (runEnd[mid] <= linear) {
+                lo = mid + 1;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        return lo < runEnd.length ? runIndex[lo] : -1;
+    }
+
+    BlockData state(int paletteIndex) {
+        return palette[paletteIndex];
+    }
+
+    boolean isAir(int paletteIndex) {
+        return air[paletteIndex];
+    }
+
+    int runIndex(int run) {
+        return runIndex[run];
+    }
+
+    int runLength(int run) {
+        return runLength[run];
+    }
+
+    BlockData[] palette() {
+        return palette;
+    }
+
+    /** 粗略内存占用（字节），用于缓存容量控制。 */
+    public long estimatedBytes() {
+        return 64L
+                + (long) runIndex.length * 12
+                + (long) palette.length * 256
+                + (long) blockEntities.size() * 512;
+    }
+}
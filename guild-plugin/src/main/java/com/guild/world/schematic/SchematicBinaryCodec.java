@@ -0,0 +1,331 @@
+package com.guild.world.schematic;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.reflect.TypeToken;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Type;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * {@link SchematicData} ↔ {@code .gwsb}（二进制）编解码。
+ *
+ * <p>布局（头部不压缩，正文按标志位 GZIP）：
+ * <pre>
+ *   magic "GWSB" | u8 formatVersion | u8 flags
+ *   origin: zigzag varint ×3 | size: varint ×3
+ *   palette: varint n, n × (varint len, UTF-8)
+ *   blocks:  varint runs, runs × (varint paletteIndex, varint runLength)
+ *   tiles:   varint n, n × (varint x, y, z, string kind, varint len, JSON blob)
+ * </pre>
+ * 方块实体数据保持 {@link TileStateIO} 的 Map 结构，以带长度前缀的 JSON 存储，读取时可按长度跳过。
+ * 读写均通过 {@link FileChannel} + 定长 {@link ByteBuffer} 流式进行，不在内存中构造整个 JSON 树。
+ */
+public final class SchematicBinaryCodec {
+
+    public static final String EXTENSION = ".gwsb";
+    static final byte[] MAGIC = {'G', 'W', 'S', 'B'};
+    static final int BINARY_VERSION = 1;
+    private static final int FLAG_GZIP = 1;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    /** 长度字段来自文件，预分配上限防止损坏文件一次申请巨量内存。 */
+    private static final int INITIAL_CAPACITY_LIMIT = 1 << 16;
+
+    private static final Gson GSON = new GsonBuilder().disableHtmlEscaping().create();
+    private static final Type TILE_DATA_TYPE = new TypeToken<Map<String, Object>>() {
+    }.getType();
+
+    private SchematicBinaryCodec() {
+    }
+
+    /** 写入临时文件后原子替换，避免读到半截文件。 */
+    public static void write(Path file, SchematicData data) throws IOException {
+        Files.createDirectories(file.getParent());
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate(MAGIC.length + 2);
+            header.put(MAGIC).put((byte) BINARY_VERSION).put((byte) FLAG_GZIP).flip();
+            while (header.hasRemaining()) {
+                channel.write(header);
+            }
+            OutputStream gzip = new GZIPOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE);
+            try (Out out = new Out(Channels.newChannel(gzip))) {
+                writeBody(out, data);
+            }
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    public static SchematicData read(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(MAGIC.length + 2);
+            while (header.hasRemaining()) {
+                if (channel.read(header) < 0) {
+                    throw new EOFException("Truncated schematic header: " + file);
+                }
+            }
+            header.flip();
+            for (byte b : MAGIC) {
+                if (header.get() != b) {
+                    throw new IOException("Not a .gwsb schematic: " + file);
+                }
+            }
+            int version = header.get() & 0xff;
+            if (version > BINARY_VERSION) {
+                throw new IOException("Unsupported .gwsb version " + version + ": " + file);
+            }
+            int flags = header.get() & 0xff;
+            ReadableByteChannel body = channel;
+            if ((flags & FLAG_GZIP) != 0) {
+                InputStream gzip = new GZIPInputStream(Channels.newInputStream(channel), BUFFER_SIZE);
+                body = Channels.newChannel(gzip);
+            }
+            return readBody(new In(body));
+        }
+    }
+
+    /** 文件是否以 .gwsb 魔数开头。 */
+    public static boolean isBinary(Path file) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer head = ByteBuffer.allocate(MAGIC.length);
+            while (head.hasRemaining() && channel.read(head) >= 0) {
+                // fill
+            }
+            if (head.hasRemaining()) {
+                return false;
+            }
+            head.flip();
+            for (byte b : MAGIC) {
+                if (head.get() != b) {
+                    return false;
+                }
+            }
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static void writeBody(Out out, SchematicData data) throws IOException {
+        Vec3i origin = data.origin == null ? new Vec3i(0, 0, 0) : data.origin;
+        Size3i size = data.size == null ? new Size3i(1, 1, 1) : data.size;
+        out.varint(data.version);
+        out.zigzag(origin.x());
+        out.zigzag(origin.y());
+        out.zigzag(origin.z());
+        out.varint(size.dx());
+        out.varint(size.dy());
+        out.varint(size.dz());
+
+        List<String> palette = data.palette == null ? List.of() : data.palette;
+        out.varint(palette.size());
+        for (String state : palette) {
+            out.string(state);
+        }
+
+        List<int[]> blocks = data.blocks == null ? List.of() : data.blocks;
+        out.varint(blocks.size());
+        for (int[] run : blocks) {
+            out.varint(run[0]);
+            out.varint(run[1]);
+        }
+
+        List<SchematicData.BlockEntityData> tiles = data.blockEntities == null
+                ? List.of() : data.blockEntities;
+        out.varint(tiles.size());
+        for (SchematicData.BlockEntityData be : tiles) {
+            out.zigzag(be.x);
+            out.zigzag(be.y);
+            out.zigzag(be.z);
+            out.string(be.kind == null ? "" : be.kind);
+            out.bytes(be.data == null || be.data.isEmpty()
+                    ? new byte[0]
+                    : GSON.toJson(be.data).getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private static SchematicData readBody(In in) throws IOException {
+        SchematicData data = new SchematicData();
+        data.version = in.varint();
+        data.origin = new Vec3i(in.zigzag(), in.zigzag(), in.zigzag());
+        data.size = new Size3i(in.varint(), in.varint(), in.varint());
+
+        int paletteSize = in.varint();
+        data.palette = new ArrayList<>(Math.min(paletteSize, INITIAL_CAPACITY_LIMIT));
+        for (int i = 0; i < paletteSize; i++) {
+            data.palette.add(in.string());
+        }
+
+        int runs = in.varint();
+        data.blocks = new ArrayList<>(Math.min(runs, INITIAL_CAPACITY_LIMIT));
+        for (int i = 0; i < runs; i++) {
+            int index = in.varint();
+            if (index >= paletteSize) {
+                throw new IOException("Palette index " + index + " out of range " + paletteSize);
+            }
+            data.blocks.add(new int[]{index, in.varint()});
+        }
+
+        int tileCount = in.varint();
+        data.blockEntities = new ArrayList<>(Math.min(tileCount, INITIAL_CAPACITY_LIMIT));
+        for (int i = 0; i < tileCount; i++) {
+            SchematicData.BlockEntityData be = new SchematicData.BlockEntityData();
+            be.x = in.zigzag();
+            be.y = in.zigzag();
+            be.z = in.zigzag();
+            be.kind = in.string();
+            byte[] blob = in.bytes();
+            be.data = blob.length == 0 ? Map.of()
+                    : GSON.fromJson(new String(blob, StandardCharsets.UTF_8), TILE_DATA_TYPE);
+            data.blockEntities.add(be);
+        }
+        return data;
+    }
+
+    /** 基于定长 ByteBuffer 的 varint 写出。 */
+    private static final class Out implements AutoCloseable {
+        private final WritableByteChannel channel;
+        private final ByteBuffer buf = ByteBuffer.allocate(BUFFER_SIZE);
+
+        Out(WritableByteChannel channel) {
+            this.channel = channel;
+        }
+
+        void varint(int value) throws IOException {
+            ensure(5);
+            while ((value & ~0x7F) != 0) {
+                buf.put((byte) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            buf.put((byte) value);
+        }
+
+        void zigzag(int value) throws IOException {
+            varint((value << 1) ^ (value >> 31));
+        }
+
+        void string(String s) throws IOException {
+            bytes(s.getBytes(StandardCharsets.UTF_8));
+        }
+
+        void bytes(byte[] b) throws IOException {
+            varint(b.length);
+            int off = 0;
+            while (off < b.length) {
+                ensure(1);
+                int n = Math.min(buf.remaining(), b.length - off);
+                buf.put(b, off, n);
+                off += n;
+            }
+        }
+
+        private void ensure(int n) throws IOException {
+            if (buf.remaining() < n) {
+                flush();
+            }
+        }
+
+        private void flush() throws IOException {
+            buf.flip();
+            while (buf.hasRemaining()) {
+                channel.write(buf);
+            }
+            buf.clear();
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+            channel.close();
+        }
+    }
+
+    /** 基于定长 ByteBuffer 的 varint 读取。 */
+    private static final class In {
+        private static final int MAX_BLOB = 16 * 1024 * 1024;
+
+        private final ReadableByteChannel channel;
+        private final ByteBuffer buf = ByteBuffer.allocate(BUFFER_SIZE);
+
+        In(ReadableByteChannel channel) {
+            this.channel = channel;
+            buf.flip();
+        }
+
+        int varint() throws IOException {
+            int value = 0;
+            for (int shift = 0; shift < 35; shift += 7) {
+                byte b = next();
+                value |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IOException("Malformed varint");
+        }
+
+        int zigzag() throws IOException {
+            int v = varint();
+            return (v >>> 1) ^ -(v & 1);
+        }
+
+        String string() throws IOException {
+            return new String(bytes(), StandardCharsets.UTF_8);
+        }
+
+        byte[] bytes() throws IOException {
+            int len = varint();
+            if (len < 0 || len > MAX_BLOB) {
+                throw new IOException("Invalid length " + len);
+            }
+            byte[] out = new byte[len];
+            int off = 0;
+            while (off < len) {
+                fill();
+                int n = Math.min(buf.remaining(), len - off);
+                buf.get(out, off, n);
+                off += n;
+            }
+            return out;
+        }
+
+        private byte next() throws IOException {
+            fill();
+            return buf.get();
+        }
+
+        private void fill() throws IOException {
+            if (buf.hasRemaining()) {
+                return;
+            }
+            buf.clear();
+            int n;
+            do {
+                n = channel.read(buf);
+            } while (n == 0);
+            buf.flip();
+            if (n < 0) {
+                throw new EOFException("Truncated schematic");
+            }
+        }
+    }
+}
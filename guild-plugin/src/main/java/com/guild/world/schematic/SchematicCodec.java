@@ -16,7 +16,12 @@ import java.nio.file.Path;
 import java.util.zip.GZIPInputStream;
 import java.util.zip.GZIPOutputStream;
 
-/** {@link SchematicData} ↔ {@code .gws}（GZIP + JSON）编解码。 */
+/**
+ * {@link SchematicData} 文件编解码入口。
+ *
+ * <p>{@link #read} 按文件头自动识别 {@code .gwsb}（{@link SchematicBinaryCodec}）与旧版
+ * {@code .gws}（GZIP + JSON）；{@link #write} 按扩展名选择格式，新预设一律写 {@code .gwsb}。
+ */
 public final class SchematicCodec {
 
     private static final Gson GSON = new GsonBuilder().disableHtmlEscaping().create();
@@ -25,6 +30,22 @@ public final class SchematicCodec {
     }
 
     public static void write(Path file, SchematicData data) throws IOException {
+        if (file.getFileName().toString().endsWith(SchematicBinaryCodec.EXTENSION)) {
+            SchematicBinaryCodec.write(file, data);
+        } else {
+            writeJson(file, data);
+        }
+    }
+
+    public static SchematicData read(Path file) throws IOException {
+        if (SchematicBinaryCodec.isBinary(file)) {
+            return SchematicBinaryCodec.read(file);
+        }
+        return readJson(file);
+    }
+
+    /** 旧版 .gws（GZIP + JSON）。 */
+    public static void writeJson(Path file, SchematicData data) throws IOException {
         Files.createDirectories(file.getParent());
         try (Writer w = new OutputStreamWriter(
                 new GZIPOutputStream(new BufferedOutputStream(Files.newOutputStream(file))),
@@ -33,7 +54,8 @@ public final class SchematicCodec {
         }
     }
 
-    public static SchematicData read(Path file) throws IOException {
+    /** 旧版 .gws（GZIP + JSON）。 */
+    public static SchematicData readJson(Path file) throws IOException {
         try (Reader r = new InputStreamReader(
                 new GZIPInputStream(new BufferedInputStream(Files.newInputStream(file))),
                 StandardCharsets.UTF_8)) {
@@ -2,24 +2,28 @@ package com.guild.world.schematic;
 
 import com.guild.core.utils.CompatibleScheduler;
 import com.guild.core.utils.ServerUtils;
+import org.bukkit.Chunk;
+import org.bukkit.ChunkSnapshot;
 import org.bukkit.Location;
-import org.bukkit.Material;
 import org.bukkit.World;
-import org.bukkit.block.Block;
 import org.bukkit.block.BlockState;
 import org.bukkit.block.TileState;
+import org.bukkit.block.data.BlockData;
 import org.bukkit.plugin.java.JavaPlugin;
 
 import java.util.ArrayList;
-import java.util.LinkedHashMap;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Logger;
 
 /**
  * 从世界选区导出 {@link SchematicData}（Folia 按区块区域线程读取）。
+ *
+ * <p>区域线程上只做两件事：取 {@link ChunkSnapshot}，以及对区块内实际存在的方块实体序列化；
+ * 调色板去重（BlockData → 下标，每种状态只调用一次 {@code getAsString()}）与 RLE 在异步线程上
+ * 直接按 y/z/x 顺序扫描快照写入 {@link SchematicData}，不再为每个方块分配中间对象。
  */
 public final class SchematicExporter {
 
@@ -53,18 +57,21 @@ public final class SchematicExporter {
 
         Vec3i origin = clampOrigin(originRel, dx, dy, dz);
 
-        // 按 chunk 收集原始方块字符串与 tile
-        Map<Long, List<Captured>> byChunk = new ConcurrentHashMap<>();
-        List<CompletableFuture<Void>> tasks = new ArrayList<>();
         int minCx = minX >> 4;
         int maxCx = maxX >> 4;
         int minCz = minZ >> 4;
         int maxCz = maxZ >> 4;
+        int chunksX = maxCx - minCx + 1;
+        int chunksZ = maxCz - minCz + 1;
+        ChunkSnapshot[] snapshots = new ChunkSnapshot[chunksX * chunksZ];
+        List<SchematicData.BlockEntityData> tiles = new ArrayList<>();
+        List<CompletableFuture<Void>> tasks = new ArrayList<>();
 
         for (int cx = minCx; cx <= maxCx; cx++) {
             for (int cz = minCz; cz <= maxCz; cz++) {
                 final int fcx = cx;
                 final int fcz = cz;
+                final int slot = (fcx - minCx) * chunksZ + (fcz - minCz);
                 CompletableFuture<Void> cf = new CompletableFuture<>();
                 tasks.add(cf);
                 int sampleX = Math.max(minX, fcx << 4);
@@ -72,41 +79,17 @@ public final class SchematicExporter {
                 Location sample = new Location(world, sampleX, minY, sampleZ);
                 CompatibleScheduler.runTask(plugin, sample, () -> {
                     try {
-                        List<Captured> list = new ArrayList<>();
-                        int xStart = Math.max(minX, fcx << 4);
-                        int xEnd = Math.min(maxX, (fcx << 4) + 15);
-                        int zStart = Math.max(minZ, fcz << 4);
-                        int zEnd = Math.min(maxZ, (fcz << 4) + 15);
-                        for (int y = minY; y <= maxY; y++) {
-                            for (int z = zStart; z <= zEnd; z++) {
-                                for (int x = xStart; x <= xEnd; x++) {
-                                    Block b = world.getBlockAt(x, y, z);
-                                    String state = b.getBlockData().getAsString();
-                                    SchematicData.BlockEntityData be = null;
-                                    if (includeBlockEntities) {
-                                        try {
-                                            BlockState bs = b.getState();
-                                            if (bs instanceof TileState ts) {
-                                                Map<String, Object> data = TileStateIO.serialize(ts, logger);
-                                                if (data != null) {
-                                                    be = new SchematicData.BlockEntityData();
-                                                    be.x = x - minX;
-                                                    be.y = y - minY;
-                                                    be.z = z - minZ;
-                                                    be.kind = b.getType().getKey().toString();
-                                                    be.data = data;
-                                                }
-                                            }
-                                        } catch (Throwable ignored) {
-                                            // 方块实体失败则仅保留方块
-                                        }
-                                    }
-                                    list.add(new Captured(x - minX, y - minY, z - minZ, state, be));
+                        Chunk chunk = world.getChunkAt(fcx, fcz);
+                        snapshots[slot] = chunk.getChunkSnapshot(false, false, false);
+                        if (includeBlockEntities) {
+                            List<SchematicData.BlockEntityData> local = captureTiles(chunk,
+                                    minX, minY, minZ, maxX, maxY, maxZ, logger);
+                            if (!local.isEmpty()) {
+                                synchronized (tiles) {
+                                    tiles.addAll(local);
                                 }
                             }
                         }
-                        long key = (((long) fcx) << 32) ^ (fcz & 0xffffffffL);
-                        byChunk.put(key, list);
                         cf.complete(null);
                     } catch (Throwable t) {
                         cf.completeExceptionally(t);
@@ -116,45 +99,81 @@ public final class SchematicExporter {
         }
 
         return CompletableFuture.allOf(tasks.toArray(CompletableFuture[]::new))
-                .thenApplyAsync(v -> assemble(dx, dy, dz, origin, byChunk, includeBlockEntities, logger));
+                .thenApplyAsync(v -> assemble(minX, minY, minZ, dx, dy, dz, origin,
+                        minCx, minCz, chunksZ, snapshots, tiles, logger));
     }
 
-    private static SchematicData assemble(int dx, int dy, int dz, Vec3i origin,
-                                          Map<Long, List<Captured>> byChunk,
-                                          boolean includeBlockEntities,
-                                          Logger logger) {
-        String[][][] grid = new String[dx][dy][dz];
-        List<SchematicData.BlockEntityData> bes = new ArrayList<>();
-        for (List<Captured> list : byChunk.values()) {
-            for (Captured c : list) {
-                grid[c.x][c.y][c.z] = c.state;
-                if (includeBlockEntities && c.be != null) {
-                    bes.add(c.be);
+    /** 只对区块中已存在的方块实体取状态，而不是对选区每个方块调用 {@code getState()}。 */
+    private static List<SchematicData.BlockEntityData> captureTiles(Chunk chunk,
+                                                                    int minX, int minY, int minZ,
+                                                                    int maxX, int maxY, int maxZ,
+                                                                    Logger logger) {
+        List<SchematicData.BlockEntityData> out = new ArrayList<>();
+        for (BlockState bs : chunk.getTileEntities()) {
+            int x = bs.getX();
+            int y = bs.getY();
+            int z = bs.getZ();
+            if (x < minX || x > maxX || y < minY || y > maxY || z < minZ || z > maxZ) {
+                continue;
+            }
+            if (!(bs instanceof TileState ts)) {
+                continue;
+            }
+            try {
+                Map<String, Object> data = TileStateIO.serialize(ts, logger);
+                if (data != null) {
+                    SchematicData.BlockEntityData be = new SchematicData.BlockEntityData();
+                    be.x = x - minX;
+                    be.y = y - minY;
+                    be.z = z - minZ;
+                    be.kind = bs.getType().getKey().toString();
+                    be.data = data;
+                    out.add(be);
                 }
+            } catch (Throwable ignored) {
+                // 方块实体失败则仅保留方块
             }
         }
+        return out;
+    }
 
+    private static SchematicData assemble(int minX, int minY, int minZ,
+                                          int dx, int dy, int dz, Vec3i origin,
+                                          int minCx, int minCz, int chunksZ,
+                                          ChunkSnapshot[] snapshots,
+                                          List<SchematicData.BlockEntityData> tiles,
+                                          Logger logger) {
         SchematicData out = new SchematicData();
         out.origin = origin;
         out.size = new Size3i(dx, dy, dz);
         out.palette = new ArrayList<>();
         out.blocks = new ArrayList<>();
-        out.blockEntities = bes;
+        out.blockEntities = tiles;
 
-        Map<String, Integer> paletteIndex = new LinkedHashMap<>();
+        Map<BlockData, Integer> paletteIndex = new HashMap<>();
         int currentIndex = -1;
         int run = 0;
         for (int y = 0; y < dy; y++) {
+            int wy = minY + y;
             for (int z = 0; z < dz; z++) {
+                int wz = minZ + z;
+                int chunkRow = (wz >> 4) - minCz;
+                ChunkSnapshot snap = null;
+                int snapCx = Integer.MIN_VALUE;
                 for (int x = 0; x < dx; x++) {
-                    String state = grid[x][y][z];
-                    if (state == null) {
-                        state = Material.AIR.createBlockData().getAsString();
+                    int wx = minX + x;
+                    int cx = wx >> 4;
+                    if (cx != snapCx) {
+                        snapCx = cx;
+                        snap = snapshots[(cx - minCx) * chunksZ + chunkRow];
+                    }
+                    BlockData data = snap.getBlockData(wx & 15, wy, wz & 15);
+                    Integer idx = paletteIndex.get(data);
+                    if (idx == null) {
+                        idx = out.palette.size();
+                        out.palette.add(data.getAsString());
+                        paletteIndex.put(data, idx);
                     }
-                    int idx = paletteIndex.computeIfAbsent(state, s -> {
-                        out.palette.add(s);
-                        return out.palette.size() - 1;
-                    });
                     if (idx == currentIndex) {
                         run++;
                     } else {
@@ -173,6 +192,7 @@ public final class SchematicExporter {
         if (logger != null) {
             logger.info("[World] Schematic exported: " + dx + "x" + dy + "x" + dz
                     + " palette=" + out.palette.size()
+                    + " runs=" + out.blocks.size()
                     + " tiles=" + out.blockEntities.size()
                     + " folia=" + ServerUtils.isFolia());
         }
@@ -188,7 +208,4 @@ public final class SchematicExporter {
         int oz = Math.max(0, Math.min(dz - 1, originRel.z()));
         return new Vec3i(ox, oy, oz);
     }
-
-    private record Captured(int x, int y, int z, String state, SchematicData.BlockEntityData be) {
-    }
 }
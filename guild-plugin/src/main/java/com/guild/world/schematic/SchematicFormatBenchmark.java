@@ -0,0 +1,79 @@
+package com.guild.world.schematic;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * 对同一 schematic 的 {@code .gws}（JSON）与 {@code .gwsb}（二进制）做加载耗时 / 堆占用对比。
+ *
+ * <p>堆占用为「GC 后加载并持有结果」前后的已用堆差值，仅作量级参考。会调用 {@link System#gc()}
+ * 并多次全量加载，只在配置 {@code world.schematic.benchmark-on-convert} 开启时由
+ * {@link com.guild.world.preset.PresetService#convertLegacySchematics} 调用，不应在正常运行的服务器上启用。
+ */
+public final class SchematicFormatBenchmark {
+
+    public record Result(long jsonBytes, long binaryBytes,
+                         double jsonLoadMs, double binaryLoadMs,
+                         long jsonHeapBytes, long binaryHeapBytes) {
+
+        public String describe() {
+            return String.format("size %s -> %s, load %.1fms -> %.1fms, heap ~%s -> ~%s",
+                    human(jsonBytes), human(binaryBytes), jsonLoadMs, binaryLoadMs,
+                    human(jsonHeapBytes), human(binaryHeapBytes));
+        }
+
+        private static String human(long bytes) {
+            if (bytes < 1024) {
+                return bytes + "B";
+            }
+            if (bytes < 1024 * 1024) {
+                return String.format("%.1fKB", bytes / 1024.0);
+            }
+            return String.format("%.1fMB", bytes / (1024.0 * 1024.0));
+        }
+    }
+
+    @FunctionalInterface
+    private interface Loader {
+        SchematicData load(Path file) throws IOException;
+    }
+
+    private SchematicFormatBenchmark() {
+    }
+
+    /**
+     * @param rounds 每种格式的计时轮数（另有一轮预热，不计入）
+     */
+    public static Result compare(Path gws, Path gwsb, int rounds) throws IOException {
+        int n = Math.max(1, rounds);
+        return new Result(
+                Files.size(gws), Files.size(gwsb),
+                averageLoadMs(SchematicCodec::readJson, gws, n),
+                averageLoadMs(SchematicBinaryCodec::read, gwsb, n),
+                retainedHeap(SchematicCodec::readJson, gws),
+                retainedHeap(SchematicBinaryCodec::read, gwsb));
+    }
+
+    private static double averageLoadMs(Loader loader, Path file, int rounds) throws IOException {
+        loader.load(file);
+        long start = System.nanoTime();
+        for (int i = 0; i < rounds; i++) {
+            loader.load(file);
+        }
+        return (System.nanoTime() - start) / 1_000_000.0 / rounds;
+    }
+
+    private static long retainedHeap(Loader loader, Path file) throws IOException {
+        Runtime rt = Runtime.getRuntime();
+        System.gc();
+        long before = rt.totalMemory() - rt.freeMemory();
+        SchematicData held = loader.load(file);
+        System.gc();
+        long after = rt.totalMemory() - rt.freeMemory();
+        if (held.blocks == null) {
+            return 0;
+        }
+        return Math.max(0, after - before);
+    }
+}
@@ -1,30 +1,62 @@
 package com.guild.world.schematic;
 
 import com.guild.core.utils.CompatibleScheduler;
-import org.bukkit.Bukkit;
+import com.guild.core.utils.ServerUtils;
 import org.bukkit.Location;
+import org.bukkit.Material;
 import org.bukkit.World;
 import org.bukkit.block.Block;
-import org.bukkit.block.BlockState;
 import org.bukkit.block.data.BlockData;
 import org.bukkit.plugin.java.JavaPlugin;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Logger;
 
 /**
  * 将 {@link SchematicData} 粘贴到世界（按区块分组，Folia 走区域线程）。
+ *
+ * <p>方块按区块解码为两个 int 数组（打包坐标 + 调色板下标），再由若干「通道」逐 tick 消费。
+ * {@link Budget} 是每个 tick 线程的总预算：同一 tick 内在同一线程上运行的所有粘贴的所有通道
+ * 共同最多写 {@link Budget#blocksPerTick()} 个方块、耗时不超过 {@link Budget#maxNanosPerTick()}，
+ * 用完即在下一 tick 续跑（见 {@link TickWindow}）。非 Folia 每个粘贴只有一个通道、全部在主线程；
+ * Folia 按区域分段（16×16 区块）各一个通道，在各自区域线程上并行，每个区域线程各有一份预算。
+ * 与世界中现有状态相同的方块不写入。返回的 {@link PasteTask} 提供进度与取消。
  */
 public final class SchematicPaster {
 
+    /** Folia 区域分段边长（区块，2^4）；同一分段总属于同一区域。 */
+    private static final int REGION_SECTION_SHIFT = 4;
+    /** 每处理这么多方块检查一次耗时，避免每块都调用 nanoTime。 */
+    private static final int CLOCK_CHECK_INTERVAL = 64;
+
+    /**
+     * 每 tick 的粘贴预算（同一 tick 线程上的所有进行中粘贴共享）。
+     *
+     * @param blocksPerTick   每 tick 最多处理的方块数
+     * @param maxNanosPerTick 每 tick 最长耗时（纳秒）
+     */
+    public record Budget(int blocksPerTick, long maxNanosPerTick) {
+        public static final Budget DEFAULT = of(4096, 8.0);
+
+        public static Budget of(int blocksPerTick, double maxMillisPerTick) {
+            return new Budget(Math.max(64, blocksPerTick),
+                    Math.max(TimeUnit.MICROSECONDS.toNanos(500), (long) (maxMillisPerTick * 1_000_000L)));
+        }
+    }
+
     private SchematicPaster() {
     }
 
     /**
+     * 使用默认预算粘贴，返回完成 future。
+     *
      * @param pasteAt schematic.origin 对齐到的世界坐标
      * @param ignoreAir 是否跳过空气方块
      */
@@ -37,42 +69,85 @@ public final class SchematicPaster {
             boolean applyBlockEntities,
             Logger logger
     ) {
-        if (world == null || pasteAt == null || data == null) {
-            return CompletableFuture.failedFuture(new IllegalArgumentException("Invalid paste args"));
+        return start(plugin, world, pasteAt, data, ignoreAir, applyBlockEntities, Budget.DEFAULT, logger).future();
+    }
+
+    /**
+     * 开始分 tick 粘贴（先解码调色板）。
+     *
+     * @param pasteAt schematic.origin 对齐到的世界坐标
+     * @param ignoreAir 是否跳过空气方块
+     * @param budget 每 tick 预算
+     */
+    public static PasteTask start(
+            JavaPlugin plugin,
+            World world,
+            Location pasteAt,
+            SchematicData data,
+            boolean ignoreAir,
+            boolean applyBlockEntities,
+            Budget budget,
+            Logger logger
+    ) {
+        if (data == null) {
+            PasteTask failed = new PasteTask(0);
+            failed.fail(new IllegalArgumentException("Invalid paste args"));
+            return failed;
         }
+        return start(plugin, world, pasteAt, PreparedSchematic.of(data), ignoreAir, applyBlockEntities, budget, logger);
+    }
 
-        List<BlockData> palette = new ArrayList<>(data.palette.size());
-        for (String state : data.palette) {
-            palette.add(Bukkit.createBlockData(state));
+    /**
+     * 开始分 tick 粘贴已解码的 schematic。分组可在任意线程执行；写方块始终在所属区域线程。
+     *
+     * @param pasteAt schematic.origin 对齐到的世界坐标
+     * @param ignoreAir 是否跳过空气方块
+     * @param budget 每 tick 预算
+     */
+    public static PasteTask start(
+            JavaPlugin plugin,
+            World world,
+            Location pasteAt,
+            PreparedSchematic schematic,
+            boolean ignoreAir,
+            boolean applyBlockEntities,
+            Budget budget,
+            Logger logger
+    ) {
+        if (world == null || pasteAt == null || schematic == null) {
+            PasteTask failed = new PasteTask(0);
+            failed.fail(new IllegalArgumentException("Invalid paste args"));
+            return failed;
         }
 
-        int ox = pasteAt.getBlockX() - data.origin.x();
-        int oy = pasteAt.getBlockY() - data.origin.y();
-        int oz = pasteAt.getBlockZ() - data.origin.z();
-        int dx = data.size.dx();
-        int dy = data.size.dy();
-        int dz = data.size.dz();
+        BlockData[] palette = schematic.palette();
+        int ox = pasteAt.getBlockX() - schematic.origin().x();
+        int oy = pasteAt.getBlockY() - schematic.origin().y();
+        int oz = pasteAt.getBlockZ() - schematic.origin().z();
+        int dx = schematic.size().dx();
+        int dy = schematic.size().dy();
+        int dz = schematic.size().dz();
+        int runs = schematic.runCount();
 
-        Map<Long, List<Voxel>> blocksByChunk = new HashMap<>();
+        Map<Long, ChunkBatch> batches = new LinkedHashMap<>();
+        int total = 0;
         int y = 0, z = 0, x = 0, r = 0, runRemaining = 0, idx = 0;
         while (y < dy) {
             if (runRemaining == 0) {
-                if (r >= data.blocks.size()) {
+                if (r >= runs) {
                     break;
                 }
-                int[] entry = data.blocks.get(r++);
-                idx = entry[0];
-                runRemaining = entry[1];
+                idx = schematic.runIndex(r);
+                runRemaining = schematic.runLength(r);
+                r++;
             }
             runRemaining--;
-            BlockData bd = palette.get(idx);
-            boolean air = bd.getMaterial().isAir();
-            if (!(ignoreAir && air)) {
+            if (!(ignoreAir && schematic.isAir(idx))) {
                 int wx = ox + x;
-                int wy = oy + y;
                 int wz = oz + z;
-                long key = (((long) (wx >> 4)) << 32) ^ ((wz >> 4) & 0xffffffffL);
-                blocksByChunk.computeIfAbsent(key, k -> new ArrayList<>()).add(new Voxel(wx, wy, wz, bd));
+                batches.computeIfAbsent(chunkKey(wx >> 4, wz >> 4), k -> new ChunkBatch(wx >> 4, wz >> 4))
+                        .add(wx & 15, oy + y, wz & 15, idx);
+                total++;
             }
             if (++x >= dx) {
                 x = 0;
@@ -83,60 +158,305 @@ public final class SchematicPaster {
             }
         }
 
-        Map<Long, List<SchematicData.BlockEntityData>> besByChunk = new HashMap<>();
-        if (applyBlockEntities && data.blockEntities != null) {
-            for (SchematicData.BlockEntityData be : data.blockEntities) {
+        if (applyBlockEntities) {
+            for (SchematicData.BlockEntityData be : schematic.blockEntities()) {
+                int wx = ox + be.x;
+                int wz = oz + be.z;
+                SchematicData.BlockEntityData copy = new SchematicData.BlockEntityData();
+                copy.x = wx;
+                copy.y = oy + be.y;
+                copy.z = wz;
+                copy.kind = be.kind;
+                copy.data = be.data;
+                batches.computeIfAbsent(chunkKey(wx >> 4, wz >> 4), k -> new ChunkBatch(wx >> 4, wz >> 4))
+                        .tiles.add(copy);
+            }
+        }
+
+        PasteTask task = new PasteTask(total);
+        launch(plugin, world, palette, batches, budget, task, logger, "Schematic pasted at "
+                + pasteAt.getBlockX() + "," + pasteAt.getBlockY() + "," + pasteAt.getBlockZ());
+        return task;
+    }
+
+    /**
+     * 只恢复给定世界坐标处的方块为 schematic 原样（对局中被改动的位置）；
+     * 落在 schematic 范围外的位置恢复为空气。仍按 tick 预算分批写入。
+     * <p>容器内容、熔炉等状态变化不会产生方块改动，因此 {@code applyBlockEntities} 时总是重写
+     * schematic 中的全部方块实体，而不仅是改动位置上的。
+     *
+     * @param positions 打包坐标，见 {@link #packPosition}
+     */
+    public static PasteTask restore(
+            JavaPlugin plugin,
+            World world,
+            Location pasteAt,
+            PreparedSchematic schematic,
+            long[] positions,
+            boolean applyBlockEntities,
+            Budget budget,
+            Logger logger
+    ) {
+        if (world == null || pasteAt == null || schematic == null || positions == null) {
+            PasteTask failed = new PasteTask(0);
+            failed.fail(new IllegalArgumentException("Invalid restore args"));
+            return failed;
+        }
+        BlockData[] palette = Arrays.copyOf(schematic.palette(), schematic.paletteSize() + 1);
+        int airIndex = palette.length - 1;
+        palette[airIndex] = Material.AIR.createBlockData();
+
+        int ox = pasteAt.getBlockX() - schematic.origin().x();
+        int oy = pasteAt.getBlockY() - schematic.origin().y();
+        int oz = pasteAt.getBlockZ() - schematic.origin().z();
+        Map<Long, ChunkBatch> batches = new LinkedHashMap<>();
+        for (long packed : positions) {
+            int wx = unpackX(packed);
+            int wy = unpackY(packed);
+            int wz = unpackZ(packed);
+            int idx = schematic.paletteIndexAt(wx - ox, wy - oy, wz - oz);
+            batches.computeIfAbsent(chunkKey(wx >> 4, wz >> 4), k -> new ChunkBatch(wx >> 4, wz >> 4))
+                    .add(wx & 15, wy, wz & 15, idx < 0 ? airIndex : idx);
+        }
+
+        if (applyBlockEntities) {
+            for (SchematicData.BlockEntityData be : schematic.blockEntities()) {
                 int wx = ox + be.x;
                 int wy = oy + be.y;
                 int wz = oz + be.z;
-                long key = (((long) (wx >> 4)) << 32) ^ ((wz >> 4) & 0xffffffffL);
                 SchematicData.BlockEntityData copy = new SchematicData.BlockEntityData();
                 copy.x = wx;
                 copy.y = wy;
                 copy.z = wz;
                 copy.kind = be.kind;
                 copy.data = be.data;
-                besByChunk.computeIfAbsent(key, k -> new ArrayList<>()).add(copy);
+                batches.computeIfAbsent(chunkKey(wx >> 4, wz >> 4), k -> new ChunkBatch(wx >> 4, wz >> 4))
+                        .tiles.add(copy);
             }
         }
 
-        List<CompletableFuture<Void>> tasks = new ArrayList<>();
-        for (var e : blocksByChunk.entrySet()) {
-            final int cx = (int) (e.getKey() >> 32);
-            final int cz = (int) e.getKey().longValue();
-            final List<Voxel> voxels = e.getValue();
-            final List<SchematicData.BlockEntityData> bes = besByChunk.getOrDefault(e.getKey(), List.of());
-            CompletableFuture<Void> cf = new CompletableFuture<>();
-            tasks.add(cf);
-            Location sample = new Location(world, (cx << 4) + 8, pasteAt.getBlockY(), (cz << 4) + 8);
-            CompatibleScheduler.runTask(plugin, sample, () -> {
-                try {
-                    world.getChunkAt(cx, cz);
-                    for (Voxel v : voxels) {
-                        world.getBlockAt(v.x, v.y, v.z).setBlockData(v.bd, false);
-                    }
-                    for (SchematicData.BlockEntityData be : bes) {
-                        Block block = world.getBlockAt(be.x, be.y, be.z);
-                        BlockState state = block.getState();
-                        TileStateIO.apply(state, be.data, logger);
-                    }
-                    cf.complete(null);
-                } catch (Throwable t) {
-                    cf.completeExceptionally(t);
+        PasteTask task = new PasteTask(positions.length);
+        launch(plugin, world, palette, batches, budget, task, logger,
+                "Arena restored " + positions.length + " changed block(s) in " + world.getName());
+        return task;
+    }
+
+    /** 世界坐标打包为 long（x/z 各 26 位，y 12 位，均带符号）。 */
+    public static long packPosition(int x, int y, int z) {
+        return ((long) (x & 0x3FFFFFF) << 38) | ((long) (z & 0x3FFFFFF) << 12) | (y & 0xFFF);
+    }
+
+    static int unpackX(long packed) {
+        return (int) (packed >> 38);
+    }
+
+    static int unpackY(long packed) {
+        return (int) (packed << 52 >> 52);
+    }
+
+    static int unpackZ(long packed) {
+        return (int) (packed << 26 >> 38);
+    }
+
+    private static void launch(JavaPlugin plugin, World world, BlockData[] palette, Map<Long, ChunkBatch> batches,
+                               Budget budget, PasteTask task, Logger logger, String summary) {
+        if (batches.isEmpty()) {
+            task.complete();
+            return;
+        }
+        List<Lane> lanes = partition(batches.values(), ServerUtils.isFolia());
+        AtomicInteger pendingLanes = new AtomicInteger(lanes.size());
+        int chunkCount = batches.size();
+        Runnable onLaneDone = () -> {
+            if (pendingLanes.decrementAndGet() == 0 && !task.isDone()) {
+                task.complete();
+                if (logger != null) {
+                    logger.info("[World] " + summary
+                            + " chunks=" + chunkCount + " lanes=" + lanes.size()
+                            + " blocks=" + task.getProcessed() + " unchanged=" + task.getSkipped()
+                            + " ticks=" + task.getTicks() + " elapsed=" + task.getElapsedMs() + "ms");
                 }
-            });
+            }
+        };
+        for (Lane lane : lanes) {
+            lane.schedule(plugin, world, palette, budget, task, onLaneDone, logger, 0L);
+        }
+    }
+
+    private static List<Lane> partition(Iterable<ChunkBatch> batches, boolean perRegion) {
+        if (!perRegion) {
+            Lane lane = new Lane();
+            batches.forEach(lane.chunks::add);
+            return List.of(lane);
+        }
+        Map<Long, Lane> lanes = new LinkedHashMap<>();
+        for (ChunkBatch batch : batches) {
+            long section = chunkKey(batch.cx >> REGION_SECTION_SHIFT, batch.cz >> REGION_SECTION_SHIFT);
+            lanes.computeIfAbsent(section, k -> new Lane()).chunks.add(batch);
+        }
+        return new ArrayList<>(lanes.values());
+    }
+
+    private static long chunkKey(int cx, int cz) {
+        return (((long) cx) << 32) ^ (cz & 0xffffffffL);
+    }
+
+    /** 单个区块内待写入的方块：pos = y << 8 | lx << 4 | lz，state = 调色板下标。 */
+    private static final class ChunkBatch {
+        final int cx;
+        final int cz;
+        int[] pos = new int[64];
+        int[] state = new int[64];
+        int size;
+        int cursor;
+        final List<SchematicData.BlockEntityData> tiles = new ArrayList<>(0);
+
+        ChunkBatch(int cx, int cz) {
+            this.cx = cx;
+            this.cz = cz;
+        }
+
+        void add(int lx, int y, int lz, int paletteIndex) {
+            if (size == pos.length) {
+                pos = Arrays.copyOf(pos, size << 1);
+                state = Arrays.copyOf(state, size << 1);
+            }
+            pos[size] = (y << 8) | (lx << 4) | lz;
+            state[size] = paletteIndex;
+            size++;
+        }
+
+        Location sample(World world, int y) {
+            return new Location(world, (cx << 4) + 8, y, (cz << 4) + 8);
+        }
+    }
+
+    /**
+     * 当前 tick 线程（Spigot 主线程 / Folia 区域线程）上已用掉的粘贴预算，所有粘贴的所有通道共享。
+     * <p>不依赖服务端 tick 计数（Spigot 与 Folia 区域各不相同）：同一 tick 内的通道回调在调度阶段
+     * 紧挨着执行，距窗口开始超过半个 tick 即视为进入新 tick 并清零。
+     */
+    private static final class TickWindow {
+        private static final long NEW_TICK_AFTER_NANOS = TimeUnit.MILLISECONDS.toNanos(25);
+        private static final ThreadLocal<TickWindow> CURRENT = ThreadLocal.withInitial(TickWindow::new);
+
+        private long startedAt = Long.MIN_VALUE;
+        private int blocks;
+        private long nanos;
+
+        static TickWindow current(long now) {
+            TickWindow window = CURRENT.get();
+            if (window.startedAt == Long.MIN_VALUE || now - window.startedAt >= NEW_TICK_AFTER_NANOS) {
+                window.startedAt = now;
+                window.blocks = 0;
+                window.nanos = 0;
+            }
+            return window;
         }
 
-        if (tasks.isEmpty()) {
-            return CompletableFuture.completedFuture(null);
+        int blocksLeft(Budget budget) {
+            return budget.blocksPerTick() - blocks;
         }
-        return CompletableFuture.allOf(tasks.toArray(CompletableFuture[]::new)).thenRun(() -> {
-            if (logger != null) {
-                logger.info("[World] Schematic pasted at " + pasteAt.getBlockX() + ","
-                        + pasteAt.getBlockY() + "," + pasteAt.getBlockZ()
-                        + " chunks=" + blocksByChunk.size());
+
+        long nanosLeft(Budget budget) {
+            return budget.maxNanosPerTick() - nanos;
+        }
+
+        void consume(int processed, long elapsedNanos) {
+            blocks += processed;
+            nanos += elapsedNanos;
+        }
+    }
+
+    /** 按顺序消费若干区块的队列，每次回调最多用掉当前 tick 线程剩余的共享预算。 */
+    private static final class Lane {
+        final List<ChunkBatch> chunks = new ArrayList<>();
+        int index;
+
+        void schedule(JavaPlugin plugin, World world, BlockData[] palette, Budget budget,
+                      PasteTask task, Runnable onDone, Logger logger, long delay) {
+            ChunkBatch next = chunks.get(index);
+            Location at = next.sample(world, next.size > 0 ? next.pos[next.cursor] >> 8 : 64);
+            Runnable step = () -> run(plugin, world, palette, budget, task, onDone, logger);
+            if (delay <= 0) {
+                CompatibleScheduler.runTask(plugin, at, step);
+            } else {
+                CompatibleScheduler.runTaskLater(plugin, at, step, delay);
             }
-        });
+        }
+
+        private void run(JavaPlugin plugin, World world, BlockData[] palette, Budget budget,
+                         PasteTask task, Runnable onDone, Logger logger) {
+            if (task.isDone()) {
+                return;
+            }
+            long start = System.nanoTime();
+            TickWindow window = TickWindow.current(start);
+            int remaining = window.blocksLeft(budget);
+            long deadline = start + window.nanosLeft(budget);
+            if (remaining <= 0 || deadline <= start) {
+                // 本 tick 的共享预算已被其他粘贴用完
+                schedule(plugin, world, palette, budget, task, onDone, logger, 1L);
+                return;
+            }
+            task.tick();
+            int placed = 0;
+            int same = 0;
+            try {
+                ChunkBatch owned = chunks.get(index);
+                while (index < chunks.size()) {
+                    ChunkBatch batch = chunks.get(index);
+                    if (batch != owned && !CompatibleScheduler.isRegionThread(batch.sample(world, 64))) {
+                        // 下一个区块不归本区域线程所有：切到其区域线程继续
+                        task.addProcessed(placed, same);
+                        schedule(plugin, world, palette, budget, task, onDone, logger, 0L);
+                        return;
+                    }
+                    owned = batch;
+                    int baseX = batch.cx << 4;
+                    int baseZ = batch.cz << 4;
+                    while (batch.cursor < batch.size && remaining > 0) {
+                        int p = batch.pos[batch.cursor];
+                        BlockData bd = palette[batch.state[batch.cursor]];
+                        batch.cursor++;
+                        remaining--;
+                        Block block = world.getBlockAt(baseX + ((p >> 4) & 15), p >> 8, baseZ + (p & 15));
+                        if (block.getBlockData().equals(bd)) {
+                            same++;
+                        } else {
+                            block.setBlockData(bd, false);
+                            placed++;
+                        }
+                        if ((remaining % CLOCK_CHECK_INTERVAL) == 0 && System.nanoTime() >= deadline) {
+                            remaining = 0;
+                        }
+                    }
+                    if (batch.cursor < batch.size) {
+                        break;
+                    }
+                    for (SchematicData.BlockEntityData be : batch.tiles) {
+                        TileStateIO.apply(world.getBlockAt(be.x, be.y, be.z).getState(), be.data, logger);
+                    }
+                    batch.pos = null;
+                    batch.state = null;
+                    index++;
+                    if (remaining <= 0) {
+                        break;
+                    }
+                }
+            } catch (Throwable t) {
+                task.fail(t);
+                return;
+            } finally {
+                window.consume(placed + same, System.nanoTime() - start);
+            }
+            task.addProcessed(placed, same);
+            if (index >= chunks.size()) {
+                onDone.run();
+            } else {
+                schedule(plugin, world, palette, budget, task, onDone, logger, 1L);
+            }
+        }
     }
 
     /** 由 schematic 相对偏移计算世界坐标（相对 origin）。 */
@@ -154,7 +474,4 @@ public final class SchematicPaster {
         return new Location(pasteAt.getWorld(),
                 pasteAt.getX() + dx, pasteAt.getY() + dy, pasteAt.getZ() + dz, yaw, pitch);
     }
-
-    private record Voxel(int x, int y, int z, BlockData bd) {
-    }
 }
@@ -1,7 +1,10 @@
 package com.guild.comm.api;
 
+import com.guild.comm.bridge.MessagePacket;
+import com.guild.comm.debug.TraceContext;
 import org.bukkit.plugin.Plugin;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 
@@ -23,10 +26,24 @@ public class BungeeClientAPI {
     public static String getInitializationError() { return null; }
     public static void setConnectionInfoCallback(Consumer<PlayerConnectionInfo> callback) {}
     public static void setFormResponseCallback(BiConsumer<String, String> callback) {}
+    public static void setOutboundQueueCapacity(int capacity) {}
+    public static int getOutboundQueueDepth() { return 0; }
+    public static TraceContext getOutboundStats() { return new TraceContext("bungee-outbound"); }
 
     public static void sendToBungee(String type, String payload) {}
+    public static void sendToBungee(String type, String payload, int guildId, String targetServer) {}
     public static void pushGuildData(String guildDataJson) {}
+    public static void pushGuildData(int guildId, String guildDataJson) {}
     public static void requestGuildData(int guildId, String targetServer) {}
+    public static CompletableFuture<MessagePacket> requestGuildDataAsync(int guildId, String targetServer, long timeoutMs) {
+        return new CompletableFuture<>();
+    }
+    public static CompletableFuture<MessagePacket> request(String type, String payload, int guildId,
+                                                           String targetServer, long timeoutMs) {
+        return new CompletableFuture<>();
+    }
+    public static void reply(MessagePacket request, String payload) {}
+    public static void replyError(MessagePacket request, String reason) {}
     public static void sendCrossChat(int guildId, String playerName, String message) {}
     public static void broadcastEvent(String eventType, String eventDataJson) {}
 
@@ -7,6 +7,9 @@ public class ExtensionBridge {
 
     private static final ExtensionBridge INSTANCE = new ExtensionBridge();
 
+    public static final String RESPONSE_TYPE = "guild.rpc.response";
+    public static final String ERROR_TYPE = "guild.rpc.error";
+
     private ExtensionBridge() {}
 
     public static ExtensionBridge getInstance() { return INSTANCE; }
@@ -33,6 +36,26 @@ public class ExtensionBridge {
 
     public long nextSequence() { return 0; }
 
+    public java.util.concurrent.CompletableFuture<MessagePacket> request(MessagePacket packet, long timeoutMs) {
+        return new java.util.concurrent.CompletableFuture<>();
+    }
+
+    public java.util.concurrent.CompletableFuture<MessagePacket> awaitResponse(long sequence, String type, long timeoutMs) {
+        return new java.util.concurrent.CompletableFuture<>();
+    }
+
+    public boolean completeRequest(MessagePacket response) { return false; }
+
+    public boolean cancelRequest(long sequence) { return false; }
+
+    public int getInFlightRequests() { return 0; }
+
+    public long getCompletedRequests() { return 0; }
+
+    public long getTimedOutRequests() { return 0; }
+
+    public long getLateResponses() { return 0; }
+
     public void addMessageListener(MessageListener listener) {}
 
     public void removeMessageListener(MessageListener listener) {}
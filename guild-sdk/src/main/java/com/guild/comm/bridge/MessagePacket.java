@@ -14,17 +14,29 @@ public class MessagePacket {
     public String getPayload()   { return "{}"; }
     public long   getSequence()  { return 0; }
     public long   getTimestamp() { return 0; }
+    public int    getGuildId()   { return -1; }
+    public String getTargetServer() { return null; }
+    public long   getCorrelationId() { return 0; }
     public boolean isBroadcast() { return false; }
+    public boolean isResponse() { return false; }
 
     public static Builder create(String type, String source) {
         return new Builder(type, source);
     }
 
+    public static Builder replyTo(MessagePacket request, String source) {
+        return new Builder(ExtensionBridge.RESPONSE_TYPE, source);
+    }
+
     public static class Builder {
         private Builder(String type, String source) {}
         public Builder target(String target) { return this; }
         public Builder payload(String payload) { return this; }
         public Builder sequence(long seq) { return this; }
+        public Builder timestamp(long timestamp) { return this; }
+        public Builder guildId(int guildId) { return this; }
+        public Builder targetServer(String targetServer) { return this; }
+        public Builder correlationId(long correlationId) { return this; }
         public MessagePacket build() { return null; }
     }
 }